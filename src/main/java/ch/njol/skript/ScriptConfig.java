@@ -25,6 +25,7 @@ package ch.njol.skript;
 import ch.njol.skript.hooks.Hook;
 import ch.njol.skript.update.script.ScriptUpdater;
 import ch.njol.skript.util.ScriptOptions;
+import ch.njol.skript.util.Timespan;
 import ch.njol.skript.util.Version;
 import org.bukkit.Bukkit;
 
@@ -32,6 +33,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 final class ScriptConfig {
@@ -90,11 +92,26 @@ final class ScriptConfig {
                 Skript.error("Duplicate loops configuration setting");
                 return ConfigParseResult.CONTINUE;
             }
-            if (ScriptLoader.currentScript != null) {
-                ScriptOptions.getInstance().setUsesNewLoops(Objects.requireNonNull(Objects.requireNonNull(ScriptLoader.currentScript).getFile()), !"old".equalsIgnoreCase(value));
+            if (ScriptLoader.getCurrentScript() != null) {
+                ScriptOptions.getInstance().setUsesNewLoops(Objects.requireNonNull(Objects.requireNonNull(ScriptLoader.getCurrentScript()).getFile()), !"old".equalsIgnoreCase(value));
                 duplicateCheckList.add("loops");
             } else
                 assert false : "null current script";
+        } else if ("loop time budget".equalsIgnoreCase(key)) {
+            if (duplicateCheckList.contains("loop time budget")) {
+                Skript.error("Duplicate loop time budget configuration setting");
+                return ConfigParseResult.CONTINUE;
+            }
+            final Timespan budget = Timespan.parse(value);
+            if (budget == null || budget.getMilliSeconds() <= 0L) {
+                Skript.error("The loop time budget must be a positive timespan, e.g. 0.02 seconds");
+                return ConfigParseResult.CONTINUE;
+            }
+            if (ScriptLoader.getCurrentScript() != null) {
+                ScriptOptions.getInstance().setLoopTimeBudget(Objects.requireNonNull(Objects.requireNonNull(ScriptLoader.getCurrentScript()).getFile()), TimeUnit.MILLISECONDS.toNanos(budget.getMilliSeconds()));
+                duplicateCheckList.add("loop time budget");
+            } else
+                assert false : "null current script";
         } else if ("requires minecraft".equalsIgnoreCase(key)) {
             if (duplicateCheckList.contains("requires minecraft")) {
                 Skript.error("Duplicate requires minecraft configuration setting");
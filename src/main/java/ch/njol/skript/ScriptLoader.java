@@ -58,6 +58,10 @@ import java.io.FileFilter;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
@@ -74,14 +78,10 @@ import java.util.regex.Pattern;
 public final class ScriptLoader {
     public static final boolean COLOR_BASED_ON_LOAD_TIMES = PropertyManager.getBoolean("skript.colorBasedOnLoadTimes");
 
-    public static final List<TriggerSection> currentSections = new ArrayList<>();
-
-    public static final List<Loop> currentLoops = new ArrayList<>();
     /**
      * Filter for enabled scripts & folders.
      */
     public static final FileFilter scriptFilter = f -> f != null && (f.isDirectory() && SkriptConfig.allowScriptsFromSubFolders.value() || StringUtils.endsWithIgnoreCase(f.getName().trim(), ".sk".trim()) && !StringUtils.startsWithIgnoreCase(f.getName().trim(), "-".trim()));
-    static final HashMap<String, String> currentOptions = new HashMap<>();
     /**
      * All loaded script files.
      */
@@ -91,25 +91,22 @@ public final class ScriptLoader {
     private static final Message m_no_errors = new Message("skript.no errors"),
             m_no_scripts = new Message("skript.no scripts");
     private static final PluralizingArgsMessage m_scripts_loaded = new PluralizingArgsMessage("skript.scripts loaded");
-    private static final Map<String, ItemType> currentAliases = new HashMap<>();
-    private static final Map<String, Version> sourceRevisionMap = new HashMap<>(100);
+    private static final Map<String, Version> sourceRevisionMap = Collections.synchronizedMap(new HashMap<>(100));
     private static final Map<String, ScriptInfo> skipFiles = new HashMap<>();
+    /**
+     * The sources and elements of the loaded scripts, used to only parse the changed parts of a script when it is reloaded
+     */
+    static final Map<File, LoadedScript> scriptStates = new HashMap<>(100);
     /**
      * must be synchronized
      */
     private static final ScriptInfo loadedScripts = new ScriptInfo();
-    private static final Matcher FUNC_PATTERN_MATCHER = Pattern.compile("func").matcher("");
-    private static final Matcher FUN_PATTERN_MATCHER = Pattern.compile("fun").matcher("");
-    private static final Matcher OR_PATTERN_MATCHER = Pattern.compile("\" or \"", Pattern.LITERAL).matcher("");
+    private static final Pattern FUNC_PATTERN = Pattern.compile("func");
+    private static final Pattern FUN_PATTERN = Pattern.compile("fun");
+    private static final Pattern OR_PATTERN = Pattern.compile("\" or \"", Pattern.LITERAL);
     private static final String commaSpace = Matcher.quoteReplacement("\", \"");
     private static final Pattern PROJECT_VERSION_PATTERN = Pattern.compile("${project.version}", Pattern.LITERAL);
     @Nullable
-    public static Config currentScript;
-    public static Kleenean hasDelayBefore = Kleenean.FALSE;
-    @Nullable
-    private static
-    Version currentScriptVersion;
-    @Nullable
     private static
     Version cachedDefaultScriptVersion;
     // We don't use static initializer because Skript may not be initialized in that time,
@@ -137,17 +134,6 @@ public final class ScriptLoader {
         }
         return cachedDefaultScriptVersion;
     };
-    /**
-     * use {@link #setCurrentEvent(String, Class...)}
-     */
-    @Nullable
-    private static String currentEventName;
-    /**
-     * use {@link #setCurrentEvent(String, Class...)}
-     */
-    @Nullable
-    private static Class<? extends Event>[] currentEvents;
-    private static String indentation = "";
 
     private static volatile boolean loadingScripts;
 
@@ -157,6 +143,29 @@ public final class ScriptLoader {
     @Nullable
     private static Date loadStart;
 
+    /**
+     * @deprecated Scripts can be loaded on multiple threads, use {@link #getCurrentScript()}. Only set while scripts are loaded on the server thread.
+     */
+    @Deprecated
+    @Nullable
+    public static Config currentScript;
+    /**
+     * @deprecated Scripts can be loaded on multiple threads, use {@link #getHasDelayBefore()} and {@link #setHasDelayBefore(Kleenean)}. Only used while scripts
+     * are loaded on the server thread.
+     */
+    @Deprecated
+    public static Kleenean hasDelayBefore = Kleenean.FALSE;
+    /**
+     * @deprecated Scripts can be loaded on multiple threads, use {@link #getCurrentSections()}. Only used while scripts are loaded on the server thread.
+     */
+    @Deprecated
+    public static final List<TriggerSection> currentSections = new ArrayList<>();
+    /**
+     * @deprecated Scripts can be loaded on multiple threads, use {@link #getCurrentLoops()}. Only used while scripts are loaded on the server thread.
+     */
+    @Deprecated
+    public static final List<Loop> currentLoops = new ArrayList<>();
+
     private ScriptLoader() {
         throw new UnsupportedOperationException();
     }
@@ -248,7 +257,7 @@ public final class ScriptLoader {
 
     @Nullable
     public static final String getCurrentEventName() {
-        return currentEventName;
+        return ParserInstance.get().getCurrentEventName();
     }
 
     /**
@@ -259,9 +268,9 @@ public final class ScriptLoader {
      */
     @SafeVarargs
     public static final void setCurrentEvent(final String name, @Nullable final Class<? extends Event>... events) {
-        currentEventName = name;
-        currentEvents = events;
-        hasDelayBefore = Kleenean.FALSE;
+        final ParserInstance parser = ParserInstance.get();
+        parser.setCurrentEvent(name, events);
+        parser.setHasDelayBefore(Kleenean.FALSE);
     }
 
 //	private static final class SerializedScript {
@@ -272,14 +281,47 @@ public final class ScriptLoader {
 //	}
 
     public static final void deleteCurrentEvent() {
-        currentEventName = null;
-        currentEvents = null;
-        hasDelayBefore = Kleenean.FALSE;
+        final ParserInstance parser = ParserInstance.get();
+        parser.setCurrentEvent(null, null);
+        parser.setHasDelayBefore(Kleenean.FALSE);
         TypeHints.clear(); // Local variables are local to event
     }
 
     public static final Map<String, ItemType> getScriptAliases() {
-        return currentAliases;
+        return ParserInstance.get().getCurrentAliases();
+    }
+
+    /**
+     * @return The script that is currently being loaded by the current thread, or null if no script is being loaded
+     */
+    @Nullable
+    public static final Config getCurrentScript() {
+        return ParserInstance.get().getCurrentScript();
+    }
+
+    /**
+     * @return The sections the currently parsed element is in, innermost last. Sections must add themselves while their content is parsed.
+     */
+    public static final List<TriggerSection> getCurrentSections() {
+        return ParserInstance.get().getCurrentSections();
+    }
+
+    /**
+     * @return The loops the currently parsed element is in, innermost last
+     */
+    public static final List<Loop> getCurrentLoops() {
+        return ParserInstance.get().getCurrentLoops();
+    }
+
+    /**
+     * @return Whatever the currently parsed element is executed after a delay, i.e. whatever the event might have already passed
+     */
+    public static final Kleenean getHasDelayBefore() {
+        return ParserInstance.get().getHasDelayBefore();
+    }
+
+    public static final void setHasDelayBefore(final Kleenean hasDelayBefore) {
+        ParserInstance.get().setHasDelayBefore(hasDelayBefore);
     }
 
     public static final File getScriptsFolder() {
@@ -288,6 +330,7 @@ public final class ScriptLoader {
 
     static final ScriptInfo loadScripts() {
         startTracker();
+        ParseProfiler.clear();
 
         final File scriptsFolder = getScriptsFolder();
         if (!scriptsFolder.isDirectory())
@@ -318,6 +361,13 @@ public final class ScriptLoader {
             Skript.warning(m_no_scripts.toString());
         if (Skript.logNormal() && i.files > 0)
             Skript.info(m_scripts_loaded.toString(i.files, i.triggers, i.commands, start.difference(new Date())));
+        if (ParseProfiler.isEnabled()) {
+            try {
+                Skript.info("Saved the parse profile of the scripts to " + ParseProfiler.save().getName());
+            } catch (final IOException e) {
+                Skript.exception(e, "Could not save the parse profile");
+            }
+        }
 
         SkriptEventHandler.registerBukkitEvents();
         Functions.postCheck(); // Check that all functions which are called exist.
@@ -336,22 +386,35 @@ public final class ScriptLoader {
      * @return Info on the loaded scripts
      */
     public static final ScriptInfo loadScripts(final File directory) {
+        final ScriptInfo i = loadScriptsIn(directory);
+        if (SkriptConfig.enableScriptCaching.value())
+            ParseHints.save();
+        return i;
+    }
+
+    private static final ScriptInfo loadScriptsIn(final File directory) {
         final ScriptInfo i = new ScriptInfo();
         final boolean wasLocal = Language.setUseLocal(false);
         try {
-            final File[] files = directory.listFiles(scriptFilter);
-            assert files != null;
-            Arrays.sort(files);
-            for (final File f : files) {
-                if (skipFiles.containsKey(f.getName())) {
-                    i.add(skipFiles.get(f.getName()));
-
-                    continue;
-                }
-                if (f.isDirectory()) {
-                    i.add(loadScripts(f));
-                } else {
-                    i.add(loadScript(f));
+            if (SkriptConfig.scriptLoaderThreads.value() > 1) {
+                final List<File> files = new ArrayList<>();
+                listScripts(directory, files);
+                i.add(loadScriptsInParallel(files, true));
+            } else {
+                final File[] files = directory.listFiles(scriptFilter);
+                assert files != null;
+                Arrays.sort(files);
+                for (final File f : files) {
+                    if (skipFiles.containsKey(f.getName())) {
+                        i.add(skipFiles.get(f.getName()));
+
+                        continue;
+                    }
+                    if (f.isDirectory()) {
+                        i.add(loadScriptsIn(f));
+                    } else {
+                        i.add(loadScript(f));
+                    }
                 }
             }
         } finally {
@@ -374,9 +437,13 @@ public final class ScriptLoader {
         final ScriptInfo i = new ScriptInfo();
         final boolean wasLocal = Language.setUseLocal(false);
         try {
-            for (final File f : files) {
-                assert f != null : Arrays.toString(files);
-                i.add(loadScript(f));
+            if (SkriptConfig.scriptLoaderThreads.value() > 1 && files.length > 1) {
+                i.add(loadScriptsInParallel(Arrays.asList(files), false));
+            } else {
+                for (final File f : files) {
+                    assert f != null : Arrays.toString(files);
+                    i.add(loadScript(f));
+                }
             }
         } finally {
             if (wasLocal)
@@ -387,11 +454,87 @@ public final class ScriptLoader {
             loadedScripts.add(i);
         }
 
+        if (SkriptConfig.enableScriptCaching.value())
+            ParseHints.save();
+
         SkriptEventHandler.registerBukkitEvents();
         Functions.postCheck(); // Check that all functions which are called exist.
         return i;
     }
 
+    /**
+     * Adds the enabled scripts in the given directory and its subdirectories to the given list, in the order {@link #loadScripts(File)} loads them.
+     */
+    private static final void listScripts(final File directory, final List<File> scripts) {
+        final File[] files = directory.listFiles(scriptFilter);
+        assert files != null;
+        Arrays.sort(files);
+        for (final File f : files) {
+            if (f.isDirectory())
+                listScripts(f, scripts);
+            else
+                scripts.add(f);
+        }
+    }
+
+    /**
+     * Loads the given scripts using {@link SkriptConfig#scriptLoaderThreads} threads to parse their triggers.
+     * <p>
+     * The configuration, options, aliases, variables, commands and functions of all scripts are loaded first on this thread, so triggers of every script can use
+     * them. The triggers are then parsed by the script loader threads, each having its own {@link ParserInstance} and log handlers. Finally the messages logged
+     * while parsing are printed and the triggers are registered on this thread, script by script in the given order, so the result is the same as when
+     * loading one script after another.
+     *
+     * @param files           The script files to load, in the order to load them
+     * @param honourSkipFiles Whatever to skip scripts that were already loaded because another script requires them
+     * @return Info on the loaded scripts
+     */
+    private static final ScriptInfo loadScriptsInParallel(final List<File> files, final boolean honourSkipFiles) {
+        final ScriptInfo i = new ScriptInfo();
+
+        final List<DeferredScript> scripts = new ArrayList<>(files.size());
+        for (final File f : files) {
+            if (honourSkipFiles && skipFiles.containsKey(f.getName())) {
+                i.add(skipFiles.get(f.getName()));
+                continue;
+            }
+            final DeferredScript script = new DeferredScript(f);
+            i.add(loadScript(f, script));
+            if (script.config != null)
+                scripts.add(script);
+        }
+        if (scripts.isEmpty())
+            return i;
+
+        final int threads = Math.min(SkriptConfig.scriptLoaderThreads.value(), scripts.size());
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            final Thread t = Skript.newThread(r, "Skript script loader thread");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            final List<Future<?>> futures = new ArrayList<>(scripts.size());
+            for (final DeferredScript script : scripts)
+                futures.add(executor.submit(script::parseTriggers));
+
+            for (int j = 0; j < scripts.size(); j++) {
+                try {
+                    futures.get(j).get();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    Skript.exception(e, "Interrupted while loading scripts");
+                    break;
+                } catch (final ExecutionException e) {
+                    scripts.get(j).error = e.getCause();
+                }
+                i.triggers += scripts.get(j).registerTriggers();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return i;
+    }
+
     /**
      * This is an internal method, if you want to load scripts,
      * use either {@link ScriptLoader#loadScripts(File[])} or {@link ScriptLoader#loadScripts(File)}.<br /><br />
@@ -407,8 +550,16 @@ public final class ScriptLoader {
      * @see ScriptLoader#loadScripts(File[])
      * @see ScriptLoader#loadScripts(File)
      */
-    @SuppressWarnings("null")
     private static final ScriptInfo loadScript(final File f) {
+        return loadScript(f, null);
+    }
+
+    /**
+     * Loads the given script, or only the parts of it that must be loaded one script after another if the given deferred script is not null. In that case, the
+     * sections of the triggers and everything needed to parse them later are added to the deferred script instead of parsing them.
+     */
+    @SuppressWarnings("null")
+    private static final ScriptInfo loadScript(final File f, @Nullable final DeferredScript deferred) {
         assert f != null;
 
         // FIXME Fix assertion errors when using /sk reload
@@ -416,7 +567,9 @@ public final class ScriptLoader {
         //assert !loadedFiles.contains(f);
         //assert !loadedScriptFiles.contains(f.getName());
 
-        assert currentScript == null : "Current script should be null for script \"" + f.getName() + "\" (" + currentScript + ')';
+        final ParserInstance parser = ParserInstance.get();
+
+        assert parser.getCurrentScript() == null : "Current script should be null for script \"" + f.getName() + "\" (" + parser.getCurrentScript() + ')';
 
 //		File cache = null;
 //		if (SkriptConfig.enableScriptCaching.value()) {
@@ -495,10 +648,16 @@ public final class ScriptLoader {
 
             Version scriptVersion = defaultScriptVersion.get();
 
-            currentAliases.clear();
-            currentOptions.clear();
+            parser.getCurrentAliases().clear();
+            parser.getCurrentOptions().clear();
+
+            parser.setCurrentScript(config);
+            parser.setParseHints(SkriptConfig.enableScriptCaching.value() ? ParseHints.get(f) : null);
 
-            currentScript = config;
+            scriptStates.remove(f);
+            ScriptOptions.getInstance().setLoopTimeBudget(f, 0L); // set again by the configuration of the script, if it still has one
+            final LoadedScript state = new LoadedScript();
+            final StringBuilder header = new StringBuilder();
 
 //			final SerializedScript script = new SerializedScript();
 
@@ -513,6 +672,10 @@ public final class ScriptLoader {
                 for (final Node cnode : config.getMainNode()) {
                     index++;
 
+                    final String source = getSource(cnode);
+                    if (!isCommandOrTrigger(cnode))
+                        header.append(source);
+
                     if (!(cnode instanceof SectionNode)) {
                         Skript.error("invalid line - all code has to be put into triggers");
                         continue;
@@ -546,19 +709,19 @@ public final class ScriptLoader {
 
                             try {
                                 final AtomicReference<Version> _scriptVersion = new AtomicReference<>(scriptVersion);
-                                final AtomicReference<Version> _currentScriptVersion = new AtomicReference<>(currentScriptVersion);
+                                final AtomicReference<Version> _currentScriptVersion = new AtomicReference<>(parser.getCurrentScriptVersion());
 
                                 final ScriptConfig.ConfigParseResult configParseResult = ScriptConfig.tryParse(f, duplicateCheckList, key, value,
                                         _scriptVersion, _currentScriptVersion);
 
                                 scriptVersion = _scriptVersion.get();
-                                currentScriptVersion = _currentScriptVersion.get();
+                                parser.setCurrentScriptVersion(_currentScriptVersion.get());
 
                                 switch (configParseResult) {
                                     case OK:
                                         break;
                                     case ABORT_PARSING:
-                                        currentScript = null;
+                                        parser.setCurrentScript(null);
                                         return new ScriptInfo(); // we return empty script info to abort parsing
                                     case CONTINUE:
                                         break;
@@ -576,7 +739,7 @@ public final class ScriptLoader {
                                         // so we are not using something like "This script requires script ..." as the message
                                         Skript.error("Can't find required script " + value);
 
-                                        currentScript = null;
+                                        parser.setCurrentScript(null);
                                         return new ScriptInfo(); // we return empty script info to abort parsing
                                     }
 
@@ -584,7 +747,7 @@ public final class ScriptLoader {
                                         // The script tries to load itself after itself, which it should be permitted
                                         Skript.error("Loading the current script after current script is not possible");
 
-                                        currentScript = null;
+                                        parser.setCurrentScript(null);
                                         return new ScriptInfo(); // we return empty script info to abort parsing
                                     }
 
@@ -593,32 +756,34 @@ public final class ScriptLoader {
                                             Skript.info("Loading script '" + file.getName() + "' because the script '" + f.getName() + "' requires it");
 
                                         // Set to null, method call re-sets it
-                                        currentScript = null;
+                                        parser.setCurrentScript(null);
 
-                                        // Backup the aliases and the options
-                                        final Map<String, ItemType> aliases = new HashMap<>(currentAliases);
-                                        final Map<String, String> options = new HashMap<>(currentOptions);
+                                        // Backup the aliases, the options and the parse hints
+                                        final Map<String, ItemType> aliases = new HashMap<>(parser.getCurrentAliases());
+                                        final Map<String, String> options = new HashMap<>(parser.getCurrentOptions());
+                                        final ParseHints hints = parser.getParseHints();
 
                                         final ScriptInfo scriptInfo = loadScript(file); // Load the required script before continuing to parse this script
 
                                         skipFiles.remove(file.getName()); // Remove to re-add it
                                         skipFiles.put(file.getName(), scriptInfo); // Required to skip this script in iteration
 
-                                        currentScript = config; // Re-set the current script to this script
+                                        parser.setCurrentScript(config); // Re-set the current script to this script
+                                        parser.setParseHints(hints);
 
                                         // Re-set the aliases and the options
-                                        currentAliases.clear();
-                                        currentAliases.putAll(aliases);
+                                        parser.getCurrentAliases().clear();
+                                        parser.getCurrentAliases().putAll(aliases);
 
-                                        currentOptions.clear();
-                                        currentOptions.putAll(options);
+                                        parser.getCurrentOptions().clear();
+                                        parser.getCurrentOptions().putAll(options);
                                     }
                                 }
                             } catch (final IllegalArgumentException e) {
                                 // Probably an illegal version string is passed
                                 Skript.error(e.getLocalizedMessage());
 
-                                currentScript = null;
+                                parser.setCurrentScript(null);
                                 return new ScriptInfo(); // we return empty script info to abort parsing
                             }
                         }
@@ -636,7 +801,7 @@ public final class ScriptLoader {
                             final ItemType t = Aliases.parseAlias(((EntryNode) n).getValue());
                             if (t == null)
                                 continue;
-                            currentAliases.put(n.getKey().toLowerCase(Locale.ENGLISH), t);
+                            parser.getCurrentAliases().put(n.getKey().toLowerCase(Locale.ENGLISH), t);
                         }
                         continue;
                     }
@@ -647,7 +812,7 @@ public final class ScriptLoader {
                                 Skript.error("invalid line in options");
                                 continue;
                             }
-                            currentOptions.put(n.getKey(), ((EntryNode) n).getValue());
+                            parser.getCurrentOptions().put(n.getKey(), ((EntryNode) n).getValue());
                         }
                         continue;
                     }
@@ -720,7 +885,7 @@ public final class ScriptLoader {
                         }
                         continue;
                     }
-                    currentScriptVersion = scriptVersion;
+                    parser.setCurrentScriptVersion(scriptVersion);
 
                     if (!SkriptParser.validateLine(event))
                         continue;
@@ -732,6 +897,7 @@ public final class ScriptLoader {
                         final ScriptCommand c = Commands.loadCommand(node);
                         if (c != null) {
                             numCommands++;
+                            state.commands.add(new LoadedElement<>(source, c));
 //							script.commands.add(c);
                         }
 
@@ -748,9 +914,9 @@ public final class ScriptLoader {
                         //     broadcast "Yey!"
                         if (!event.toLowerCase(Locale.ENGLISH).startsWith("function ")) {
                             if (event.startsWith("func ")) {
-                                node.setKey(FUNC_PATTERN_MATCHER.reset(event).replaceFirst("function"));
+                                node.setKey(FUNC_PATTERN.matcher(event).replaceFirst("function"));
                             } else {
-                                node.setKey(FUN_PATTERN_MATCHER.reset(event).replaceFirst("function"));
+                                node.setKey(FUN_PATTERN.matcher(event).replaceFirst("function"));
                             }
                         }
 
@@ -764,64 +930,48 @@ public final class ScriptLoader {
                         continue;
                     }
 
-                    if (Skript.logVeryHigh() && !Skript.debug())
-                        Skript.info("loading trigger '" + event + '\'');
-
-                    if (StringUtils.startsWithIgnoreCase(event, "on "))
-                        event = event.substring("on ".length());
-
-                    event = replaceOptions(event);
-
-                    final NonNullPair<SkriptEventInfo<?>, SkriptEvent> parsedEvent = SkriptParser.parseEvent(event, "can't understand this event: '" + node.getKey() + '\'');
-                    if (parsedEvent == null)
+                    if (deferred != null) {
+                        deferred.triggerNodes.add(node);
+                        deferred.triggerSources.add(source);
                         continue;
-
-                    if (Skript.debug() || node.debug())
-                        Skript.debug(event + " (" + parsedEvent.getSecond().toString(null, true) + "):");
-
-                    setCurrentEvent(parsedEvent.getFirst().getName().toLowerCase(Locale.ENGLISH), parsedEvent.getFirst().events);
-                    final Trigger trigger;
-                    try {
-                        {
-                            trigger = new Trigger(config.getFile(), event, parsedEvent.getSecond(), loadItems(node));
-                        }
-                        trigger.setLineNumber(node.getLine());
-                        trigger.setDebugLabel(config.getFileName() + ": line " + node.getLine());
-                    } finally {
-                        deleteCurrentEvent();
                     }
 
-                    if (parsedEvent.getSecond() instanceof SelfRegisteringSkriptEvent) {
-                        ((SelfRegisteringSkriptEvent) parsedEvent.getSecond()).register(trigger);
-                        SkriptEventHandler.addSelfRegisteringTrigger(trigger);
-                    } else {
-                        SkriptEventHandler.addTrigger(parsedEvent.getFirst().events, trigger);
-                    }
+                    final NonNullPair<SkriptEventInfo<?>, Trigger> trigger = parseTrigger(config, node);
+                    if (trigger == null)
+                        continue;
+
+                    registerTrigger(trigger);
+                    state.triggers.add(new LoadedElement<>(source, trigger));
 
 //					script.triggers.add(trigger);
 
                     numTriggers++;
                 }
 
-                if (Skript.logHigh() && startDate != null) {
-                    String prefix = "";
-                    String suffix = "";
-
-                    final Timespan difference = startDate.difference(new Date());
-                    final long differenceInSeconds = TimeUnit.MILLISECONDS.toSeconds(difference.getMilliSeconds());
-
-                    if (Skript.hasJLineSupport() && Skript.hasJansi() && COLOR_BASED_ON_LOAD_TIMES) {
-                        if (differenceInSeconds > 5L) // Script take longer than 5 seconds to load
-                            prefix += Ansi.ansi().a(Ansi.Attribute.RESET).reset().fg(Ansi.Color.RED).bold().toString();
-                        else if (differenceInSeconds > 3L) // Script take longer than 3 seconds to load
-                            prefix += Ansi.ansi().a(Ansi.Attribute.RESET).reset().fg(Ansi.Color.YELLOW).bold().toString();
-                        suffix += Ansi.ansi().a(Ansi.Attribute.RESET).reset().toString();
-                    }
-
-                    Skript.info(prefix + "Loaded " + numTriggers + " trigger" + (numTriggers == 1 ? "" : "s") + ", " + numCommands + " command" + (numCommands == 1 ? "" : "s") + " and " + numFunctions + " function" + (numFunctions == 1 ? "" : "s") + " from '" + config.getFileName() + "' " + (Skript.logVeryHigh() ? "with source version " + scriptVersion + ' ' : "") + "in " + difference + suffix);
+                state.header = header.toString();
+                state.scriptVersion = scriptVersion;
+                state.options.putAll(parser.getCurrentOptions());
+                state.aliases.putAll(parser.getCurrentAliases());
+                state.functions = numFunctions;
+
+                if (deferred != null) {
+                    deferred.state = state;
+                    deferred.config = config;
+                    deferred.scriptVersion = scriptVersion;
+                    deferred.options.putAll(parser.getCurrentOptions());
+                    deferred.aliases.putAll(parser.getCurrentAliases());
+                    deferred.hints = parser.getParseHints();
+                    deferred.numCommands = numCommands;
+                    deferred.numFunctions = numFunctions;
+                    if (startDate != null)
+                        deferred.loadTime = startDate.difference(new Date()).getMilliSeconds();
+                } else {
+                    scriptStates.put(f, state);
+                    if (Skript.logHigh() && startDate != null)
+                        logLoaded(config, numTriggers, numCommands, numFunctions, scriptVersion, startDate.difference(new Date()));
                 }
 
-                currentScript = null;
+                parser.setCurrentScript(null);
 
             } finally {
                 numErrors.stop();
@@ -865,13 +1015,78 @@ public final class ScriptLoader {
             Skript.exception(tw, "Could not load " + f.getName());
         } finally {
             SkriptLogger.setNode(null);
+            parser.setParseHints(null);
         }
         if (Skript.testing() || Skript.debug())
             Skript.warning("Returning empty script info after loading \"" + f.getName() + '"');
-        currentScript = null;
+        parser.setCurrentScript(null);
         return new ScriptInfo();
     }
 
+    /**
+     * Parses the trigger in the given section of the given script. The current script and options must be set.
+     *
+     * @return The event info and the trigger, or null if the event or the trigger is invalid
+     */
+    @Nullable
+    private static final NonNullPair<SkriptEventInfo<?>, Trigger> parseTrigger(final Config config, final SectionNode node) {
+        String event = node.getKey();
+        assert event != null;
+
+        if (Skript.logVeryHigh() && !Skript.debug())
+            Skript.info("loading trigger '" + event + '\'');
+
+        if (StringUtils.startsWithIgnoreCase(event, "on "))
+            event = event.substring("on ".length());
+
+        event = replaceOptions(event);
+
+        final NonNullPair<SkriptEventInfo<?>, SkriptEvent> parsedEvent = SkriptParser.parseEvent(event, "can't understand this event: '" + node.getKey() + '\'');
+        if (parsedEvent == null)
+            return null;
+
+        if (Skript.debug() || node.debug())
+            Skript.debug(event + " (" + parsedEvent.getSecond().toString(null, true) + "):");
+
+        setCurrentEvent(parsedEvent.getFirst().getName().toLowerCase(Locale.ENGLISH), parsedEvent.getFirst().events);
+        final Trigger trigger;
+        try {
+            trigger = new Trigger(config.getFile(), event, parsedEvent.getSecond(), loadItems(node));
+            trigger.setLineNumber(node.getLine());
+            trigger.setDebugLabel(config.getFileName() + ": line " + node.getLine());
+        } finally {
+            deleteCurrentEvent();
+        }
+        return new NonNullPair<>(parsedEvent.getFirst(), trigger);
+    }
+
+    private static final void registerTrigger(final NonNullPair<SkriptEventInfo<?>, Trigger> trigger) {
+        final SkriptEvent event = trigger.getSecond().getEvent();
+        if (event instanceof SelfRegisteringSkriptEvent) {
+            ((SelfRegisteringSkriptEvent) event).register(trigger.getSecond());
+            SkriptEventHandler.addSelfRegisteringTrigger(trigger.getSecond());
+        } else {
+            SkriptEventHandler.addTrigger(trigger.getFirst().events, trigger.getSecond());
+        }
+    }
+
+    private static final void logLoaded(final Config config, final int numTriggers, final int numCommands, final int numFunctions, final Version scriptVersion, final Timespan difference) {
+        String prefix = "";
+        String suffix = "";
+
+        final long differenceInSeconds = TimeUnit.MILLISECONDS.toSeconds(difference.getMilliSeconds());
+
+        if (Skript.hasJLineSupport() && Skript.hasJansi() && COLOR_BASED_ON_LOAD_TIMES) {
+            if (differenceInSeconds > 5L) // Script take longer than 5 seconds to load
+                prefix += Ansi.ansi().a(Ansi.Attribute.RESET).reset().fg(Ansi.Color.RED).bold().toString();
+            else if (differenceInSeconds > 3L) // Script take longer than 3 seconds to load
+                prefix += Ansi.ansi().a(Ansi.Attribute.RESET).reset().fg(Ansi.Color.YELLOW).bold().toString();
+            suffix += Ansi.ansi().a(Ansi.Attribute.RESET).reset().toString();
+        }
+
+        Skript.info(prefix + "Loaded " + numTriggers + " trigger" + (numTriggers == 1 ? "" : "s") + ", " + numCommands + " command" + (numCommands == 1 ? "" : "s") + " and " + numFunctions + " function" + (numFunctions == 1 ? "" : "s") + " from '" + config.getFileName() + "' " + (Skript.logVeryHigh() ? "with source version " + scriptVersion + ' ' : "") + "in " + difference + suffix);
+    }
+
     /**
      * Unloads enabled scripts from the specified directory and its subdirectories.
      *
@@ -917,9 +1132,230 @@ public final class ScriptLoader {
         }
         loadedFiles.remove(script);
         loadedScriptFiles.remove(script.getName());
+        scriptStates.remove(script);
         return info;
     }
 
+    /**
+     * Reloads the given script. If only triggers and commands changed since the script was loaded, only the changed ones are parsed again and replaced, and
+     * everything else is kept. Otherwise, e.g. if its options or functions changed, the script is unloaded and loaded again.
+     *
+     * @param script The script file to reload
+     * @return Info on the reloaded script
+     */
+    public static final ScriptInfo reloadScript(final File script) {
+        final LoadedScript old = scriptStates.get(script);
+        if (old != null) {
+            final ScriptInfo i = reloadChanged(script, old);
+            if (i != null)
+                return i;
+        }
+        unloadScript(script);
+        return loadScripts(new File[]{script});
+    }
+
+    /**
+     * Parses the changed triggers and commands of the given script and replaces the old ones, keeping the unchanged ones.
+     *
+     * @return Info on the reloaded script, or null if anything else than triggers and commands changed and the script must be loaded again completely
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    private static final ScriptInfo reloadChanged(final File f, final LoadedScript old) {
+        final Config config;
+        try (final FileInputStream is = new FileInputStream(f)) {
+            config = new Config(is, f, true, false, ":");
+        } catch (final IOException e) {
+            return null; // Loading the script again reports the error
+        }
+
+        final List<SectionNode> nodes = new ArrayList<>();
+        final List<String> sources = new ArrayList<>();
+        final StringBuilder header = new StringBuilder();
+        for (final Node node : config.getMainNode()) {
+            final String source = getSource(node);
+            if (isCommandOrTrigger(node)) {
+                nodes.add((SectionNode) node);
+                sources.add(source);
+            } else {
+                header.append(source);
+            }
+        }
+        if (!header.toString().equals(old.header))
+            return null;
+
+        // Match the unchanged elements to the new sections, the remaining old elements are unregistered before parsing the new ones so they don't conflict
+        final List<LoadedElement<?>> oldElements = new ArrayList<>(old.triggers.size() + old.commands.size());
+        oldElements.addAll(old.triggers);
+        oldElements.addAll(old.commands);
+        final List<String> oldSources = new ArrayList<>(oldElements.size());
+        for (final LoadedElement<?> e : oldElements)
+            oldSources.add(e.source);
+        final int[] matches = matchSections(sources, oldSources);
+        final boolean[] used = new boolean[oldElements.size()];
+        final List<LoadedElement<?>> kept = new ArrayList<>(nodes.size());
+        for (final int m : matches) {
+            kept.add(m == -1 ? null : oldElements.get(m));
+            if (m != -1)
+                used[m] = true;
+        }
+        for (int i = 0; i < old.triggers.size(); i++) {
+            if (!used[i])
+                SkriptEventHandler.removeTrigger(old.triggers.get(i).element.getSecond());
+        }
+        for (int i = 0; i < old.commands.size(); i++) {
+            if (!used[old.triggers.size() + i])
+                Commands.unregisterCommand(old.commands.get(i).element);
+        }
+
+        final LoadedScript state = new LoadedScript();
+        state.header = old.header;
+        state.scriptVersion = old.scriptVersion;
+        state.options.putAll(old.options);
+        state.aliases.putAll(old.aliases);
+        state.functions = old.functions;
+
+        final ParserInstance parser = ParserInstance.get();
+        final boolean wasLocal = Language.setUseLocal(false);
+        int changed = 0;
+        try {
+            parser.setCurrentScript(config);
+            parser.setCurrentScriptVersion(old.scriptVersion);
+            parser.getCurrentOptions().putAll(old.options);
+            parser.getCurrentAliases().putAll(old.aliases);
+            parser.setParseHints(SkriptConfig.enableScriptCaching.value() ? ParseHints.get(f) : null);
+
+            for (int i = 0; i < nodes.size(); i++) {
+                final SectionNode node = nodes.get(i);
+                final String source = sources.get(i);
+                final LoadedElement<?> same = kept.get(i);
+                if (isCommand(node)) {
+                    if (same != null) {
+                        state.commands.add((LoadedElement<ScriptCommand>) same);
+                        continue;
+                    }
+                    changed++;
+                    final String event = node.getKey();
+                    assert event != null;
+                    if (!SkriptParser.validateLine(event))
+                        continue;
+                    setCurrentEvent("command", CommandEvent.class);
+                    final ScriptCommand c = Commands.loadCommand(node);
+                    deleteCurrentEvent();
+                    if (c != null)
+                        state.commands.add(new LoadedElement<>(source, c));
+                } else {
+                    if (same != null) {
+                        final NonNullPair<SkriptEventInfo<?>, Trigger> trigger = ((LoadedElement<NonNullPair<SkriptEventInfo<?>, Trigger>>) same).element;
+                        trigger.getSecond().setLineNumber(node.getLine());
+                        trigger.getSecond().setDebugLabel(config.getFileName() + ": line " + node.getLine());
+                        if (!(trigger.getSecond().getEvent() instanceof SelfRegisteringSkriptEvent)) { // Keep the order of the triggers of the script
+                            SkriptEventHandler.removeTrigger(trigger.getSecond());
+                            registerTrigger(trigger);
+                        }
+                        state.triggers.add((LoadedElement<NonNullPair<SkriptEventInfo<?>, Trigger>>) same);
+                        continue;
+                    }
+                    changed++;
+                    final String event = node.getKey();
+                    assert event != null;
+                    if (!SkriptParser.validateLine(event))
+                        continue;
+                    final NonNullPair<SkriptEventInfo<?>, Trigger> trigger = parseTrigger(config, node);
+                    if (trigger == null)
+                        continue;
+                    registerTrigger(trigger);
+                    state.triggers.add(new LoadedElement<>(source, trigger));
+                }
+            }
+            scriptStates.put(f, state);
+        } catch (final Throwable tw) {
+            // The old state doesn't match the registered triggers and commands anymore, so the next reload must load the script completely
+            scriptStates.remove(f);
+            Skript.exception(tw, "Could not reload " + f.getName());
+        } finally {
+            parser.reset();
+            if (wasLocal)
+                Language.setUseLocal(true);
+        }
+
+        final ScriptInfo info = new ScriptInfo(1, state.triggers.size(), state.commands.size(), state.functions, state.scriptVersion);
+        synchronized (loadedScripts) {
+            loadedScripts.subtract(new ScriptInfo(1, old.triggers.size(), old.commands.size(), old.functions));
+            loadedScripts.add(info);
+        }
+        if (Skript.logHigh())
+            Skript.info("Reloaded " + changed + " changed trigger" + (changed == 1 ? "" : "s") + " and command" + (changed == 1 ? "" : "s") + " of '" + config.getFileName() + "', kept " + (nodes.size() - changed) + " unchanged");
+
+        if (SkriptConfig.enableScriptCaching.value())
+            ParseHints.save();
+        SkriptEventHandler.registerBukkitEvents();
+        Functions.postCheck(); // Check that all functions which are called exist.
+        return info;
+    }
+
+    /**
+     * @return Whatever the given top level node of a script is a command or a trigger, which can be reloaded without loading the rest of the script again
+     */
+    private static final boolean isCommandOrTrigger(final Node node) {
+        final String key = node.getKey();
+        if (!(node instanceof SectionNode) || key == null)
+            return false;
+        final String lowerKey = key.toLowerCase(Locale.ENGLISH);
+        return !ScriptConfig.isConfig(key) && !"aliases".equals(lowerKey) && !"options".equals(lowerKey) && !"variables".equals(lowerKey)
+                && !lowerKey.startsWith("function ") && !key.startsWith("func ") && !key.startsWith("fun ");
+    }
+
+    private static final boolean isCommand(final Node node) {
+        final String key = node.getKey();
+        return key != null && key.toLowerCase(Locale.ENGLISH).startsWith("command ");
+    }
+
+    /**
+     * Finds out which sections of a script are unchanged since it was loaded. Each old section is matched at most once, so duplicated sections are
+     * matched in order.
+     *
+     * @param sources The sources of the new sections, see {@link #getSource(Node)}
+     * @param oldSources The sources of the sections when the script was loaded
+     * @return For each new section the index of the old section with the same source, or -1 if the section was added or changed
+     */
+    static final int[] matchSections(final List<String> sources, final List<String> oldSources) {
+        final Map<String, Deque<Integer>> old = new HashMap<>();
+        for (int i = 0; i < oldSources.size(); i++)
+            old.computeIfAbsent(oldSources.get(i), k -> new ArrayDeque<>()).add(i);
+        final int[] matches = new int[sources.size()];
+        for (int i = 0; i < sources.size(); i++) {
+            final Deque<Integer> same = old.get(sources.get(i));
+            final Integer m = same == null ? null : same.poll();
+            matches[i] = m == null ? -1 : m;
+        }
+        return matches;
+    }
+
+    /**
+     * @return The source of the given node and its children without comments, empty lines and line numbers, to find out which parts of a script changed
+     */
+    static final String getSource(final Node node) {
+        final StringBuilder b = new StringBuilder();
+        appendSource(node, 0, b);
+        return b.toString();
+    }
+
+    private static final void appendSource(final Node node, final int level, final StringBuilder b) {
+        if (node.isVoid())
+            return;
+        for (int i = 0; i < level; i++)
+            b.append('\t');
+        b.append(node.getKey());
+        if (node instanceof EntryNode)
+            b.append(": ").append(((EntryNode) node).getValue());
+        b.append('\n');
+        if (node instanceof SectionNode) {
+            for (final Node child : (SectionNode) node)
+                appendSource(child, level + 1, b);
+        }
+    }
+
     /**
      * Replaces options in a string. May return null, but only if the input is null.
      *
@@ -928,7 +1364,7 @@ public final class ScriptLoader {
      */
     public static final String replaceOptions(final String s) {
         final String r = StringUtils.replaceAll(s, "\\{@(.+?)\\}", m -> {
-            final String option = currentOptions.get(m.group(1));
+            final String option = ParserInstance.get().getCurrentOptions().get(m.group(1));
             if (option == null) {
                 Skript.error("undefined option " + m.group());
                 return m.group();
@@ -941,128 +1377,141 @@ public final class ScriptLoader {
 
     @SuppressWarnings({"unchecked", "null"})
     public static final ArrayList<TriggerItem> loadItems(final SectionNode node) {
+        final ParserInstance parser = ParserInstance.get();
         if (Skript.debug())
-            indentation += "    ";
+            parser.setIndentation(parser.getIndentation() + "    ");
 
         final ArrayList<TriggerItem> items = new ArrayList<>(100);
 
         Kleenean hadDelayBeforeLastIf = Kleenean.FALSE;
 
-        for (final Node n : node) {
-            SkriptLogger.setNode(n);
-            if (n instanceof SimpleNode) {
-                final SimpleNode e = (SimpleNode) n;
-                @SuppressWarnings("null") final String s = optimizeAndOr(n, replaceOptions(e.getKey()));
-                if (!SkriptParser.validateLine(s))
-                    continue;
-                final Statement stmt = Statement.parse(s, "Can't understand this condition/effect: " + s);
-                if (stmt == null)
-                    continue;
-                if (Skript.debug() || n.debug())
-                    Skript.debug(indentation + stmt.toString(null, true));
-                items.add(stmt);
-                if (stmt instanceof Delay)
-                    hasDelayBefore = Kleenean.TRUE;
-            } else if (n instanceof SectionNode) {
-                @SuppressWarnings("null")
-                String name = replaceOptions(n.getKey());
-                if (!SkriptParser.validateLine(name))
-                    continue;
-                TypeHints.enterScope(); // Begin conditional type hints
-
-                if (StringUtils.startsWithIgnoreCase(name, "loop ")) {
-                    final String l = optimizeAndOr(n, name.substring("loop ".length()));
-                    final RetainingLogHandler h = SkriptLogger.startRetainingLog();
-                    Expression<?> loopedExpr;
-                    try {
-                        loopedExpr = new SkriptParser(l).parseExpression(new Class<?>[]{Object.class});
-                        if (loopedExpr != null)
-                            loopedExpr = loopedExpr.getConvertedExpression(Object.class);
-                        if (loopedExpr == null) {
-                            h.printErrors("Can't understand this loop: '" + name + '\'');
-                            continue;
-                        }
-                        h.printLog();
-                    } finally {
-                        h.stop();
-                    }
-                    //noinspection ConstantConditions
-                    assert loopedExpr != null;
-                    if (loopedExpr.isSingle()) {
-                        Skript.error("Can't loop " + loopedExpr + " because it's only a single value");
-                        continue;
-                    }
-                    if (Skript.debug() || n.debug())
-                        Skript.debug(indentation + "loop " + loopedExpr.toString(null, true) + ':');
-                    final Kleenean hadDelayBefore = hasDelayBefore;
-                    items.add(new Loop(loopedExpr, (SectionNode) n));
-                    if (hadDelayBefore != Kleenean.TRUE && hasDelayBefore != Kleenean.FALSE)
-                        hasDelayBefore = Kleenean.UNKNOWN;
-                } else if (StringUtils.startsWithIgnoreCase(name, "while ")) {
-                    final String l = optimizeAndOr(n, name.substring("while ".length()));
-                    final Condition c = Condition.parse(l, "Can't understand this condition: " + l);
-                    if (c == null)
-                        continue;
-                    if (Skript.debug() || n.debug())
-                        Skript.debug(indentation + "while " + c.toString(null, true) + ':');
-                    final Kleenean hadDelayBefore = hasDelayBefore;
-                    items.add(new While(c, (SectionNode) n));
-                    if (hadDelayBefore != Kleenean.TRUE && hasDelayBefore != Kleenean.FALSE)
-                        hasDelayBefore = Kleenean.UNKNOWN;
-                } else if ("else".equalsIgnoreCase(name)) {
-                    if (items.isEmpty() || !(items.get(items.size() - 1) instanceof Conditional) || ((Conditional) items.get(items.size() - 1)).hasElseClause()) {
-                        Skript.error("'else' has to be placed just after an 'if' or 'else if' section");
-                        continue;
-                    }
-                    if (Skript.debug() || n.debug())
-                        Skript.debug(indentation + "else:");
-                    final Kleenean hadDelayAfterLastIf = hasDelayBefore;
-                    hasDelayBefore = hadDelayBeforeLastIf;
-                    ((Conditional) items.get(items.size() - 1)).loadElseClause((SectionNode) n);
-                    hasDelayBefore = hadDelayBeforeLastIf.or(hadDelayAfterLastIf.and(hasDelayBefore));
-                } else if (StringUtils.startsWithIgnoreCase(name, "else if ")) {
-                    if (items.isEmpty() || !(items.get(items.size() - 1) instanceof Conditional) || ((Conditional) items.get(items.size() - 1)).hasElseClause()) {
-                        Skript.error("'else if' has to be placed just after another 'if' or 'else if' section");
+        try {
+            for (final Node n : node) {
+                SkriptLogger.setNode(n);
+                SkriptParser.startParseCache();
+                if (n instanceof SimpleNode) {
+                    final SimpleNode e = (SimpleNode) n;
+                    @SuppressWarnings("null") final String s = optimizeAndOr(n, replaceOptions(e.getKey()));
+                    if (!SkriptParser.validateLine(s))
                         continue;
-                    }
-                    name = name.substring("else if ".length());
-                    name = optimizeAndOr(n, name);
-                    final Condition cond = Condition.parse(name, "can't understand this condition: '" + name + '\'');
-                    if (cond == null)
+                    final Statement stmt = Statement.parse(s, "Can't understand this condition/effect: " + s);
+                    if (stmt == null)
                         continue;
                     if (Skript.debug() || n.debug())
-                        Skript.debug(indentation + "else if " + cond.toString(null, true));
-                    final Kleenean hadDelayAfterLastIf = hasDelayBefore;
-                    hasDelayBefore = hadDelayBeforeLastIf;
-                    ((Conditional) items.get(items.size() - 1)).loadElseIf(cond, (SectionNode) n);
-                    hasDelayBefore = hadDelayBeforeLastIf.or(hadDelayAfterLastIf.and(hasDelayBefore.and(Kleenean.UNKNOWN)));
-                } else {
-                    if (StringUtils.startsWithIgnoreCase(name, "if "))
-                        name = name.substring(3);
-                    name = optimizeAndOr(n, name);
-                    final Condition cond = Condition.parse(name, "can't understand this condition: '" + name + '\'');
-                    if (cond == null)
+                        Skript.debug(parser.getIndentation() + stmt.toString(null, true));
+                    items.add(stmt);
+                    if (stmt instanceof Delay)
+                        parser.setHasDelayBefore(Kleenean.TRUE);
+                } else if (n instanceof SectionNode) {
+                    @SuppressWarnings("null")
+                    String name = replaceOptions(n.getKey());
+                    if (!SkriptParser.validateLine(name))
                         continue;
-                    if (Skript.debug() || n.debug())
-                        Skript.debug(indentation + cond.toString(null, true) + ':');
-                    final Kleenean hadDelayBefore = hasDelayBefore;
-                    hadDelayBeforeLastIf = hadDelayBefore;
-                    final Conditional conditional = new Conditional(cond);
-                    items.add(conditional);
-                    ScriptLoader.currentSections.add(conditional);
-                    try {
-                        conditional.setTriggerItems0(ScriptLoader.loadItems((SectionNode) n));
-                    } finally {
-                        ScriptLoader.currentSections.remove(ScriptLoader.currentSections.size() - 1);
+                    TypeHints.enterScope(); // Begin conditional type hints
+
+                    if (StringUtils.startsWithIgnoreCase(name, "loop ")) {
+                        final String l = optimizeAndOr(n, name.substring("loop ".length()));
+                        final RetainingLogHandler h = SkriptLogger.startRetainingLog();
+                        Expression<?> loopedExpr;
+                        try {
+                            loopedExpr = new SkriptParser(l).parseExpression(new Class<?>[]{Object.class});
+                            if (loopedExpr != null)
+                                loopedExpr = loopedExpr.getConvertedExpression(Object.class);
+                            if (loopedExpr == null) {
+                                h.printErrors("Can't understand this loop: '" + name + '\'');
+                                continue;
+                            }
+                            h.printLog();
+                        } finally {
+                            h.stop();
+                        }
+                        //noinspection ConstantConditions
+                        assert loopedExpr != null;
+                        if (loopedExpr.isSingle()) {
+                            Skript.error("Can't loop " + loopedExpr + " because it's only a single value");
+                            continue;
+                        }
+                        if (Skript.debug() || n.debug())
+                            Skript.debug(parser.getIndentation() + "loop " + loopedExpr.toString(null, true) + ':');
+                        final Kleenean hadDelayBefore = parser.getHasDelayBefore();
+                        if (hadDelayBefore == Kleenean.FALSE && TriggerSection.getCurrentTimeBudget() != 0L) // may be continued in a later tick
+                            parser.setHasDelayBefore(Kleenean.UNKNOWN);
+                        items.add(new Loop(loopedExpr, (SectionNode) n));
+                        if (hadDelayBefore != Kleenean.TRUE && parser.getHasDelayBefore() != Kleenean.FALSE)
+                            parser.setHasDelayBefore(Kleenean.UNKNOWN);
+                    } else if (StringUtils.startsWithIgnoreCase(name, "while ")) {
+                        final String l = optimizeAndOr(n, name.substring("while ".length()));
+                        final Condition c = Condition.parse(l, "Can't understand this condition: " + l);
+                        if (c == null)
+                            continue;
+                        if (Skript.debug() || n.debug())
+                            Skript.debug(parser.getIndentation() + "while " + c.toString(null, true) + ':');
+                        final Kleenean hadDelayBefore = parser.getHasDelayBefore();
+                        if (hadDelayBefore == Kleenean.FALSE && TriggerSection.getCurrentTimeBudget() != 0L) // may be continued in a later tick
+                            parser.setHasDelayBefore(Kleenean.UNKNOWN);
+                        items.add(new While(c, (SectionNode) n));
+                        if (hadDelayBefore != Kleenean.TRUE && parser.getHasDelayBefore() != Kleenean.FALSE)
+                            parser.setHasDelayBefore(Kleenean.UNKNOWN);
+                    } else if ("else".equalsIgnoreCase(name)) {
+                        if (items.isEmpty() || !(items.get(items.size() - 1) instanceof Conditional) || ((Conditional) items.get(items.size() - 1)).hasElseClause()) {
+                            Skript.error("'else' has to be placed just after an 'if' or 'else if' section");
+                            continue;
+                        }
+                        if (Skript.debug() || n.debug())
+                            Skript.debug(parser.getIndentation() + "else:");
+                        final Kleenean hadDelayAfterLastIf = parser.getHasDelayBefore();
+                        parser.setHasDelayBefore(hadDelayBeforeLastIf);
+                        ((Conditional) items.get(items.size() - 1)).loadElseClause((SectionNode) n);
+                        parser.setHasDelayBefore(hadDelayBeforeLastIf.or(hadDelayAfterLastIf.and(parser.getHasDelayBefore())));
+                    } else if (StringUtils.startsWithIgnoreCase(name, "else if ")) {
+                        if (items.isEmpty() || !(items.get(items.size() - 1) instanceof Conditional) || ((Conditional) items.get(items.size() - 1)).hasElseClause()) {
+                            Skript.error("'else if' has to be placed just after another 'if' or 'else if' section");
+                            continue;
+                        }
+                        name = name.substring("else if ".length());
+                        name = optimizeAndOr(n, name);
+                        final Condition cond = Condition.parse(name, "can't understand this condition: '" + name + '\'');
+                        if (cond == null)
+                            continue;
+                        if (Skript.debug() || n.debug())
+                            Skript.debug(parser.getIndentation() + "else if " + cond.toString(null, true));
+                        final Kleenean hadDelayAfterLastIf = parser.getHasDelayBefore();
+                        parser.setHasDelayBefore(hadDelayBeforeLastIf);
+                        ((Conditional) items.get(items.size() - 1)).loadElseIf(cond, (SectionNode) n);
+                        parser.setHasDelayBefore(hadDelayBeforeLastIf.or(hadDelayAfterLastIf.and(parser.getHasDelayBefore().and(Kleenean.UNKNOWN))));
+                    } else {
+                        if (StringUtils.startsWithIgnoreCase(name, "if "))
+                            name = name.substring(3);
+                        name = optimizeAndOr(n, name);
+                        final Condition cond = Condition.parse(name, "can't understand this condition: '" + name + '\'');
+                        if (cond == null)
+                            continue;
+                        if (Skript.debug() || n.debug())
+                            Skript.debug(parser.getIndentation() + cond.toString(null, true) + ':');
+                        final Kleenean hadDelayBefore = parser.getHasDelayBefore();
+                        hadDelayBeforeLastIf = hadDelayBefore;
+                        final Conditional conditional = new Conditional(cond);
+                        items.add(conditional);
+                        parser.getCurrentSections().add(conditional);
+                        try {
+                            conditional.setTriggerItems0(ScriptLoader.loadItems((SectionNode) n));
+                        } finally {
+                            parser.getCurrentSections().remove(parser.getCurrentSections().size() - 1);
+                        }
+                        parser.setHasDelayBefore(hadDelayBefore.or(parser.getHasDelayBefore().and(Kleenean.UNKNOWN)));
                     }
-                    hasDelayBefore = hadDelayBefore.or(hasDelayBefore.and(Kleenean.UNKNOWN));
-                }
 
-                // Destroy these conditional type hints
-                TypeHints.exitScope();
+                    // Destroy these conditional type hints
+                    TypeHints.exitScope();
+                }
             }
+        } finally {
+            SkriptParser.clearParseCache();
         }
 
+        SkriptLogger.setNode(node);
+        TriggerOptimizer.optimize(items);
+
         for (int i = 0; i < items.size() - 1; i++)
             items.get(i).setNext(items.get(i + 1));
 
@@ -1070,7 +1519,7 @@ public final class ScriptLoader {
         SkriptLogger.setNode(node);
 
         if (Skript.debug())
-            indentation = indentation.substring(0, indentation.length() - 4);
+            parser.setIndentation(parser.getIndentation().substring(0, parser.getIndentation().length() - 4));
 
         return items;
     }
@@ -1085,7 +1534,7 @@ public final class ScriptLoader {
             throw new IllegalArgumentException();
         String optimized = s != null ? s : n != null ? n.getKey() : null;
         if (optimized != null && (!Skript.isConfigLoaded() || SkriptConfig.optimizeAndOrLists.value()) && !optimized.contains(", ") && optimized.contains(" or ")) {
-            optimized = StringUtils.replaceLast(OR_PATTERN_MATCHER.reset(optimized).replaceAll(commaSpace),
+            optimized = StringUtils.replaceLast(OR_PATTERN.matcher(optimized).replaceAll(commaSpace),
                     "\", \"", "\" or \"");
         }
         if (n != null && optimized != null)
@@ -1149,12 +1598,12 @@ public final class ScriptLoader {
     }
 
     public static final boolean isCurrentEvent(@Nullable final Class<? extends Event> event) {
-        return CollectionUtils.containsSuperclass(currentEvents, event);
+        return CollectionUtils.containsSuperclass(ParserInstance.get().getCurrentEvents(), event);
     }
 
     @SafeVarargs
     public static final boolean isCurrentEvent(final Class<? extends Event>... events) {
-        return CollectionUtils.containsAnySuperclass(currentEvents, events);
+        return CollectionUtils.containsAnySuperclass(ParserInstance.get().getCurrentEvents(), events);
     }
 
     /**
@@ -1162,16 +1611,141 @@ public final class ScriptLoader {
      */
     @Nullable
     public static final Class<? extends Event>[] getCurrentEvents() {
-        return currentEvents;
+        return ParserInstance.get().getCurrentEvents();
     }
 
     public static final Version getCurrentScriptVersion() {
-        final Version localCurrentScriptVersion = currentScriptVersion;
+        final Version localCurrentScriptVersion = ParserInstance.get().getCurrentScriptVersion();
         if (localCurrentScriptVersion != null)
             return localCurrentScriptVersion;
         return defaultScriptVersion.get();
     }
 
+    /**
+     * The parts of a loaded script needed to reload only its changed triggers and commands, see {@link #reloadScript(File)}.
+     */
+    static final class LoadedScript {
+        /**
+         * The source of everything except triggers and commands, e.g. options and functions. If it changes, the whole script must be loaded again.
+         */
+        String header = "";
+        @Nullable
+        Version scriptVersion;
+        final Map<String, String> options = new HashMap<>();
+        final Map<String, ItemType> aliases = new HashMap<>();
+        int functions;
+        final List<LoadedElement<NonNullPair<SkriptEventInfo<?>, Trigger>>> triggers = new ArrayList<>();
+        final List<LoadedElement<ScriptCommand>> commands = new ArrayList<>();
+    }
+
+    /**
+     * A successfully loaded trigger or command and the source it was loaded from.
+     */
+    private static final class LoadedElement<T> {
+        final String source;
+        final T element;
+
+        LoadedElement(final String source, final T element) {
+            this.source = source;
+            this.element = element;
+        }
+    }
+
+    /**
+     * A script whose triggers are parsed by a script loader thread, see {@link #loadScriptsInParallel(List, boolean)}.
+     */
+    private static final class DeferredScript {
+        final File file;
+        /**
+         * The loaded script, null if loading it failed before its triggers could be parsed.
+         */
+        @Nullable
+        Config config;
+        @Nullable
+        Version scriptVersion;
+        final Map<String, String> options = new HashMap<>();
+        final Map<String, ItemType> aliases = new HashMap<>();
+        @Nullable
+        ParseHints hints;
+        final List<SectionNode> triggerNodes = new ArrayList<>();
+        final List<String> triggerSources = new ArrayList<>();
+        @Nullable
+        LoadedScript state;
+        int numCommands, numFunctions;
+        /**
+         * Time spent loading this script in milliseconds
+         */
+        long loadTime;
+
+        final List<LoadedElement<NonNullPair<SkriptEventInfo<?>, Trigger>>> triggers = new ArrayList<>();
+        Collection<LogEntry> log = Collections.emptyList();
+        @Nullable
+        Throwable error;
+
+        DeferredScript(final File file) {
+            this.file = file;
+        }
+
+        /**
+         * Parses the triggers of this script. Called by a script loader thread, must not register anything or log messages to the handlers of other threads.
+         */
+        final void parseTriggers() {
+            final Config config = this.config;
+            assert config != null : file;
+            final long start = System.currentTimeMillis();
+            final ParserInstance parser = ParserInstance.get();
+            parser.reset();
+            parser.setCurrentScript(config);
+            parser.setCurrentScriptVersion(scriptVersion);
+            parser.getCurrentOptions().putAll(options);
+            parser.getCurrentAliases().putAll(aliases);
+            parser.setParseHints(hints);
+            SkriptLogger.startIsolating();
+            final RetainingLogHandler h = SkriptLogger.startRetainingLog();
+            try {
+                for (int i = 0; i < triggerNodes.size(); i++) {
+                    final NonNullPair<SkriptEventInfo<?>, Trigger> trigger = parseTrigger(config, triggerNodes.get(i));
+                    if (trigger != null)
+                        triggers.add(new LoadedElement<>(triggerSources.get(i), trigger));
+                }
+            } catch (final Throwable tw) {
+                error = tw;
+            } finally {
+                h.stop();
+                log = new ArrayList<>(h.getLog());
+                SkriptLogger.stopIsolating();
+                parser.reset();
+                loadTime += System.currentTimeMillis() - start;
+            }
+        }
+
+        /**
+         * Prints the messages logged while parsing this script and registers its triggers. Must be called on the thread that loads the scripts.
+         *
+         * @return The number of registered triggers
+         */
+        final int registerTriggers() {
+            final Config config = this.config;
+            assert config != null : file;
+            SkriptLogger.logAll(log);
+            final Throwable error = this.error;
+            if (error != null)
+                Skript.exception(error, "Could not load " + file.getName());
+            for (final LoadedElement<NonNullPair<SkriptEventInfo<?>, Trigger>> trigger : triggers)
+                registerTrigger(trigger.element);
+            final LoadedScript state = this.state;
+            if (state != null && error == null) {
+                state.triggers.addAll(triggers);
+                scriptStates.put(file, state);
+            }
+            if (Skript.logHigh()) {
+                final Version scriptVersion = this.scriptVersion;
+                logLoaded(config, triggers.size(), numCommands, numFunctions, scriptVersion != null ? scriptVersion : defaultScriptVersion.get(), new Timespan(loadTime));
+            }
+            return triggers.size();
+        }
+    }
+
     public static final class ScriptInfo {
         /**
          * The Skript version that this script is written.
@@ -46,6 +46,7 @@ import ch.njol.skript.localization.Message;
 import ch.njol.skript.log.*;
 import ch.njol.skript.registrations.Classes;
 import ch.njol.skript.registrations.Converters;
+import ch.njol.skript.registrations.RegistrationCache;
 import ch.njol.skript.timings.SkriptTimings;
 import ch.njol.skript.update.ReleaseChannel;
 import ch.njol.skript.update.UpdaterState;
@@ -1136,6 +1137,7 @@ public final class Skript extends JavaPlugin implements Listener, Updatable, Non
 
         ScriptLoader.loadedFiles.clear();
         ScriptLoader.loadedScriptFiles.clear();
+        ScriptLoader.scriptStates.clear();
     }
 
     // ================ REGISTRATIONS ================
@@ -1265,8 +1267,10 @@ public final class Skript extends JavaPlugin implements Listener, Updatable, Non
     static final void stopAcceptingRegistrations() {
         acceptRegistrations = false;
 
+        RegistrationCache.read();
         Converters.createMissingConverters();
         Classes.onRegistrationsStop();
+        RegistrationCache.save();
     }
 
     /**
@@ -3585,6 +3589,7 @@ public final class Skript extends JavaPlugin implements Listener, Updatable, Non
 
             Delay.delayingDisabled = true;
             Delay.delayed.clear();
+            Delay.continuations.clear();
 
             if (Skript.logHigh())
                 info("Unregistering tasks and event listeners...");
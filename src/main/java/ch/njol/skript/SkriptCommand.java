@@ -28,6 +28,7 @@ import ch.njol.skript.agents.defaults.LoopTrackerAgent;
 import ch.njol.skript.agents.defaults.TaskTrackerAgent;
 import ch.njol.skript.agents.defaults.VariableTrackerAgent;
 import ch.njol.skript.command.CommandHelp;
+import ch.njol.skript.lang.ParseProfiler;
 import ch.njol.skript.localization.ArgsMessage;
 import ch.njol.skript.localization.Language;
 import ch.njol.skript.localization.Message;
@@ -67,7 +68,7 @@ public final class SkriptCommand implements CommandExecutor {
 //                  .add("set", "Creates a new variable or changes an existing one")
 //                  .add("delete", "Deletes a variable")
 //                  .add("find", "Find variables")
-    ).add("version").add("help");
+    ).add("parse-profile").add("version").add("help");
     private static final ArgsMessage m_reloading = new ArgsMessage(NODE + ".reload.reloading");
     private static final ArgsMessage m_reloaded = new ArgsMessage(NODE + ".reload.reloaded");
     private static final ArgsMessage m_reload_error = new ArgsMessage(NODE + ".reload.error");
@@ -75,6 +76,10 @@ public final class SkriptCommand implements CommandExecutor {
     private static final ArgsMessage m_changes_title = new ArgsMessage(NODE + ".update.changes.title");
     private static final ArgsMessage m_invalid_script = new ArgsMessage(NODE + ".invalid script");
     private static final ArgsMessage m_invalid_folder = new ArgsMessage(NODE + ".invalid folder");
+    /**
+     * The number of lines and elements per list shown by '/skript parse-profile'
+     */
+    private static final int PARSE_PROFILE_SIZE = 10;
     private static final Collection<TrackerAgent> registeredTrackers =
             new ArrayList<>();
     public static volatile int oldPriority = Thread.NORM_PRIORITY;
@@ -220,8 +225,7 @@ public final class SkriptCommand implements CommandExecutor {
                             return true;
                         }
                         reloading(sender, "script", f.getName());
-                        ScriptLoader.unloadScript(f);
-                        ScriptLoader.loadScripts(new File[]{f});
+                        ScriptLoader.reloadScript(f);
                         reloaded(sender, r, "script", f.getName());
                     } else {
                         reloading(sender, "scripts in folder", f.getName());
@@ -459,6 +463,14 @@ public final class SkriptCommand implements CommandExecutor {
                             sender.sendMessage(ChatColor.DARK_RED + "You don't have an active loop tracker!");
                     }
                 }
+            } else if ("parse-profile".equalsIgnoreCase(args[0])) {
+                if (!ParseProfiler.isEnabled()) {
+                    info(sender, "parse-profile.disabled");
+                    return true;
+                }
+                for (final String line : ParseProfiler.getReport(PARSE_PROFILE_SIZE))
+                    Skript.info(sender, line);
+                info(sender, "parse-profile.saved", ParseProfiler.save().getName());
             } else if ("version".equalsIgnoreCase(args[0])) {
                 Skript.info(sender, "This server is running Skript version " + Skript.getVersionWithSuffix());
             } else if ("help".equalsIgnoreCase(args[0])) {
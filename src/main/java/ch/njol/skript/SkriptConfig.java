@@ -24,6 +24,8 @@ package ch.njol.skript;
 
 import ch.njol.skript.bukkitutil.SpikeDetector;
 import ch.njol.skript.config.*;
+import ch.njol.skript.events.util.PlayerMoveFilter;
+import ch.njol.skript.lang.ParseProfiler;
 import ch.njol.skript.lang.function.Function;
 import ch.njol.skript.localization.Language;
 import ch.njol.skript.log.SkriptLogger;
@@ -117,6 +119,9 @@ public final class SkriptConfig {
     public static final Option<Boolean> disableDeprecationWarnings = new Option<>("disable deprecation warnings", false);
     public static final Option<Boolean> namespacedCommands = new Option<>("namespaced commands", true);
     public static final Option<Boolean> enableScriptCaching = new Option<>("enable script caching", false).optional(true);
+    public static final Option<Boolean> enableParseProfiler = new Option<>("enable parse profiler", false)
+            .optional(true)
+            .setter(ParseProfiler::setEnabled);
     public static final Option<Boolean> keepConfigsLoaded = new Option<>("keep configs loaded", false).optional(true);
     public static final Option<Boolean> addonSafetyChecks = new Option<>("addon safety checks", true)
             .optional(true);
@@ -148,6 +153,19 @@ public final class SkriptConfig {
      */
     public static final Option<Boolean> warnWhenUsingNoneValues = new Option<>("warn when using none values in strings", false);
     public static final Option<Boolean> allowScriptsFromSubFolders = new Option<>("allow scripts from subfolders", true);
+    /**
+     * Number of threads used to parse the triggers of the scripts, 0 or 1 to load scripts one after another on the loading thread.
+     */
+    public static final Option<Integer> scriptLoaderThreads = new Option<>("script loader thread size", 0)
+            .optional(true);
+    public static final Option<PlayerMoveFilter.Mode> moveEventMode = new Option<>("move event mode", PlayerMoveFilter.Mode.ALL, new EnumParser<>(PlayerMoveFilter.Mode.class, "move event mode"))
+            .optional(true)
+            .setter(m -> SkriptEventHandler.updateMoveFilter());
+    public static final Option<Integer> moveEventsPerSecond = new Option<>("move events per second", 0)
+            .optional(true)
+            .setter(r -> SkriptEventHandler.updateMoveFilter());
+    public static final Option<Boolean> safeAsyncEvents = new Option<>("safe async events", false)
+            .optional(true);
     public static final Option<Boolean> executeFunctionsWithMissingParams = new Option<>("execute functions with missing parameters", true)
             .optional(true)
             .setter(t -> Function.executeWithNulls = t);
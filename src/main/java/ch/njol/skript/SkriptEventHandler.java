@@ -24,7 +24,9 @@ package ch.njol.skript;
 
 import ch.njol.skript.ScriptLoader.ScriptInfo;
 import ch.njol.skript.command.Commands;
+import ch.njol.skript.events.util.PlayerMoveFilter;
 import ch.njol.skript.lang.SelfRegisteringSkriptEvent;
+import ch.njol.skript.lang.SkriptEvent;
 import ch.njol.skript.lang.Trigger;
 import ch.njol.skript.lang.function.Functions;
 import ch.njol.skript.timings.SkriptTimings;
@@ -44,91 +46,113 @@ import org.eclipse.jdt.annotation.Nullable;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Peter Güttinger
  */
 public final class SkriptEventHandler {
 
+    /**
+     * The minimum time in milliseconds between two moves of a player that are passed on, if the 'move events per second' option is not set
+     */
     public static final long moveEventCooldown = Long.getLong("skript.moveEventCooldown", /*100L*/0L);
     public static final EventExecutor ee = new SkriptEventExecutor();
     static final Map<Class<? extends Event>, List<Trigger>> triggers = new HashMap<>(100);
     static final long eventCooldown = Long.getLong("skript.eventCooldown", /*100L*/0L);
     private static final Listener listener = new EmptyListener();
     private static final List<Trigger> selfRegisteredTriggers = new ArrayList<>(100);
+    /**
+     * The triggers of each script with the events they were added for, so that unloading a script doesn't have to check every trigger
+     */
+    private static final Map<File, List<ScriptTrigger>> scriptTriggers = new HashMap<>(100);
     /**
      * Stores which events are currently registered with Bukkit
      */
     private static final Set<Class<? extends Event>> registeredEvents = new HashSet<>(100);
+    /**
+     * The last event handled on each thread, see {@link SkriptEventExecutor#execute(Listener, Event)}
+     */
+    private static final ThreadLocal<Event> lastOnThread = new ThreadLocal<>();
+    /**
+     * @deprecated Events can be handled on multiple threads at once, use {@link #getLastEvent()}. This is the last event handled on any thread.
+     */
+    @Deprecated
     @Nullable
     public static Event last;
     static long startTrigger;
     static long lastCall;
     private static long startEvent;
 
+    /**
+     * Decides which player move events are passed on to triggers, see the 'move event mode' and 'move events per second' options
+     */
+    private static PlayerMoveFilter moveFilter = new PlayerMoveFilter(PlayerMoveFilter.Mode.ALL, moveEventCooldown);
+
     private SkriptEventHandler() {
         throw new UnsupportedOperationException();
     }
 
-    private static final Iterator<Trigger> getTriggers(final Class<? extends Event> event) {
-        return new Iterator<Trigger>() {
-            @Nullable
-            private Class<?> e = event;
+    /**
+     * @return The last event handled by Skript on the current thread, or null if it didn't handle any
+     */
+    @Nullable
+    public static final Event getLastEvent() {
+        return lastOnThread.get();
+    }
 
-            @Nullable
-            private Iterator<Trigger> current;
+    /**
+     * The triggers of each event class, including the triggers of its superclasses (in order from the class itself to {@link Event}). Replaced whenever {@link #triggers}
+     * changes, so that events don't have to look up their superclasses every time they're called.
+     */
+    private static volatile ClassValue<EventTriggers> dispatchTable = newDispatchTable();
 
+    private static final ClassValue<EventTriggers> newDispatchTable() {
+        return new ClassValue<EventTriggers>() {
             @Override
-            public boolean hasNext() {
-                Iterator<Trigger> current = this.current;
-                Class<?> e = this.e;
-                while (current == null || !current.hasNext()) {
-                    if (e == null || !Event.class.isAssignableFrom(e))
-                        return false;
+            protected EventTriggers computeValue(final Class<?> event) {
+                final List<Trigger> ts = new ArrayList<>();
+                for (Class<?> e = event; e != null && Event.class.isAssignableFrom(e); e = e.getSuperclass()) {
                     @SuppressWarnings("unlikely-arg-type") final List<Trigger> l = triggers.get(e);
-                    this.current = current = l == null ? null : l.iterator();
-                    this.e = e = e.getSuperclass();
+                    if (l != null)
+                        ts.addAll(l);
                 }
-                return true;
+                return new EventTriggers(ts.toArray(new Trigger[0]));
             }
+        };
+    }
 
-            @Override
-            public Trigger next() {
-                final Iterator<Trigger> current = this.current;
-                if (current == null || !hasNext())
-                    throw new NoSuchElementException();
-                final Trigger next = current.next();
-                assert next != null;
-                return next;
-            }
+    /**
+     * Must be called whenever {@link #triggers} is modified.
+     */
+    private static final void invalidateDispatchTable() {
+        dispatchTable = newDispatchTable();
+    }
 
-            @Override
-            public void remove() {
-                throw new UnsupportedOperationException();
-            }
-        };
+    /**
+     * @return The triggers that may apply to the given event, see {@link SkriptEvent#hasKeys()}
+     */
+    private static final Trigger[] getTriggers(final Event e) {
+        return dispatchTable.get(e.getClass()).get(e);
     }
 
     static final void check(final Event e) {
-        Iterator<Trigger> ts = getTriggers(e.getClass());
-        if (!ts.hasNext())
+        final Trigger[] ts = getTriggers(e);
+        if (ts.length == 0)
             return;
 
         final boolean logVeryHigh = Skript.logVeryHigh();
 
         if (logVeryHigh) {
             boolean hasTrigger = false;
-            while (ts.hasNext()) {
-                if (ts.next().getEvent().check(e)) {
+            for (final Trigger t : ts) {
+                if (t.getEvent().check(e)) {
                     hasTrigger = true;
                     break;
                 }
             }
             if (!hasTrigger)
                 return;
-            final Class<? extends Event> c = e.getClass();
-            assert c != null;
-            ts = getTriggers(c);
 
             logEventStart(e);
         }
@@ -149,8 +173,7 @@ public final class SkriptEventHandler {
             return;
         }
 
-        while (ts.hasNext()) {
-            final Trigger t = ts.next();
+        for (final Trigger t : ts) {
             if (!t.getEvent().check(e))
                 continue;
             if (logVeryHigh)
@@ -194,11 +217,21 @@ public final class SkriptEventHandler {
         Skript.info("# " + t.getName() + " took " + 1. * (System.nanoTime() - startTrigger) / 1000000. + " milliseconds");
     }
 
+    static final void updateMoveFilter() {
+        final int rate = SkriptConfig.moveEventsPerSecond.value();
+        moveFilter.unregister();
+        moveFilter = new PlayerMoveFilter(SkriptConfig.moveEventMode.value(), rate > 0 ? 1000L / rate : moveEventCooldown);
+    }
+
     static final void addTrigger(final Class<? extends Event>[] events, final Trigger trigger) {
         for (final Class<? extends Event> e : events) {
             final List<Trigger> ts = triggers.computeIfAbsent(e, k -> new ArrayList<>());
             ts.add(trigger);
         }
+        invalidateDispatchTable();
+        final File script = trigger.getScript();
+        if (script != null)
+            scriptTriggers.computeIfAbsent(script, k -> new ArrayList<>()).add(new ScriptTrigger(trigger, events));
     }
 
     /**
@@ -209,34 +242,20 @@ public final class SkriptEventHandler {
     public static final void addSelfRegisteringTrigger(final Trigger t) {
         assert t.getEvent() instanceof SelfRegisteringSkriptEvent;
         selfRegisteredTriggers.add(t);
+        final File script = t.getScript();
+        if (script != null)
+            scriptTriggers.computeIfAbsent(script, k -> new ArrayList<>()).add(new ScriptTrigger(t, null));
     }
 
     static final ScriptInfo removeTriggers(final File script) {
         final ScriptInfo info = new ScriptInfo();
         info.files = 1;
 
-        final Iterator<List<Trigger>> triggersIter = SkriptEventHandler.triggers.values().iterator();
-        while (triggersIter.hasNext()) {
-            final List<Trigger> ts = triggersIter.next();
-            for (int i = 0; i < ts.size(); i++) {
-                if (script.equals(ts.get(i).getScript())) {
-                    info.triggers++;
-                    ts.remove(i);
-                    i--;
-                    if (ts.isEmpty())
-                        triggersIter.remove();
-                }
-            }
-        }
-
-        for (int i = 0; i < selfRegisteredTriggers.size(); i++) {
-            final Trigger t = selfRegisteredTriggers.get(i);
-            if (script.equals(t.getScript())) {
-                info.triggers++;
-                ((SelfRegisteringSkriptEvent) t.getEvent()).unregister(t);
-                selfRegisteredTriggers.remove(i);
-                i--;
-            }
+        final List<ScriptTrigger> ts = scriptTriggers.remove(script);
+        if (ts != null) {
+            for (final ScriptTrigger t : ts)
+                t.remove();
+            info.triggers += ts.size();
         }
 
         info.commands = Commands.unregisterCommands(script);
@@ -246,8 +265,33 @@ public final class SkriptEventHandler {
         return info;
     }
 
+    /**
+     * Removes a single trigger that was added with {@link #addTrigger(Class[], Trigger)} or {@link #addSelfRegisteringTrigger(Trigger)}, unregistering it if it is
+     * self registered.
+     *
+     * @param trigger The trigger to remove
+     * @return Whatever the trigger was found
+     */
+    static final boolean removeTrigger(final Trigger trigger) {
+        final File script = trigger.getScript();
+        final List<ScriptTrigger> ts = script == null ? null : scriptTriggers.get(script);
+        if (ts == null)
+            return false;
+        for (int i = 0; i < ts.size(); i++) {
+            if (ts.get(i).trigger == trigger) {
+                ts.remove(i).remove();
+                if (ts.isEmpty())
+                    scriptTriggers.remove(script);
+                return true;
+            }
+        }
+        return false;
+    }
+
     static final void removeAllTriggers() {
         triggers.clear();
+        invalidateDispatchTable();
+        scriptTriggers.clear();
         for (final Trigger t : selfRegisteredTriggers)
             ((SelfRegisteringSkriptEvent) t.getEvent()).unregisterAll();
         selfRegisteredTriggers.clear();
@@ -298,9 +342,10 @@ public final class SkriptEventHandler {
             if (e == null)
                 return;
 
-            if (last == e) // an event is received multiple times if multiple superclasses of it are registered
+            if (lastOnThread.get() == e) // an event is received multiple times if multiple superclasses of it are registered
                 return;
 
+            lastOnThread.set(e);
             last = e;
 
             // Event is asynchronous, but it ran from main thread
@@ -311,7 +356,7 @@ public final class SkriptEventHandler {
 
             // Skip the event if it's a frequently called event
             // Note: Making anti-cheats with Skript is already a bad idea, I'm not responsible if it breaks them
-            if (e instanceof PlayerMoveEvent && System.currentTimeMillis() - lastCall < moveEventCooldown)
+            if (e instanceof PlayerMoveEvent && !moveFilter.accept((PlayerMoveEvent) e))
                 return;
 
             if ((e instanceof BlockPhysicsEvent || e instanceof InventoryMoveItemEvent) && System.currentTimeMillis() - lastCall < eventCooldown)
@@ -355,4 +400,114 @@ public final class SkriptEventHandler {
 //		return false;
 //	}
 
+    /**
+     * The triggers of an event class, and the triggers selected by the keys of events (see {@link SkriptEvent#hasKeys()}).
+     */
+    private static final class EventTriggers {
+        /**
+         * The maximum number of keys the selected triggers are cached for, as some keys (e.g. command labels) are chosen by players
+         */
+        private static final int MAX_KEYS = 1000;
+
+        private final Trigger[] triggers;
+        /**
+         * One event of each SkriptEvent class with keys, which are used to get the keys of events
+         */
+        private final SkriptEvent[] keyers;
+        private final Map<Object, Trigger[]> byKey = new ConcurrentHashMap<>();
+
+        EventTriggers(final Trigger[] triggers) {
+            this.triggers = triggers;
+            final Map<Class<?>, SkriptEvent> keyers = new LinkedHashMap<>();
+            for (final Trigger t : triggers) {
+                final SkriptEvent e = t.getEvent();
+                if (e.hasKeys())
+                    keyers.putIfAbsent(e.getClass(), e);
+            }
+            this.keyers = keyers.values().toArray(new SkriptEvent[0]);
+        }
+
+        final Trigger[] get(final Event e) {
+            final SkriptEvent[] keyers = this.keyers;
+            if (keyers.length == 0)
+                return triggers;
+            final Object key;
+            if (keyers.length == 1) {
+                key = keyers[0].getKey(e);
+                if (key == null)
+                    return triggers;
+            } else {
+                final Object[] keys = new Object[keyers.length];
+                for (int i = 0; i < keys.length; i++)
+                    keys[i] = keyers[i].getKey(e);
+                key = Arrays.asList(keys);
+            }
+            Trigger[] ts = byKey.get(key);
+            if (ts == null) {
+                ts = select(key);
+                if (byKey.size() < MAX_KEYS)
+                    byKey.put(key, ts);
+            }
+            return ts;
+        }
+
+        private final Trigger[] select(final Object key) {
+            final List<Trigger> ts = new ArrayList<>();
+            for (final Trigger t : triggers) {
+                final SkriptEvent e = t.getEvent();
+                if (!e.hasKeys()) {
+                    ts.add(t);
+                    continue;
+                }
+                final Object k = keyers.length == 1 ? key : ((List<?>) key).get(indexOfKeyer(e.getClass()));
+                if (k == null || e.matchesKey(k))
+                    ts.add(t);
+            }
+            return ts.toArray(new Trigger[0]);
+        }
+
+        private final int indexOfKeyer(final Class<?> c) {
+            for (int i = 0; i < keyers.length; i++) {
+                if (keyers[i].getClass() == c)
+                    return i;
+            }
+            throw new IllegalStateException(c.getName());
+        }
+    }
+
+    /**
+     * A trigger of a script and the events it was added for, or null events if it is self registered.
+     */
+    private static final class ScriptTrigger {
+        final Trigger trigger;
+        @Nullable
+        final Class<? extends Event>[] events;
+
+        ScriptTrigger(final Trigger trigger, @Nullable final Class<? extends Event>[] events) {
+            this.trigger = trigger;
+            this.events = events;
+        }
+
+        /**
+         * Removes the trigger from the lists of its events, or unregisters it if it is self registered. Only the lists of its events are checked.
+         */
+        final void remove() {
+            final Class<? extends Event>[] events = this.events;
+            if (events == null) {
+                ((SelfRegisteringSkriptEvent) trigger.getEvent()).unregister(trigger);
+                selfRegisteredTriggers.remove(trigger);
+                return;
+            }
+            for (final Class<? extends Event> e : events) {
+                final List<Trigger> ts = triggers.get(e);
+                if (ts == null)
+                    continue;
+                ts.remove(trigger);
+                if (ts.isEmpty())
+                    triggers.remove(e);
+            }
+            invalidateDispatchTable();
+        }
+    }
+
 }
@@ -95,7 +95,7 @@ public final class Aliases {
     private static final RegexMessage p_every = new RegexMessage("aliases.every", "", " (.+)", Pattern.CASE_INSENSITIVE);
     private static final RegexMessage p_of_every = new RegexMessage("aliases.of every", "(\\d+) ", " (.+)", Pattern.CASE_INSENSITIVE);
     private static final RegexMessage p_of = new RegexMessage("aliases.of", "(\\d+) (?:", " )?(.+)", Pattern.CASE_INSENSITIVE);
-    private static final Matcher UNDERSCORE_PATTERN_MATCHER = Pattern.compile("_", Pattern.LITERAL).matcher("");
+    private static final Pattern UNDERSCORE_PATTERN = Pattern.compile("_", Pattern.LITERAL);
     private static final Matcher DOUBLE_SPACE = Pattern.compile(" {2}").matcher("");
     private static final Matcher WHITESPACE = Pattern.compile("\\s+").matcher("");
     private static String itemSingular = "item";
@@ -681,7 +681,7 @@ public final class Aliases {
      */
     @Nullable
     private static final ItemType getAlias(final String s) {
-        String lc = UNDERSCORE_PATTERN_MATCHER.reset(s.toLowerCase(Locale.ENGLISH)).replaceAll(Matcher.quoteReplacement(" "));
+        String lc = UNDERSCORE_PATTERN.matcher(s.toLowerCase(Locale.ENGLISH)).replaceAll(Matcher.quoteReplacement(" "));
         final Matcher m = p_any.matcher(lc);
         if (m.matches()) {
             lc = m.group(m.groupCount());
@@ -758,6 +758,13 @@ public final class Aliases {
         materialNames_localised.clear();
     }
 
+    /**
+     * @return A hash of the names of all loaded aliases, which changes if aliases are added or removed
+     */
+    public static final int getAliasesHash() {
+        return 31 * aliases_english.keySet().hashCode() + aliases_localised.keySet().hashCode();
+    }
+
     @SuppressWarnings({"null", "resource"})
     public static final void load() {
 //        final boolean flag = Skript.logHigh();
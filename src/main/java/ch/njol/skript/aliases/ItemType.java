@@ -338,6 +338,17 @@ public final class ItemType implements Unit, Iterable<ItemData>, Container<ItemS
         return false;
     }
 
+    /**
+     * @return Whatever items or blocks with the given id can be of this type, i.e. whatever {@link #isOfType(int, short)} can return true for some data value
+     */
+    public boolean canBeOfType(final int id) {
+        for (final ItemData type : types) {
+            if (type.getId() == -1 || type.getId() == id)
+                return true;
+        }
+        return false;
+    }
+
     public boolean isSupertypeOf(final ItemType other) {
 //		if (all != other.all)
 //			return false;
@@ -0,0 +1,195 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.bukkitutil;
+
+import ch.njol.skript.Skript;
+import ch.njol.util.misc.Tickable;
+import org.bukkit.Bukkit;
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * A hierarchical timing wheel that runs tasks after a given amount of ticks. All tasks of a tick are ran in one batch
+ * from a single {@link Tickable} registered with {@link TickUtils#everyTick(Tickable)}, so scheduling a task is much
+ * cheaper than scheduling a Bukkit task, even with tens of thousands of pending tasks.
+ * <p>
+ * The wheel has {@link #LEVELS} levels of {@link #SLOTS} slots each. A task is put into the lowest level that can
+ * hold its delay, and moved down a level each time the wheel reaches its slot, until it is ran from the first level.
+ * Tasks with longer delays than the last level can hold wait in an overflow list.
+ * <p>
+ * Tasks can be scheduled from any thread, but are always ran on the main server thread.
+ */
+public final class TimingWheel implements Tickable {
+
+    private static final int SLOT_BITS = 6;
+    static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    static final int LEVELS = 4;
+
+    private static final class Entry {
+        final Runnable task;
+        final long due;
+        @Nullable
+        Entry next;
+
+        Entry(final Runnable task, final long due) {
+            this.task = task;
+            this.due = due;
+        }
+    }
+
+    private final Entry[][] wheels = new Entry[LEVELS][SLOTS];
+    @Nullable
+    private Entry overflow;
+
+    private volatile long tick;
+    private int size;
+
+    private volatile boolean registered;
+    private boolean registering;
+
+    /**
+     * Runs the given task on the main server thread after the given amount of ticks.
+     *
+     * @param task The task to run.
+     * @param ticks The delay in ticks, values lower than one run the task in the next tick.
+     */
+    public final void schedule(final Runnable task, final long ticks) {
+        synchronized (this) {
+            insert(new Entry(task, tick + Math.max(ticks, 1L)));
+            size++;
+        }
+        if (!registered && Skript.isBukkitRunning())
+            register();
+    }
+
+    /**
+     * @return The amount of tasks that are scheduled but not ran yet.
+     */
+    public final synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return The number of ticks this wheel has ran, which changes only between ticks of the server.
+     */
+    public final long getTick() {
+        return tick;
+    }
+
+    /**
+     * Removes all pending tasks without running them.
+     */
+    public final synchronized void clear() {
+        for (final Entry[] wheel : wheels)
+            Arrays.fill(wheel, null);
+        overflow = null;
+        size = 0;
+    }
+
+    private final void register() {
+        if (!Bukkit.isPrimaryThread()) {
+            Bukkit.getScheduler().runTask(Skript.getInstance(), this::register);
+            return;
+        }
+        if (registered)
+            return;
+        registered = true;
+        registering = true; // TickUtils#everyTick ticks once while registering, which is not a server tick
+        try {
+            TickUtils.everyTick(this);
+        } finally {
+            registering = false;
+        }
+    }
+
+    private final void insert(final Entry entry) {
+        final long delay = entry.due - tick;
+        for (int level = 0; level < LEVELS; level++) {
+            if (delay < 1L << SLOT_BITS * (level + 1)) {
+                final int slot = (int) (entry.due >>> SLOT_BITS * level) & SLOT_MASK;
+                entry.next = wheels[level][slot];
+                wheels[level][slot] = entry;
+                return;
+            }
+        }
+        entry.next = overflow;
+        overflow = entry;
+    }
+
+    /**
+     * Moves all entries of the given list one or more levels down, or runs them in this tick if they are due.
+     */
+    private final void reinsert(@Nullable Entry entry) {
+        while (entry != null) {
+            final Entry next = entry.next;
+            insert(entry);
+            entry = next;
+        }
+    }
+
+    @Override
+    public final void tick() {
+        if (registering)
+            return;
+        Entry due;
+        synchronized (this) {
+            final long tick = ++this.tick;
+            int level = 0;
+            while (level < LEVELS && (tick & (1L << SLOT_BITS * level) - 1L) == 0L)
+                level++;
+            if (level == LEVELS) { // The last level moved to its next slot, overflowing tasks may fit into it now
+                final Entry overflow = this.overflow;
+                this.overflow = null;
+                reinsert(overflow);
+            }
+            for (level--; level > 0; level--) {
+                final int slot = (int) (tick >>> SLOT_BITS * level) & SLOT_MASK;
+                final Entry entries = wheels[level][slot];
+                wheels[level][slot] = null;
+                reinsert(entries);
+            }
+            final int slot = (int) tick & SLOT_MASK;
+            due = wheels[0][slot];
+            wheels[0][slot] = null;
+        }
+        int ran = 0;
+        while (due != null) {
+            final Runnable task = due.task;
+            due = due.next;
+            try {
+                task.run();
+            } catch (final Throwable t) {
+                Skript.exception(t, "Exception while running a scheduled task");
+            }
+            ran++;
+        }
+        if (ran != 0) {
+            synchronized (this) {
+                size -= ran;
+            }
+        }
+    }
+
+}
@@ -68,8 +68,8 @@ public final class BukkitClasses {
 
     static final Pattern blockDeserializePattern = Pattern.compile("[:,]");
 
-    static final Matcher parsePatternMatcher = Pattern.compile("(?:(?:the )?world )?\"(.+?)\"", Pattern.CASE_INSENSITIVE).matcher("");
-    static final Matcher validPlayerNameMatcher = Pattern.compile("\\S+").matcher("");
+    static final Pattern parsePattern = Pattern.compile("(?:(?:the )?world )?\"(.+?)\"", Pattern.CASE_INSENSITIVE);
+    static final Pattern validPlayerNamePattern = Pattern.compile("\\S+");
 
     // This speeds up variable saving a lot (like 8 minutes to 10 seconds for 720.000+ variables)
     // Because UUIDs are always known when OfflinePlayer/Player objects are created, but names must be read from world data.
@@ -303,7 +303,7 @@ public final class BukkitClasses {
                     return Bukkit.getWorld(s);
                 if (s.isEmpty())
                     return null;
-                final Matcher m = parsePatternMatcher.reset(s.trim());
+                final Matcher m = parsePattern.matcher(s.trim());
                 if (m.matches())
                     return Bukkit.getWorld(m.group(1));
                 return null;
@@ -451,7 +451,7 @@ public final class BukkitClasses {
             @Nullable
             public final OfflinePlayer parse(final String s, final ParseContext context) {
                 if (context == ParseContext.COMMAND) {
-                    if (!validPlayerNameMatcher.reset(s).matches() || s.length() > 16) {
+                    if (!validPlayerNamePattern.matcher(s).matches() || s.length() > 16) {
                         Skript.error("The player name \"" + s + "\" is not a valid player name");
                         return null;
                     }
@@ -53,6 +53,10 @@ public final class JavaClasses {
     public static final int VARIABLENAME_NUMBERACCURACY = 8;
     public static final boolean DISABLE_BYTE_SHORT_FLOAT = PropertyManager.getBoolean("skript.disableByteShortFloat");
     public static final Pattern QUOTE_PATTERN = Pattern.compile("\"\"", Pattern.LITERAL);
+    /**
+     * @deprecated not thread safe, use {@link #QUOTE_PATTERN} instead
+     */
+    @Deprecated
     public static final Matcher QUOTE_PATTERN_MATCHER = QUOTE_PATTERN.matcher("");
 
     private JavaClasses() {
@@ -601,7 +605,7 @@ public final class JavaClasses {
                     case SCRIPT:
                     case EVENT:
                         if (VariableString.isQuotedCorrectly(s, true))
-                            return Utils.replaceChatStyles(QUOTE_PATTERN_MATCHER.reset(s.substring(1, s.length() - 1)).replaceAll(Matcher.quoteReplacement("\"")));
+                            return Utils.replaceChatStyles(QUOTE_PATTERN.matcher(s.substring(1, s.length() - 1)).replaceAll(Matcher.quoteReplacement("\"")));
                         return null;
                     case COMMAND:
                         return s;
@@ -56,7 +56,7 @@ import java.util.regex.Pattern;
 public final class SkriptClasses {
     static final Pattern ITEMTYPE_DESERIALIZE_PATTERN = Pattern.compile("[,:/]");
 
-    static final Matcher EXPERIENCE_PATTERN_MATCHER = Pattern.compile("\\d+ .+").matcher("");
+    static final Pattern EXPERIENCE_PATTERN = Pattern.compile("\\d+ .+");
     static final Matcher ITEM_META_PATTERN_MATCHER = Pattern.compile("¦¦", Pattern.LITERAL).matcher("");
 
     static final RegexMessage experiencePattern = new RegexMessage("types.experience.pattern", Pattern.CASE_INSENSITIVE);
@@ -659,7 +659,7 @@ public final class SkriptClasses {
             @Nullable
             public final Experience parse(String s, final ParseContext context) {
                 int xp = -1;
-                if (EXPERIENCE_PATTERN_MATCHER.reset(s).matches()) {
+                if (EXPERIENCE_PATTERN.matcher(s).matches()) {
                     xp = Utils.parseInt(s.substring(0, s.indexOf(' ')));
                     s = s.substring(s.indexOf(' ') + 1);
                 }
@@ -193,7 +193,7 @@ public final class Commands {
         }
     }
 
-    @SuppressWarnings("null")
+    @SuppressWarnings({"null", "deprecation"})
     public static final void onPlayerCommand(final PlayerCommandPreprocessEvent e) {
         final String command = e.getMessage().substring(1);
         checkTimings(command);
@@ -213,7 +213,7 @@ public final class Commands {
         }
     }
 
-    @SuppressWarnings("null")
+    @SuppressWarnings({"null", "deprecation"})
     public static final void onServerCommand(final ServerCommandEvent e) {
         if (e.getCommand() == null || e.getCommand().isEmpty() || cancellableServerCommand && e.isCancelled())
             return;
@@ -721,17 +721,31 @@ public final class Commands {
             final ScriptCommand c = commandsIter.next();
             if (script.equals(c.getScript())) {
                 numCommands++;
-                c.unregisterHelp();
-                if (commandMap != null) {
-                    assert cmKnownCommands != null;// && cmAliases != null;
-                    c.unregister(commandMap, cmKnownCommands, cmAliases);
-                }
+                unregister(c);
                 commandsIter.remove();
             }
         }
         return numCommands;
     }
 
+    /**
+     * Unregisters a single command and its aliases, e.g. when only this command changed while reloading its script.
+     *
+     * @param command The command to unregister
+     */
+    public static final void unregisterCommand(final ScriptCommand command) {
+        if (commands.values().removeIf(c -> c == command))
+            unregister(command);
+    }
+
+    private static final void unregister(final ScriptCommand c) {
+        c.unregisterHelp();
+        if (commandMap != null) {
+            assert cmKnownCommands != null;// && cmAliases != null;
+            c.unregister(commandMap, cmKnownCommands, cmAliases);
+        }
+    }
+
     public static final void registerListeners() {
         if (!registeredListeners) {
             final EventPriority commandPriority = SkriptConfig.commandPriority.value();
@@ -32,7 +32,9 @@ import ch.njol.skript.doc.Since;
 import ch.njol.skript.lang.Condition;
 import ch.njol.skript.lang.Expression;
 import ch.njol.skript.lang.ExpressionList;
+import ch.njol.skript.lang.Literal;
 import ch.njol.skript.lang.SkriptParser.ParseResult;
+import ch.njol.skript.lang.UnparsedLiteral;
 import ch.njol.skript.log.ErrorQuality;
 import ch.njol.skript.log.RetainingLogHandler;
 import ch.njol.skript.log.SkriptLogger;
@@ -228,6 +230,15 @@ public final class CondCompare extends Condition {
         }), isNegated());
     }
 
+    @Override
+    public final boolean isConstant() {
+        return isLiteral(first) && isLiteral(second) && (third == null || isLiteral(third));
+    }
+
+    private static final boolean isLiteral(@Nullable final Expression<?> e) {
+        return e instanceof Literal && !(e instanceof UnparsedLiteral);
+    }
+
     @Override
     public final String toString(@Nullable final Event e, final boolean debug) {
         String s;
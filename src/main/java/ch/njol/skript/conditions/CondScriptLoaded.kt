@@ -60,8 +60,8 @@ class CondScriptLoaded : Condition() {
         @Suppress("UNCHECKED_CAST")
         scripts = exprs[0] as Expression<String>
         isNegated = matchedPattern == 1
-        assert(ScriptLoader.currentScript != null)
-        currentScriptFile = ScriptLoader.currentScript!!.file
+        assert(ScriptLoader.getCurrentScript() != null)
+        currentScriptFile = ScriptLoader.getCurrentScript()!!.file
         return true
     }
 
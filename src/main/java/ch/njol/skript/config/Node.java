@@ -43,9 +43,8 @@ public abstract class Node {
 
     @SuppressWarnings("null")
     private static final Pattern linePattern = Pattern.compile("^((?:[^#]|##)*)(\\s*#(?!#).*?)$");
-    private static final Matcher linePatternMatcher = linePattern.matcher("");
-    private static final Matcher SINGLE_COMMENT_PATTERN_MATCHER = Pattern.compile("#", Pattern.LITERAL).matcher("");
-    private static final Matcher DOUBLE_COMMENT_PATTERN_MATCHER = Pattern.compile("##", Pattern.LITERAL).matcher("");
+    private static final Pattern SINGLE_COMMENT_PATTERN = Pattern.compile("#", Pattern.LITERAL);
+    private static final Pattern DOUBLE_COMMENT_PATTERN = Pattern.compile("##", Pattern.LITERAL);
     protected final int lineNum;
     private final boolean debug;
     @Nullable
@@ -107,18 +106,18 @@ public abstract class Node {
     public static final NonNullPair<String, String> splitLine(final String line) {
         if (!line.contains("#"))
             return new NonNullPair<>(line, "");
-        final Matcher m = linePatternMatcher.reset(ScriptLoader.optimizeAndOr(null, line));
+        final Matcher m = linePattern.matcher(ScriptLoader.optimizeAndOr(null, line));
         try {
             final boolean matches;
             {
                 matches = m.matches();
             }
             if (matches)
-                return new NonNullPair<>(DOUBLE_COMMENT_PATTERN_MATCHER.reset(m.group(1)).replaceAll(Matcher.quoteReplacement("#")), m.group(2));
+                return new NonNullPair<>(DOUBLE_COMMENT_PATTERN.matcher(m.group(1)).replaceAll(Matcher.quoteReplacement("#")), m.group(2));
         } catch (final StackOverflowError e) { // JDK bug? (see https://github.com/LifeMC/LifeSkript/issues/26)
-            Node.handleStackOverFlow(line, linePatternMatcher, e);
+            Node.handleStackOverFlow(line, m, e);
         }
-        return new NonNullPair<>(DOUBLE_COMMENT_PATTERN_MATCHER.reset(line).replaceAll(Matcher.quoteReplacement("#")), "");
+        return new NonNullPair<>(DOUBLE_COMMENT_PATTERN.matcher(line).replaceAll(Matcher.quoteReplacement("#")), "");
     }
 
     public static final void handleStackOverFlow(final String input,
@@ -126,7 +125,7 @@ public abstract class Node {
                                                  final StackOverflowError exception) {
         //Skript.debug("input", input, "causedByRegex", causedByRegex, "exception", exception);
 
-        final Config config = ScriptLoader.currentScript;
+        final Config config = ScriptLoader.getCurrentScript();
         final Node node = SkriptLogger.getNode();
 
         String additionalInfo = "";
@@ -210,7 +209,7 @@ public abstract class Node {
     abstract String save_i();
 
     public final String save() {
-        return getIndentation() + SINGLE_COMMENT_PATTERN_MATCHER.reset(save_i()).replaceAll(Matcher.quoteReplacement("##")) + comment;
+        return getIndentation() + SINGLE_COMMENT_PATTERN.matcher(save_i()).replaceAll(Matcher.quoteReplacement("##")) + comment;
     }
 
     public void save(final PrintWriter w) {
@@ -28,6 +28,7 @@ import ch.njol.skript.SkriptConfig;
 import ch.njol.skript.agents.SkriptAgentKt;
 import ch.njol.skript.agents.events.end.DelayEndEvent;
 import ch.njol.skript.agents.events.start.DelayStartEvent;
+import ch.njol.skript.bukkitutil.TimingWheel;
 import ch.njol.skript.doc.Description;
 import ch.njol.skript.doc.Examples;
 import ch.njol.skript.doc.Name;
@@ -37,7 +38,6 @@ import ch.njol.skript.lang.function.FunctionEvent;
 import ch.njol.skript.timings.SkriptTimings;
 import ch.njol.skript.util.Timespan;
 import ch.njol.util.Kleenean;
-import org.bukkit.Bukkit;
 import org.bukkit.event.Event;
 import org.eclipse.jdt.annotation.Nullable;
 
@@ -53,7 +53,14 @@ import java.util.WeakHashMap;
 @Examples({"wait 2 minutes", "halt for 5 minecraft hours", "wait a tick"})
 @Since("1.4")
 public final class Delay extends Effect {
-    public static final Set<Event> delayed = Collections.newSetFromMap(new WeakHashMap<>(100));
+    /**
+     * Events that had a delay, weakly referenced so they're removed once no continuation of them is pending.
+     */
+    public static final Set<Event> delayed = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>(100)));
+    /**
+     * Runs the continuations of all delays, see {@link #getPendingContinuations()}.
+     */
+    public static final TimingWheel continuations = new TimingWheel();
     public static boolean delayingDisabled;
 
     static {
@@ -71,6 +78,13 @@ public final class Delay extends Effect {
         delayed.add(event);
     }
 
+    /**
+     * @return The amount of triggers waiting for a delay or an asynchronous effect to continue.
+     */
+    public static final int getPendingContinuations() {
+        return continuations.size();
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public final boolean init(final Expression<?>[] exprs, final int matchedPattern, final Kleenean isDelayed, final SkriptParser.ParseResult parseResult) {
@@ -106,11 +120,12 @@ public final class Delay extends Effect {
         final TriggerItem next = getNext();
         if (next != null) {
             delayed.add(e);
+            final ExecutionFrame frame = ExecutionFrame.current(); // the loops this delay is in
             final boolean trackingEnabled = SkriptAgentKt.isTrackingEnabled();
             final long start = Skript.debug() ? System.nanoTime() : 0L;
             if (trackingEnabled)
                 SkriptAgentKt.throwEvent(new DelayStartEvent(duration));
-            Bukkit.getScheduler().runTaskLater(Skript.instance, () -> {
+            continuations.schedule(() -> {
                 if (Skript.debug())
                     Skript.info(getIndentation() + " ... continuing after " + (System.nanoTime() - start) / 1000000000. + 's');
                 final long startTime = trackingEnabled ? System.nanoTime() : 0L;
@@ -121,7 +136,7 @@ public final class Delay extends Effect {
                         timing = SkriptTimings.start(trigger.getDebugLabel());
                     }
                 }
-                TriggerItem.walk(next, e);
+                ExecutionFrame.run(frame, () -> TriggerItem.walk(next, e));
                 if (timing != null)
                     SkriptTimings.stop(timing); // Stop timing if it was even started
                 if (trackingEnabled)
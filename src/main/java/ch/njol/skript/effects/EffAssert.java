@@ -75,8 +75,8 @@ public final class EffAssert extends Effect {
         if (exprs.length > 0 && exprs[0] != null)
             errorMsg = (Expression<String>) exprs[0];
 
-        if (ScriptLoader.currentScript != null)
-            script = ScriptLoader.currentScript.getFileName();
+        if (ScriptLoader.getCurrentScript() != null)
+            script = ScriptLoader.getCurrentScript().getFileName();
         if (SkriptLogger.getNode() != null)
             line = SkriptLogger.getNode().getLine();
 
@@ -95,7 +95,7 @@ public final class EffCommand extends Effect {
         commands = VariableString.setStringMode(commands, StringMode.COMMAND);
         flag = Skript.debug();
         if (flag) {
-            script = ScriptLoader.currentScript.getFileName();
+            script = ScriptLoader.getCurrentScript().getFileName();
             line = SkriptLogger.getNode().getLine();
         }
         return true;
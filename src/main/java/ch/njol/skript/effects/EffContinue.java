@@ -72,7 +72,7 @@ public final class EffContinue extends Effect {
     @Override
     @SuppressWarnings("null")
     public boolean init(final Expression<?>[] exprs, final int matchedPattern, final Kleenean isDelayed, final SkriptParser.ParseResult parseResult) {
-        final List<Loop> loops = ScriptLoader.currentLoops;
+        final List<Loop> loops = ScriptLoader.getCurrentLoops();
         if (loops.isEmpty()) {
             Skript.error("Continue may only be used in loops");
             return false;
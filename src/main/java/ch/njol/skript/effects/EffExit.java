@@ -55,9 +55,9 @@ public final class EffExit extends Effect { // TODO [code style] warn user about
 
     private static final int numLevels(final int type) {
         if (type == EVERYTHING)
-            return ScriptLoader.currentSections.size();
+            return ScriptLoader.getCurrentSections().size();
         int r = 0;
-        for (final TriggerSection s : ScriptLoader.currentSections) {
+        for (final TriggerSection s : ScriptLoader.getCurrentSections()) {
             if (type == CONDITIONALS ? s instanceof Conditional : s instanceof Loop || s instanceof While)
                 r++;
         }
@@ -68,7 +68,7 @@ public final class EffExit extends Effect { // TODO [code style] warn user about
     public final boolean init(final Expression<?>[] exprs, final int matchedPattern, final Kleenean isDelayed, final ParseResult parser) {
         switch (matchedPattern) {
             case 0:
-                breakLevels = ScriptLoader.currentSections.size() + 1;
+                breakLevels = ScriptLoader.getCurrentSections().size() + 1;
                 type = EVERYTHING;
                 break;
             case 1:
@@ -108,12 +108,11 @@ public final class EffExit extends Effect { // TODO [code style] warn user about
                 assert false : this;
                 return null;
             }
+            if (n instanceof Loop)
+                ((Loop) n).exit(e); // also stops loops inside the exited one
             if (type == EVERYTHING || type == CONDITIONALS && n instanceof Conditional || type == LOOPS && (n instanceof Loop || n instanceof While))
                 i--;
         }
-        if (n instanceof Loop) {
-            ((Loop) n).getCurrentIter().remove(e);
-        }
         return n instanceof Loop ? ((Loop) n).getActualNext() : n instanceof While ? ((While) n).getActualNext() : n.getNext();
     }
 
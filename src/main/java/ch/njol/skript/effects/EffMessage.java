@@ -70,7 +70,7 @@ public final class EffMessage extends Effect {
         recipients = (Expression<CommandSender>) exprs[1];
 
         if (SkriptConfig.enableExplicitPlayerUseWarnings.value()) {
-            script = ScriptLoader.currentScript.getFileName();
+            script = ScriptLoader.getCurrentScript().getFileName();
             line = SkriptLogger.getNode().getLine();
         }
 
@@ -140,8 +140,8 @@ public final class EffPark extends Effect {
             return false;
         }
 
-        if (ScriptLoader.currentScript != null)
-            script = ScriptLoader.currentScript.getFileName();
+        if (ScriptLoader.getCurrentScript() != null)
+            script = ScriptLoader.getCurrentScript().getFileName();
 
         if (SkriptLogger.getNode() != null)
             line = SkriptLogger.getNode().getLine();
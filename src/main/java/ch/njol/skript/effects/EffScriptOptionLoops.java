@@ -58,10 +58,10 @@ public final class EffScriptOptionLoops extends Effect {
     public boolean init(final Expression<?>[] exprs, final int matchedPattern, final Kleenean isDelayed, final ParseResult parseResult) {
         if (!ScriptLoader.isCurrentEvent(ScriptEvent.class) || isDelayed == Kleenean.TRUE) {
             Skript.error("Current event is not Script Event or you have a delay before the script option. Defaulting to 2.2 loops.", ErrorQuality.SEMANTIC_ERROR);
-            ScriptOptions.getInstance().setUsesNewLoops(ScriptLoader.currentScript.getFile(), true);
+            ScriptOptions.getInstance().setUsesNewLoops(ScriptLoader.getCurrentScript().getFile(), true);
             return false;
         }
-        ScriptOptions.getInstance().setUsesNewLoops(ScriptLoader.currentScript.getFile(), parseResult.mark == 2);
+        ScriptOptions.getInstance().setUsesNewLoops(ScriptLoader.getCurrentScript().getFile(), parseResult.mark == 2);
         return true;
     }
 
@@ -62,8 +62,8 @@ public final class EffThrow extends Effect {
         error = parseResult.mark > 0;
         java = parseResult.mark > 1;
         detail = (Expression<String>) exprs[0];
-        if (ScriptLoader.currentScript != null)
-            script = ScriptLoader.currentScript.getFileName();
+        if (ScriptLoader.getCurrentScript() != null)
+            script = ScriptLoader.getCurrentScript().getFileName();
         if (SkriptLogger.getNode() != null)
             line = SkriptLogger.getNode().getLine();
         return true;
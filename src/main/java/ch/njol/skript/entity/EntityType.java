@@ -44,10 +44,8 @@ import java.util.regex.Pattern;
 public final class EntityType implements Cloneable, YggdrasilSerializable {
 
     private static final Pattern ENTITY_TYPE_PATTERN_ONE = Pattern.compile("\\d+ .+");
-    private static final Matcher ENTITY_TYPE_PATTERN_ONE_MATCHER = ENTITY_TYPE_PATTERN_ONE.matcher("");
 
     private static final Pattern ENTITY_TYPE_PATTERN_TWO = Pattern.compile("(?i)an? .+");
-    private static final Matcher ENTITY_TYPE_PATTERN_TWO_MATCHER = ENTITY_TYPE_PATTERN_TWO.matcher("");
 
     static {
         Classes.registerClass(new ClassInfo<>(EntityType.class, "entitytype").name("Entity Type with Amount").description("An <a href='#entitydata'>entity type</a> with an amount, e.g. '2 zombies'. I might remove this type in the future and make a more general 'type' type, i.e. a type that has a number and a type.").usage("&lt;<a href='#number'>number</a>&gt; &lt;entity type&gt;").examples("spawn 5 creepers behind the player").since("1.3").defaultExpression(new SimpleLiteral<>(new EntityType(Entity.class, 1), true)).parser(new Parser<EntityType>() {
@@ -131,10 +129,10 @@ public final class EntityType implements Cloneable, YggdrasilSerializable {
         s = s.trim();
 
         int amount = -1;
-        if (ENTITY_TYPE_PATTERN_ONE_MATCHER.reset(s).matches()) {
+        if (ENTITY_TYPE_PATTERN_ONE.matcher(s).matches()) {
             amount = Utils.parseInt(s.split(" ", 2)[0]);
             s = s.split(" ", 2)[1];
-        } else if (ENTITY_TYPE_PATTERN_TWO_MATCHER.reset(s).matches()) {
+        } else if (ENTITY_TYPE_PATTERN_TWO.matcher(s).matches()) {
             s = s.split(" ", 2)[1];
         }
 //		final Pair<String, Boolean> p = Utils.getPlural(s, amount != 1 && amount != -1);
@@ -109,6 +109,42 @@ public final class EvtBlock extends SkriptEvent {
         return types.check(e, t -> t != null && t.isOfType(id, durability));
     }
 
+    @Override
+    public boolean hasKeys() {
+        return types != null;
+    }
+
+    /**
+     * @return The id of the block, or null for hanging entities
+     */
+    @SuppressWarnings("null")
+    @Override
+    @Nullable
+    public Object getKey(final Event e) {
+        if (e instanceof BlockFormEvent)
+            return ((BlockFormEvent) e).getNewState().getTypeId();
+        if (e instanceof BlockEvent)
+            return ((BlockEvent) e).getBlock().getTypeId();
+        if (e instanceof PlayerBucketFillEvent)
+            return ((PlayerBucketEvent) e).getBlockClicked().getRelative(((PlayerBucketEvent) e).getBlockFace()).getTypeId();
+        if (e instanceof PlayerBucketEmptyEvent)
+            return (((PlayerBucketEmptyEvent) e).getBucket() == Material.WATER_BUCKET ? Material.STATIONARY_WATER : Material.STATIONARY_LAVA).getId();
+        if (e instanceof PaintingEvent)
+            return Material.PAINTING.getId();
+        return null;
+    }
+
+    @Override
+    public boolean matchesKey(final Object key) {
+        final Literal<ItemType> types = this.types;
+        assert types != null;
+        for (final ItemType t : types.getAll()) {
+            if (t.canBeOfType((Integer) key))
+                return true;
+        }
+        return false;
+    }
+
     @Override
     public String toString(@Nullable final Event e, final boolean debug) {
         return "break/place/burn/fade/form of " + Classes.toString(types);
@@ -134,6 +134,34 @@ public final class EvtClick extends SkriptEvent {
         return true;
     }
 
+    @Override
+    public boolean hasKeys() {
+        return types != null && ItemType.class.isAssignableFrom(types.getReturnType());
+    }
+
+    /**
+     * @return The id of the clicked block, or null if no block was clicked
+     */
+    @Override
+    @Nullable
+    public Object getKey(final Event e) {
+        if (!(e instanceof PlayerInteractEvent))
+            return null;
+        final Block block = ((PlayerInteractEvent) e).getClickedBlock();
+        return block == null ? null : block.getTypeId();
+    }
+
+    @Override
+    public boolean matchesKey(final Object key) {
+        final Literal<?> types = this.types;
+        assert types != null;
+        for (final Object t : types.getAll()) {
+            if (((ItemType) t).canBeOfType((Integer) key))
+                return true;
+        }
+        return false;
+    }
+
     @Override
     public String toString(@Nullable final Event e, final boolean debug) {
         return (click == LEFT ? "left" : click == RIGHT ? "right" : "") + "click" + (types != null ? " on " + types.toString(e, debug) : "") + (tools != null ? " holding " + tools.toString(e, debug) : "");
@@ -71,6 +71,43 @@ public final class EvtCommand extends SkriptEvent {
         return StringUtils.startsWithIgnoreCase(message, command) && (command.contains(" ") || message.length() == command.length() || Character.isWhitespace(message.charAt(command.length()))); // if only the command is given, match that command only
     }
 
+    @Override
+    public boolean hasKeys() {
+        return command != null;
+    }
+
+    /**
+     * @return The label of the command, i.e. the command up to the first whitespace
+     */
+    @Override
+    @Nullable
+    public Object getKey(final Event e) {
+        final String message;
+        if (e instanceof PlayerCommandPreprocessEvent) {
+            message = ((PlayerCommandPreprocessEvent) e).getMessage().substring(1);
+        } else {
+            message = ((ServerCommandEvent) e).getCommand();
+            if (message == null)
+                return null;
+        }
+        return getLabel(message);
+    }
+
+    @Override
+    public boolean matchesKey(final Object key) {
+        final String command = this.command;
+        assert command != null;
+        return getLabel(command).equalsIgnoreCase((String) key);
+    }
+
+    private static final String getLabel(final String command) {
+        for (int i = 0; i < command.length(); i++) {
+            if (Character.isWhitespace(command.charAt(i)))
+                return command.substring(0, i);
+        }
+        return command;
+    }
+
     @Override
     public String toString(@Nullable final Event e, final boolean debug) {
         return "command" + (command != null ? " /" + command : "");
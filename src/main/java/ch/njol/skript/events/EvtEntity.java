@@ -88,6 +88,30 @@ public final class EvtEntity extends SkriptEvent {
         return false;
     }
 
+    @Override
+    public boolean hasKeys() {
+        return types != null;
+    }
+
+    /**
+     * @return The class of the entity
+     */
+    @Override
+    public Object getKey(final Event e) {
+        return (e instanceof EntityDeathEvent ? ((EntityDeathEvent) e).getEntity() : ((CreatureSpawnEvent) e).getEntity()).getClass();
+    }
+
+    @Override
+    public boolean matchesKey(final Object key) {
+        final EntityData<?>[] types = this.types;
+        assert types != null;
+        for (final EntityData<?> d : types) {
+            if (d.getType().isAssignableFrom((Class<?>) key))
+                return true;
+        }
+        return false;
+    }
+
     @Override
     public String toString(@Nullable final Event e, final boolean debug) {
         return "death/spawn" + (types != null ? " of " + Classes.toString(types, false) : "");
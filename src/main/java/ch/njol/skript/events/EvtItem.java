@@ -70,31 +70,59 @@ public final class EvtItem extends SkriptEvent {
         return true;
     }
 
-    @SuppressWarnings("null")
     @Override
     public boolean check(final Event e) {
         if (types == null)
             return true;
-        final ItemStack is;
+        final ItemStack is = getItem(e);
+        return types.check(e, t -> t.isOfType(is));
+    }
+
+    @Nullable
+    private static final ItemStack getItem(final Event e) {
         if (e instanceof BlockDispenseEvent) {
-            is = ((BlockDispenseEvent) e).getItem();
+            return ((BlockDispenseEvent) e).getItem();
         } else if (e instanceof ItemSpawnEvent) {
-            is = ((ItemSpawnEvent) e).getEntity().getItemStack();
+            return ((ItemSpawnEvent) e).getEntity().getItemStack();
         } else if (e instanceof PlayerDropItemEvent) {
-            is = ((PlayerDropItemEvent) e).getItemDrop().getItemStack();
+            return ((PlayerDropItemEvent) e).getItemDrop().getItemStack();
         } else if (e instanceof CraftItemEvent) {
-            is = ((CraftItemEvent) e).getRecipe().getResult();
+            return ((CraftItemEvent) e).getRecipe().getResult();
         } else if (e instanceof PlayerPickupItemEvent) {
-            is = ((PlayerPickupItemEvent) e).getItem().getItemStack();
+            return ((PlayerPickupItemEvent) e).getItem().getItemStack();
         } else if (hasConsumeEvent && e instanceof PlayerItemConsumeEvent) {
-            is = ((PlayerItemConsumeEvent) e).getItem();
+            return ((PlayerItemConsumeEvent) e).getItem();
 //		} else if (e instanceof BrewEvent)
-//			is = ((BrewEvent) e).getContents().getContents()
-        } else {
-            assert false;
-            return false;
+//			return ((BrewEvent) e).getContents().getContents()
         }
-        return types.check(e, t -> t.isOfType(is));
+        assert false;
+        return null;
+    }
+
+    @Override
+    public boolean hasKeys() {
+        return types != null;
+    }
+
+    /**
+     * @return The id of the item, or null if there is no item
+     */
+    @Override
+    @Nullable
+    public Object getKey(final Event e) {
+        final ItemStack is = getItem(e);
+        return is == null ? null : is.getTypeId();
+    }
+
+    @Override
+    public boolean matchesKey(final Object key) {
+        final Literal<ItemType> types = this.types;
+        assert types != null;
+        for (final ItemType t : types.getAll()) {
+            if (t.canBeOfType((Integer) key))
+                return true;
+        }
+        return false;
     }
 
     @Override
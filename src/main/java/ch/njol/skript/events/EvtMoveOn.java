@@ -27,6 +27,7 @@ import ch.njol.skript.SkriptConfig;
 import ch.njol.skript.SkriptEventHandler;
 import ch.njol.skript.aliases.ItemData;
 import ch.njol.skript.aliases.ItemType;
+import ch.njol.skript.events.util.PlayerMoveFilter;
 import ch.njol.skript.lang.Literal;
 import ch.njol.skript.lang.SelfRegisteringSkriptEvent;
 import ch.njol.skript.lang.SkriptParser.ParseResult;
@@ -83,15 +84,15 @@ public final class EvtMoveOn extends SelfRegisteringSkriptEvent { // TODO on jum
 //			return world.hashCode() + 29 * (x + 17 * (y + 31 * z));
 //		}
 //	}
-    private static long lastCall;
+    /**
+     * Only moves to another block are checked, as the block a player is walking on can't change otherwise
+     */
+    private static final PlayerMoveFilter filter = new PlayerMoveFilter(PlayerMoveFilter.Mode.BLOCK, SkriptEventHandler.moveEventCooldown);
     private static final EventExecutor executor = (@Nullable final Listener l, @Nullable final Event event) -> {
         if (event == null)
             return;
         final PlayerMoveEvent e = (PlayerMoveEvent) event;
         final Location from = e.getFrom(), to = e.getTo();
-        if (System.currentTimeMillis() - lastCall < SkriptEventHandler.moveEventCooldown)
-            return; // Prevent too many move events firing
-        lastCall = System.currentTimeMillis();
 //			if (!blockTriggers.isEmpty()) {
 //				final List<Trigger> ts = blockTriggers.get(new BlockLocation(to.getWorld(), to.getBlockX(), to.getBlockY(), to.getBlockZ()));
 //				if (ts != null) {
@@ -103,6 +104,8 @@ public final class EvtMoveOn extends SelfRegisteringSkriptEvent { // TODO on jum
 //				}
 //			}
         if (!itemTypeTriggers.isEmpty()) {
+            if (!filter.accept(e))
+                return;
             @SuppressWarnings("null") final int id = getOnBlock(to);
             if (id == 0)
                 return;
@@ -0,0 +1,217 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.events.util;
+
+import ch.njol.skript.Skript;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decides which {@link PlayerMoveEvent}s are passed on to triggers, separately for each player: only moves to another block or chunk (see {@link Mode}), and at most
+ * one move per player in a given interval. A move that is dropped because of the interval is passed on with the next move of the player after the interval, as the
+ * position is compared with the last position that was passed on.
+ * <p>
+ * The state of each player is kept in a table keyed by entity id, which is cleared when the player quits. Must only be used on the main thread.
+ */
+public final class PlayerMoveFilter {
+
+    public enum Mode {
+        /**
+         * Every move is passed on
+         */
+        ALL,
+        /**
+         * Moves to another block are passed on
+         */
+        BLOCK,
+        /**
+         * Moves to another chunk or world are passed on
+         */
+        CHUNK
+    }
+
+    private static final int FREE = -1;
+
+    /**
+     * All filters, to remove players from them when they quit
+     */
+    private static final List<PlayerMoveFilter> filters = new ArrayList<>();
+    private static boolean registeredQuitListener;
+
+    private final Mode mode;
+    private final long interval;
+
+    private int[] ids = new int[0];
+    private long[] positions = new long[0];
+    private World[] worlds = new World[0];
+    private long[] times = new long[0];
+    private int size;
+
+    /**
+     * @param mode Which moves to pass on
+     * @param interval The minimum time in milliseconds between two moves of a player that are passed on, 0 to not limit moves by time
+     */
+    public PlayerMoveFilter(final Mode mode, final long interval) {
+        this.mode = mode;
+        this.interval = interval;
+        resize(16);
+        filters.add(this);
+    }
+
+    /**
+     * @return Whatever the given move should be passed on
+     */
+    public final boolean accept(final PlayerMoveEvent e) {
+        if (mode == Mode.ALL && interval <= 0)
+            return true;
+        final Location to = e.getTo();
+        if (to == null)
+            return true;
+        final int slot = getSlot(e.getPlayer().getEntityId());
+        final World world = to.getWorld();
+        final long position = mode == Mode.BLOCK ? pack(to.getBlockX(), to.getBlockY(), to.getBlockZ()) : mode == Mode.CHUNK ? pack(to.getBlockX() >> 4, 0, to.getBlockZ() >> 4) : 0L;
+        if (mode != Mode.ALL && worlds[slot] == world && positions[slot] == position)
+            return false;
+        final long now = interval > 0 ? System.currentTimeMillis() : 0L;
+        if (interval > 0 && worlds[slot] != null && now - times[slot] < interval)
+            return false;
+        positions[slot] = position;
+        worlds[slot] = world;
+        times[slot] = now;
+        return true;
+    }
+
+    private static final long pack(final int x, final int y, final int z) {
+        return ((long) x & 0x3FFFFFF) << 38 | ((long) z & 0x3FFFFFF) << 12 | y & 0xFFF;
+    }
+
+    private static final int hash(final int id) {
+        final int h = id * 0x9E3779B9;
+        return h ^ h >>> 16;
+    }
+
+    /**
+     * @return The slot of the given player, which is added if it's not in the table yet
+     */
+    private final int getSlot(final int id) {
+        final int mask = ids.length - 1;
+        int slot = hash(id) & mask;
+        while (ids[slot] != FREE) {
+            if (ids[slot] == id)
+                return slot;
+            slot = slot + 1 & mask;
+        }
+        if (!registeredQuitListener)
+            registerQuitListener();
+        if ((size + 1) * 2 > ids.length) {
+            resize(ids.length * 2);
+            return getSlot(id);
+        }
+        ids[slot] = id;
+        size++;
+        return slot;
+    }
+
+    private final void resize(final int capacity) {
+        final int[] oldIds = ids;
+        final long[] oldPositions = positions;
+        final World[] oldWorlds = worlds;
+        final long[] oldTimes = times;
+        ids = new int[capacity];
+        Arrays.fill(ids, FREE);
+        positions = new long[capacity];
+        worlds = new World[capacity];
+        times = new long[capacity];
+        final int mask = capacity - 1;
+        for (int i = 0; i < oldIds.length; i++) {
+            if (oldIds[i] == FREE)
+                continue;
+            int slot = hash(oldIds[i]) & mask;
+            while (ids[slot] != FREE)
+                slot = slot + 1 & mask;
+            ids[slot] = oldIds[i];
+            positions[slot] = oldPositions[i];
+            worlds[slot] = oldWorlds[i];
+            times[slot] = oldTimes[i];
+        }
+    }
+
+    /**
+     * Removes the given player from the table, moving following entries back so that lookups don't have to skip removed entries.
+     */
+    private final void remove(final int id) {
+        final int mask = ids.length - 1;
+        int slot = hash(id) & mask;
+        while (ids[slot] != id) {
+            if (ids[slot] == FREE)
+                return;
+            slot = slot + 1 & mask;
+        }
+        size--;
+        for (int next = slot + 1 & mask; ids[next] != FREE; next = next + 1 & mask) {
+            final int home = hash(ids[next]) & mask;
+            // move the entry into the freed slot if its home slot isn't between the freed slot and its current slot
+            if (slot <= next ? slot < home && home <= next : slot < home || home <= next)
+                continue;
+            ids[slot] = ids[next];
+            positions[slot] = positions[next];
+            worlds[slot] = worlds[next];
+            times[slot] = times[next];
+            slot = next;
+        }
+        ids[slot] = FREE;
+        worlds[slot] = null;
+    }
+
+    /**
+     * Removes this filter from the filters that are notified when players quit. Must be called when a filter is replaced.
+     */
+    public final void unregister() {
+        filters.remove(this);
+    }
+
+    private static final void registerQuitListener() {
+        registeredQuitListener = true;
+        Bukkit.getPluginManager().registerEvent(PlayerQuitEvent.class, new Listener() {
+            /* empty */
+        }, EventPriority.MONITOR, (@Nullable final Listener l, @Nullable final Event e) -> {
+            if (!(e instanceof PlayerQuitEvent))
+                return;
+            final int id = ((PlayerQuitEvent) e).getPlayer().getEntityId();
+            for (final PlayerMoveFilter filter : filters)
+                filter.remove(id);
+        }, Skript.getInstance());
+    }
+
+}
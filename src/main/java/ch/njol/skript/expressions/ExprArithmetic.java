@@ -31,6 +31,7 @@ import ch.njol.skript.lang.Expression;
 import ch.njol.skript.lang.ExpressionType;
 import ch.njol.skript.lang.Literal;
 import ch.njol.skript.lang.SkriptParser.ParseResult;
+import ch.njol.skript.lang.UnparsedLiteral;
 import ch.njol.skript.lang.util.SimpleExpression;
 import ch.njol.skript.lang.util.SimpleLiteral;
 import ch.njol.skript.util.Patterns;
@@ -38,8 +39,6 @@ import ch.njol.util.Kleenean;
 import org.bukkit.event.Event;
 import org.eclipse.jdt.annotation.Nullable;
 
-import java.lang.reflect.Array;
-
 /**
  * @author Peter Güttinger
  */
@@ -70,6 +69,11 @@ public final class ExprArithmetic extends SimpleExpression<Number> {
     @SuppressWarnings("null")
     private Class<? extends Number> returnType;
     private boolean integer;
+    /**
+     * The result if both operands are literals (or constant arithmetic), which is calculated once when the expression is parsed
+     */
+    @Nullable
+    private Number[] constant;
 
     @SuppressWarnings({"unchecked", "null"})
     @Override
@@ -93,20 +97,35 @@ public final class ExprArithmetic extends SimpleExpression<Number> {
                 returnType = Double.class;
         }
         integer = returnType == Long.class;
+        if (isConstant(first) && isConstant(second))
+            constant = get(null);
         return true;
     }
 
-    @SuppressWarnings("null")
+    private static final boolean isConstant(final Expression<?> e) {
+        return e instanceof Literal && !(e instanceof UnparsedLiteral) || e instanceof ExprArithmetic && ((ExprArithmetic) e).constant != null;
+    }
+
     @Override
+    @Nullable
     protected Number[] get(final Event e) {
-        final Number[] one = (Number[]) Array.newInstance(returnType, 1);
+        final Number[] constant = this.constant;
+        if (constant != null)
+            return constant.clone();
+        return getSingleArray(e);
+    }
+
+    @Override
+    protected Number getSingleDirect(final Event e) {
+        final Number[] constant = this.constant;
+        if (constant != null)
+            return constant[0];
         Number n1 = first.getSingle(e), n2 = second.getSingle(e);
         if (n1 == null)
             n1 = 0;
         if (n2 == null)
             n2 = 0;
-        one[0] = op.calculate(n1, n2, integer);
-        return one;
+        return op.calculate(n1, n2, integer);
     }
 
     @Override
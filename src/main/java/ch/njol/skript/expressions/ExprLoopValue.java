@@ -44,7 +44,6 @@ import ch.njol.util.Kleenean;
 import org.bukkit.event.Event;
 import org.eclipse.jdt.annotation.Nullable;
 
-import java.lang.reflect.Array;
 import java.util.Map.Entry;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -62,7 +61,6 @@ import java.util.regex.Pattern;
 @Since("1.0")
 public final class ExprLoopValue extends SimpleExpression<Object> {
     private static final Pattern pattern = Pattern.compile("^(.+)-(\\d+)$");
-    private static final Matcher patternMatcher = pattern.matcher("");
 
     static {
         Skript.registerExpression(ExprLoopValue.class, Object.class, ExpressionType.SIMPLE, "[the] loop-<.+>");
@@ -82,7 +80,7 @@ public final class ExprLoopValue extends SimpleExpression<Object> {
         name = parser.expr;
         String s = parser.regexes.get(0).group();
         int i = -1;
-        final Matcher m = patternMatcher.reset(s);
+        final Matcher m = pattern.matcher(s);
         if (m.matches()) {
             s = m.group(1);
             i = Utils.parseInt(m.group(2));
@@ -91,8 +89,8 @@ public final class ExprLoopValue extends SimpleExpression<Object> {
         int j = 1;
         Loop loop = null;
 
-        @SuppressWarnings("null") final boolean b = ScriptOptions.getInstance().usesNewLoops(ScriptLoader.currentScript.getFile());
-        for (final Loop l : ScriptLoader.currentLoops) {
+        @SuppressWarnings("null") final boolean b = ScriptOptions.getInstance().usesNewLoops(ScriptLoader.getCurrentScript().getFile());
+        for (final Loop l : ScriptLoader.getCurrentLoops()) {
             if (c != null && c.isAssignableFrom(l.getLoopedExpression().getReturnType()) || b && "value".equals(s) || l.getLoopedExpression().isLoopOf(s)) {
                 if (j < i) {
                     j++;
@@ -145,19 +143,19 @@ public final class ExprLoopValue extends SimpleExpression<Object> {
     @Override
     @Nullable
     protected Object[] get(final Event e) {
+        return getSingleArray(e);
+    }
+
+    @Override
+    @Nullable
+    protected Object getSingleDirect(final Event e) {
         if (isVariableLoop) {
             @SuppressWarnings("unchecked") final Entry<String, Object> current = (Entry<String, Object>) loop.getCurrent(e);
             if (current == null)
                 return null;
-            if (isIndex)
-                return new String[]{current.getKey()};
-            final Object[] one = (Object[]) Array.newInstance(getReturnType(), 1);
-            one[0] = current.getValue();
-            return one;
+            return isIndex ? current.getKey() : current.getValue();
         }
-        final Object[] one = (Object[]) Array.newInstance(getReturnType(), 1);
-        one[0] = loop.getCurrent(e);
-        return one;
+        return loop.getCurrent(e);
     }
 
     @Override
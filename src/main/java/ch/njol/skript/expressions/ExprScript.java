@@ -53,7 +53,7 @@ public final class ExprScript extends SimpleExpression<String> {
     @SuppressWarnings({"null", "unused"})
     @Override
     public boolean init(final Expression<?>[] exprs, final int matchedPattern, final Kleenean isDelayed, final ParseResult parseResult) {
-        final Config script = ScriptLoader.currentScript;
+        final Config script = ScriptLoader.getCurrentScript();
         if (script == null) {
             assert false;
             return false;
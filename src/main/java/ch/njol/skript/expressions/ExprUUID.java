@@ -60,7 +60,7 @@ public final class ExprUUID extends SimplePropertyExpression<Object, String> {
 
     @Override
     public final boolean init(final Expression<?>[] exprs, final int matchedPattern, final Kleenean isDelayed, final SkriptParser.ParseResult parseResult) {
-        final Config currentScript = ScriptLoader.currentScript;
+        final Config currentScript = ScriptLoader.getCurrentScript();
         if (currentScript != null)
             script = currentScript.getFileName();
         final Node currentNode = SkriptLogger.getNode();
@@ -67,6 +67,24 @@ import java.util.Map.Entry;
  */
 public class EventValueExpression<T> extends SimpleExpression<T> implements DefaultExpression<T> {
 
+    /**
+     * Whatever a subclass overrides {@link #get(Event)}, in which case {@link #getSingleDirect(Event)} must go through it
+     */
+    private static final ClassValue<Boolean> overridesGet = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(final Class<?> type) {
+            for (Class<?> c = type; c != null && c != EventValueExpression.class; c = c.getSuperclass()) {
+                try {
+                    c.getDeclaredMethod("get", Event.class);
+                    return Boolean.TRUE;
+                } catch (final NoSuchMethodException ignored) {
+                    /* ignored */
+                }
+            }
+            return Boolean.FALSE;
+        }
+    };
+
     private final Class<? extends T> c;
     private final Map<Class<? extends Event>, Getter<? extends T, ?>> getters = new HashMap<>();
     @Nullable
@@ -93,6 +111,17 @@ public class EventValueExpression<T> extends SimpleExpression<T> implements Defa
         return one;
     }
 
+    /**
+     * Returns the event value without creating an array, unless a subclass overrides {@link #get(Event)}, in which case its value is used.
+     */
+    @Override
+    @Nullable
+    protected T getSingleDirect(final Event e) {
+        if (overridesGet.get(getClass()))
+            return super.getSingleDirect(e);
+        return getValue(e);
+    }
+
     @SuppressWarnings("unchecked")
     @Nullable
     private final <E extends Event> T getValue(final E e) {
@@ -0,0 +1,230 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.lang;
+
+import ch.njol.skript.Skript;
+import ch.njol.skript.SkriptConfig;
+import ch.njol.skript.conditions.CondCancelled;
+import ch.njol.skript.conditions.CondChance;
+import ch.njol.skript.conditions.CondCompare;
+import ch.njol.skript.conditions.CondIsSet;
+import ch.njol.skript.conditions.CondPermission;
+import ch.njol.skript.effects.Delay;
+import ch.njol.skript.effects.EffCancelEvent;
+import ch.njol.skript.effects.EffContinue;
+import ch.njol.skript.effects.EffExit;
+import ch.njol.skript.effects.EffMessage;
+import ch.njol.skript.effects.EffReturn;
+import ch.njol.skript.expressions.ExprArithmetic;
+import ch.njol.skript.expressions.ExprMessage;
+import ch.njol.skript.expressions.base.EventValueExpression;
+import org.bukkit.Bukkit;
+import org.bukkit.event.Event;
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Executes triggers of asynchronous events (e.g. the chat event) safely. The triggers are executed on the thread that called the event, as Bukkit applies the changes to
+ * the event (e.g. whatever it is cancelled) when the event handlers return. Effects and conditions that are known to be safe to use off the main thread are executed
+ * there, as long as all expressions they use are known to be safe too. As soon as another item is reached (e.g. one that reads blocks of a world), the rest of the
+ * trigger is executed on the main thread while the event's thread waits for it.
+ * <p>
+ * This is disabled by default, see the 'safe async events' option. Addons can add their own elements with {@link #registerSafe(Class)}.
+ */
+public final class AsyncExecution {
+
+    /**
+     * How long the event's thread waits for the main thread at most, e.g. if the server is stopping
+     */
+    private static final long TIMEOUT = 30;
+
+    /**
+     * The effects, conditions and expressions that are safe to execute off the main thread, as long as all expressions they use are safe as well. Literals, variables
+     * and event values are always safe.
+     */
+    private static final Set<Class<?>> safeElements = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The fields of a syntax element that hold the expressions it uses
+     */
+    private static final ClassValue<Field[]> expressionFields = new ClassValue<Field[]>() {
+        @Override
+        @Nullable
+        protected Field[] computeValue(final Class<?> type) {
+            final List<Field> fields = new ArrayList<>();
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (final Field f : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(f.getModifiers()))
+                        continue;
+                    final Class<?> t = f.getType().isArray() ? f.getType().getComponentType() : f.getType();
+                    if (!Expression.class.isAssignableFrom(t) && !VariableString.class.isAssignableFrom(t))
+                        continue;
+                    try {
+                        f.setAccessible(true);
+                        fields.add(f);
+                    } catch (final RuntimeException e) { // e.g. InaccessibleObjectException, then the expressions can't be checked
+                        return null;
+                    }
+                }
+            }
+            return fields.toArray(new Field[0]);
+        }
+    };
+
+    static {
+        registerSafe(EffMessage.class);
+        registerSafe(EffCancelEvent.class);
+        registerSafe(EffExit.class);
+        registerSafe(EffContinue.class);
+        registerSafe(EffReturn.class);
+        registerSafe(Delay.class);
+        registerSafe(CondCompare.class);
+        registerSafe(CondIsSet.class);
+        registerSafe(CondChance.class);
+        registerSafe(CondCancelled.class);
+        registerSafe(CondPermission.class);
+        registerSafe(ExprArithmetic.class);
+        registerSafe(ExprMessage.class);
+    }
+
+    private AsyncExecution() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Marks an effect, condition or expression as safe to execute off the main thread. It's only executed there if all expressions it uses are safe too.
+     */
+    public static final void registerSafe(final Class<? extends SyntaxElement> element) {
+        safeElements.add(element);
+    }
+
+    /**
+     * @return Whatever triggers executed on the current thread must leave items which aren't safe to the main thread
+     */
+    static final boolean isEnabled() {
+        return SkriptConfig.safeAsyncEvents.value() && Skript.isBukkitRunning() && !Bukkit.isPrimaryThread();
+    }
+
+    /**
+     * @return Whatever the given item and all expressions it uses can be executed off the main thread
+     */
+    static final boolean isSafe(final TriggerItem item) {
+        byte safety = item.asyncSafety;
+        if (safety == 0)
+            item.asyncSafety = safety = checkSafe(item) ? (byte) 1 : (byte) 2;
+        return safety == 1;
+    }
+
+    private static final boolean checkSafe(final TriggerItem item) {
+        if (item instanceof Conditional)
+            return isSafeElement(((Conditional) item).getCondition());
+        if (item instanceof Loop)
+            return false; // keeps its state in the frame of the current thread
+        if (item instanceof While)
+            return isSafeElement(((While) item).getCondition());
+        if (item instanceof TriggerSection) // the trigger itself or an 'else' section
+            return true;
+        return isSafeElement(item);
+    }
+
+    private static final boolean isSafeElement(final Object element) {
+        if (element instanceof Literal || element instanceof EventValueExpression)
+            return true;
+        if (element instanceof Variable)
+            return isSafeElement(((Variable<?>) element).name);
+        if (element instanceof VariableString) {
+            for (final Expression<?> expr : ((VariableString) element).getExpressions()) {
+                if (!isSafeElement(expr))
+                    return false;
+            }
+            return true;
+        }
+        if (element instanceof ExpressionList) {
+            for (final Expression<?> expr : ((ExpressionList<?>) element).getExpressions()) {
+                if (!isSafeElement(expr))
+                    return false;
+            }
+            return true;
+        }
+        if (!safeElements.contains(element.getClass()))
+            return false;
+        final Field[] fields = expressionFields.get(element.getClass());
+        if (fields == null)
+            return false;
+        try {
+            for (final Field f : fields) {
+                final Object value = f.get(element);
+                if (value instanceof Object[]) {
+                    for (final Object o : (Object[]) value) {
+                        if (o != null && !isSafeElement(o))
+                            return false;
+                    }
+                } else if (value != null && !isSafeElement(value)) {
+                    return false;
+                }
+            }
+        } catch (final IllegalAccessException e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Executes the rest of a trigger on the main thread, starting at the given item, and waits for it.
+     *
+     * @return false if an exception occurred, as {@link TriggerItem#walk(TriggerItem, Event)}
+     */
+    static final boolean walkOnMainThread(final TriggerItem start, final Event e) {
+        final ExecutionFrame frame = ExecutionFrame.current();
+        final Future<Boolean> result = Bukkit.getScheduler().callSyncMethod(Skript.getInstance(), () -> {
+            final boolean[] success = new boolean[1];
+            ExecutionFrame.run(frame, () -> success[0] = TriggerItem.walk(start, e));
+            return success[0];
+        });
+        try {
+            return result.get(TIMEOUT, TimeUnit.SECONDS);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            result.cancel(false);
+            return false;
+        } catch (final TimeoutException ex) {
+            result.cancel(false);
+            Skript.warning("The main thread didn't continue a trigger of the asynchronous event " + e.getEventName() + " within " + TIMEOUT + " seconds");
+            return false;
+        } catch (final ExecutionException ex) {
+            Skript.exception(ex.getCause(), start, "Error when executing trigger in event " + e.getClass().getCanonicalName());
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,459 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.lang;
+
+import ch.njol.skript.lang.SkriptParser.MalformedPatternException;
+import ch.njol.skript.util.PatternCache;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.eclipse.jdt.annotation.Nullable;
+
+import javax.annotation.concurrent.Immutable;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A syntax pattern compiled into a graph of {@link Node}s, which {@link SkriptParser} walks instead of interpreting the pattern string on every attempt to match it.
+ * <p>
+ * Nodes are identified by the index in the pattern where they start, and every position the parser can continue at is resolved to the node it actually continues with, e.g.
+ * closing brackets are skipped and the marks of choices are parsed in advance. Matching a compiled pattern behaves exactly like interpreting the pattern string, including the
+ * point at which an error about a malformed pattern is thrown.
+ *
+ * @see SkriptParser#parse0(String, ParseContext, int, CompiledPattern, ch.njol.skript.log.ParseLogHandler, int, int)
+ */
+@Immutable
+final class CompiledPattern {
+
+    final String pattern;
+    /**
+     * The nodes of this pattern, indexed by their position in the pattern. Only positions the parser can actually continue at contain a node, and
+     * the node at <tt>pattern.length()</tt> (if it can be reached) is {@link Kind#END}.
+     */
+    final Node[] nodes;
+    /**
+     * The names of the expressions of this pattern (i.e. the text between the percent signs) in order
+     */
+    final String[] expressions;
+    /**
+     * The position of the first node
+     */
+    final int start;
+    /**
+     * The amount of expressions of this pattern, i.e. the length of {@link SkriptParser.ParseResult#exprs}
+     */
+    final int expressionCount;
+    /**
+     * Lowercase literal words that are not in any optional part or choice of this pattern, i.e. which every text matching this pattern must contain.
+     * The longest words come first as they are the least likely to be contained in a text.
+     */
+    final String[] requiredWords;
+
+    private CompiledPattern(final String pattern, final Node[] nodes, final int start, final int expressionCount, final String[] expressions) {
+        this.pattern = pattern;
+        this.nodes = nodes;
+        this.start = start;
+        this.expressionCount = expressionCount;
+        this.expressions = expressions;
+        this.requiredWords = getRequiredWords(pattern, nodes);
+    }
+
+    /**
+     * Checks whatever the given text can possibly match this pattern, i.e. whatever it contains all {@link #requiredWords}.
+     * This is much cheaper than trying to match the pattern, and prevents trying most patterns at all.
+     *
+     * @param lowerCaseText The text, with each character converted with {@link Character#toLowerCase(char)} as patterns are matched case-insensitively
+     */
+    final boolean mayMatch(final String lowerCaseText) {
+        for (final String word : requiredWords) {
+            if (!lowerCaseText.contains(word))
+                return false;
+        }
+        return true;
+    }
+
+    enum Kind {
+        /**
+         * Matches {@link Node#literal} (case-insensitive)
+         */
+        LITERAL,
+        /**
+         * Matches a space, or nothing at the start or end of the text or after another space
+         */
+        SPACE,
+        /**
+         * Tries to match {@link Node#targets}[0] (the content), and continues at {@link Node#next} (after the closing bracket) if that fails
+         */
+        OPTIONAL,
+        /**
+         * Tries to match each of {@link Node#targets} (the alternatives) in order, XORing {@link Node#marks} to the result's mark on success
+         */
+        CHOICE,
+        /**
+         * The end of an alternative of a group, continues at {@link Node#next} (after the group)
+         */
+        PIPE,
+        /**
+         * A pipe outside of any group. The parser stops if the whole text has been matched, or starts over matching the text from its start at {@link Node#next} otherwise.
+         */
+        RESTART,
+        /**
+         * An expression, i.e. <tt>%types%</tt>
+         */
+        EXPRESSION,
+        /**
+         * A regular expression, i.e. <tt>&lt;regex&gt;</tt>
+         */
+        REGEX,
+        /**
+         * A part of the pattern that is malformed, throws {@link Node#error} if it is reached
+         */
+        MALFORMED,
+        /**
+         * The end of the pattern
+         */
+        END
+    }
+
+    @Immutable
+    static final class Node {
+
+        final Kind kind;
+        /**
+         * The position of this node in the pattern
+         */
+        final int position;
+        /**
+         * The position of the node to continue with after this node has been matched
+         */
+        final int next;
+
+        /**
+         * {@link Kind#LITERAL}: The lowercase characters to match
+         */
+        final String literal;
+        /**
+         * {@link Kind#OPTIONAL} and {@link Kind#CHOICE}: The positions of the nodes to try
+         */
+        final int[] targets;
+        /**
+         * {@link Kind#CHOICE}: The mark of each alternative
+         */
+        final int[] marks;
+        /**
+         * {@link Kind#EXPRESSION}: The name of the expression, {@link Kind#REGEX}: the regex
+         */
+        final String name;
+        /**
+         * {@link Kind#EXPRESSION}: The index of the expression in {@link SkriptParser.ParseResult#exprs}
+         */
+        final int index;
+        /**
+         * {@link Kind#EXPRESSION}: Whatever this expression is at the very end of the pattern, i.e. has to match the rest of the text
+         */
+        final boolean last;
+        @Nullable
+        final Pattern regex;
+        @Nullable
+        final MalformedPatternException error;
+
+        @SuppressWarnings("null")
+        Node(final Kind kind, final int position, final int next, final String literal, final int[] targets, final int[] marks, final String name, final int index, final boolean last, @Nullable final Pattern regex, @Nullable final MalformedPatternException error) {
+            this.kind = kind;
+            this.position = position;
+            this.next = next;
+            this.literal = literal;
+            this.targets = targets;
+            this.marks = marks;
+            this.name = name;
+            this.index = index;
+            this.last = last;
+            this.regex = regex;
+            this.error = error;
+        }
+
+        static final Node simple(final Kind kind, final int position, final int next) {
+            return new Node(kind, position, next, "", NO_TARGETS, NO_TARGETS, "", -1, false, null, null);
+        }
+
+        static final Node malformed(final int position, final MalformedPatternException error) {
+            return new Node(Kind.MALFORMED, position, -1, "", NO_TARGETS, NO_TARGETS, "", -1, false, null, error);
+        }
+
+        @Override
+        public final String toString() {
+            return kind + "@" + position;
+        }
+
+    }
+
+    private static final int[] NO_TARGETS = new int[0];
+    private static final String[] NO_WORDS = new String[0];
+
+    /**
+     * Patterns that are not registered with a syntax element but matched at runtime, e.g. the arguments of commands and the patterns of the parse expression.
+     * Compiled patterns are immutable, so they can be shared by all threads.
+     */
+    @SuppressWarnings("UnstableApiUsage")
+    private static final Cache<String, CompiledPattern> runtimePatterns = CacheBuilder.newBuilder()
+            .maximumSize(1000L)
+            .concurrencyLevel(Runtime.getRuntime().availableProcessors())
+            .build();
+
+    /**
+     * Gets the compiled pattern, compiling it only if it wasn't compiled recently. Use this for patterns that are matched repeatedly but not stored anywhere.
+     */
+    static final CompiledPattern get(final String pattern) {
+        CompiledPattern compiled = runtimePatterns.getIfPresent(pattern);
+        if (compiled == null) {
+            compiled = compile(pattern);
+            runtimePatterns.put(pattern, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * Compiles a pattern. Never throws an exception for malformed patterns, those are thrown when the parser reaches the malformed part of the pattern instead.
+     */
+    @SuppressWarnings("null")
+    static final CompiledPattern compile(final String pattern) {
+        final int length = pattern.length();
+
+        // the parser never continues at closing brackets, but at the node after them
+        final int[] resolved = new int[length + 1];
+        resolved[length] = length;
+        for (int j = length - 1; j >= 0; j--) {
+            final char c = pattern.charAt(j);
+            resolved[j] = c == ']' || c == ')' ? resolved[j + 1] : j;
+        }
+
+        // only creates nodes for positions the parser can actually continue at
+        final Node[] nodes = new Node[length + 1];
+        final Deque<Integer> todo = new ArrayDeque<>();
+        todo.add(resolved[0]);
+        while (!todo.isEmpty()) {
+            final int j = todo.poll();
+            if (nodes[j] != null)
+                continue;
+            final Node n = compile(pattern, resolved, j);
+            nodes[j] = n;
+            if (n.next != -1)
+                todo.add(n.next);
+            for (final int t : n.targets)
+                todo.add(t);
+        }
+
+        final List<String> expressions = new ArrayList<>();
+        for (int x = SkriptParser.nextUnescaped(pattern, '%', 0); x != -1; x = SkriptParser.nextUnescaped(pattern, '%', x + 1)) {
+            final int x2 = SkriptParser.nextUnescaped(pattern, '%', x + 1);
+            if (x2 == -1)
+                break;
+            expressions.add(pattern.substring(x + 1, x2));
+            x = x2;
+        }
+
+        return new CompiledPattern(pattern, nodes, resolved[0], SkriptParser.countUnescaped(pattern, '%') / 2, expressions.toArray(new String[0]));
+    }
+
+    /**
+     * Compiles the node at the given position, in the same way as the parser used to interpret the pattern at this position.
+     */
+    @SuppressWarnings("null")
+    private static final Node compile(final String pattern, final int[] resolved, final int j) {
+        final int length = pattern.length();
+        if (j == length)
+            return Node.simple(Kind.END, j, -1);
+        switch (pattern.charAt(j)) {
+            case '[': {
+                try {
+                    final int end = SkriptParser.nextBracket(pattern, ']', '[', j + 1, true) + 1;
+                    return new Node(Kind.OPTIONAL, j, resolved[end], "", new int[] {resolved[j + 1]}, NO_TARGETS, "", -1, false, null, null);
+                } catch (final MalformedPatternException e) {
+                    // the content is tried before the closing bracket is looked for
+                    return new Node(Kind.OPTIONAL, j, -1, "", new int[] {resolved[j + 1]}, NO_TARGETS, "", -1, false, null, e);
+                }
+            }
+            case '(': {
+                final List<Integer> alternatives = new ArrayList<>();
+                final List<Integer> marks = new ArrayList<>();
+                MalformedPatternException error = null;
+                try {
+                    for (int k = j; k < length; ++k) {
+                        if (k == j || pattern.charAt(k) == '|') {
+                            int mark = 0;
+                            if (k != length - 1 && ('0' <= pattern.charAt(k + 1) && pattern.charAt(k + 1) <= '9' || pattern.charAt(k + 1) == '-')) {
+                                final int k2 = pattern.indexOf('¦', k + 2);
+                                if (k2 != -1) {
+                                    final String str = pattern.substring(k + 1, k2);
+                                    if (SkriptParser.isInteger(str)) {
+                                        mark = Integer.parseInt(str);
+                                        k = k2;
+                                    }
+                                }
+                            }
+                            alternatives.add(resolved[k + 1]);
+                            marks.add(mark);
+                        } else if (pattern.charAt(k) == '(') {
+                            k = SkriptParser.nextBracket(pattern, ')', '(', k + 1, true);
+                        } else if (pattern.charAt(k) == ')') {
+                            break;
+                        } else if (k == length - 1) {
+                            throw new MalformedPatternException(pattern, "Missing closing bracket ')'");
+                        }
+                    }
+                } catch (final MalformedPatternException e) {
+                    // thrown after the alternatives found so far have been tried
+                    error = e;
+                }
+                final int[] a = new int[alternatives.size()], m = new int[marks.size()];
+                for (int k = 0; k < a.length; k++) {
+                    a[k] = alternatives.get(k);
+                    m[k] = marks.get(k);
+                }
+                return new Node(Kind.CHOICE, j, -1, "", a, m, "", -1, false, null, error);
+            }
+            case '|': {
+                try {
+                    final int newJ = SkriptParser.nextBracket(pattern, ')', '(', j + 1, SkriptParser.getGroupLevel(pattern, j) != 0);
+                    if (newJ == -1)
+                        return Node.simple(Kind.RESTART, j, resolved[j + 1]);
+                    return Node.simple(Kind.PIPE, j, resolved[newJ + 1]);
+                } catch (final MalformedPatternException e) {
+                    return Node.malformed(j, e);
+                }
+            }
+            case '%': {
+                final int end = pattern.indexOf('%', j + 1);
+                if (end == -1) // only thrown if there's text left to match
+                    return new Node(Kind.EXPRESSION, j, -1, "", NO_TARGETS, NO_TARGETS, "", -1, false, null, new MalformedPatternException(pattern, "Odd number of '%'"));
+                return new Node(Kind.EXPRESSION, j, resolved[end + 1], "", NO_TARGETS, NO_TARGETS, pattern.substring(j + 1, end), SkriptParser.countUnescaped(pattern, '%', 0, j) / 2, end == length - 1, null, null);
+            }
+            case '<': {
+                final int end = pattern.indexOf('>', j + 1); // not next()
+                if (end == -1)
+                    return Node.malformed(j, new MalformedPatternException(pattern, "Missing closing regex bracket '>'"));
+                final String regex = pattern.substring(j + 1, end);
+                try {
+                    return new Node(Kind.REGEX, j, resolved[end + 1], "", NO_TARGETS, NO_TARGETS, regex, -1, false, PatternCache.get(regex), null);
+                } catch (final PatternSyntaxException e) {
+                    return Node.malformed(j, new MalformedPatternException(pattern, "Invalid regex <" + regex + '>', e));
+                }
+            }
+            case ' ':
+                return Node.simple(Kind.SPACE, j, resolved[j + 1]);
+            default: {
+                // merges subsequent literal characters into one node
+                final StringBuilder b = new StringBuilder();
+                int k = j;
+                while (k < length) {
+                    char c = pattern.charAt(k);
+                    if (c == '\\') {
+                        if (k + 1 == length) {
+                            if (k == j)
+                                return Node.malformed(j, new MalformedPatternException(pattern, "Must not end with a backslash"));
+                            break; // thrown by the node at k
+                        }
+                        c = pattern.charAt(++k);
+                    } else if (c == '[' || c == ']' || c == '(' || c == ')' || c == '|' || c == '%' || c == '<' || c == ' ') {
+                        break;
+                    }
+                    b.append(Character.toLowerCase(c));
+                    k++;
+                }
+                return new Node(Kind.LITERAL, j, resolved[k], b.toString(), NO_TARGETS, NO_TARGETS, "", -1, false, null, null);
+            }
+        }
+    }
+
+    @SuppressWarnings("null")
+    private static final String[] getRequiredWords(final String pattern, final Node[] nodes) {
+        for (final Node n : nodes) {
+            // malformed patterns must still throw their error when used, and text is matched from the start again after a pipe outside of any group
+            if (n != null && (n.error != null || n.kind == Kind.MALFORMED || n.kind == Kind.RESTART))
+                return NO_WORDS;
+        }
+        final Set<String> words = new HashSet<>();
+        final StringBuilder word = new StringBuilder();
+        // only well-formed patterns are analysed, the parser handles some malformed ones in unexpected ways
+        final Deque<Character> groups = new ArrayDeque<>();
+        for (int j = 0; j < pattern.length(); j++) {
+            char c = pattern.charAt(j);
+            switch (c) {
+                case '[':
+                case '(':
+                    groups.push(c);
+                    break;
+                case ']':
+                case ')':
+                    if (groups.isEmpty() || groups.pop() != (c == ']' ? '[' : '('))
+                        return NO_WORDS;
+                    break;
+                case '%':
+                case '<':
+                    final int end = pattern.indexOf(c == '%' ? '%' : '>', j + 1);
+                    if (end == -1)
+                        return NO_WORDS;
+                    j = end;
+                    break;
+                case '\\':
+                    if (++j == pattern.length())
+                        return NO_WORDS;
+                    c = pattern.charAt(j);
+                    if (c == '[' || c == ']' || c == '(' || c == ')' || c == '|') // choices are split at escaped pipes and end at escaped brackets
+                        return NO_WORDS;
+                    //$FALL-THROUGH$
+                default:
+                    if (groups.isEmpty() && c != ' ' && c != '|') {
+                        word.append(Character.toLowerCase(c));
+                        continue;
+                    }
+                    break;
+            }
+            if (word.length() != 0) {
+                words.add(word.toString());
+                word.setLength(0);
+            }
+        }
+        if (!groups.isEmpty())
+            return NO_WORDS;
+        if (word.length() != 0)
+            words.add(word.toString());
+        final String[] r = words.toArray(NO_WORDS);
+        Arrays.sort(r, Comparator.comparingInt(String::length).reversed());
+        return r;
+    }
+
+    @Override
+    public final String toString() {
+        return pattern;
+    }
+
+    /**
+     * @return Whatever this pattern was compiled from the given pattern string, compared by identity as patterns of some syntax elements are replaced when the language
+     * changes.
+     */
+    final boolean isCompiledFrom(final String pattern) {
+        return this.pattern == pattern;
+    }
+
+}
@@ -72,6 +72,16 @@ public abstract class Condition extends Statement {
         return check(e);
     }
 
+    /**
+     * Whatever this condition has the same result for every event, e.g. because it only compares literals. Sections with a constant condition are removed or replaced
+     * by their contents after they are loaded (see {@link TriggerOptimizer}), in which case {@link #check(Event)} is called once with a null event.
+     *
+     * @return false by default
+     */
+    public boolean isConstant() {
+        return false;
+    }
+
     /**
      * @return whatever this condition is negated or not.
      */
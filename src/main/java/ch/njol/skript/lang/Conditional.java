@@ -99,6 +99,18 @@ public final class Conditional extends TriggerSection {
         elseClause = new Conditional(cond, n).setParent(getParent()).setNext(getNext());
     }
 
+    final Condition getCondition() {
+        return cond;
+    }
+
+    /**
+     * @return The 'else' section or the next 'else if' section, or null if there is none
+     */
+    @Nullable
+    final TriggerSection getElseClause() {
+        return elseClause;
+    }
+
     public boolean hasElseClause() {
         return elseClause != null && !(elseClause instanceof Conditional);
     }
@@ -0,0 +1,180 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.lang;
+
+import ch.njol.skript.effects.Delay;
+import org.bukkit.event.Event;
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * The state of one execution of a trigger, i.e. the iterators and current values of its loops.
+ * <p>
+ * The frame of the execution running on the current thread is set by {@link TriggerItem#walk(TriggerItem, Event)} and created lazily when the first loop is entered. Each
+ * loop has a slot in the frame, which is assigned when the loop is parsed (see {@link Loop}).
+ * <p>
+ * An execution that is continued later (e.g. after a delay) must take its frame with it: get it with {@link #current()} when suspending and continue the execution
+ * inside {@link #run(ExecutionFrame, Runnable)}. The frame is only referenced by that continuation, so it's gone as soon as the execution ends, however it ends.
+ */
+public final class ExecutionFrame {
+
+    private static final ThreadLocal<ExecutionFrame> current = new ThreadLocal<>();
+
+    private static final Object[] EMPTY = new Object[0];
+
+    private final Event event;
+
+    private Object[] loops = EMPTY;
+    private Object[] iterators = EMPTY;
+    private Object[] values = EMPTY;
+
+    private long sliceTick = -1L;
+    private long sliceStart;
+
+    private ExecutionFrame(final Event event) {
+        this.event = event;
+    }
+
+    /**
+     * @return The frame of the execution running on the current thread, or null if it doesn't have one yet
+     */
+    @Nullable
+    public static final ExecutionFrame current() {
+        return current.get();
+    }
+
+    /**
+     * Runs the given task with the given frame as the current frame, e.g. to continue a suspended execution with its loops, or to let an effect running on another
+     * thread access the loops of its trigger.
+     *
+     * @param frame The frame as returned by {@link #current()} when the execution was suspended
+     */
+    public static final void run(@Nullable final ExecutionFrame frame, final Runnable task) {
+        final ExecutionFrame previous = current.get();
+        current.set(frame);
+        try {
+            task.run();
+        } finally {
+            current.set(previous);
+        }
+    }
+
+    /**
+     * @return The current frame for the given event, which is created if there is none
+     */
+    static final ExecutionFrame get(final Event e) {
+        final ExecutionFrame frame = current.get();
+        if (frame != null && frame.event == e)
+            return frame;
+        final ExecutionFrame created = new ExecutionFrame(e);
+        current.set(created);
+        return created;
+    }
+
+    final Event getEvent() {
+        return event;
+    }
+
+    /**
+     * Called when an execution starts or continues.
+     *
+     * @return The previous frame, to be passed to {@link #exit(ExecutionFrame)}
+     */
+    @Nullable
+    static final ExecutionFrame enter(final Event e) {
+        final ExecutionFrame previous = current.get();
+        if (previous == null || previous.event != e) // a new execution, e.g. of a function called by the previous one
+            current.set(null);
+        return previous;
+    }
+
+    /**
+     * Called when an execution ends or is suspended. A frame that was created by the execution is dropped, if the execution is continued later, its continuation
+     * holds the frame.
+     */
+    static final void exit(@Nullable final ExecutionFrame previous) {
+        current.set(previous);
+    }
+
+    /**
+     * Used by loops with a time budget, see {@link TriggerSection#suspendIfOverBudget(Event, long)}.
+     *
+     * @return Whatever this execution ran longer than the given time in the current tick, counted from the first time this is called in the tick
+     */
+    final boolean isOverBudget(final long budget) {
+        final long tick = Delay.continuations.getTick();
+        final long now = System.nanoTime();
+        if (tick != sliceTick) {
+            sliceTick = tick;
+            sliceStart = now;
+            return false;
+        }
+        return now - sliceStart > budget;
+    }
+
+    private final void ensureSlot(final int slot) {
+        if (slot < loops.length)
+            return;
+        final int length = Math.max(slot + 1, loops.length * 2);
+        loops = Arrays.copyOf(loops, length);
+        iterators = Arrays.copyOf(iterators, length);
+        values = Arrays.copyOf(values, length);
+    }
+
+    @Nullable
+    final Iterator<?> getIterator(final Loop loop) {
+        final int slot = loop.slot;
+        return slot < loops.length && loops[slot] == loop ? (Iterator<?>) iterators[slot] : null;
+    }
+
+    @Nullable
+    final Object getValue(final Loop loop) {
+        final int slot = loop.slot;
+        return slot < loops.length && loops[slot] == loop ? values[slot] : null;
+    }
+
+    final void startLoop(final Loop loop, final Iterator<?> iter) {
+        final int slot = loop.slot;
+        ensureSlot(slot);
+        loops[slot] = loop;
+        iterators[slot] = iter;
+        values[slot] = null;
+    }
+
+    final void setValue(final Loop loop, @Nullable final Object value) {
+        assert loops[loop.slot] == loop;
+        values[loop.slot] = value;
+    }
+
+    final void endLoop(final Loop loop) {
+        final int slot = loop.slot;
+        if (slot >= loops.length || loops[slot] != loop)
+            return;
+        loops[slot] = null;
+        iterators[slot] = null;
+        values[slot] = null;
+    }
+
+}
@@ -31,9 +31,11 @@ import ch.njol.skript.util.Container.ContainerType;
 import org.bukkit.event.Event;
 import org.eclipse.jdt.annotation.Nullable;
 
+import java.util.AbstractMap;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.Set;
 
 /**
  * A trigger section which represents a loop.
@@ -44,8 +46,16 @@ public final class Loop extends TriggerSection {
 
     private final Expression<?> expr;
 
-    private final transient Map<Event, Object> current = new WeakHashMap<>();
-    private final transient Map<Event, Iterator<?>> currentIter = new WeakHashMap<>();
+    /**
+     * The slot of this loop in the {@link ExecutionFrame}, which is the number of loops this loop is in. Loops in the same trigger with the same slot never run at the
+     * same time.
+     */
+    final int slot;
+
+    /**
+     * See {@link TriggerSection#getCurrentTimeBudget()}
+     */
+    private final long timeBudget = getCurrentTimeBudget();
 
     @Nullable
     private TriggerItem actualNext;
@@ -62,13 +72,14 @@ public final class Loop extends TriggerSection {
         } else {
             this.expr = expr;
         }
-        ScriptLoader.currentSections.add(this);
-        ScriptLoader.currentLoops.add(this);
+        slot = ScriptLoader.getCurrentLoops().size();
+        ScriptLoader.getCurrentSections().add(this);
+        ScriptLoader.getCurrentLoops().add(this);
         try {
             setTriggerItems(ScriptLoader.loadItems(node));
         } finally {
-            ScriptLoader.currentLoops.remove(ScriptLoader.currentLoops.size() - 1);
-            ScriptLoader.currentSections.remove(ScriptLoader.currentSections.size() - 1);
+            ScriptLoader.getCurrentLoops().remove(ScriptLoader.getCurrentLoops().size() - 1);
+            ScriptLoader.getCurrentSections().remove(ScriptLoader.getCurrentSections().size() - 1);
         }
         super.setNext(this);
     }
@@ -76,23 +87,26 @@ public final class Loop extends TriggerSection {
     @Override
     @Nullable
     protected final TriggerItem walk(final Event e) {
-        Iterator<?> iter = currentIter.get(e);
+        if (suspendIfOverBudget(e, timeBudget))
+            return null;
+        final ExecutionFrame frame = ExecutionFrame.get(e);
+        Iterator<?> iter = frame.getIterator(this);
         if (iter == null) {
             iter = expr instanceof Variable ? ((Variable<?>) expr).variablesIterator(e) : expr.iterator(e);
             if (iter != null) {
                 if (iter.hasNext())
-                    currentIter.put(e, iter);
+                    frame.startLoop(this, iter);
                 else
                     iter = null;
             }
         }
         if (iter == null || !iter.hasNext()) {
             if (iter != null)
-                currentIter.remove(e); // a loop inside another loop can be called multiple times in the same event
+                frame.endLoop(this); // a loop inside another loop can be called multiple times in the same event
             debug(e, false);
             return actualNext;
         }
-        current.put(e, iter.next());
+        frame.setValue(this, iter.next());
         return walk(e, true);
     }
 
@@ -103,7 +117,8 @@ public final class Loop extends TriggerSection {
 
     @Nullable
     public Object getCurrent(final Event e) {
-        return current.get(e);
+        final ExecutionFrame frame = ExecutionFrame.current();
+        return frame == null ? null : frame.getValue(this);
     }
 
     public Expression<?> getLoopedExpression() {
@@ -121,7 +136,40 @@ public final class Loop extends TriggerSection {
         return actualNext;
     }
 
+    /**
+     * Stops this loop in the current execution, e.g. when the loop is exited with 'exit loop'.
+     */
+    public void exit(final Event e) {
+        final ExecutionFrame frame = ExecutionFrame.current();
+        if (frame != null)
+            frame.endLoop(this);
+    }
+
+    /**
+     * @return A view of the iterator of this loop in the execution running on the current thread, keyed by its event. Removing the event stops the loop.
+     * @deprecated The state of loops is kept per execution now, use {@link #exit(Event)} to stop this loop.
+     */
+    @Deprecated
     public Map<Event, Iterator<?>> getCurrentIter() {
-        return currentIter;
+        return new AbstractMap<Event, Iterator<?>>() {
+            @Override
+            public Set<Entry<Event, Iterator<?>>> entrySet() {
+                final ExecutionFrame frame = ExecutionFrame.current();
+                final Iterator<?> iter = frame == null ? null : frame.getIterator(Loop.this);
+                if (frame == null || iter == null)
+                    return Collections.emptySet();
+                return Collections.singleton(new SimpleImmutableEntry<>(frame.getEvent(), iter));
+            }
+
+            @Override
+            @Nullable
+            public Iterator<?> remove(@Nullable final Object key) {
+                final Iterator<?> iter = get(key);
+                if (iter != null)
+                    exit((Event) key);
+                return iter;
+            }
+        };
     }
+
 }
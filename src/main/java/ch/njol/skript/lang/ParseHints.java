@@ -0,0 +1,515 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.lang;
+
+import ch.njol.skript.Skript;
+import ch.njol.skript.aliases.Aliases;
+import ch.njol.skript.classes.ClassInfo;
+import ch.njol.skript.lang.function.Function;
+import ch.njol.skript.lang.function.Functions;
+import ch.njol.skript.lang.function.JavaFunction;
+import ch.njol.skript.lang.function.Parameter;
+import ch.njol.skript.registrations.Classes;
+import ch.njol.skript.util.FileUtils;
+import ch.njol.skript.util.Utils;
+import ch.njol.util.NonNullPair;
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * Remembers which syntax element and pattern each part of a script was parsed as, so that the next time the unchanged script is loaded (e.g. after a restart) the
+ * {@link SkriptParser} can try that element first instead of trying all elements before it.
+ * <p>
+ * The hints of all scripts are stored in a binary file in the data folder. Hints of a script are only used if the content of the script, the version of Skript and
+ * the registered syntax elements and types are the same as when they were recorded. If an element doesn't match anymore, the parser falls back to trying all elements.
+ * <p>
+ * As the elements before the hinted one are skipped, a hint is only correct if none of them could match now while none could when it was recorded. Besides the syntax,
+ * this depends on the loaded aliases and on the functions declared in other scripts, so all hints are discarded if the aliases change, if a script that declared a
+ * function changed or was removed, or if a function is loaded with a different signature or from a different script than when the hints were recorded.
+ */
+public final class ParseHints {
+
+    private static final int MAGIC = 0x534B5048; // "SKPH"
+    private static final int FORMAT_VERSION = 2;
+    /**
+     * The maximum length of a string written with {@link DataOutputStream#writeUTF(String)}
+     */
+    private static final int MAX_UTF_LENGTH = 65535;
+    private static final String FILE_NAME = "parse-cache.dat";
+
+    /**
+     * The hints of all scripts by their path, must be synchronized on the class.
+     */
+    private static final Map<String, ParseHints> scripts = new HashMap<>();
+    @Nullable
+    private static byte[] fingerprint;
+    private static boolean changed;
+    /**
+     * The hash of the aliases the hints were recorded with, see {@link Aliases#getAliasesHash()}.
+     */
+    private static int aliases;
+    /**
+     * The script functions the hints were recorded with, by their name, as pairs of the path of the script they were declared in and their signature.
+     */
+    private static final Map<String, NonNullPair<String, String>> functions = new HashMap<>();
+    /**
+     * The script functions loaded since the hints file was read, in the same format as {@link #functions}.
+     */
+    private static final Map<String, NonNullPair<String, String>> loadedFunctions = new HashMap<>();
+    private static boolean functionsChanged;
+    private static boolean functionScriptsChecked;
+    /**
+     * Incremented whenever all hints are discarded, so that the hints of scripts which are currently being loaded aren't used anymore either.
+     */
+    private static volatile int generation;
+
+    private final byte[] hash;
+    private final int hintsGeneration = generation;
+    private final Map<Key, List<Hint>> hints = new HashMap<>();
+
+    private ParseHints(final byte[] hash) {
+        this.hash = hash;
+    }
+
+    /**
+     * Gets the hints of the given script, reading the hints file if it wasn't read yet. If the script changed since the hints were recorded, its old hints are discarded.
+     *
+     * @param script The script file
+     * @return The hints of the script, empty if the script wasn't loaded with the same content before
+     * @throws IOException If the script can't be read
+     */
+    public static final synchronized ParseHints get(final File script) throws IOException {
+        if (fingerprint == null)
+            read();
+        final int aliases = Aliases.getAliasesHash();
+        if (aliases != ParseHints.aliases) {
+            ParseHints.aliases = aliases;
+            invalidate("The aliases changed");
+        }
+        if (!functionScriptsChecked) {
+            functionScriptsChecked = true;
+            checkFunctionScripts();
+        }
+        final byte[] hash = hash(Files.readAllBytes(script.toPath()));
+        final String path = script.getAbsolutePath();
+        final ParseHints old = scripts.get(path);
+        if (old != null && Arrays.equals(old.hash, hash))
+            return old;
+        final ParseHints hints = new ParseHints(hash);
+        scripts.put(path, hints);
+        changed = true;
+        return hints;
+    }
+
+    /**
+     * Writes the hints of all scripts to the hints file if any hints were recorded since it was last read or written. Hints of scripts that don't exist anymore are
+     * removed.
+     */
+    public static final synchronized void save() {
+        save(new File(Skript.getInstance().getDataFolder(), FILE_NAME));
+    }
+
+    static final synchronized void save(final File file) {
+        functionScriptsChecked = false;
+        functionsChanged = false;
+        final byte[] fingerprint = ParseHints.fingerprint;
+        if (!changed || fingerprint == null)
+            return;
+        scripts.keySet().removeIf(path -> !new File(path).exists());
+        loadedFunctions.values().removeIf(f -> !new File(f.getFirst()).exists());
+        functions.clear();
+        functions.putAll(loadedFunctions);
+        // written to a temporary file first to never leave a truncated file behind
+        final File tempFile = new File(file.getPath() + ".temp");
+        try {
+            try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                write(out, fingerprint);
+            }
+            FileUtils.move(tempFile, file, true);
+            changed = false;
+        } catch (final IOException e) {
+            Skript.warning("Could not save the parse cache to " + file + ": " + e.getLocalizedMessage());
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * Writes the contents of the hints file
+     */
+    private static final void write(final DataOutputStream out, final byte[] fingerprint) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(fingerprint.length);
+        out.write(fingerprint);
+        out.writeInt(aliases);
+
+        out.writeInt(functions.size());
+        for (final Entry<String, NonNullPair<String, String>> f : functions.entrySet()) {
+            out.writeUTF(f.getKey());
+            out.writeUTF(f.getValue().getFirst());
+            out.writeUTF(f.getValue().getSecond());
+        }
+
+        // Class names are written once and referenced by their index
+        final Map<String, Integer> classIndices = new HashMap<>();
+        final List<String> classNames = new ArrayList<>();
+        for (final ParseHints script : scripts.values()) {
+            for (final List<Hint> hints : script.hints.values()) {
+                for (final Hint hint : hints) {
+                    if (!classIndices.containsKey(hint.className)) {
+                        classIndices.put(hint.className, classNames.size());
+                        classNames.add(hint.className);
+                    }
+                }
+            }
+        }
+        out.writeInt(classNames.size());
+        for (final String className : classNames)
+            out.writeUTF(className);
+
+        out.writeInt(scripts.size());
+        for (final Entry<String, ParseHints> script : scripts.entrySet()) {
+            out.writeUTF(script.getKey());
+            out.writeInt(script.getValue().hash.length);
+            out.write(script.getValue().hash);
+            // hints for expressions too long for writeUTF are simply not saved, such lines are rare enough
+            int writable = 0;
+            for (final Key key : script.getValue().hints.keySet()) {
+                if (isWritable(key.expr))
+                    writable++;
+            }
+            out.writeInt(writable);
+            for (final Entry<Key, List<Hint>> e : script.getValue().hints.entrySet()) {
+                final Key key = e.getKey();
+                if (!isWritable(key.expr))
+                    continue;
+                out.writeInt(key.line);
+                out.writeByte(key.flags);
+                out.writeByte(key.context.ordinal());
+                out.writeUTF(key.expr);
+                out.writeByte(e.getValue().size());
+                for (final Hint hint : e.getValue()) {
+                    out.writeInt(classIndices.get(hint.className));
+                    out.writeShort(hint.pattern);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Whatever the given string is short enough to be written with {@link DataOutputStream#writeUTF(String)}, i.e. at most 65535 bytes long in modified UTF-8
+     */
+    static final boolean isWritable(final String s) {
+        if (s.length() <= MAX_UTF_LENGTH / 3)
+            return true;
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            length += c >= 0x0001 && c <= 0x007F ? 1 : c <= 0x07FF ? 2 : 3;
+        }
+        return length <= MAX_UTF_LENGTH;
+    }
+
+    /**
+     * Reads the hints file. The hints are only used if they were recorded with the same version of Skript and the same registered syntax elements and types.
+     */
+    private static final void read() {
+        read(new File(Skript.getInstance().getDataFolder(), FILE_NAME), fingerprint());
+    }
+
+    static final synchronized void read(final File file, final byte[] fingerprint) {
+        ParseHints.fingerprint = fingerprint;
+        aliases = Aliases.getAliasesHash();
+        scripts.clear();
+        functions.clear();
+        loadedFunctions.clear();
+        functionsChanged = false;
+        functionScriptsChecked = false;
+        if (!file.exists())
+            return;
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION)
+                return;
+            final byte[] oldFingerprint = new byte[in.readInt()];
+            in.readFully(oldFingerprint);
+            if (!Arrays.equals(oldFingerprint, fingerprint)) {
+                if (Skript.debug())
+                    Skript.debug("Skript or the registered syntax changed, parsing all scripts from scratch");
+                return;
+            }
+            if (in.readInt() != aliases) {
+                if (Skript.debug())
+                    Skript.debug("The aliases changed, parsing all scripts from scratch");
+                return;
+            }
+
+            final int numFunctions = in.readInt();
+            for (int i = 0; i < numFunctions; i++)
+                functions.put(in.readUTF(), new NonNullPair<>(in.readUTF(), in.readUTF()));
+
+            final String[] classNames = new String[in.readInt()];
+            for (int i = 0; i < classNames.length; i++)
+                classNames[i] = in.readUTF().intern();
+
+            final ParseContext[] contexts = ParseContext.values();
+            final int numScripts = in.readInt();
+            for (int i = 0; i < numScripts; i++) {
+                final String path = in.readUTF();
+                final byte[] hash = new byte[in.readInt()];
+                in.readFully(hash);
+                final ParseHints script = new ParseHints(hash);
+                final int numKeys = in.readInt();
+                for (int j = 0; j < numKeys; j++) {
+                    final Key key = new Key(in.readInt(), in.readByte(), contexts[in.readByte()], in.readUTF());
+                    final int numHints = in.readByte();
+                    final List<Hint> hints = new ArrayList<>(numHints);
+                    for (int k = 0; k < numHints; k++)
+                        hints.add(new Hint(classNames[in.readInt()], in.readShort()));
+                    script.hints.put(key, hints);
+                }
+                scripts.put(path, script);
+            }
+        } catch (final IOException | RuntimeException e) {
+            Skript.warning("Could not read the parse cache from " + file + ", scripts will be parsed from scratch: " + e.getLocalizedMessage());
+            scripts.clear();
+            functions.clear();
+        }
+    }
+
+    /**
+     * Discards all hints if a script that declared a function when the hints were recorded was changed or removed since, as the function might not exist anymore
+     * or have a different signature when other scripts are parsed. Done once before the first script of each load is parsed, as the scripts can be loaded in any
+     * order.
+     */
+    private static final void checkFunctionScripts() {
+        final Set<String> paths = new HashSet<>();
+        for (final NonNullPair<String, String> f : functions.values())
+            paths.add(f.getFirst());
+        for (final String path : paths) {
+            final ParseHints script = scripts.get(path);
+            try {
+                if (script == null || !Arrays.equals(script.hash, hash(Files.readAllBytes(new File(path).toPath())))) {
+                    invalidate("The script " + path + " which declared functions changed");
+                    return;
+                }
+            } catch (final IOException e) {
+                invalidate("The script " + path + " which declared functions can't be read anymore");
+                return;
+            }
+        }
+    }
+
+    /**
+     * Must be called when a script function is loaded, before any script that uses it is parsed. Discards all hints if the function was declared differently when
+     * they were recorded.
+     *
+     * @param function The function
+     * @param script The script the function is declared in
+     */
+    public static final void loadedFunction(final Function<?> function, final @Nullable File script) {
+        if (script != null)
+            loadedFunction(function.getName(), signature(function), script.getAbsolutePath());
+    }
+
+    static final synchronized void loadedFunction(final String name, final String signature, final String script) {
+        final NonNullPair<String, String> f = new NonNullPair<>(script, signature);
+        loadedFunctions.put(name, f);
+        if (!functionsChanged && !f.equals(functions.get(name))) {
+            functionsChanged = true;
+            invalidate("The function " + name + " changed");
+        }
+    }
+
+    /**
+     * Discards the hints of all scripts, including those of scripts which are currently being loaded. The content hashes are kept so that the scripts which declare
+     * functions are known to be unchanged the next time.
+     */
+    private static final void invalidate(final String reason) {
+        if (Skript.debug())
+            Skript.debug(reason + ", parsing all scripts from scratch");
+        generation++;
+        scripts.replaceAll((path, script) -> new ParseHints(script.hash));
+        changed = true;
+    }
+
+    private static final String signature(final Function<?> function) {
+        final StringBuilder b = new StringBuilder(function.getName()).append('(');
+        final Parameter<?>[] parameters = function.getParameters();
+        for (int i = 0; i < parameters.length; i++) {
+            if (i != 0)
+                b.append(", ");
+            b.append(parameters[i]);
+        }
+        b.append(')');
+        final ClassInfo<?> returnType = function.getReturnType();
+        if (returnType != null)
+            b.append(" :: ").append(Utils.toEnglishPlural(returnType.getCodeName(), !function.isSingle()));
+        return b.toString();
+    }
+
+    /**
+     * @return A hash of the Skript version and all registered syntax elements, types and Java functions, which changes if any of them could be parsed differently
+     */
+    private static final byte[] fingerprint() {
+        final MessageDigest digest = newDigest();
+        update(digest, Skript.getVersion().toString());
+        for (final SyntaxElementInfo<?> info : Skript.getStatements())
+            update(digest, info);
+        for (final Iterator<ExpressionInfo<?, ?>> iter = Skript.getExpressions(); iter.hasNext(); )
+            update(digest, iter.next());
+        for (final SyntaxElementInfo<?> info : Skript.getEvents())
+            update(digest, info);
+        for (final ClassInfo<?> ci : Classes.getClassInfos())
+            update(digest, ci.getCodeName());
+        for (final JavaFunction<?> function : Functions.getJavaFunctions())
+            update(digest, signature(function));
+        return digest.digest();
+    }
+
+    private static final void update(final MessageDigest digest, final SyntaxElementInfo<?> info) {
+        update(digest, info.c.getName());
+        for (final String pattern : info.patterns)
+            update(digest, pattern);
+    }
+
+    private static final void update(final MessageDigest digest, final String s) {
+        digest.update(s.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static final byte[] hash(final byte[] content) {
+        return newDigest().digest(content);
+    }
+
+    private static final MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (final NoSuchAlgorithmException e) {
+            throw Skript.exception(e, "SHA-1 is not supported");
+        }
+    }
+
+    /**
+     * Gets the elements a part of a line was parsed as when the script was loaded before. Must only be used by the thread currently loading the script.
+     *
+     * @return The hints, or null if there are none
+     */
+    @Nullable
+    final List<Hint> get(final Key key) {
+        if (hintsGeneration != generation)
+            return null;
+        return hints.get(key);
+    }
+
+    /**
+     * Remembers that a part of a line was parsed as the given pattern of the given element. Must only be used by the thread currently loading the script.
+     */
+    final void record(final Key key, final Class<?> element, final int pattern) {
+        final String className = element.getName();
+        List<Hint> list = hints.get(key);
+        if (list == null) {
+            list = new ArrayList<>(1);
+            hints.put(key, list);
+        } else {
+            for (final Hint hint : list) {
+                if (hint.pattern == pattern && hint.className.equals(className))
+                    return;
+            }
+            if (list.size() >= Byte.MAX_VALUE)
+                return;
+        }
+        list.add(new Hint(className, pattern));
+        synchronized (ParseHints.class) {
+            changed = true;
+        }
+    }
+
+    /**
+     * A part of a line that was parsed, with the flags and context it was parsed with.
+     */
+    static final class Key {
+        final int line;
+        final int flags;
+        final ParseContext context;
+        final String expr;
+        private final int hashCode;
+
+        Key(final int line, final int flags, final ParseContext context, final String expr) {
+            this.line = line;
+            this.flags = flags;
+            this.context = context;
+            this.expr = expr;
+            hashCode = 31 * (31 * (31 * line + flags) + context.ordinal()) + expr.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(@Nullable final Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Key))
+                return false;
+            final Key other = (Key) obj;
+            return hashCode == other.hashCode && line == other.line && flags == other.flags && context == other.context && expr.equals(other.expr);
+        }
+    }
+
+    /**
+     * The element and pattern a part of a line was parsed as.
+     */
+    static final class Hint {
+        final String className;
+        final int pattern;
+
+        Hint(final String className, final int pattern) {
+            this.className = className;
+            this.pattern = pattern;
+        }
+    }
+
+}
@@ -0,0 +1,188 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.lang;
+
+import ch.njol.skript.Skript;
+import ch.njol.skript.config.Node;
+import ch.njol.skript.log.SkriptLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records how long parsing each script line takes and how often the patterns of each syntax element are tried, to find the lines and (addon) elements that make
+ * loading scripts slow. Enabled with the 'enable parse profiler' option of the config, and reported with '/skript parse-profile' and in the parse-profile.txt file in
+ * Skript's folder after all scripts are loaded.
+ * <p>
+ * The time of a line is the time spent in the outermost parse of it, i.e. it includes its expressions but not the lines of its section. The time of an element
+ * includes parsing the expressions of the element, which may be other elements.
+ */
+public final class ParseProfiler {
+
+    private ParseProfiler() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returned by {@link #startLine()} if the profiler is disabled
+     */
+    static final long NOT_PROFILED = Long.MIN_VALUE;
+
+    private static final String FILE_NAME = "parse-profile.txt";
+    /**
+     * The number of lines and elements per list of the report saved to the file
+     */
+    private static final int FILE_REPORT_SIZE = 50;
+
+    private static volatile boolean enabled;
+
+    private static final Map<String, Stats> lines = new ConcurrentHashMap<>();
+    private static final Map<SyntaxElementInfo<?>, Stats> elements = new ConcurrentHashMap<>();
+
+    private static final class Stats {
+        /**
+         * The line of the script for line statistics, or the element's class name
+         */
+        final String name;
+        final LongAdder nanos = new LongAdder();
+        final LongAdder attempts = new LongAdder();
+
+        Stats(final String name) {
+            this.name = name;
+        }
+
+        final String format() {
+            return String.format(Locale.ENGLISH, "%10.2f ms %8d attempts   %s", (double) nanos.sum() / TimeUnit.MILLISECONDS.toNanos(1L), attempts.sum(), name);
+        }
+    }
+
+    public static final boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables recording, discarding what has been recorded so far if the profiler is enabled.
+     */
+    public static final void setEnabled(final boolean enabled) {
+        if (enabled && !ParseProfiler.enabled)
+            clear();
+        ParseProfiler.enabled = enabled;
+    }
+
+    /**
+     * Discards what has been recorded so far, e.g. before all scripts are loaded again.
+     */
+    public static final void clear() {
+        lines.clear();
+        elements.clear();
+    }
+
+    /**
+     * Called before parsing the current line or a part of it. Must be followed by {@link #endLine(long)}.
+     *
+     * @return The value to pass to {@link #endLine(long)}
+     */
+    static final long startLine() {
+        if (!enabled)
+            return NOT_PROFILED;
+        final ParserInstance parser = ParserInstance.get();
+        if (parser.profileDepth++ == 0)
+            parser.profileLineAttempts = parser.profileAttempts;
+        return System.nanoTime();
+    }
+
+    static final void endLine(final long start) {
+        if (start == NOT_PROFILED)
+            return;
+        final ParserInstance parser = ParserInstance.get();
+        if (--parser.profileDepth != 0)
+            return;
+        final Node node = SkriptLogger.getNode();
+        if (node == null)
+            return;
+        final Stats stats = lines.computeIfAbsent(node.getConfig().getFileName() + ", line " + node.getLine() + ": " + node.getKey(), Stats::new);
+        stats.nanos.add(System.nanoTime() - start);
+        stats.attempts.add(parser.profileAttempts - parser.profileLineAttempts);
+    }
+
+    /**
+     * Records that a pattern of the given element has been tried, including initialising the element if it matched.
+     *
+     * @param nanos The time it took in nanoseconds
+     */
+    static final void attempted(final SyntaxElementInfo<?> info, final long nanos) {
+        ParserInstance.get().profileAttempts++;
+        final Stats stats = elements.computeIfAbsent(info, i -> new Stats(i.c.getName()));
+        stats.nanos.add(nanos);
+        stats.attempts.increment();
+    }
+
+    private static final List<Stats> top(final Map<?, Stats> stats, final Comparator<Stats> order, final int n) {
+        final List<Stats> sorted = new ArrayList<>(stats.values());
+        sorted.sort(order.reversed());
+        return sorted.subList(0, Math.min(n, sorted.size()));
+    }
+
+    private static final Comparator<Stats> BY_TIME = Comparator.comparingLong(s -> s.nanos.sum());
+    private static final Comparator<Stats> BY_ATTEMPTS = Comparator.comparingLong(s -> s.attempts.sum());
+
+    /**
+     * @param n The maximum number of lines and elements in each list
+     * @return The slowest lines, and the slowest and most tried elements
+     */
+    public static final List<String> getReport(final int n) {
+        final List<String> report = new ArrayList<>();
+        report.add("Slowest lines:");
+        for (final Stats s : top(lines, BY_TIME, n))
+            report.add(s.format());
+        report.add("Slowest syntax elements:");
+        for (final Stats s : top(elements, BY_TIME, n))
+            report.add(s.format());
+        report.add("Most tried syntax elements:");
+        for (final Stats s : top(elements, BY_ATTEMPTS, n))
+            report.add(s.format());
+        return report;
+    }
+
+    /**
+     * Writes the report to the parse-profile.txt file in Skript's folder.
+     *
+     * @return The written file
+     */
+    public static final File save() throws IOException {
+        final File file = new File(Skript.getInstance().getDataFolder(), FILE_NAME);
+        Files.write(file.toPath(), getReport(FILE_REPORT_SIZE), StandardCharsets.UTF_8);
+        return file;
+    }
+
+}
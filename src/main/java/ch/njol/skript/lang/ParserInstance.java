@@ -0,0 +1,270 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+package ch.njol.skript.lang;
+
+import ch.njol.skript.ScriptLoader;
+import ch.njol.skript.Skript;
+import ch.njol.skript.aliases.ItemType;
+import ch.njol.skript.config.Config;
+import ch.njol.skript.config.Node;
+import ch.njol.skript.lang.function.Functions;
+import ch.njol.skript.lang.function.ScriptFunction;
+import ch.njol.skript.log.LogEntry;
+import ch.njol.skript.util.Version;
+import ch.njol.util.Kleenean;
+import org.bukkit.Bukkit;
+import org.bukkit.event.Event;
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The state of the parser while loading a script, e.g. the current script, events, sections and options.
+ * <p>
+ * Each thread has its own instance, so that scripts can be loaded on multiple threads at once (see {@link ch.njol.skript.ScriptLoader}). Syntax elements should use
+ * the static methods of {@link ch.njol.skript.ScriptLoader} instead of using this class directly.
+ */
+public final class ParserInstance {
+
+    private static final ThreadLocal<ParserInstance> instances = ThreadLocal.withInitial(ParserInstance::new);
+
+    @Nullable
+    private Config currentScript;
+    @Nullable
+    private Version currentScriptVersion;
+    private final Map<String, String> currentOptions = new HashMap<>();
+    private final Map<String, ItemType> currentAliases = new HashMap<>();
+
+    @Nullable
+    private String currentEventName;
+    @Nullable
+    private Class<? extends Event>[] currentEvents;
+    private Kleenean hasDelayBefore = Kleenean.FALSE;
+    private final List<TriggerSection> currentSections;
+    private final List<Loop> currentLoops;
+    @Nullable
+    private ScriptFunction<?> currentFunction;
+    private final Deque<Map<String, Class<?>>> typeHints = new ArrayDeque<>(100);
+    private String indentation = "";
+
+    @Nullable
+    private Node node;
+    @Nullable
+    private ParseHints parseHints;
+
+    /**
+     * See {@link SkriptParser#startParseCache()}
+     */
+    @Nullable
+    Map<SkriptParser.ParseCacheKey, LogEntry> parseCache;
+    /**
+     * See {@link ParseProfiler}: how many parses of the current line are in progress, how many patterns this thread has tried, and how many it had tried when the
+     * outermost parse of the current line started
+     */
+    int profileDepth;
+    long profileAttempts, profileLineAttempts;
+
+    /**
+     * Whatever this is the instance of the server thread, which keeps its state in the deprecated static fields of {@link ScriptLoader} and {@link Functions}, so
+     * add-ons that still use these fields keep working when scripts are loaded on the server thread.
+     */
+    private final boolean legacy;
+
+    @SuppressWarnings("deprecation")
+    private ParserInstance() {
+        legacy = Skript.isBukkitRunning() && Bukkit.isPrimaryThread();
+        currentSections = legacy ? ScriptLoader.currentSections : new ArrayList<>();
+        currentLoops = legacy ? ScriptLoader.currentLoops : new ArrayList<>();
+        typeHints.push(new HashMap<>());
+    }
+
+    /**
+     * @return The parser state of the current thread
+     */
+    public static final ParserInstance get() {
+        return instances.get();
+    }
+
+    /**
+     * Resets everything to the state before any script was loaded, e.g. before a thread loading scripts parses the next one.
+     */
+    public final void reset() {
+        setCurrentScript(null);
+        currentScriptVersion = null;
+        currentOptions.clear();
+        currentAliases.clear();
+        currentEventName = null;
+        currentEvents = null;
+        setHasDelayBefore(Kleenean.FALSE);
+        currentSections.clear();
+        currentLoops.clear();
+        setCurrentFunction(null);
+        typeHints.clear();
+        typeHints.push(new HashMap<>());
+        indentation = "";
+        node = null;
+        parseHints = null;
+        parseCache = null;
+        profileDepth = 0;
+    }
+
+    @SuppressWarnings("deprecation")
+    @Nullable
+    public final Config getCurrentScript() {
+        return legacy ? ScriptLoader.currentScript : currentScript;
+    }
+
+    @SuppressWarnings("deprecation")
+    public final void setCurrentScript(@Nullable final Config currentScript) {
+        if (legacy)
+            ScriptLoader.currentScript = currentScript;
+        else
+            this.currentScript = currentScript;
+    }
+
+    @Nullable
+    public final Version getCurrentScriptVersion() {
+        return currentScriptVersion;
+    }
+
+    public final void setCurrentScriptVersion(@Nullable final Version currentScriptVersion) {
+        this.currentScriptVersion = currentScriptVersion;
+    }
+
+    /**
+     * @return The options of the current script, modifiable
+     */
+    public final Map<String, String> getCurrentOptions() {
+        return currentOptions;
+    }
+
+    /**
+     * @return The aliases of the current script, modifiable
+     */
+    public final Map<String, ItemType> getCurrentAliases() {
+        return currentAliases;
+    }
+
+    @Nullable
+    public final String getCurrentEventName() {
+        return currentEventName;
+    }
+
+    @Nullable
+    public final Class<? extends Event>[] getCurrentEvents() {
+        return currentEvents;
+    }
+
+    public final void setCurrentEvent(@Nullable final String name, @Nullable final Class<? extends Event>[] events) {
+        currentEventName = name;
+        currentEvents = events;
+    }
+
+    @SuppressWarnings("deprecation")
+    public final Kleenean getHasDelayBefore() {
+        return legacy ? ScriptLoader.hasDelayBefore : hasDelayBefore;
+    }
+
+    @SuppressWarnings("deprecation")
+    public final void setHasDelayBefore(final Kleenean hasDelayBefore) {
+        if (legacy)
+            ScriptLoader.hasDelayBefore = hasDelayBefore;
+        else
+            this.hasDelayBefore = hasDelayBefore;
+    }
+
+    /**
+     * @return The sections the currently parsed element is in, innermost last, modifiable
+     */
+    public final List<TriggerSection> getCurrentSections() {
+        return currentSections;
+    }
+
+    /**
+     * @return The loops the currently parsed element is in, innermost last, modifiable
+     */
+    public final List<Loop> getCurrentLoops() {
+        return currentLoops;
+    }
+
+    @SuppressWarnings("deprecation")
+    @Nullable
+    public final ScriptFunction<?> getCurrentFunction() {
+        return legacy ? Functions.currentFunction : currentFunction;
+    }
+
+    @SuppressWarnings("deprecation")
+    public final void setCurrentFunction(@Nullable final ScriptFunction<?> currentFunction) {
+        if (legacy)
+            Functions.currentFunction = currentFunction;
+        else
+            this.currentFunction = currentFunction;
+    }
+
+    /**
+     * @return The stack of local variable type hints, innermost scope first, see {@link ch.njol.skript.variables.TypeHints}
+     */
+    public final Deque<Map<String, Class<?>>> getTypeHints() {
+        return typeHints;
+    }
+
+    /**
+     * @return The indentation of debug messages
+     */
+    public final String getIndentation() {
+        return indentation;
+    }
+
+    public final void setIndentation(final String indentation) {
+        this.indentation = indentation;
+    }
+
+    /**
+     * @return The node that is currently being parsed, see {@link ch.njol.skript.log.SkriptLogger#getNode()}
+     */
+    @Nullable
+    public final Node getNode() {
+        return node;
+    }
+
+    public final void setNode(@Nullable final Node node) {
+        this.node = node;
+    }
+
+    /**
+     * @return The hints of the current script, or null if they aren't used
+     */
+    @Nullable
+    public final ParseHints getParseHints() {
+        return parseHints;
+    }
+
+    public final void setParseHints(@Nullable final ParseHints parseHints) {
+        this.parseHints = parseHints;
+    }
+
+}
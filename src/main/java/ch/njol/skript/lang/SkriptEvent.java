@@ -25,6 +25,7 @@ package ch.njol.skript.lang;
 import ch.njol.skript.lang.SkriptParser.ParseResult;
 import ch.njol.util.Kleenean;
 import org.bukkit.event.Event;
+import org.eclipse.jdt.annotation.Nullable;
 
 /**
  * A SkriptEvent is like a condition. It is called when any of the registered events occurs.
@@ -60,6 +61,38 @@ public abstract class SkriptEvent implements SyntaxElement, Debuggable {
      */
     public abstract boolean check(final Event e);
 
+    /**
+     * Whatever this event only applies to events with certain keys, e.g. only to clicks on certain blocks. If true, the triggers to check for an event are selected by
+     * the event's {@link #getKey(Event) key} instead of calling {@link #check(Event)} of every trigger.
+     *
+     * @return false by default
+     */
+    public boolean hasKeys() {
+        return false;
+    }
+
+    /**
+     * Gets the key of the given event, e.g. the type of the clicked block. This is only called on one SkriptEvent of each class per event, thus it must not depend on the
+     * arguments of this SkriptEvent. The same events must result in equal keys.
+     *
+     * @param e An event this SkriptEvent is registered for
+     * @return The key of the event, or null if it has none, in which case every trigger is checked
+     */
+    @Nullable
+    public Object getKey(final Event e) {
+        return null;
+    }
+
+    /**
+     * Only called if {@link #hasKeys()} returns true. {@link #check(Event)} must return false for any event whose key isn't matched by this method.
+     *
+     * @param key A key returned by {@link #getKey(Event)}
+     * @return Whatever events with the given key can apply to this SkriptEvent
+     */
+    public boolean matchesKey(final Object key) {
+        return true;
+    }
+
     @Override
     public final String toString() {
         return toString(null, false);
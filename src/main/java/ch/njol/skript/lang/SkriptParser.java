@@ -48,6 +48,7 @@ import ch.njol.util.Kleenean;
 import ch.njol.util.NonNullPair;
 import ch.njol.util.StringUtils;
 import ch.njol.util.coll.CollectionUtils;
+import com.google.common.collect.Iterators;
 import com.google.common.primitives.Booleans;
 import org.bukkit.inventory.ItemStack;
 import org.eclipse.jdt.annotation.Nullable;
@@ -55,6 +56,7 @@ import org.eclipse.jdt.annotation.Nullable;
 import javax.annotation.concurrent.NotThreadSafe;
 import java.lang.reflect.InvocationTargetException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.MatchResult;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -81,29 +83,34 @@ public final class SkriptParser {
      * Matches ',', 'and', 'or', etc. as well as surrounding whitespace.
      * <p>
      * group 1 is null for ',', otherwise it's one of and/or/nor (not necessarily lowercase).
-     *
-     * @deprecated use {@link SkriptParser#listSplitMatcher} instead
      */
     @SuppressWarnings("null")
-    @Deprecated
     public static final Pattern listSplitPattern = Pattern.compile("\\s*,?\\s+(?:and|n?or)\\s+|\\s*,\\s*");
+    /**
+     * @deprecated not thread safe, use {@link SkriptParser#listSplitPattern} instead
+     */
+    @Deprecated
     public static final Matcher listSplitMatcher = listSplitPattern.matcher("");
     @SuppressWarnings("rawtypes")
     private static final Literal[] EMPTY_RAW_LITERAL_ARRAY = new Literal[0];
     @SuppressWarnings("rawtypes")
     private static final Expression[] EMPTY_RAW_EXPRESSION_ARRAY = new Expression[0];
-    private static final Matcher varPatternMatcher = Pattern.compile("((the )?var(?:iable)? )?\\{([^{}]|%\\{|}%)+}").matcher("");
+    private static final Pattern varPattern = Pattern.compile("((the )?var(?:iable)? )?\\{([^{}]|%\\{|}%)+}");
     private static final String MULTIPLE_AND_OR = "List has multiple 'and' or 'or', will default to 'and'. Use brackets if you want to define multiple lists.";
     private static final String MISSING_AND_OR = "List is missing 'and' or 'or', defaulting to 'and'";
-    private static final Matcher functionCallPatternMatcher = Pattern.compile('(' + Functions.functionNamePattern + ")\\((.*?)\\)").matcher("");
+    private static final Pattern functionCallPattern = Pattern.compile('(' + Functions.functionNamePattern + ")\\((.*?)\\)");
     private static final Message m_quotes_error = new Message("skript.quotes error");
     private static final Message m_brackets_error = new Message("skript.brackets error");
-    private static final HashMap<String, ExprInfo> exprInfoCache = new HashMap<>(300);
+    private static final Map<String, ExprInfo> exprInfoCache = new ConcurrentHashMap<>(300);
     private static final boolean disableAndOrHack = PropertyManager.getBoolean("skript.disableAndOrHack");
-    //private static final Map<ImmutablePair<String, String>, ParseResult> parseCache = new HashMap<>(300);
     public final ParseContext context;
     private final String expr;
     private final int flags;
+    /**
+     * {@link #expr} with each character converted to lowercase, see {@link CompiledPattern#mayMatch(String)}
+     */
+    @Nullable
+    private String lowerCaseExpr;
     private boolean suppressMissingAndOrWarnings = SkriptConfig.disableMissingAndOrWarnings.value();
 
     public SkriptParser(final String expr) {
@@ -206,7 +213,7 @@ public final class SkriptParser {
     @SuppressWarnings("null")
     @Nullable
     private static final <T> Variable<T> parseVariable(final String expr, final Class<? extends T>[] returnTypes) {
-        if (varPatternMatcher.reset(expr).matches())
+        if (varPattern.matcher(expr).matches())
             return Variable.newInstance(expr.substring(expr.indexOf('{') + 1, expr.lastIndexOf('}')), returnTypes);
         return null;
     }
@@ -216,7 +223,7 @@ public final class SkriptParser {
      */
     public static final boolean parseArguments(final String args, final ScriptCommand command, final ScriptCommandEvent event) {
         final SkriptParser parser = new SkriptParser(args, PARSE_LITERALS, ParseContext.COMMAND);
-        final ParseResult res = parser.parse_i(command.getPattern(), 0, 0);
+        final ParseResult res = parser.parse_i(CompiledPattern.get(command.getPattern()));
         if (res == null)
             return false;
 
@@ -343,7 +350,7 @@ public final class SkriptParser {
      */
     @Nullable
     public static final ParseResult parse(final String text, final String pattern) {
-        return new SkriptParser(text, PARSE_LITERALS, ParseContext.COMMAND).parse_i(pattern, 0, 0);
+        return new SkriptParser(text, PARSE_LITERALS, ParseContext.COMMAND).parse_i(CompiledPattern.get(pattern));
     }
 
     @Nullable
@@ -373,7 +380,7 @@ public final class SkriptParser {
      * @return The index of the next bracket
      * @throws MalformedPatternException If the group is not closed.
      */
-    private static final int nextBracket(final String pattern, final char closingBracket, final char openingBracket, final int start, final boolean isGroup) throws MalformedPatternException {
+    static final int nextBracket(final String pattern, final char closingBracket, final char openingBracket, final int start, final boolean isGroup) throws MalformedPatternException {
         int n = 0;
         for (int i = start; i < pattern.length(); ++i) {
             if (pattern.charAt(i) == '\\') {
@@ -402,7 +409,7 @@ public final class SkriptParser {
      * @param from    The index to start searching from
      * @return The next index where the character occurs unescaped or -1 if it doesn't occur.
      */
-    private static final int nextUnescaped(final CharSequence pattern, final char c, final int from) {
+    static final int nextUnescaped(final CharSequence pattern, final char c, final int from) {
         for (int i = from; i < pattern.length(); ++i) {
             if (pattern.charAt(i) == '\\') {
                 ++i;
@@ -433,7 +440,7 @@ public final class SkriptParser {
      * @param c       The character to search for
      * @return The number of unescaped occurrences of the given character.
      */
-    private static final int countUnescaped(final String pattern, final char c, final int start, final int end) {
+    static final int countUnescaped(final String pattern, final char c, final int start, final int end) {
         assert start >= 0 && start <= end && end <= pattern.length() : start + ", " + end + "; " + pattern.length();
         int r = 0;
         for (int i = start; i < end; ++i) {
@@ -550,7 +557,7 @@ public final class SkriptParser {
         return i + 1;
     }
 
-    private static final int getGroupLevel(final String pattern, final int j) {
+    static final int getGroupLevel(final String pattern, final int j) {
         assert j >= 0 && j <= pattern.length() : j + "; " + pattern;
         int level = 0;
         for (int i = 0; i < j; ++i) {
@@ -685,7 +692,7 @@ public final class SkriptParser {
         return true;
     }
 
-    private static final ExprInfo getExprInfo(final String s) throws MalformedPatternException, IllegalArgumentException, SkriptAPIException {
+    static final ExprInfo getExprInfo(final String s) throws MalformedPatternException, IllegalArgumentException, SkriptAPIException {
         ExprInfo r = exprInfoCache.get(s);
         if (r == null) {
             r = createExprInfo(s);
@@ -1133,7 +1140,7 @@ public final class SkriptParser {
 
                 final List<int[]> pieces = new ArrayList<>();
                 {
-                    final Matcher m = listSplitMatcher.reset(parser.expr);
+                    final Matcher m = listSplitPattern.matcher(parser.expr);
                     int i = 0;
                     for (int j = 0; i >= 0 && i <= parser.expr.length(); i = next(parser.expr, i, parser.context)) {
                         if (i == parser.expr.length() || m.region(i, parser.expr.length()).lookingAt()) {
@@ -1309,7 +1316,7 @@ public final class SkriptParser {
 
                 final List<int[]> pieces = new ArrayList<>();
                 {
-                    final Matcher m = listSplitMatcher.reset(parser.expr);
+                    final Matcher m = listSplitPattern.matcher(parser.expr);
                     int i = 0;
                     for (int j = 0; i >= 0 && i <= parser.expr.length(); i = next(parser.expr, i, parser.context)) {
                         if (i == parser.expr.length() || m.region(i, parser.expr.length()).lookingAt()) {
@@ -1472,14 +1479,25 @@ public final class SkriptParser {
     }
 
     /**
-     * Clears the internal parse cache. May free up
+     * Starts caching failed parses of sub-expressions until {@link #clearParseCache()} is called, so that backtracking over the patterns of a line doesn't
+     * parse the same part of it as the same type over and over again.
+     * <p>
+     * Whatever a part of a line can be parsed depends on the current events, delays and type hints, so the cache must only be used while parsing a single line.
+     * This method is already called by Skript itself for each line of a trigger.
+     */
+    public static final void startParseCache() {
+        ParserInstance.get().parseCache = new HashMap<>();
+    }
+
+    /**
+     * Clears the internal parse cache and stops caching. May free up
      * some memory.
      * <p>
      * This method is already called by Skript itself
-     * after loading scripts to save memory.
+     * after loading the lines of a trigger.
      */
     public static final void clearParseCache() {
-        //parseCache.clear();
+        ParserInstance.get().parseCache = null;
     }
 
     /**
@@ -1487,128 +1505,103 @@ public final class SkriptParser {
      * <p>
      * Note: This is an internal and hotspot method that uses recursion, you should use
      * other public methods.
-     * <p>
-     * Maintainers of internal code should use {@link SkriptParser#parse_i(String, int, int)} for cached results.
      *
      * @param expr    The expression to parse
      * @param context The parse context to use
      * @param flags   The parser flags to use
-     * @param pattern The pattern to parse
+     * @param pattern The compiled pattern to parse
+     * @param log     The currently active parse log handler, whose scopes are used instead of new handlers for the groups of the pattern
      * @param i       Position in the input string
-     * @param j       Position in the pattern
+     * @param j       Position of the node in the pattern
      * @return Parsed result or null on error (which does not imply that an error was printed)
      */
     @Nullable
-    private static final ParseResult parse0(final String expr, final ParseContext context, final int flags, final String pattern, int i, int j) { // REMIND: Hotspot method
-        while (j < pattern.length()) {
+    private static final ParseResult parse0(final String expr, final ParseContext context, final int flags, final CompiledPattern pattern, final ParseLogHandler log, int i, int j) { // REMIND: Hotspot method
+        while (true) {
+            final CompiledPattern.Node node = pattern.nodes[j];
             ParseResult res;
-            final int end;
             int i2;
-            switch (pattern.charAt(j)) {
-                case '[': {
-                    final ParseLogHandler log = SkriptLogger.startParseLogHandler();
+            switch (node.kind) {
+                case OPTIONAL: {
+                    final int scope = log.startScope();
                     try {
-                        {
-                            res = parse0(expr, context, flags, pattern, i, j + 1);
-                        }
+                        res = parse0(expr, context, flags, pattern, log, i, node.targets[0]);
                         if (res != null) {
-                            log.printLog();
+                            log.printScopeLog(scope);
                             return res;
                         }
                         log.clear();
-                        j = nextBracket(pattern, ']', '[', j + 1, true) + 1;
-                        {
-                            res = parse0(expr, context, flags, pattern, i, j);
-                        }
-                        if (res == null)
-                            log.printError();
-                        else
-                            log.printLog();
+                        final MalformedPatternException error = node.error;
+                        if (error != null)
+                            throw error;
+                        res = parse0(expr, context, flags, pattern, log, i, node.next);
+                        if (res != null)
+                            log.printScopeLog(scope);
                         return res;
                     } finally {
-                        log.stop();
+                        log.printScopeError(scope);
                     }
                 }
-                case '(': {
-                    final ParseLogHandler log = SkriptLogger.startParseLogHandler();
+                case CHOICE: {
+                    final int scope = log.startScope();
                     try {
-                        final int start = j;
-                        for (; j < pattern.length(); ++j) {
+                        for (int k = 0; k < node.targets.length; k++) {
                             log.clear();
-                            if (j == start || pattern.charAt(j) == '|') {
-                                int mark = 0;
-                                if (j != pattern.length() - 1 && ('0' <= pattern.charAt(j + 1) && pattern.charAt(j + 1) <= '9' || pattern.charAt(j + 1) == '-')) {
-                                    final int j2 = pattern.indexOf('¦', j + 2);
-                                    if (j2 != -1) {
-                                        final String str = pattern.substring(j + 1, j2);
-                                        if (SkriptParser.isInteger(str)) {
-                                            mark = Integer.parseInt(str);
-                                            j = j2;
-                                        }
-                                    }
-                                }
-                                {
-                                    res = parse0(expr, context, flags, pattern, i, j + 1);
-                                }
-                                if (res != null) {
-                                    log.printLog();
-                                    res.mark ^= mark; // doesn't do anything if no mark was set as x ^ 0 == x
-                                    return res;
-                                }
-                            } else if (pattern.charAt(j) == '(') {
-                                j = nextBracket(pattern, ')', '(', j + 1, true);
-                            } else if (pattern.charAt(j) == ')') {
-                                break;
-                            } else if (j == pattern.length() - 1) {
-                                throw new MalformedPatternException(pattern, "Missing closing bracket ')'");
+                            res = parse0(expr, context, flags, pattern, log, i, node.targets[k]);
+                            if (res != null) {
+                                log.printScopeLog(scope);
+                                res.mark ^= node.marks[k]; // doesn't do anything if no mark was set as x ^ 0 == x
+                                return res;
                             }
                         }
-                        log.printError();
+                        final MalformedPatternException error = node.error;
+                        if (error != null)
+                            throw error;
                         return null;
                     } finally {
-                        log.stop();
+                        log.printScopeError(scope);
                     }
                 }
-                case '%': {
+                case EXPRESSION: {
                     if (i == expr.length())
                         return null;
-                    end = pattern.indexOf('%', j + 1);
-                    if (end == -1)
-                        throw new MalformedPatternException(pattern, "Odd number of '%'");
-                    if (end == pattern.length() - 1) {
+                    final MalformedPatternException error = node.error;
+                    if (error != null)
+                        throw error;
+                    if (node.last) {
                         i2 = expr.length();
                     } else {
                         i2 = next(expr, i, context);
                         if (i2 == -1)
                             return null;
                     }
-                    final ParseLogHandler log = SkriptLogger.startParseLogHandler();
-                    final String name = pattern.substring(j + 1, end);
-                    final ExprInfo vi = getExprInfo(name);
+                    final int scope = log.startScope();
+                    final ExprInfo vi = getExprInfo(node.name);
                     try {
                         for (; i2 != -1; i2 = next(expr, i2, context)) {
                             log.clear();
-                            {
-                                res = parse0(expr, context, flags, pattern, i2, end + 1);
-                            }
+                            res = parse0(expr, context, flags, pattern, log, i2, node.next);
                             if (res != null) {
-                                final ParseLogHandler log2 = SkriptLogger.startParseLogHandler();
+                                final int scope2 = log.startScope();
                                 try { // Loop over all types that could go here
-                                    final Expression<?> e = parseExpression0(new SkriptParser(expr.substring(i, i2), flags & vi.flagMask, context), vi);
+                                    final String subExpr = expr.substring(i, i2);
+                                    final int subFlags = flags & vi.flagMask;
+                                    final Map<ParseCacheKey, LogEntry> cache = ParserInstance.get().parseCache;
+                                    final ParseCacheKey key = cache != null ? new ParseCacheKey(subExpr, vi, subFlags, context) : null;
+                                    if (cache != null && cache.containsKey(key)) { // failed before, only replay the error
+                                        final LogEntry cachedError = cache.get(key);
+                                        if (cachedError != null)
+                                            log.log(cachedError);
+                                        return null;
+                                    }
+                                    final Expression<?> e = parseExpression0(new SkriptParser(subExpr, subFlags, context), vi);
+                                    if (e == null && cache != null)
+                                        cache.put(key, log.getError()); // successful parses aren't cached as expressions are mutable, e.g. by setTime
                                     if (e != null) {
-//                                        if (!vi.isPlural[k] && !e.isSingle()) { // Wrong number of arguments
-//                                            if (context == ParseContext.COMMAND) {
-//                                                Skript.error(Commands.m_too_many_arguments.toString(vi.classes[k].getName().getIndefiniteArticle(), vi.classes[k].getName().toString()), ErrorQuality.SEMANTIC_ERROR);
-//                                                return null;
-//                                            } else {
-//                                                Skript.error("'" + expr.substring(0, i) + "<...>" + expr.substring(i2) + "' can only accept a single " + vi.classes[k].getName() + ", not more", ErrorQuality.SEMANTIC_ERROR);
-//                                                return null;
-//                                            }
-//                                        }
                                         if (vi.time != 0) {
                                             if (e instanceof Literal<?>)
                                                 return null;
-                                            if (ScriptLoader.hasDelayBefore == Kleenean.TRUE) {
+                                            if (ScriptLoader.getHasDelayBefore() == Kleenean.TRUE) {
                                                 Skript.error("Cannot use time states after the event has already passed", ErrorQuality.SEMANTIC_ERROR);
                                                 return null;
                                             }
@@ -1617,171 +1610,138 @@ public final class SkriptParser {
                                                 return null;
                                             }
                                         }
-                                        log2.printLog();
-                                        log.printLog();
-                                        res.exprs[countUnescaped(pattern, '%', 0, j) / 2] = e;
+                                        log.printScopeLog(scope2);
+                                        log.printScopeLog(scope);
+                                        res.exprs[node.index] = e;
                                         return res;
                                     }
                                     // results in useless errors most of the time
 //                                    Skript.error("'" + expr.substring(i, i2) + "' is " + notOfType(vi.classes), ErrorQuality.NOT_AN_EXPRESSION);
                                     return null;
                                 } finally {
-                                    log2.printError();
+                                    log.printScopeError(scope2);
                                 }
                             }
                         }
                     } finally {
-                        if (!log.isStopped())
-                            log.printError();
+                        log.printScopeError(scope);
                     }
                     return null;
                 }
-                case '<': {
-                    end = pattern.indexOf('>', j + 1); // not next()
-                    if (end == -1)
-                        throw new MalformedPatternException(pattern, "Missing closing regex bracket '>'");
-                    final Pattern p;
-                    try {
-                        p = PatternCache.get(pattern.substring(j + 1, end));
-                    } catch (final PatternSyntaxException e) {
-                        throw new MalformedPatternException(pattern, "Invalid regex <" + pattern.substring(j + 1, end) + '>', e);
-                    }
-                    final ParseLogHandler log = SkriptLogger.startParseLogHandler();
+                case REGEX: {
+                    final Pattern p = node.regex;
+                    assert p != null;
+                    final int scope = log.startScope();
                     try {
-                        final Matcher m = MatcherCache.getMatcher(p, expr);
+                        final Matcher m = p.matcher(expr);
                         for (i2 = next(expr, i, context); i2 != -1; i2 = next(expr, i2, context)) {
                             log.clear();
                             m.region(i, i2);
                             if (m.matches()) {
-                                {
-                                    res = parse0(expr, context, flags, pattern, i2, end + 1);
-                                }
+                                res = parse0(expr, context, flags, pattern, log, i2, node.next);
                                 if (res != null) {
                                     res.regexes.add(0, m.toMatchResult());
-                                    log.printLog();
+                                    log.printScopeLog(scope);
                                     return res;
                                 }
                             }
                         }
-                        log.printError(null);
                         return null;
                     } finally {
-                        log.stop();
+                        log.printScopeError(scope);
                     }
                 }
-                case ']':
-                case ')':
-                    ++j;
+                case PIPE:
+                    j = node.next;
                     continue;
-                case '|':
-                    final int newJ = nextBracket(pattern, ')', '(', j + 1, getGroupLevel(pattern, j) != 0);
-                    if (newJ == -1) {
-                        if (i == expr.length()) {
-                            j = pattern.length();
-                            break;
-                        }
-                        i = 0;
-                        ++j;
-                        continue;
-                    }
-                    j = newJ + 1;
-                    break;
-                case ' ':
+                case RESTART:
+                    if (i == expr.length())
+                        return new ParseResult(expr, pattern.expressionCount);
+                    i = 0;
+                    j = node.next;
+                    continue;
+                case SPACE:
                     if (i == 0 || i == expr.length() || i > 0 && expr.charAt(i - 1) == ' ') {
-                        ++j;
+                        j = node.next;
                         continue;
                     }
                     if (expr.charAt(i) != ' ') {
                         return null;
                     }
                     ++i;
-                    ++j;
+                    j = node.next;
                     continue;
-                case '\\':
-                    if (++j == pattern.length()) {
-                        throw new MalformedPatternException(pattern, "Must not end with a backslash");
+                case LITERAL: {
+                    final String literal = node.literal;
+                    if (expr.length() - i < literal.length())
+                        return null;
+                    for (int k = 0; k < literal.length(); k++) {
+                        if (literal.charAt(k) != Character.toLowerCase(expr.charAt(i + k)))
+                            return null;
                     }
-                    //$FALL-THROUGH$
+                    i += literal.length();
+                    j = node.next;
+                    continue;
+                }
+                case MALFORMED: {
+                    final MalformedPatternException error = node.error;
+                    assert error != null;
+                    throw error;
+                }
+                case END:
+                    if (i == expr.length())
+                        return new ParseResult(expr, pattern.expressionCount);
+                    return null;
                 default:
-                    if (i == expr.length() || Character.toLowerCase(pattern.charAt(j)) != Character.toLowerCase(expr.charAt(i)))
-                        return null;
-                    ++i;
-                    ++j;
+                    throw new IllegalStateException(node.toString());
             }
         }
-        if (i == expr.length() && j == pattern.length())
-            return new ParseResult(expr, pattern);
-        return null;
     }
 
     @Nullable
     private final <T extends SyntaxElement> T parse(final Iterator<? extends SyntaxElementInfo<? extends T>> source) {
+        final long profile = ParseProfiler.startLine();
         final ParseLogHandler log = SkriptLogger.startParseLogHandler();
         try {
-            while (source.hasNext()) {
-                final SyntaxElementInfo<? extends T> info = source.next();
-                patternsLoop:
-                for (int i = 0; i < info.patterns.length; ++i) {
-                    log.clear();
-                    try {
-                        final String pattern = info.patterns[i];
-                        assert pattern != null;
-                        final ParseResult res = parse_i(pattern, 0, 0);
-                        if (res != null) {
-                            int x = -1;
-                            for (int j = 0; (x = nextUnescaped(pattern, '%', x + 1)) != -1; ++j) {
-                                final int x2 = nextUnescaped(pattern, '%', x + 1);
-                                if (res.exprs[j] == null) {
-                                    final String name = pattern.substring(x + 1, x2);
-                                    if (!(!name.isEmpty() && name.charAt(0) == '-')) {
-                                        final ExprInfo vi = getExprInfo(name);
-                                        final DefaultExpression<?> expression = vi.classes[0].getDefaultExpression();
-                                        if (expression == null)
-                                            throw new SkriptAPIException("The class '" + vi.classes[0].getCodeName() + "' does not provide a default expression. Either allow null (with %-" + vi.classes[0].getCodeName() + "%) or make it mandatory [pattern: " + info.patterns[i] + ']');
-                                        if (!(expression instanceof Literal) && (vi.flagMask & PARSE_EXPRESSIONS) == 0)
-                                            throw new SkriptAPIException("The default expression of '" + vi.classes[0].getCodeName() + "' is not a literal. Either allow null (with %-*" + vi.classes[0].getCodeName() + "%) or make it mandatory [pattern: " + info.patterns[i] + ']');
-                                        if (expression instanceof Literal && (vi.flagMask & PARSE_LITERALS) == 0)
-                                            throw new SkriptAPIException("The default expression of '" + vi.classes[0].getCodeName() + "' is a literal. Either allow null (with %-~" + vi.classes[0].getCodeName() + "%) or make it mandatory [pattern: " + info.patterns[i] + ']');
-                                        if (!vi.isPlural[0] && !expression.isSingle())
-                                            throw new SkriptAPIException("The default expression of '" + vi.classes[0].getCodeName() + "' is not a single-element expression. Change your pattern to allow multiple elements or make the expression mandatory [pattern: " + info.patterns[i] + ']');
-                                        if (vi.time != 0 && !expression.setTime(vi.time))
-                                            throw new SkriptAPIException("The default expression of '" + vi.classes[0].getCodeName() + "' does not have distinct time states. [pattern: " + info.patterns[i] + ']');
-                                        if (!expression.init())
-                                            continue patternsLoop;
-                                        res.exprs[j] = expression;
-                                    }
-                                }
-                                x = x2;
-                            }
-                            final Class<? extends T> clazz = info.c;
-                            if (!clazz.getPackage().getName().startsWith("ch.njol")) { // If it's not a native Skript expression
-                                final Config config = ScriptLoader.currentScript;
-                                final Node node = SkriptLogger.getNode();
-
-                                if (config != null && node != null) {
-                                    final String script = config.getFileName();
-                                    final int line = node.getLine();
-
-                                    final String name = clazz.getCanonicalName();
-
-                                    if (Skript.logSpam()) // Don't print unless we explicitly want it
-                                        Skript.info("Using expression " + name + " (" + script + ", line " + line + ')'); // Conditions etc. are also expressions
-
-                                    // Those are un required and laggy expressions that hangs the parser
-                                    // TODO Refuse to register those conditions in future
-                                    if (!SkriptConfig.disableDeprecationWarnings.value() && "com.w00tmast3r.skquery.elements.conditions.CondBoolean".equalsIgnoreCase(name) || "com.pie.tlatoani.Miscellaneous.CondBoolean".equalsIgnoreCase(name)) {
-                                        Skript.warning("Using this condition is deprecated. Please add 'is true' at the end of this condition to use Skript's native condition instead." + " (" + script + ", line " + line + ')');
-                                    }
+            final ParseHints hints = ParserInstance.get().getParseHints();
+            final Node node = hints != null ? SkriptLogger.getNode() : null;
+            final ParseHints.Key key = hints != null && node != null ? new ParseHints.Key(node.getLine(), flags, context, expr) : null;
+            Iterator<? extends SyntaxElementInfo<? extends T>> infos = source;
+            if (key != null) {
+                final List<ParseHints.Hint> recorded = hints.get(key);
+                if (recorded != null) {
+                    // Try the element this was parsed as when the script was loaded before, skipping the elements before it which didn't match then.
+                    // If it doesn't match anymore, all elements are tried in order.
+                    final List<SyntaxElementInfo<? extends T>> skipped = new ArrayList<>();
+                    hintLoop:
+                    while (source.hasNext()) {
+                        final SyntaxElementInfo<? extends T> info = source.next();
+                        skipped.add(info);
+                        for (final ParseHints.Hint hint : recorded) {
+                            if (hint.pattern < info.patterns.length && hint.className.equals(info.c.getName())) {
+                                log.clear();
+                                final T t = parse(info, hint.pattern, log);
+                                if (t != null) {
+                                    log.printLog();
+                                    return t;
                                 }
-                            }
-                            final T t = Skript.newInstance(clazz);
-                            if (t.init(res.exprs, i, ScriptLoader.hasDelayBefore, res)) {
-                                log.printLog();
-                                return t;
+                                break hintLoop;
                             }
                         }
-                    } catch (final InvocationTargetException | NoSuchMethodException | InstantiationException | IllegalAccessException e) {
-                        throw Skript.exception(e);
+                    }
+                    infos = Iterators.concat(skipped.iterator(), source);
+                }
+            }
+            while (infos.hasNext()) {
+                final SyntaxElementInfo<? extends T> info = infos.next();
+                for (int i = 0; i < info.patterns.length; ++i) {
+                    log.clear();
+                    final T t = parse(info, i, log);
+                    if (t != null) {
+                        if (key != null)
+                            hints.record(key, info.c, i);
+                        log.printLog();
+                        return t;
                     }
                 }
             }
@@ -1789,7 +1749,87 @@ public final class SkriptParser {
             return null;
         } finally {
             log.stop();
+            ParseProfiler.endLine(profile);
+        }
+    }
+
+    /**
+     * Tries to parse the expression as the given pattern of the given element.
+     *
+     * @param log The currently active parse log handler
+     * @return The initialized element, or null if the pattern doesn't match or the element couldn't be initialized
+     */
+    @Nullable
+    private final <T extends SyntaxElement> T parse(final SyntaxElementInfo<? extends T> info, final int i, final ParseLogHandler log) {
+        final CompiledPattern pattern = info.getCompiledPattern(i);
+        if (!mayMatch(pattern))
+            return null;
+        if (!ParseProfiler.isEnabled())
+            return parse(info, i, pattern, log);
+        final long start = System.nanoTime();
+        try {
+            return parse(info, i, pattern, log);
+        } finally {
+            ParseProfiler.attempted(info, System.nanoTime() - start);
+        }
+    }
+
+    @Nullable
+    private final <T extends SyntaxElement> T parse(final SyntaxElementInfo<? extends T> info, final int i, final CompiledPattern pattern, final ParseLogHandler log) {
+        try {
+            final ParseResult res = parse_i(pattern, log);
+            if (res != null) {
+                for (int j = 0; j < pattern.expressions.length; ++j) {
+                    if (res.exprs[j] == null) {
+                        final String name = pattern.expressions[j];
+                        if (!(!name.isEmpty() && name.charAt(0) == '-')) {
+                            final ExprInfo vi = getExprInfo(name);
+                            final DefaultExpression<?> expression = vi.classes[0].getDefaultExpression();
+                            if (expression == null)
+                                throw new SkriptAPIException("The class '" + vi.classes[0].getCodeName() + "' does not provide a default expression. Either allow null (with %-" + vi.classes[0].getCodeName() + "%) or make it mandatory [pattern: " + info.patterns[i] + ']');
+                            if (!(expression instanceof Literal) && (vi.flagMask & PARSE_EXPRESSIONS) == 0)
+                                throw new SkriptAPIException("The default expression of '" + vi.classes[0].getCodeName() + "' is not a literal. Either allow null (with %-*" + vi.classes[0].getCodeName() + "%) or make it mandatory [pattern: " + info.patterns[i] + ']');
+                            if (expression instanceof Literal && (vi.flagMask & PARSE_LITERALS) == 0)
+                                throw new SkriptAPIException("The default expression of '" + vi.classes[0].getCodeName() + "' is a literal. Either allow null (with %-~" + vi.classes[0].getCodeName() + "%) or make it mandatory [pattern: " + info.patterns[i] + ']');
+                            if (!vi.isPlural[0] && !expression.isSingle())
+                                throw new SkriptAPIException("The default expression of '" + vi.classes[0].getCodeName() + "' is not a single-element expression. Change your pattern to allow multiple elements or make the expression mandatory [pattern: " + info.patterns[i] + ']');
+                            if (vi.time != 0 && !expression.setTime(vi.time))
+                                throw new SkriptAPIException("The default expression of '" + vi.classes[0].getCodeName() + "' does not have distinct time states. [pattern: " + info.patterns[i] + ']');
+                            if (!expression.init())
+                                return null;
+                            res.exprs[j] = expression;
+                        }
+                    }
+                }
+                final Class<? extends T> clazz = info.c;
+                if (!clazz.getPackage().getName().startsWith("ch.njol")) { // If it's not a native Skript expression
+                    final Config config = ScriptLoader.getCurrentScript();
+                    final Node node = SkriptLogger.getNode();
+
+                    if (config != null && node != null) {
+                        final String script = config.getFileName();
+                        final int line = node.getLine();
+
+                        final String name = clazz.getCanonicalName();
+
+                        if (Skript.logSpam()) // Don't print unless we explicitly want it
+                            Skript.info("Using expression " + name + " (" + script + ", line " + line + ')'); // Conditions etc. are also expressions
+
+                        // Those are un required and laggy expressions that hangs the parser
+                        // TODO Refuse to register those conditions in future
+                        if (!SkriptConfig.disableDeprecationWarnings.value() && "com.w00tmast3r.skquery.elements.conditions.CondBoolean".equalsIgnoreCase(name) || "com.pie.tlatoani.Miscellaneous.CondBoolean".equalsIgnoreCase(name)) {
+                            Skript.warning("Using this condition is deprecated. Please add 'is true' at the end of this condition to use Skript's native condition instead." + " (" + script + ", line " + line + ')');
+                        }
+                    }
+                }
+                final T t = Skript.newInstance(clazz);
+                if (t.init(res.exprs, i, ScriptLoader.getHasDelayBefore(), res))
+                    return t;
+            }
+        } catch (final InvocationTargetException | NoSuchMethodException | InstantiationException | IllegalAccessException e) {
+            throw Skript.exception(e);
         }
+        return null;
     }
 
     private final SkriptParser suppressMissingAndOrWarnings() {
@@ -1840,7 +1880,7 @@ public final class SkriptParser {
             return null;
         final ParseLogHandler log = SkriptLogger.startParseLogHandler();
         try {
-            final Matcher m = functionCallPatternMatcher.reset(expr);
+            final Matcher m = functionCallPattern.matcher(expr);
             if (!m.matches()) {
                 log.printLog();
                 return null;
@@ -1896,7 +1936,7 @@ public final class SkriptParser {
 //                    }
 //                }
 //            }
-            @SuppressWarnings("null") final FunctionReference<T> e = new FunctionReference<>(functionName, SkriptLogger.getNode(), ScriptLoader.currentScript != null ? ScriptLoader.currentScript.getFile() : null, types, params);//.toArray(new Expression[params.size()]));
+            @SuppressWarnings("null") final FunctionReference<T> e = new FunctionReference<>(functionName, SkriptLogger.getNode(), ScriptLoader.getCurrentScript() != null ? ScriptLoader.getCurrentScript().getFile() : null, types, params);//.toArray(new Expression[params.size()]));
 
             if (SkriptConfig.allowFunctionsBeforeDefs.value()) {
                 Functions.addPostCheck(e); // Query function for post-checking
@@ -1915,15 +1955,20 @@ public final class SkriptParser {
     private final NonNullPair<SkriptEventInfo<?>, SkriptEvent> parseEvent() {
         assert context == ParseContext.EVENT;
         assert flags == PARSE_LITERALS;
+        final long profile = ParseProfiler.startLine();
         final ParseLogHandler log = SkriptLogger.startParseLogHandler();
         try {
             for (final SkriptEventInfo<?> info : Skript.getEvents()) {
                 for (int i = 0; i < info.patterns.length; ++i) {
                     log.clear();
+                    long start = ParseProfiler.NOT_PROFILED;
                     try {
-                        final String pattern = info.patterns[i];
-                        assert pattern != null;
-                        final ParseResult res = parse_i(pattern, 0, 0);
+                        final CompiledPattern pattern = info.getCompiledPattern(i);
+                        if (!mayMatch(pattern))
+                            continue;
+                        if (ParseProfiler.isEnabled())
+                            start = System.nanoTime();
+                        final ParseResult res = parse_i(pattern, log);
                         if (res != null) {
                             if (Skript.logSpam() && !info.c.getPackage().getName().startsWith("ch.njol")) // Log spam is true, and it's not a native Skript event
                                 Skript.info("Using event " + info.c.getCanonicalName());
@@ -1938,6 +1983,9 @@ public final class SkriptParser {
                         }
                     } catch (final InvocationTargetException | NoSuchMethodException | InstantiationException | IllegalAccessException e) {
                         throw Skript.exception(e);
+                    } finally {
+                        if (start != ParseProfiler.NOT_PROFILED)
+                            ParseProfiler.attempted(info, System.nanoTime() - start);
                     }
                 }
             }
@@ -1945,36 +1993,56 @@ public final class SkriptParser {
             return null;
         } finally {
             log.stop();
+            ParseProfiler.endLine(profile);
         }
     }
 
     /**
      * Prints errors.
-     * <p>
-     * Caches the {@link ParseResult}s, the {@link SkriptParser#parse0(String, ParseContext, int, String, int, int)} method
-     * (currently) uses recursion, and it is so slow. So, this method caches results.
      *
      * @param pattern The pattern to parse
-     * @param i       Position in the input string
-     * @param j       Position in the pattern
      * @return Parsed result or null on error (which does not imply that an error was printed)
      */
     @Nullable
-    private final ParseResult parse_i(final String pattern, final int i, final int j) {
-        return parse0(expr, context, flags, pattern, i, j);
-        /*final ImmutablePair<String, String> exprPatternPair = new ImmutablePair<>(expr, pattern, true);
-
-        if (parseCache.containsKey(exprPatternPair))
-            return parseCache.get(exprPatternPair); // Return the cached result (maybe null, so containsKey)
-        {
-            final ParseResult computedResult;
-            {
-                computedResult = parse0(expr, context, flags, pattern, i, j);
-            }
-            parseCache.put(exprPatternPair, computedResult);
+    private final ParseResult parse_i(final CompiledPattern pattern) {
+        final ParseLogHandler log = SkriptLogger.startParseLogHandler();
+        try {
+            final ParseResult res = parse_i(pattern, log);
+            if (res == null)
+                log.printError();
+            else
+                log.printLog();
+            return res;
+        } finally {
+            log.stop();
+        }
+    }
 
-            return computedResult;
-        }*/
+    /**
+     * Logs errors to the given handler, which must be the currently active one.
+     *
+     * @param pattern The pattern to parse
+     * @param log     The currently active parse log handler
+     * @return Parsed result or null on error (which does not imply that an error was logged)
+     */
+    @Nullable
+    private final ParseResult parse_i(final CompiledPattern pattern, final ParseLogHandler log) {
+        return parse0(expr, context, flags, pattern, log, 0, pattern.start);
+    }
+
+    /**
+     * Checks whatever the expression contains all words the pattern requires. Patterns that can't match are skipped without trying them, which doesn't change the outcome
+     * or the printed errors of parsing as the parser only parses expressions and initialises elements after the whole pattern has been matched.
+     */
+    private final boolean mayMatch(final CompiledPattern pattern) {
+        String lowerCaseExpr = this.lowerCaseExpr;
+        if (lowerCaseExpr == null) {
+            final char[] chars = expr.toCharArray();
+            for (int i = 0; i < chars.length; i++)
+                chars[i] = Character.toLowerCase(chars[i]);
+            this.lowerCaseExpr = lowerCaseExpr = new String(chars);
+        }
+        return pattern.mayMatch(lowerCaseExpr);
     }
 
     public static final class ParseResult {
@@ -1990,9 +2058,9 @@ public final class SkriptParser {
          */
         public int mark;
 
-        ParseResult(final String expr, final String pattern) {
+        ParseResult(final String expr, final int expressionCount) {
             this.expr = expr;
-            exprs = new Expression<?>[countUnescaped(pattern, '%') / 2];
+            exprs = new Expression<?>[expressionCount];
         }
 
         @Override
@@ -2020,7 +2088,7 @@ public final class SkriptParser {
 
     }
 
-    private static final class MalformedPatternException extends RuntimeException {
+    static final class MalformedPatternException extends RuntimeException {
 
         private static final long serialVersionUID = -5133477361763823946L;
 
@@ -2034,7 +2102,43 @@ public final class SkriptParser {
 
     }
 
-    private static final class ExprInfo {
+    /**
+     * Key of the parse cache (see {@link #startParseCache()}): a part of a line parsed as an expression of the given types with the given flags and context.
+     */
+    static final class ParseCacheKey {
+
+        private final String expr;
+        private final ExprInfo info;
+        private final int flags;
+        private final ParseContext context;
+        private final int hashCode;
+
+        ParseCacheKey(final String expr, final ExprInfo info, final int flags, final ParseContext context) {
+            this.expr = expr;
+            this.info = info;
+            this.flags = flags;
+            this.context = context;
+            hashCode = 31 * (31 * (31 * expr.hashCode() + info.hashCode()) + flags) + context.hashCode();
+        }
+
+        @Override
+        public final boolean equals(@Nullable final Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ParseCacheKey)) return false;
+
+            final ParseCacheKey key = (ParseCacheKey) o;
+
+            return hashCode == key.hashCode && flags == key.flags && context == key.context && expr.equals(key.expr) && info.equals(key.info);
+        }
+
+        @Override
+        public final int hashCode() {
+            return hashCode;
+        }
+
+    }
+
+    static final class ExprInfo {
 
         final ClassInfo<?>[] classes;
 
@@ -32,10 +32,20 @@ public class SyntaxElementInfo<E extends SyntaxElement> {
 
     public final Class<E> c;
     public final String[] patterns;
+    /**
+     * The compiled {@link #patterns}. Patterns are compiled when the element is registered, or when they are first used if they are only set later (e.g. when the language
+     * is loaded) or have been replaced.
+     */
+    private final CompiledPattern[] compiledPatterns;
 
     public SyntaxElementInfo(final String[] patterns, final Class<E> c) throws IllegalArgumentException {
         this.patterns = patterns;
         this.c = c;
+        this.compiledPatterns = new CompiledPattern[patterns.length];
+        for (int i = 0; i < patterns.length; i++) {
+            if (patterns[i] != null)
+                compiledPatterns[i] = CompiledPattern.compile(patterns[i]);
+        }
         try {
             Skript.getConstructor(c);
 //			if (!c.getDeclaredConstructor().isAccessible())
@@ -48,4 +58,19 @@ public class SyntaxElementInfo<E extends SyntaxElement> {
         }
     }
 
+    /**
+     * Gets the compiled pattern with the given index, and compiles it again if it has been replaced since it was compiled.
+     */
+    @SuppressWarnings("null")
+    final CompiledPattern getCompiledPattern(final int i) {
+        final String pattern = patterns[i];
+        assert pattern != null;
+        CompiledPattern compiled = compiledPatterns[i];
+        if (compiled == null || !compiled.isCompiledFrom(pattern)) {
+            compiled = CompiledPattern.compile(pattern);
+            compiledPatterns[i] = compiled;
+        }
+        return compiled;
+    }
+
 }
@@ -49,6 +49,10 @@ public abstract class TriggerItem implements Debuggable {
     private TriggerItem next;
     @Nullable
     private String indentation;
+    /**
+     * See {@link AsyncExecution#isSafe(TriggerItem)}: 0 if not checked yet, 1 if safe and 2 if not
+     */
+    byte asyncSafety;
 
     protected TriggerItem() {
     }
@@ -64,10 +68,15 @@ public abstract class TriggerItem implements Debuggable {
      */
     public static final boolean walk(final TriggerItem start, final Event e) {
         assert start != null && e != null;
+        final ExecutionFrame previous = ExecutionFrame.enter(e);
+        final boolean async = AsyncExecution.isEnabled();
         TriggerItem i = start;
         try {
-            while (i != null)
+            while (i != null) {
+                if (async && !AsyncExecution.isSafe(i))
+                    return AsyncExecution.walkOnMainThread(i, e);
                 i = i.walk(e);
+            }
             return true;
         } catch (final StackOverflowError err) {
             if (Skript.debug())
@@ -79,7 +88,24 @@ public abstract class TriggerItem implements Debuggable {
         } catch (final Throwable tw) {
             Skript.exception(tw, i, "Error when executing trigger in event " + e.getClass().getCanonicalName());
             return false;
+        } finally {
+            ExecutionFrame.exit(previous);
+        }
+    }
+
+    /**
+     * @return Whatever the given class overrides {@link #walk(Event)}, i.e. decides itself which item is executed next
+     */
+    static final boolean overridesWalk(final Class<?> c) {
+        for (Class<?> s = c; s != null && s != TriggerItem.class; s = s.getSuperclass()) {
+            try {
+                s.getDeclaredMethod("walk", Event.class);
+                return true;
+            } catch (final NoSuchMethodException ignored) {
+                /* ignored */
+            }
         }
+        return false;
     }
 
     /**
@@ -0,0 +1,121 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.lang;
+
+import ch.njol.skript.Skript;
+import org.bukkit.event.Event;
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Removes conditional sections whose condition has the same result for every event (see {@link Condition#isConstant()}) from loaded trigger items, e.g. an
+ * 'if {@literal <option>} is true' that can never be true. The contents of conditionals that are always true (or of the 'else' section of conditionals that are always
+ * false) are moved into the enclosing section, but only if they consist of plain effects and conditionals, as other items may depend on the sections they're in.
+ * <p>
+ * Must be called before the items are linked with {@link TriggerItem#setNext(TriggerItem)}.
+ */
+public final class TriggerOptimizer {
+
+    private TriggerOptimizer() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Optimizes the given items in place.
+     *
+     * @param items The items of a section as returned by {@link ch.njol.skript.ScriptLoader#loadItems(ch.njol.skript.config.SectionNode)}, not yet linked
+     */
+    public static final void optimize(final List<TriggerItem> items) {
+        for (int i = 0; i < items.size(); i++) {
+            final TriggerItem item = items.get(i);
+            if (!(item instanceof Conditional))
+                continue;
+            final List<TriggerItem> replacement = optimize((Conditional) item);
+            if (replacement == null)
+                continue;
+            items.remove(i);
+            items.addAll(i, replacement);
+            i--; // the first replacement item may be a constant conditional as well (e.g. an 'else if')
+        }
+    }
+
+    /**
+     * @return The items to replace the conditional with, or null to keep it
+     */
+    @Nullable
+    private static final List<TriggerItem> optimize(final Conditional conditional) {
+        final Condition cond = conditional.getCondition();
+        if (!cond.isConstant())
+            return null;
+        final boolean result;
+        try {
+            result = cond.check(nullEvent());
+        } catch (final RuntimeException ex) { // the condition can't be evaluated without an event after all
+            Skript.debug("Could not evaluate the constant condition '" + cond.toString(null, false) + "': " + ex);
+            return null;
+        }
+        final TriggerSection elseClause = conditional.getElseClause();
+        final List<TriggerItem> replacement;
+        if (result) {
+            replacement = conditional.getItems();
+        } else if (elseClause == null) {
+            replacement = Collections.emptyList();
+        } else if (elseClause instanceof Conditional) {
+            replacement = Collections.singletonList(elseClause);
+        } else {
+            replacement = elseClause.getItems();
+        }
+        if (!(replacement.size() == 1 && replacement.get(0) == elseClause) && !canMove(replacement))
+            return null;
+        if (Skript.logVeryHigh())
+            Skript.info("The condition '" + cond.toString(null, false) + "' is always " + result + ", " + (result ? "its section is always executed" : "its section is never executed"));
+        return replacement;
+    }
+
+    /**
+     * @return Whatever the given items can be moved into another section without changing their behaviour
+     */
+    private static final boolean canMove(final List<TriggerItem> items) {
+        for (final TriggerItem item : items) {
+            if (item instanceof Conditional) {
+                final Conditional conditional = (Conditional) item;
+                if (!canMove(conditional.getItems()))
+                    return false;
+                final TriggerSection elseClause = conditional.getElseClause();
+                if (elseClause != null && !canMove(elseClause instanceof Conditional ? Collections.singletonList(elseClause) : elseClause.getItems()))
+                    return false;
+            } else if (!(item instanceof Effect) || TriggerItem.overridesWalk(item.getClass())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("null")
+    private static final Event nullEvent() {
+        return null;
+    }
+
+}
@@ -23,10 +23,19 @@
 package ch.njol.skript.lang;
 
 import ch.njol.skript.ScriptLoader;
+import ch.njol.skript.Skript;
+import ch.njol.skript.config.Config;
 import ch.njol.skript.config.SectionNode;
+import ch.njol.skript.effects.Delay;
+import ch.njol.skript.lang.function.FunctionEvent;
+import ch.njol.skript.timings.SkriptTimings;
+import ch.njol.skript.util.ScriptOptions;
+import org.bukkit.Bukkit;
 import org.bukkit.event.Event;
 import org.eclipse.jdt.annotation.Nullable;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -51,11 +60,11 @@ public abstract class TriggerSection extends TriggerItem {
     }
 
     protected TriggerSection(final SectionNode node) {
-        ScriptLoader.currentSections.add(this);
+        ScriptLoader.getCurrentSections().add(this);
         try {
             setTriggerItems(ScriptLoader.loadItems(node));
         } finally {
-            ScriptLoader.currentSections.remove(ScriptLoader.currentSections.size() - 1);
+            ScriptLoader.getCurrentSections().remove(ScriptLoader.getCurrentSections().size() - 1);
         }
     }
 
@@ -66,12 +75,12 @@ public abstract class TriggerSection extends TriggerItem {
     }
 
     /**
-     * Remember to add this section to {@link ScriptLoader#currentSections} before parsing child elements!
+     * Remember to add this section to {@link ScriptLoader#getCurrentSections()} before parsing child elements!
      *
      * <pre>
-     * ScriptLoader.currentSections.add(this);
+     * ScriptLoader.getCurrentSections().add(this);
      * setTriggerItems(ScriptLoader.loadItems(node));
-     * ScriptLoader.currentSections.remove(ScriptLoader.currentSections.size() - 1);
+     * ScriptLoader.getCurrentSections().remove(ScriptLoader.getCurrentSections().size() - 1);
      * </pre>
      *
      * @param items
@@ -105,6 +114,16 @@ public abstract class TriggerSection extends TriggerItem {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * @return The items directly in this section, in order
+     */
+    final List<TriggerItem> getItems() {
+        final List<TriggerItem> items = new ArrayList<>();
+        for (TriggerItem item = first; item != null && item.getParent() == this; item = item.getNext())
+            items.add(item);
+        return items;
+    }
+
     @Override
     @Nullable
     protected abstract TriggerItem walk(final Event e);
@@ -118,4 +137,56 @@ public abstract class TriggerSection extends TriggerItem {
         return getNext();
     }
 
+    /**
+     * Gets the time budget of loops in the script and event that is currently being parsed, see {@link ScriptOptions#getLoopTimeBudget(File)}. Loops in functions
+     * always run to completion, because a function must return its value before its caller continues.
+     *
+     * @return The time budget in nanoseconds, or 0 if loops can't be continued in a later tick
+     */
+    public static final long getCurrentTimeBudget() {
+        final Config script = ScriptLoader.getCurrentScript();
+        final File file = script != null ? script.getFile() : null;
+        if (file == null || ScriptLoader.isCurrentEvent(FunctionEvent.class))
+            return 0L;
+        return ScriptOptions.getInstance().getLoopTimeBudget(file);
+    }
+
+    /**
+     * Continues the execution with this section in the next tick if it has run longer than the given time budget in this tick. The event then counts as delayed,
+     * like after a {@link Delay}, so e.g. cancelling it has no effect anymore.
+     *
+     * @param budget The time budget as returned by {@link #getCurrentTimeBudget()}
+     * @return Whatever the execution was suspended and walking should stop
+     */
+    final boolean suspendIfOverBudget(final Event e, final long budget) {
+        if (budget == 0L || !ExecutionFrame.get(e).isOverBudget(budget))
+            return false;
+        if (Delay.delayingDisabled || !Skript.isBukkitRunning() || !Bukkit.isPrimaryThread())
+            return false;
+        if (Skript.debug())
+            Skript.info(getIndentation() + " ... the time budget of the loop is used up, continuing in the next tick");
+        continueLater(e);
+        return true;
+    }
+
+    /**
+     * Continues the execution in the next tick with this section and the loops of the current execution. Must be called on the server thread.
+     */
+    final void continueLater(final Event e) {
+        Delay.addDelayedEvent(e);
+        final ExecutionFrame frame = ExecutionFrame.current();
+        Delay.continuations.schedule(() -> {
+            Object timing = null;
+            if (SkriptTimings.enabled()) { // getTrigger call is not free, do it only if we must
+                final Trigger trigger = getTrigger();
+                if (trigger != null) {
+                    timing = SkriptTimings.start(trigger.getDebugLabel());
+                }
+            }
+            ExecutionFrame.run(frame, () -> TriggerItem.walk(this, e));
+            if (timing != null)
+                SkriptTimings.stop(timing); // Stop timing if it was even started
+        }, 1L);
+    }
+
 }
@@ -68,7 +68,6 @@ public final class Variable<T> implements Expression<T> {
     private static final String SINGLE_SEPARATOR_CHAR = ":";
     public static final String SEPARATOR = SINGLE_SEPARATOR_CHAR + SINGLE_SEPARATOR_CHAR;
     private static final Pattern SEPARATOR_PATTERN = Pattern.compile(SEPARATOR, Pattern.LITERAL);
-    private static final Matcher SEPARATOR_PATTERN_MATCHER = SEPARATOR_PATTERN.matcher("");
     /**
      * The name of this variable, excluding the local variable token, but including the list variable token '::*'.
      */
@@ -132,7 +131,7 @@ public final class Variable<T> implements Expression<T> {
                 Skript.error("A variable's name must not contain the separator '" + SEPARATOR + "' multiple times in a row (error in variable {" + name + "})");
             return false;
         }
-        if (SEPARATOR_PATTERN_MATCHER.reset(name).replaceAll(Matcher.quoteReplacement("")).contains(SINGLE_SEPARATOR_CHAR) && printErrors) {
+        if (SEPARATOR_PATTERN.matcher(name).replaceAll(Matcher.quoteReplacement("")).contains(SINGLE_SEPARATOR_CHAR) && printErrors) {
             Skript.warning("If you meant to make the variable {" + name + "} a list, its name should contain '" + SEPARATOR + "'. Having a single '" + SINGLE_SEPARATOR_CHAR + "' does nothing!");
         }
         return true;
@@ -569,12 +568,16 @@ public final class Variable<T> implements Expression<T> {
 
     @Override
     public boolean check(final Event e, final Checker<? super T> c, final boolean negated) {
+        if (!list) { // same result as for an array of at most one element
+            final T o = getConverted(e);
+            return o == null ? negated : negated ^ c.check(o);
+        }
         return SimpleExpression.check(getAll(e), c, negated, getAnd());
     }
 
     @Override
     public boolean check(final Event e, final Checker<? super T> c) {
-        return SimpleExpression.check(getAll(e), c, false, getAnd());
+        return check(e, c, false);
     }
 
     @Override
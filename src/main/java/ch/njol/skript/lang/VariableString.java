@@ -64,7 +64,6 @@ public final class VariableString implements Expression<String> {
 
     public static final Map<String, Pattern> variableNames = new HashMap<>(100);
     private static final Pattern SINGLE_QUOTE_PATTERN = Pattern.compile("\"", Pattern.LITERAL);
-    private static final Matcher SINGLE_QUOTE_PATTERN_MATCHER = SINGLE_QUOTE_PATTERN.matcher("");
     private final String orig;
 
     @Nullable
@@ -92,6 +91,23 @@ public final class VariableString implements Expression<String> {
         simple = null;
     }
 
+    /**
+     * @return The expressions used in this string, in order
+     */
+    final List<Expression<?>> getExpressions() {
+        final Object[] string = this.string;
+        if (string == null)
+            return Collections.emptyList();
+        final List<Expression<?>> exprs = new ArrayList<>();
+        for (final Object o : string) {
+            if (o instanceof Expression<?>)
+                exprs.add((Expression<?>) o);
+            else if (o instanceof ExpressionInfo)
+                exprs.add(((ExpressionInfo) o).expr);
+        }
+        return exprs;
+    }
+
     /**
      * Prints errors
      */
@@ -132,8 +148,8 @@ public final class VariableString implements Expression<String> {
     public static final String unquote(final String s, final boolean surroundingQuotes) {
         assert isQuotedCorrectly(s, surroundingQuotes);
         if (surroundingQuotes)
-            return JavaClasses.QUOTE_PATTERN_MATCHER.reset(s.substring(1, s.length() - 1)).replaceAll(Matcher.quoteReplacement("\""));
-        return JavaClasses.QUOTE_PATTERN_MATCHER.reset(s).replaceAll(Matcher.quoteReplacement("\""));
+            return JavaClasses.QUOTE_PATTERN.matcher(s.substring(1, s.length() - 1)).replaceAll(Matcher.quoteReplacement("\""));
+        return JavaClasses.QUOTE_PATTERN.matcher(s).replaceAll(Matcher.quoteReplacement("\""));
     }
 
     /**
@@ -152,7 +168,7 @@ public final class VariableString implements Expression<String> {
             Skript.error("The percent sign is used for expressions (e.g. %player%). To insert a '%' type it twice: %%.");
             return null;
         }
-        final String s = Utils.replaceChatStyles(JavaClasses.QUOTE_PATTERN_MATCHER.reset(orig).replaceAll(Matcher.quoteReplacement("\"")));
+        final String s = Utils.replaceChatStyles(JavaClasses.QUOTE_PATTERN.matcher(orig).replaceAll(Matcher.quoteReplacement("\"")));
         final ArrayList<Object> string = new ArrayList<>(n / 2 + 2);
         int c = s.indexOf('%');
         if (c != -1) {
@@ -245,17 +261,17 @@ public final class VariableString implements Expression<String> {
         if (string.size() == 1 && string.get(0) instanceof ExpressionInfo && ((ExpressionInfo) string.get(0)).expr.getReturnType() == String.class && ((ExpressionInfo) string.get(0)).expr.isSingle()) {
             final String expr = ((ExpressionInfo) string.get(0)).expr.toString(null, false);
             if (!SkriptConfig.disableExpressionAlreadyTextWarnings.value())
-                Skript.warning(expr + " is already a text, so you should not put it in percent signs (e.g. " + expr + " instead of " + "\"%" + SINGLE_QUOTE_PATTERN_MATCHER.reset(expr).replaceAll(Matcher.quoteReplacement("\"\"")) + "%\")");
+                Skript.warning(expr + " is already a text, so you should not put it in percent signs (e.g. " + expr + " instead of " + "\"%" + SINGLE_QUOTE_PATTERN.matcher(expr).replaceAll(Matcher.quoteReplacement("\"\"")) + "%\")");
         }
         return new VariableString(orig, sa, mode);
     }
 
     @SuppressWarnings("null")
-    private static final void checkVariableConflicts(final String name, final StringMode mode, @Nullable final Iterable<Object> string) {
+    private static final synchronized void checkVariableConflicts(final String name, final StringMode mode, @Nullable final Iterable<Object> string) {
         if (mode != StringMode.VARIABLE_NAME || variableNames.containsKey(name))
             return;
         if (!name.isEmpty() && name.charAt(0) == '%') { // inside the if to only print this message once per variable
-            final Config script = ScriptLoader.currentScript;
+            final Config script = ScriptLoader.getCurrentScript();
             if (script != null && !SkriptConfig.disableStartingWithExpressionWarnings.value()) {
                 Skript.warning("Starting a variable's name with an expression is discouraged ({" + name + "}). You could prefix it with the script's name: {" + StringUtils.substring(script.getFileName(), 0, -3) + "::" + name + '}');
             }
@@ -32,6 +32,10 @@ import org.eclipse.jdt.annotation.Nullable;
 public final class While extends TriggerSection {
 
     private final Condition c;
+    /**
+     * See {@link TriggerSection#getCurrentTimeBudget()}
+     */
+    private final long timeBudget = getCurrentTimeBudget();
     @Nullable
     private TriggerItem actualNext;
 
@@ -49,6 +53,8 @@ public final class While extends TriggerSection {
     @Override
     @Nullable
     protected final TriggerItem walk(final Event e) {
+        if (suspendIfOverBudget(e, timeBudget))
+            return null;
         if (c.check(e)) {
             return walk(e, true);
         }
@@ -62,6 +68,10 @@ public final class While extends TriggerSection {
         return this;
     }
 
+    final Condition getCondition() {
+        return c;
+    }
+
     @Nullable
     public TriggerItem getActualNext() {
         return actualNext;
@@ -28,6 +28,7 @@ import ch.njol.skript.SkriptAPIException;
 import ch.njol.skript.classes.ClassInfo;
 import ch.njol.skript.config.SectionNode;
 import ch.njol.skript.lang.ParseContext;
+import ch.njol.skript.lang.ParserInstance;
 import ch.njol.skript.lang.SkriptParser;
 import ch.njol.skript.log.ParseLogHandler;
 import ch.njol.skript.log.SkriptLogger;
@@ -59,6 +60,10 @@ public final class Functions {
     private static final Collection<FunctionReference<?>> toValidate = new ArrayList<>(100);
     private static final Pattern functionNamePatternCompiled = Pattern.compile(functionNamePattern);
     private static final Matcher functionNamePatternCompiledMatcher = functionNamePatternCompiled.matcher("");
+    /**
+     * @deprecated Scripts can be loaded on multiple threads, use {@link #getCurrentFunction()}. Only set while scripts are loaded on the server thread.
+     */
+    @Deprecated
     @Nullable
     public static ScriptFunction<?> currentFunction;
 
@@ -130,7 +135,17 @@ public final class Functions {
     static final void registerCaller(final FunctionReference<?> r) {
         final FunctionData d = functions.get(r.functionName);
         assert d != null;
-        d.calls.add(r);
+        synchronized (d.calls) { // scripts may be loaded on multiple threads
+            d.calls.add(r);
+        }
+    }
+
+    /**
+     * @return The function whose body is currently being parsed by the current thread, or null if not parsing a function
+     */
+    @Nullable
+    public static final ScriptFunction<?> getCurrentFunction() {
+        return ParserInstance.get().getCurrentFunction();
     }
 
     @SuppressWarnings("unchecked")
@@ -281,7 +296,9 @@ public final class Functions {
     }
 
     public static final void addPostCheck(final FunctionReference<?> ref) {
-        postCheckNeeded.add(ref);
+        synchronized (postCheckNeeded) {
+            postCheckNeeded.add(ref);
+        }
     }
 
     public static final void postCheck() {
@@ -25,6 +25,8 @@ package ch.njol.skript.lang.function;
 import ch.njol.skript.ScriptLoader;
 import ch.njol.skript.classes.ClassInfo;
 import ch.njol.skript.config.SectionNode;
+import ch.njol.skript.lang.ParseHints;
+import ch.njol.skript.lang.ParserInstance;
 import ch.njol.skript.lang.Trigger;
 import ch.njol.skript.lang.function.Functions.FunctionData;
 import ch.njol.skript.lang.util.SimpleEvent;
@@ -50,12 +52,14 @@ public final class ScriptFunction<T> extends Function<T> {
 
         // here to allow recursion
         Functions.functions.put(name, new FunctionData(this));
+        ParseHints.loadedFunction(this, node.getConfig().getFile());
 
-        Functions.currentFunction = this;
+        final ParserInstance parser = ParserInstance.get();
+        parser.setCurrentFunction(this);
         try {
             trigger = new Trigger(node.getConfig().getFile(), "function " + name, new SimpleEvent(), ScriptLoader.loadItems(node));
         } finally {
-            Functions.currentFunction = null;
+            parser.setCurrentFunction(null);
         }
     }
 
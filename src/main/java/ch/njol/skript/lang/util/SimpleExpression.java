@@ -80,6 +80,20 @@ public abstract class SimpleExpression<T> implements Expression<T> {
     @Override
     @Nullable
     public final T getSingle(final Event e) {
+        return getSingleDirect(e);
+    }
+
+    /**
+     * Gets the single value of this expression. Expressions that are always {@link #isSingle() single} should override this method to return their value without
+     * creating an array, and implement {@link #get(Event)} with {@link #getSingleArray(Event)}, so that the array is only created if it's actually needed.
+     * <p>
+     * The default implementation uses {@link #getArray(Event)}.
+     *
+     * @param e The event
+     * @return The value of this expression for the given event, or null if it doesn't have one
+     */
+    @Nullable
+    protected T getSingleDirect(final Event e) {
         final T[] all = getArray(e);
         if (all.length == 0)
             return null;
@@ -88,6 +102,22 @@ public abstract class SimpleExpression<T> implements Expression<T> {
         return all[0];
     }
 
+    /**
+     * An implementation of {@link #get(Event)} for expressions that implement {@link #getSingleDirect(Event)}.
+     *
+     * @return An array of the return type containing the value of {@link #getSingleDirect(Event)}, or null if it is null
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    protected final T[] getSingleArray(final Event e) {
+        final T t = getSingleDirect(e);
+        if (t == null)
+            return null;
+        final T[] one = (T[]) Array.newInstance(getReturnType(), 1);
+        one[0] = t;
+        return one;
+    }
+
     /**
      * {@inheritDoc}
      * <p>
@@ -175,6 +205,10 @@ public abstract class SimpleExpression<T> implements Expression<T> {
 
     @Override
     public final boolean check(final Event e, final Checker<? super T> c, final boolean negated) {
+        if (isSingle()) { // same result as for an array of at most one element
+            final T t = getSingleDirect(e);
+            return t == null ? negated : negated ^ c.check(t);
+        }
         return check(get(e), c, negated, getAnd());
     }
 
@@ -248,7 +282,7 @@ public abstract class SimpleExpression<T> implements Expression<T> {
      */
     @Override
     public boolean setTime(final int time) {
-        if (ScriptLoader.hasDelayBefore == Kleenean.TRUE && time != 0) {
+        if (ScriptLoader.getHasDelayBefore() == Kleenean.TRUE && time != 0) {
             Skript.error("Can't use time states after the event has already passed");
             return false;
         }
@@ -257,7 +291,7 @@ public abstract class SimpleExpression<T> implements Expression<T> {
     }
 
     protected final boolean setTime(final int time, final Class<? extends Event> applicableEvent, final Expression<?>... mustbeDefaultVars) {
-        if (ScriptLoader.hasDelayBefore == Kleenean.TRUE && time != 0) {
+        if (ScriptLoader.getHasDelayBefore() == Kleenean.TRUE && time != 0) {
             Skript.error("Can't use time states after the event has already passed");
             return false;
         }
@@ -274,7 +308,7 @@ public abstract class SimpleExpression<T> implements Expression<T> {
 
     @SafeVarargs
     protected final boolean setTime(final int time, final Expression<?> mustbeDefaultVar, final Class<? extends Event>... applicableEvents) {
-        if (ScriptLoader.hasDelayBefore == Kleenean.TRUE && time != 0) {
+        if (ScriptLoader.getHasDelayBefore() == Kleenean.TRUE && time != 0) {
             Skript.error("Can't use time states after the event has already passed");
             return false;
         }
@@ -82,16 +82,14 @@ public final class RegexMessage extends Message {
      * Consider using direct {@link RegexMessage#matches(String)} or
      * {@link RegexMessage#find(String)}
      * <p>
-     * If you need thread safety, use {@link RegexMessage#newMatcher(CharSequence)}
+     * Same as {@link RegexMessage#newMatcher(CharSequence)}, as messages are matched on multiple threads when loading scripts in parallel.
      */
     public final Matcher matcher(final String s) {
-        final Matcher m = getMatcher();
-        return (m == null ? nop_matcher : m).reset(s);
+        return newMatcher(s);
     }
 
     /**
-     * Thread safe but creates matchers every time,
-     * consider using {@link RegexMessage#matcher(String)} instead.
+     * Thread safe but creates matchers every time.
      */
     public final Matcher newMatcher(final CharSequence s) {
         final Pattern p = getPattern();
@@ -99,13 +97,13 @@ public final class RegexMessage extends Message {
     }
 
     public final boolean matches(final String s) {
-        final Matcher m = getMatcher();
-        return m != null && m.reset(s).matches();
+        final Pattern p = getPattern();
+        return p != null && p.matcher(s).matches();
     }
 
     public final boolean find(final String s) {
-        final Matcher m = getMatcher();
-        return m != null && m.reset(s).find();
+        final Pattern p = getPattern();
+        return p != null && p.matcher(s).find();
     }
 
     @Override
@@ -26,19 +26,38 @@ import ch.njol.skript.Skript;
 import org.eclipse.jdt.annotation.Nullable;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
+import java.util.List;
 import java.util.logging.Level;
 
 /**
+ * A log handler that retains all messages and the best error logged while parsing something.
+ * <p>
+ * Parts of a parse that would need their own handler, e.g. the optional and choice groups of a pattern, can instead use a scope of this handler (see {@link #startScope()}),
+ * which behaves like a nested handler without registering one with the {@link SkriptLogger}.
+ *
  * @author Peter Güttinger
  */
 public class ParseLogHandler extends LogHandler {
 
-    private final Collection<LogEntry> log = new ArrayList<>();
+    private final List<LogEntry> log = new ArrayList<>();
     boolean printedErrorOrLog;
     @Nullable
     private LogEntry error;
 
+    /**
+     * The number of currently open scopes
+     */
+    private int scopes;
+    /**
+     * For each open scope, the size of the log when it was started
+     */
+    private int[] scopeStarts = new int[8];
+    /**
+     * For each open scope, the error of the enclosing scope (or of the handler itself)
+     */
+    private LogEntry[] scopeErrors = new LogEntry[8];
+
     @Override
     public final LogResult log(final LogEntry entry) {
         if (entry.getLevel().intValue() >= Level.SEVERE.intValue()) {
@@ -67,19 +86,71 @@ public class ParseLogHandler extends LogHandler {
     }
 
     /**
-     * Clears all log messages except for the error
+     * Clears all log messages except for the error, or only the messages of the innermost scope if a scope is open
      */
     public final void clear() {
+        truncate(scopes == 0 ? 0 : scopeStarts[scopes - 1], "cleared");
+    }
+
+    private final void truncate(final int size, final String reason) {
         synchronized (log) {
-            if (!log.isEmpty()) {
-                for (final LogEntry e : log) {
-                    e.discarded("cleared");
-                }
-            }
-            {
-                log.clear();
+            final List<LogEntry> removed = log.subList(size, log.size());
+            for (final LogEntry e : removed) {
+                e.discarded(reason);
             }
+            removed.clear();
+        }
+    }
+
+    /**
+     * Starts a scope which collects messages and errors like a new parse log handler would, but without the cost of registering one.
+     * Scopes must be closed in the reverse order they were opened with either {@link #printScopeLog(int)} or {@link #printScopeError(int)},
+     * the latter of which may also be called in a finally block as it doesn't do anything if the scope has already been closed.
+     *
+     * @return The scope's ID, to be passed to the methods closing it
+     */
+    public final int startScope() {
+        if (scopes == scopeStarts.length) {
+            scopeStarts = Arrays.copyOf(scopeStarts, scopes * 2);
+            scopeErrors = Arrays.copyOf(scopeErrors, scopes * 2);
+        }
+        synchronized (log) {
+            scopeStarts[scopes] = log.size();
         }
+        scopeErrors[scopes] = error;
+        error = null;
+        return scopes++;
+    }
+
+    /**
+     * Closes the given scope and keeps its messages, but discards its error. Equivalent to {@link #printLog()} of a nested handler.
+     *
+     * @param scope The ID returned by {@link #startScope()}
+     */
+    public final void printScopeLog(final int scope) {
+        assert scopes == scope + 1 : scopes + "/" + scope;
+        if (error != null)
+            error.discarded("not printed");
+        error = scopeErrors[--scopes];
+        scopeErrors[scopes] = null;
+    }
+
+    /**
+     * Closes the given scope if it hasn't been closed yet, discarding its messages and passing its error on to the enclosing scope.
+     * Equivalent to {@link #printError()} of a nested handler.
+     *
+     * @param scope The ID returned by {@link #startScope()}
+     */
+    public final void printScopeError(final int scope) {
+        if (scopes <= scope)
+            return;
+        assert scopes == scope + 1 : scopes + "/" + scope;
+        final LogEntry scopeError = error;
+        error = scopeErrors[--scopes];
+        scopeErrors[scopes] = null;
+        truncate(scopeStarts[scopes], "not printed");
+        if (scopeError != null)
+            log(scopeError);
     }
 
     /**
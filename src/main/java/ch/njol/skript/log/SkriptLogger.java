@@ -24,6 +24,7 @@ package ch.njol.skript.log;
 
 import ch.njol.skript.Skript;
 import ch.njol.skript.config.Node;
+import ch.njol.skript.lang.ParserInstance;
 import ch.njol.skript.log.LogHandler.LogResult;
 import org.bukkit.Bukkit;
 import org.eclipse.jdt.annotation.Nullable;
@@ -50,10 +51,12 @@ public final class SkriptLogger {
     @SuppressWarnings("null")
     public static final Logger LOGGER = Bukkit.getServer() != null ? Bukkit.getLogger() : Logger.getLogger(Logger.GLOBAL_LOGGER_NAME); // cannot use Bukkit in tests
     private static final HandlerList handlers = new HandlerList();
+    /**
+     * Log handlers of threads that have their own, see {@link #startIsolating()}
+     */
+    private static final ThreadLocal<HandlerList> isolatedHandlers = new ThreadLocal<>();
     private static final List<LogEntry> suppressed = Collections.synchronizedList(new ArrayList<>());
     static boolean debug;
-    @Nullable
-    private static Node node;
     private static Verbosity verbosity = Verbosity.NORMAL;
     private static volatile boolean suppressing;
     private static volatile boolean suppressWarnings;
@@ -106,13 +109,33 @@ public final class SkriptLogger {
      * @see RedirectingLogHandler
      */
     public static final <T extends LogHandler> T startLogHandler(final T h) {
+        final HandlerList handlers = getHandlers();
         synchronized (handlers) {
             handlers.add(h);
         }
         return h;
     }
 
+    /**
+     * Gives the current thread its own log handlers until {@link #stopIsolating()} is called, so that it doesn't use or interfere with the handlers of other
+     * threads, e.g. while loading scripts on multiple threads. Messages that aren't handled by the thread's handlers are logged directly.
+     */
+    public static final void startIsolating() {
+        assert isolatedHandlers.get() == null;
+        isolatedHandlers.set(new HandlerList());
+    }
+
+    public static final void stopIsolating() {
+        isolatedHandlers.remove();
+    }
+
+    private static final HandlerList getHandlers() {
+        final HandlerList isolated = isolatedHandlers.get();
+        return isolated != null ? isolated : handlers;
+    }
+
     static final void removeHandler(final LogHandler h) {
+        final HandlerList handlers = getHandlers();
         synchronized (handlers) {
             if (!handlers.contains(h))
                 return;
@@ -126,6 +149,7 @@ public final class SkriptLogger {
     }
 
     static final boolean isStopped(final LogHandler h) {
+        final HandlerList handlers = getHandlers();
         synchronized (handlers) {
             return !handlers.contains(h);
         }
@@ -189,13 +213,16 @@ public final class SkriptLogger {
             debug = true;
     }
 
+    /**
+     * @return The node that is currently being parsed by the current thread, see {@link ParserInstance#getNode()}
+     */
     @Nullable
     public static final Node getNode() {
-        return node;
+        return ParserInstance.get().getNode();
     }
 
     public static final void setNode(@Nullable final Node node) {
-        SkriptLogger.node = node == null || node.getParent() == null ? null : node;
+        ParserInstance.get().setNode(node == null || node.getParent() == null ? null : node);
     }
 
     /**
@@ -217,7 +244,7 @@ public final class SkriptLogger {
      * @see Skript#debug()
      */
     public static final void log(final Level level, final String message) {
-        log(new LogEntry(level, message, node));
+        log(new LogEntry(level, message, getNode()));
     }
 
     public static final void log(@Nullable final LogEntry entry) {
@@ -225,8 +252,10 @@ public final class SkriptLogger {
             assert false;
             return;
         }
+        final Node node = getNode();
         if (Skript.testing() && node != null && node.debug())
             System.out.print("---> " + entry.level + '/' + ErrorQuality.get(entry.quality) + ": " + entry.getMessage() + " ::" + LogEntry.findCaller(entry, true));
+        final HandlerList handlers = getHandlers();
         synchronized (handlers) {
             for (final LogHandler h : handlers) {
                 final LogResult r = h.log(entry);
@@ -315,7 +344,7 @@ public final class SkriptLogger {
     }
 
     public static final void logTracked(final Level level, final String message, final ErrorQuality quality) {
-        log(new LogEntry(level, quality.quality(), message, node, true));
+        log(new LogEntry(level, quality.quality(), message, getNode(), true));
     }
 
     /**
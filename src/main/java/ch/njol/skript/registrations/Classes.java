@@ -106,6 +106,13 @@ public final class Classes {
         tempClassInfos.add(info);
     }
 
+    /**
+     * @return The registered class infos before they are sorted, for the {@link RegistrationCache}
+     */
+    static final List<ClassInfo<?>> getUnsortedClassInfos() {
+        return tempClassInfos;
+    }
+
     public static final void onRegistrationsStop() {
 
         sortClassInfos();
@@ -128,6 +135,9 @@ public final class Classes {
             if (s != null)
                 Variables.yggdrasil.registerClassResolver(s);
         }
+
+        // variables may be (de)serialised from multiple threads from now on
+        Variables.yggdrasil.closeRegistrations();
     }
 
     /**
@@ -140,6 +150,23 @@ public final class Classes {
         if (SkriptConfig.addonSafetyChecks.value())
             removeNullElements();
 
+        // use the order of the last start if nothing changed since
+        final String[] cachedOrder = RegistrationCache.getClassInfoOrder();
+        if (cachedOrder != null && cachedOrder.length == tempClassInfos.size()) {
+            final List<ClassInfo<?>> classInfos = new ArrayList<>(cachedOrder.length);
+            for (final String codeName : cachedOrder) {
+                final ClassInfo<?> ci = classInfosByCodeName.get(codeName);
+                if (ci == null)
+                    break;
+                classInfos.add(ci);
+            }
+            if (classInfos.size() == tempClassInfos.size()) {
+                Classes.classInfos = classInfos.toArray(EmptyArrays.EMPTY_CLASSINFO_ARRAY);
+                tempClassInfos.clear();
+                return;
+            }
+        }
+
         // merge before, after & sub/supertypes in after
         for (final ClassInfo<?> ci : tempClassInfos) {
             final Set<String> before = ci.before();
@@ -216,6 +243,11 @@ public final class Classes {
             throw new IllegalStateException("ClassInfos with circular dependencies detected: " + b);
         }
 
+        final String[] order = new String[classInfos.size()];
+        for (int i = 0; i < order.length; i++)
+            order[i] = classInfos.get(i).getCodeName();
+        RegistrationCache.setClassInfoOrder(order);
+
         // debug message
         if (Skript.debug()) {
             final StringBuilder b = new StringBuilder(4096);
@@ -33,6 +33,7 @@ import org.eclipse.jdt.annotation.Nullable;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -42,7 +43,7 @@ import java.util.Map;
 public final class Comparators {
 
     public static final Collection<ComparatorInfo<?, ?>> comparators = new ArrayList<>(100);
-    private static final Map<Pair<Class<?>, Class<?>>, Comparator<?, ?>> comparatorsQuickAccess = new HashMap<>(100);
+    private static final Map<Pair<Class<?>, Class<?>>, Comparator<?, ?>> comparatorsQuickAccess = Collections.synchronizedMap(new HashMap<>(100));
     private static final java.util.Comparator<Object> javaComparator = (o1, o2) -> compare(o1, o2).getRelation();
 
     private Comparators() {
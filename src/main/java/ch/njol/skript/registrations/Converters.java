@@ -39,7 +39,7 @@ import java.util.*;
 public final class Converters {
 
     private static final List<ConverterInfo<?, ?>> converters = new ArrayList<>(100);
-    private static final Map<Pair<Class<?>, Class<?>>, Converter<?, ?>> convertersCache = new HashMap<>(100);
+    private static final Map<Pair<Class<?>, Class<?>>, Converter<?, ?>> convertersCache = Collections.synchronizedMap(new HashMap<>(100));
 
     private Converters() {
         throw new UnsupportedOperationException();
@@ -74,19 +74,38 @@ public final class Converters {
         converters.add(info);
     }
 
+    /**
+     * Chains the registered converters where possible. The converters that were chained are remembered by the {@link RegistrationCache}, so that they can be chained
+     * again without searching for them on the next start if nothing changed.
+     */
     // REMIND how to manage overriding of converters? - shouldn't actually matter
     public static final void createMissingConverters() {
+        final int[] cached = RegistrationCache.getConverterChains();
+        if (cached != null) {
+            for (int k = 0; k < cached.length; k += 2)
+                converters.add(createChainedConverter(converters.get(cached[k]), converters.get(cached[k + 1])));
+            return;
+        }
+        final List<Integer> chains = new ArrayList<>();
         for (int i = 0; i < converters.size(); i++) {
             final ConverterInfo<?, ?> info = converters.get(i);
             for (int j = 0; j < converters.size(); j++) {// not from j = i+1 since new converters get added during the loops
                 final ConverterInfo<?, ?> info2 = converters.get(j);
                 if ((info.options & Converter.NO_RIGHT_CHAINING) == 0 && (info2.options & Converter.NO_LEFT_CHAINING) == 0 && info2.from.isAssignableFrom(info.to) && !converterExistsSlow(info.from, info2.to)) {
                     converters.add(createChainedConverter(info, info2));
+                    chains.add(i);
+                    chains.add(j);
                 } else if ((info.options & Converter.NO_LEFT_CHAINING) == 0 && (info2.options & Converter.NO_RIGHT_CHAINING) == 0 && info.from.isAssignableFrom(info2.to) && !converterExistsSlow(info2.from, info.to)) {
                     converters.add(createChainedConverter(info2, info));
+                    chains.add(j);
+                    chains.add(i);
                 }
             }
         }
+        final int[] result = new int[chains.size()];
+        for (int k = 0; k < result.length; k++)
+            result[k] = chains.get(k);
+        RegistrationCache.setConverterChains(result);
     }
 
     private static final boolean converterExistsSlow(final Class<?> from, final Class<?> to) {
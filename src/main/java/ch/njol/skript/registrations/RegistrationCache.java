@@ -0,0 +1,229 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.registrations;
+
+import ch.njol.skript.Skript;
+import ch.njol.skript.classes.ClassInfo;
+import ch.njol.skript.classes.Converter.ConverterInfo;
+import org.bukkit.Bukkit;
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Remembers the results of the work done once all types and converters are registered, i.e. which converters {@link Converters#createMissingConverters()} chains and
+ * the order {@link Classes#onRegistrationsStop()} sorts the class infos in, so that they don't have to be computed again on the next start.
+ * <p>
+ * The results are stored in a binary file in the data folder, and are only used if Skript, the server and all registered types and converters (including their class
+ * hierarchies) are the same as when they were stored.
+ */
+public final class RegistrationCache {
+
+    private RegistrationCache() {
+        throw new UnsupportedOperationException();
+    }
+
+    private static final int MAGIC = 0x534B5243; // "SKRC"
+    private static final int FORMAT_VERSION = 1;
+    private static final String FILE_NAME = "registration-cache.dat";
+
+    @Nullable
+    private static byte[] fingerprint;
+    /**
+     * The indices of the converters each chained converter was created from, in the order they were created
+     */
+    @Nullable
+    private static int[] converterChains;
+    /**
+     * The code names of the class infos in sorted order
+     */
+    @Nullable
+    private static String[] classInfoOrder;
+    private static boolean changed;
+
+    /**
+     * Reads the cache file. Must be called after all types and converters are registered, but before they are processed.
+     */
+    public static final void read() {
+        final byte[] fingerprint = fingerprint();
+        RegistrationCache.fingerprint = fingerprint;
+        converterChains = null;
+        classInfoOrder = null;
+        changed = false;
+        final File file = new File(Skript.getInstance().getDataFolder(), FILE_NAME);
+        if (!file.exists())
+            return;
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION)
+                return;
+            final byte[] oldFingerprint = new byte[in.readInt()];
+            in.readFully(oldFingerprint);
+            if (!Arrays.equals(oldFingerprint, fingerprint)) {
+                if (Skript.debug())
+                    Skript.debug("Skript, the server or the registered types changed, computing converters and the order of types from scratch");
+                return;
+            }
+            final int[] converterChains = new int[in.readInt()];
+            for (int i = 0; i < converterChains.length; i++)
+                converterChains[i] = in.readInt();
+            final String[] classInfoOrder = new String[in.readInt()];
+            for (int i = 0; i < classInfoOrder.length; i++)
+                classInfoOrder[i] = in.readUTF();
+            RegistrationCache.converterChains = converterChains;
+            RegistrationCache.classInfoOrder = classInfoOrder;
+        } catch (final IOException | RuntimeException e) {
+            Skript.warning("Could not read the registration cache from " + file + ": " + e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Writes the cache file if any of the results had to be computed.
+     */
+    public static final void save() {
+        final byte[] fingerprint = RegistrationCache.fingerprint;
+        final int[] converterChains = RegistrationCache.converterChains;
+        final String[] classInfoOrder = RegistrationCache.classInfoOrder;
+        if (!changed || fingerprint == null || converterChains == null || classInfoOrder == null)
+            return;
+        final File file = new File(Skript.getInstance().getDataFolder(), FILE_NAME);
+        try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(fingerprint.length);
+            out.write(fingerprint);
+            out.writeInt(converterChains.length);
+            for (final int i : converterChains)
+                out.writeInt(i);
+            out.writeInt(classInfoOrder.length);
+            for (final String codeName : classInfoOrder)
+                out.writeUTF(codeName);
+            changed = false;
+        } catch (final IOException e) {
+            Skript.warning("Could not save the registration cache to " + file + ": " + e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * @return Pairs of indices of the converters to chain (first, second), or null if they have to be computed
+     */
+    @Nullable
+    static final int[] getConverterChains() {
+        return converterChains;
+    }
+
+    static final void setConverterChains(final int[] converterChains) {
+        RegistrationCache.converterChains = converterChains;
+        changed = true;
+    }
+
+    /**
+     * @return The code names of all class infos in sorted order, or null if they have to be sorted
+     */
+    @Nullable
+    static final String[] getClassInfoOrder() {
+        return classInfoOrder;
+    }
+
+    static final void setClassInfoOrder(final String[] classInfoOrder) {
+        RegistrationCache.classInfoOrder = classInfoOrder;
+        changed = true;
+    }
+
+    /**
+     * @return A hash of everything the chained converters and the order of the class infos depend on
+     */
+    private static final byte[] fingerprint() {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (final NoSuchAlgorithmException e) {
+            throw Skript.exception(e, "SHA-1 is not supported");
+        }
+        update(digest, Skript.getVersion().toString());
+        update(digest, Skript.isBukkitRunning() ? Bukkit.getVersion() : "");
+        final Set<Class<?>> classes = new HashSet<>();
+        for (final ConverterInfo<?, ?> info : Converters.getConverters()) {
+            update(digest, info.from.getName());
+            update(digest, info.to.getName());
+            update(digest, "" + info.options);
+            update(digest, info.from, classes);
+            update(digest, info.to, classes);
+        }
+        for (final ClassInfo<?> ci : Classes.getUnsortedClassInfos()) {
+            if (ci == null || ci.getC() == null) // removed by addon safety checks
+                continue;
+            update(digest, ci.getCodeName());
+            update(digest, ci.getC().getName());
+            final Set<String> before = ci.before();
+            if (before != null) {
+                for (final String s : new TreeSet<>(before))
+                    update(digest, s);
+            }
+            update(digest, "after");
+            for (final String s : new TreeSet<>(ci.after()))
+                update(digest, s);
+            update(digest, ci.getC(), classes);
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Adds the supertypes of the given class, as whatever converters can be chained and the order of the types depends on them.
+     */
+    private static final void update(final MessageDigest digest, final Class<?> c, final Set<Class<?>> done) {
+        if (!done.add(c))
+            return;
+        update(digest, c.getName());
+        final List<Class<?>> supertypes = new ArrayList<>(Arrays.asList(c.getInterfaces()));
+        final Class<?> superclass = c.getSuperclass();
+        if (superclass != null)
+            supertypes.add(superclass);
+        for (final Class<?> s : supertypes)
+            update(digest, s.getName());
+        update(digest, "");
+        for (final Class<?> s : supertypes)
+            update(digest, s, done);
+    }
+
+    private static final void update(final MessageDigest digest, final String s) {
+        digest.update(s.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+}
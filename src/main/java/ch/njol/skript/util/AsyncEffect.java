@@ -25,6 +25,7 @@ package ch.njol.skript.util;
 import ch.njol.skript.Skript;
 import ch.njol.skript.effects.Delay;
 import ch.njol.skript.lang.Effect;
+import ch.njol.skript.lang.ExecutionFrame;
 import ch.njol.skript.lang.Trigger;
 import ch.njol.skript.lang.TriggerItem;
 import ch.njol.skript.timings.SkriptTimings;
@@ -47,11 +48,12 @@ public abstract class AsyncEffect extends Effect {
         if (!Skript.isBukkitRunning() || Delay.delayingDisabled)
             return null;
         final TriggerItem next = getNext();
+        final ExecutionFrame frame = ExecutionFrame.current();
         Delay.delayed.add(e);
         Bukkit.getScheduler().runTaskAsynchronously(Skript.getInstance(), () -> {
-            execute(e); // Execute this effect
+            ExecutionFrame.run(frame, () -> execute(e)); // Execute this effect, with access to the loops of the trigger
             if (next != null) {
-                Bukkit.getScheduler().runTask(Skript.getInstance(), () -> {
+                Delay.continuations.schedule(() -> {
                     // Walk to next item synchronously
                     Object timing = null;
                     if (SkriptTimings.enabled()) { // getTrigger call is not free, do it only if we must
@@ -60,10 +62,10 @@ public abstract class AsyncEffect extends Effect {
                             timing = SkriptTimings.start(trigger.getDebugLabel());
                         }
                     }
-                    TriggerItem.walk(next, e);
+                    ExecutionFrame.run(frame, () -> TriggerItem.walk(next, e));
                     if (timing != null)
                         SkriptTimings.stop(timing); // Stop timing if it was even started
-                });
+                }, 1L);
             }
         });
         return null;
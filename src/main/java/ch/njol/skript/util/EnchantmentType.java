@@ -45,7 +45,6 @@ public final class EnchantmentType implements YggdrasilSerializable {
     private static final String LANGUAGE_NODE = "enchantments";
     @SuppressWarnings("null")
     private static final Pattern pattern = Pattern.compile(".+ \\d+");
-    private static final Matcher patternMatcher = pattern.matcher("");
 
     static {
         Language.addListener(() -> {
@@ -94,7 +93,7 @@ public final class EnchantmentType implements YggdrasilSerializable {
         if (s.isEmpty())
             return null;
         s = s.trim();
-        if (patternMatcher.reset(s).matches()) {
+        if (pattern.matcher(s).matches()) {
             final Enchantment ench = parseEnchantment(s.substring(0, s.lastIndexOf(' ')));
             if (ench == null)
                 return null;
@@ -22,51 +22,48 @@
 
 package ch.njol.skript.util;
 
-import ch.njol.skript.Skript;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
-
-import javax.annotation.concurrent.NotThreadSafe;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-@NotThreadSafe
+/**
+ * Reuses matchers instead of creating a new one every time a pattern is matched. Each thread has its own matchers, so this can be used by multiple threads at once,
+ * but a returned matcher must not be passed to another thread and is reset by the next call with the same pattern on the same thread.
+ */
 public final class MatcherCache {
 
-    @SuppressWarnings("UnstableApiUsage")
-    private static final Cache<Pattern, Matcher> matcherCache = CacheBuilder.newBuilder()
-            //.softValues()
-            .initialCapacity(100)
-            .concurrencyLevel(Runtime.getRuntime().availableProcessors())
-            .expireAfterWrite(1L, TimeUnit.MINUTES)
-            .build();
+    /**
+     * The maximum number of matchers kept per thread, the least recently used matcher is removed first
+     */
+    private static final int MAX_SIZE = 100;
+
+    private static final ThreadLocal<Map<Pattern, Matcher>> matcherCache = ThreadLocal.withInitial(() -> new LinkedHashMap<Pattern, Matcher>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Pattern, Matcher> eldest) {
+            return size() > MAX_SIZE;
+        }
+    });
 
     private MatcherCache() {
         throw new UnsupportedOperationException("Static class");
     }
 
     /**
-     * Matchers are not thread safe, care must be taken if you are calling
-     * this method.
+     * @return A matcher of the pattern for the given input, only to be used by the current thread until the next call of this method with the same pattern
      */
     public static final Matcher getMatcher(final Pattern pattern,
                                            final CharSequence input) {
-        try {
-            return matcherCache.get(pattern, () -> pattern.matcher("")).reset(input);
-        } catch (final ExecutionException e) {
-            assert false : e;
-
-            throw Skript.sneakyThrow(e);
-        }
+        return matcherCache.get().computeIfAbsent(pattern, p -> p.matcher("")).reset(input);
     }
 
+    /**
+     * Removes the matchers of the current thread.
+     */
     public static final void clear() {
-        matcherCache.cleanUp();
-
-        matcherCache.invalidateAll();
-        matcherCache.cleanUp();
+        matcherCache.get().clear();
     }
 
 }
@@ -23,22 +23,30 @@
 package ch.njol.skript.util;
 
 import ch.njol.skript.Skript;
+import ch.njol.util.Pair;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
+/**
+ * Caches compiled regular expressions by their pattern and flags. Patterns are removed if they weren't used for a minute, so patterns used while loading scripts stay
+ * cached for the whole load. Patterns that are needed for as long as Skript is running (e.g. those of syntax elements) should be stored where they are used instead.
+ * <p>
+ * This class is thread safe, and so are the returned patterns.
+ */
 public final class PatternCache {
 
     @SuppressWarnings("UnstableApiUsage")
-    private static final Cache<String, Pattern> patternCache = CacheBuilder.newBuilder()
+    private static final Cache<Pair<String, Integer>, Pattern> patternCache = CacheBuilder.newBuilder()
             //.softValues()
             .initialCapacity(100)
             .concurrencyLevel(Runtime.getRuntime().availableProcessors())
-            .expireAfterWrite(1L, TimeUnit.MINUTES)
+            .expireAfterAccess(1L, TimeUnit.MINUTES)
             .build();
 
     private PatternCache() {
@@ -46,13 +54,18 @@ public final class PatternCache {
     }
 
     public static final Pattern get(final String pattern) {
-        return get(pattern, -1);
+        return get(pattern, 0);
     }
 
+    /**
+     * @param flags The flags to compile the pattern with, or -1 for no flags
+     */
     public static final Pattern get(final String pattern, final int flags) throws PatternSyntaxException {
+        final int f = flags == -1 ? 0 : flags;
         try {
-            return patternCache.get(pattern, () -> flags == -1 ? Pattern.compile(pattern) : Pattern.compile(pattern, flags));
-        } catch (final ExecutionException e) {
+            return patternCache.get(new Pair<>(pattern, f), () -> Pattern.compile(pattern, f));
+        } catch (final ExecutionException | UncheckedExecutionException e) {
+            // Guava wraps unchecked exceptions of the loader in an UncheckedExecutionException
             if (e.getCause() instanceof PatternSyntaxException)
                 throw (PatternSyntaxException) e.getCause();
 
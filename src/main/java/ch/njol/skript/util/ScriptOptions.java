@@ -33,6 +33,7 @@ public final class ScriptOptions {
     @SuppressWarnings("null")
     private static ScriptOptions instance;
     private final HashMap<File, Boolean> usesNewLoops = new HashMap<>();
+    private final HashMap<File, Long> loopTimeBudgets = new HashMap<>();
 
     private ScriptOptions() {
         ScriptOptions.instance = this;
@@ -52,4 +53,16 @@ public final class ScriptOptions {
     public void setUsesNewLoops(final File file, final boolean b) {
         usesNewLoops.put(file, b);
     }
+
+    /**
+     * @return The time in nanoseconds that loops of the given script can run in one tick before they're continued in the next tick, or 0 if they always run to completion
+     */
+    public long getLoopTimeBudget(final File file) {
+        final Long budget = loopTimeBudgets.get(file);
+        return budget != null ? budget : 0L;
+    }
+
+    public void setLoopTimeBudget(final File file, final long nanos) {
+        loopTimeBudgets.put(file, nanos);
+    }
 }
@@ -55,10 +55,8 @@ public final class Timespan implements YggdrasilSerializable, Comparable<Timespa
     );
     private static final Pattern TIMESPAN_SPLIT = Pattern.compile("\\s+");
     private static final Pattern TIMESPAN_PATTERN = Pattern.compile("^\\d+:\\d\\d(:\\d\\d)?(\\.\\d{1,4})?$");
-    private static final Matcher TIMESPAN_PATTERN_MATCHER = TIMESPAN_PATTERN.matcher("");
     private static final Pattern TIMESPAN_SPLIT_TWO = Pattern.compile("[:.]");
     private static final Pattern TIMESPAN_DOUBLE_PATTERN = Pattern.compile("^\\d+(.\\d+)?$");
-    private static final Matcher TIMESPAN_DOUBLE_PATTERN_MATCHER = TIMESPAN_DOUBLE_PATTERN.matcher("");
 
     static {
         Language.addListener(() -> {
@@ -92,7 +90,7 @@ public final class Timespan implements YggdrasilSerializable, Comparable<Timespa
         s = s.trim();
 
         long t = 0;
-        if (TIMESPAN_PATTERN_MATCHER.reset(s).matches()) { // MM:SS[.ms] or HH:MM:SS[.ms]
+        if (TIMESPAN_PATTERN.matcher(s).matches()) { // MM:SS[.ms] or HH:MM:SS[.ms]
             final String[] ss = TIMESPAN_SPLIT_TWO.split(s);
             final long[] times = {1000L * 60L * 60L, 1000L * 60L, 1000L, 1L}; // h, m, s, ms
 
@@ -119,7 +117,7 @@ public final class Timespan implements YggdrasilSerializable, Comparable<Timespa
                         return null;
                     amount = 1;
                     sub = subs[++i];
-                } else if (TIMESPAN_DOUBLE_PATTERN_MATCHER.reset(sub).matches()) {
+                } else if (TIMESPAN_DOUBLE_PATTERN.matcher(sub).matches()) {
                     if (i == subs.length - 1)
                         return null;
                     if (!SkriptParser.isIntegerOrDouble(sub))
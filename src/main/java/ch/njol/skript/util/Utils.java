@@ -82,14 +82,14 @@ public final class Utils {
     @SuppressWarnings("null")
     private static final Pattern stylePattern = Pattern.compile("<([^<>]+)>");
 
-    // Cached matchers for performance
-    private static final Matcher NONE_PATTERN_MATCHER = Pattern.compile("<<none>>", Pattern.LITERAL).matcher("");
+    // Cached patterns for performance
+    private static final Pattern NONE_PATTERN = Pattern.compile("<<none>>", Pattern.LITERAL);
 
-    private static final Matcher NUMBER_PATTERN_MATCHER = Pattern.compile("-?\\d+").matcher("");
-    private static final Matcher AMOUNT_PATTERN_ONE_MATCHER = Pattern.compile("\\d+ of .+").matcher("");
+    private static final Pattern NUMBER_PATTERN = Pattern.compile("-?\\d+");
+    private static final Pattern AMOUNT_PATTERN_ONE = Pattern.compile("\\d+ of .+");
 
-    private static final Matcher AMOUNT_PATTERN_TWO_MATCHER = Pattern.compile("\\d+ .+").matcher("");
-    private static final Matcher AMOUNT_PATTERN_THREE_MATCHER = Pattern.compile("an? .+").matcher("");
+    private static final Pattern AMOUNT_PATTERN_TWO = Pattern.compile("\\d+ .+");
+    private static final Pattern AMOUNT_PATTERN_THREE = Pattern.compile("an? .+");
 
     static {
         Language.addListener(() -> {
@@ -225,13 +225,13 @@ public final class Utils {
     }
 
     public static final Pair<String, Integer> getAmount(final String s) {
-        if (AMOUNT_PATTERN_ONE_MATCHER.reset(s).matches()) {
+        if (AMOUNT_PATTERN_ONE.matcher(s).matches()) {
             return new Pair<>(s.split(" ", 3)[2], Utils.parseInt(s.split(" ", 2)[0]));
         }
-        if (AMOUNT_PATTERN_TWO_MATCHER.reset(s).matches()) {
+        if (AMOUNT_PATTERN_TWO.matcher(s).matches()) {
             return new Pair<>(s.split(" ", 2)[1], Utils.parseInt(s.split(" ", 2)[0]));
         }
-        if (AMOUNT_PATTERN_THREE_MATCHER.reset(s).matches()) {
+        if (AMOUNT_PATTERN_THREE.matcher(s).matches()) {
             return new Pair<>(s.split(" ", 2)[1], 1);
         }
         return new Pair<>(s, -1);
@@ -402,7 +402,7 @@ public final class Utils {
     public static final String replaceChatStyles(final String message) {
         if (message.isEmpty())
             return message;
-        String m = StringUtils.replaceAll(NONE_PATTERN_MATCHER.reset(message).replaceAll(Matcher.quoteReplacement("")), stylePattern/*Matcher*/, m1 -> {
+        String m = StringUtils.replaceAll(NONE_PATTERN.matcher(message).replaceAll(Matcher.quoteReplacement("")), stylePattern/*Matcher*/, m1 -> {
             @SuppressWarnings("null") final Color c = Color.byName(m1.group(1));
             if (c != null)
                 return c.getChat();
@@ -499,7 +499,7 @@ public final class Utils {
      */
     @SuppressWarnings("AssertWithSideEffects")
     public static final int parseInt(final String s) {
-        assert NUMBER_PATTERN_MATCHER.reset(s).matches() : s + " does not match regex";
+        assert NUMBER_PATTERN.matcher(s).matches() : s + " does not match regex";
         assert SkriptParser.isInteger(s) : s + " is not a valid integer";
         try {
             return Integer.parseInt(s);
@@ -518,7 +518,7 @@ public final class Utils {
      */
     @SuppressWarnings("AssertWithSideEffects")
     public static final long parseLong(final String s) {
-        assert NUMBER_PATTERN_MATCHER.reset(s).matches() : s + " does not match regex";
+        assert NUMBER_PATTERN.matcher(s).matches() : s + " does not match regex";
         try {
             return Long.parseLong(s);
         } catch (final NumberFormatException e) {
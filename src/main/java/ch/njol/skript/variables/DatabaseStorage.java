@@ -30,7 +30,6 @@ import ch.njol.skript.log.SkriptLogger;
 import ch.njol.skript.registrations.Classes;
 import ch.njol.skript.util.Task;
 import ch.njol.skript.util.Timespan;
-import ch.njol.util.SynchronizedReference;
 import lib.PatPeter.SQLibrary.*;
 import org.bukkit.Bukkit;
 import org.bukkit.plugin.Plugin;
@@ -41,8 +40,9 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
 import java.util.Map.Entry;
-import java.util.UUID;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -61,48 +61,97 @@ public final class DatabaseStorage extends VariablesStorage {
     private static final String TABLE_NAME = "variables21",
             OLD_TABLE_NAME = "variables";
 
+    /**
+     * Append-only log of all changes made to {@link #TABLE_NAME}, used to synchronise servers if 'monitor changes' is enabled.
+     */
+    private static final String CHANGES_TABLE_NAME = TABLE_NAME + "_changes";
+    /**
+     * The position of each monitoring server in {@link #CHANGES_TABLE_NAME}, used to prune entries that all servers have seen.
+     */
+    private static final String CURSORS_TABLE_NAME = TABLE_NAME + "_cursors";
+
     private static final String SELECT_ORDER = "name, type, value, rowid";
-    private static final String guid = UUID.randomUUID().toString();
     /**
      * The delay between transactions in milliseconds.
      */
     private static final long TRANSACTION_DELAY = 500L;
     private static final Pattern COMMA = Pattern.compile(",", Pattern.LITERAL);
     private static final Pattern SPACE = Pattern.compile("\\s+");
-    @SuppressWarnings("null")
-    final SynchronizedReference<Database> db = new SynchronizedReference<>(null);
-    private final Type type;
-    /**
-     * Params: rowID
-     * <p>
-     * Deletes null variables from the database older than the given value
-     */
-    @Nullable
-    PreparedStatement monitorCleanUpQuery;
-    private long monitorInterval;
-    private long lastRowID = -1;
-    private boolean monitor;
     /**
      * Params: name, type, value, GUID
      * <p>
      * Writes a variable to the database
      */
-    @Nullable
-    private PreparedStatement writeQuery;
+    private static final String WRITE_QUERY = "REPLACE INTO " + TABLE_NAME + " (name, type, value, update_guid) VALUES (?, ?, ?, ?)";
     /**
      * Params: name
      * <p>
      * Deletes a variable from the database
      */
-    @Nullable
-    private PreparedStatement deleteQuery;
+    private static final String DELETE_QUERY = "DELETE FROM " + TABLE_NAME + " WHERE name = ?";
+    /**
+     * The maximum amount of logged changes read and applied at once.
+     */
+    private static final int MONITOR_BATCH_SIZE = 1000;
     /**
-     * Params: rowID, GUID
+     * Params: name, type, value, GUID
      * <p>
-     * Selects changed rows. values in order: {@value #SELECT_ORDER}
+     * Appends a change to the change log
+     */
+    static final String LOG_CHANGE_QUERY = "INSERT INTO " + CHANGES_TABLE_NAME + " (name, type, value, update_guid) VALUES (?, ?, ?, ?)";
+    /**
+     * Params: seq
+     * <p>
+     * Selects logged changes after the given sequence number. values in order: seq, update_guid, name, type, value
+     */
+    static final String MONITOR_QUERY = "SELECT seq, update_guid, name, type, value FROM " + CHANGES_TABLE_NAME + " WHERE seq > ? ORDER BY seq LIMIT " + MONITOR_BATCH_SIZE;
+    /**
+     * Params: GUID, seq, time
+     * <p>
+     * Stores the position of this server in the change log
+     */
+    static final String UPDATE_CURSOR_QUERY = "REPLACE INTO " + CURSORS_TABLE_NAME + " (server_guid, seq, time) VALUES (?, ?, ?)";
+    /**
+     * How long an entry can be missing in the change log before it is skipped, in milliseconds. Entries are missing while the transaction that created them is not committed
+     * yet (or if it was rolled back).
+     */
+    static final long GAP_TIMEOUT = 10000L;
+    /**
+     * The delay between prunes of the change log in milliseconds.
+     */
+    private static final long PRUNE_INTERVAL = 60000L;
+    private final Type type;
+    /**
+     * Identifies the changes this server made in the database and its position in the change log.
+     */
+    final String guid = UUID.randomUUID().toString();
+    /**
+     * Writes variables and the change log in transactions, which are committed by the transaction committing thread. Also used while loading.
+     */
+    @Nullable
+    private RoleConnection writer;
+    /**
+     * Reads the change log, only used if 'monitor changes' is enabled. In auto-commit mode, so its reads and cursor updates don't wait for the writer's transactions.
      */
     @Nullable
-    private PreparedStatement monitorQuery;
+    private RoleConnection monitorConnection;
+    private long monitorInterval;
+    boolean monitor;
+    /**
+     * All entries of the change log up to and including this sequence number have been applied. Only accessed by the monitor thread after loading.
+     */
+    long changeCursor;
+    /**
+     * Entries of the change log after {@link #changeCursor} that have already been applied (because a previous entry is still missing).
+     */
+    private final Set<Long> appliedChanges = new HashSet<>();
+    /**
+     * Missing entries of the change log after {@link #changeCursor}, mapped to the time when they were first noticed.
+     */
+    private final Map<Long, Long> changeGaps = new HashMap<>();
+    private long lastPrune;
+    @Nullable
+    private SQLiteSettings sqliteSettings;
 
     DatabaseStorage(final String name, final Type type) {
         super(name);
@@ -116,134 +165,217 @@ public final class DatabaseStorage extends VariablesStorage {
     @SuppressWarnings("null")
     @Override
     protected boolean load_i(final SectionNode n) {
-        synchronized (db) {
-            final Plugin p = Bukkit.getPluginManager().getPlugin("SQLibrary");
-            if (!(p instanceof SQLibrary)) {
-                Skript.error("You need the plugin SQLibrary in order to use a database with Skript. You can download the latest version from https://dev.bukkit.org/projects/sqlibrary/files");
+        final Plugin p = Bukkit.getPluginManager().getPlugin("SQLibrary");
+        if (!(p instanceof SQLibrary)) {
+            Skript.error("You need the plugin SQLibrary in order to use a database with Skript. You can download the latest version from https://dev.bukkit.org/projects/sqlibrary/files");
+            return false;
+        }
+
+        final Boolean monitor_changes = getValue(n, "monitor changes", Boolean.class);
+        final Timespan monitor_interval = getValue(n, "monitor interval", Timespan.class);
+        if (monitor_changes == null || monitor_interval == null)
+            return false;
+        monitor = monitor_changes;
+        monitorInterval = monitor_interval.getMilliSeconds();
+
+        if (type == Type.SQLITE) {
+            final File file = this.file;
+            assert file != null;
+            final SQLiteSettings settings = SQLiteSettings.load(this, n, file.length() == 0L);
+            if (settings == null)
                 return false;
-            }
+            sqliteSettings = settings;
+        }
 
-            final Boolean monitor_changes = getValue(n, "monitor changes", Boolean.class);
-            final Timespan monitor_interval = getValue(n, "monitor interval", Timespan.class);
-            if (monitor_changes == null || monitor_interval == null)
+        final RoleConnection writer = createConnection(n, "writer", false);
+        if (writer == null)
+            return false;
+        this.writer = writer;
+        if (monitor) {
+            final RoleConnection monitorConnection = createConnection(n, "monitor", true);
+            if (monitorConnection == null)
                 return false;
-            monitor = monitor_changes;
-            monitorInterval = monitor_interval.getMilliSeconds();
+            this.monitorConnection = monitorConnection;
+        }
 
-            final Database db;
-            try {
-                final Object o = type.initialise(this, n);
-                if (o == null)
-                    return false;
-                this.db.set(db = (Database) o);
-            } catch (final RuntimeException e) {
-                if (e instanceof DatabaseException) {// not in a catch clause to not produce a ClassNotFoundException when this class is loaded and SQLibrary is not present
-                    Skript.error(e.getLocalizedMessage());
-                    return false;
-                }
-                throw e;
-            }
+        SkriptLogger.setNode(null);
 
-            SkriptLogger.setNode(null);
+        if (!connect(writer, true))
+            return false;
 
-            if (!connect(true))
+        final Database db = writer.acquire();
+        try {
+            try {
+                db.query(type.createQuery).close();
+            } catch (final SQLException e) {
+                Skript.error("Could not create the variables table in the database '" + databaseName + "': " + e.getLocalizedMessage() + ". " + "Please create the table yourself using the following query: " + SPACE.matcher(COMMA.matcher(type.createQuery).replaceAll(Matcher.quoteReplacement(", "))).replaceAll(" "));
                 return false;
+            }
 
-            try {
-                try {
-                    db.query(type.createQuery).close();
-                } catch (final SQLException e) {
-                    Skript.error("Could not create the variables table in the database '" + databaseName + "': " + e.getLocalizedMessage() + ". " + "Please create the table yourself using the following query: " + SPACE.matcher(COMMA.matcher(type.createQuery).replaceAll(Matcher.quoteReplacement(", "))).replaceAll(" "));
-                    return false;
+            if (monitor) {
+                for (final String changeLogQuery : type.changeLogQueries) {
+                    try {
+                        db.query(changeLogQuery).close();
+                    } catch (final SQLException e) {
+                        Skript.error("Could not create the change log of the database '" + databaseName + "': " + e.getLocalizedMessage() + ". " + "Please create it yourself using the following query: " + SPACE.matcher(COMMA.matcher(changeLogQuery).replaceAll(Matcher.quoteReplacement(", "))).replaceAll(" "));
+                        return false;
+                    }
+                }
+                // changes made while the variables are loaded are applied again by the monitor thread
+                try (final ResultSet r = db.query("SELECT MAX(seq) FROM " + CHANGES_TABLE_NAME)) {
+                    changeCursor = r.next() ? r.getLong(1) : 0L;
+                }
+                // other servers must not prune the changes this server hasn't applied yet
+                try (final PreparedStatement updateCursorQuery = db.prepare(UPDATE_CURSOR_QUERY)) {
+                    updateCursor(updateCursorQuery, System.currentTimeMillis());
                 }
+                db.getConnection().commit(); // the monitor connection can't create its tables while the writer's transaction is open in SQLite
 
-                if (!prepareQueries()) {
+                final RoleConnection monitorConnection = this.monitorConnection;
+                assert monitorConnection != null;
+                if (!connect(monitorConnection, true))
                     return false;
-                }
+            }
 
-                // old
-                final boolean hasOldTable = db.isTable(OLD_TABLE_NAME);
-                final boolean hadNewTable = db.isTable(TABLE_NAME);
-                if (hasOldTable) {
-                    try (final ResultSet r1 = db.query("SELECT " + SELECT_ORDER + " FROM " + OLD_TABLE_NAME)) {
-                        assert r1 != null;
-                        oldLoadVariables(r1, hadNewTable);
-                    }
-                }
+            if (!prepareQueries()) {
+                return false;
+            }
 
-                // new
-                try (final ResultSet r2 = db.query("SELECT " + SELECT_ORDER + " FROM " + TABLE_NAME)) {
-                    assert r2 != null;
-                    loadVariables(r2);
+            // old
+            final boolean hasOldTable = db.isTable(OLD_TABLE_NAME);
+            final boolean hadNewTable = db.isTable(TABLE_NAME);
+            if (hasOldTable) {
+                try (final ResultSet r1 = db.query("SELECT " + SELECT_ORDER + " FROM " + OLD_TABLE_NAME)) {
+                    assert r1 != null;
+                    oldLoadVariables(r1, hadNewTable);
                 }
+            }
 
-                // store old variables in new table and delete the old table
-                if (hasOldTable) {
-                    if (!hadNewTable) {
-                        Skript.info("[2.1] Updating the database '" + databaseName + "' to the new format...");
-                        try {
-                            Variables.getReadLock().lock();
-                            for (final Entry<String, Object> v : Variables.getVariablesHashMap().entrySet()) {
-                                if (accept(v.getKey())) {// only one database was possible, so only checking this database is correct
-                                    final SerializedVariable var = Variables.serialize(v.getKey(), v.getValue());
-                                    final SerializedVariable.Value d = var.value;
-                                    save(var.name, d == null ? null : d.type, d == null ? null : d.data);
-                                }
+            // new
+            try (final ResultSet r2 = db.query("SELECT " + SELECT_ORDER + " FROM " + TABLE_NAME)) {
+                assert r2 != null;
+                loadVariables(r2);
+            }
+
+            // store old variables in new table and delete the old table
+            if (hasOldTable) {
+                if (!hadNewTable) {
+                    Skript.info("[2.1] Updating the database '" + databaseName + "' to the new format...");
+                    try {
+                        Variables.getReadLock().lock();
+                        for (final Entry<String, Object> v : Variables.getVariablesHashMap().entrySet()) {
+                            if (accept(v.getKey())) {// only one database was possible, so only checking this database is correct
+                                final SerializedVariable var = Variables.serialize(v.getKey(), v.getValue());
+                                final SerializedVariable.Value d = var.value;
+                                save(var.name, d == null ? null : d.type, d == null ? null : d.data);
                             }
-                            Skript.info("Updated and transferred " + Variables.getVariablesHashMap().size() + " variables to the new table.");
-                        } finally {
-                            Variables.getReadLock().unlock();
                         }
+                        Skript.info("Updated and transferred " + Variables.getVariablesHashMap().size() + " variables to the new table.");
+                    } finally {
+                        Variables.getReadLock().unlock();
                     }
-                    db.query("DELETE FROM " + OLD_TABLE_NAME + " WHERE value IS NULL").close();
-                    db.query("DELETE FROM old USING " + OLD_TABLE_NAME + " AS old, " + TABLE_NAME + " AS new WHERE old.name = new.name").close();
-                    try (final ResultSet r = db.query("SELECT * FROM " + OLD_TABLE_NAME + " LIMIT 1")) {
-                        if (r.next()) {// i.e. the old table is not empty
-                            Skript.error("Could not successfully convert & transfer all variables to the new table in the database '" + databaseName + "'. " + "Variables that could not be transferred are left in the old table and Skript will reattempt to transfer them whenever it starts until the old table is empty or is manually deleted. " + "Please note that variables recreated by scripts will count as converted and will be removed from the old table on the next restart.");
-                        } else {
-                            boolean error = false;
-                            try {
-                                disconnect(); // prevents SQLITE_LOCKED error
-                                connect();
-                                db.query("DROP TABLE " + OLD_TABLE_NAME).close();
-                            } catch (final SQLException e) {
-                                Skript.error("There was an error deleting the old variables table from the database '" + databaseName + "', please delete it yourself: " + e.getLocalizedMessage());
-                                error = true;
-                            }
-                            if (!error)
-                                Skript.info("Successfully deleted the old variables table from the database '" + databaseName + "'.");
-                            if (!hadNewTable)
-                                Skript.info("Database '" + databaseName + "' successfully updated.");
+                }
+                db.query("DELETE FROM " + OLD_TABLE_NAME + " WHERE value IS NULL").close();
+                db.query("DELETE FROM old USING " + OLD_TABLE_NAME + " AS old, " + TABLE_NAME + " AS new WHERE old.name = new.name").close();
+                try (final ResultSet r = db.query("SELECT * FROM " + OLD_TABLE_NAME + " LIMIT 1")) {
+                    if (r.next()) {// i.e. the old table is not empty
+                        Skript.error("Could not successfully convert & transfer all variables to the new table in the database '" + databaseName + "'. " + "Variables that could not be transferred are left in the old table and Skript will reattempt to transfer them whenever it starts until the old table is empty or is manually deleted. " + "Please note that variables recreated by scripts will count as converted and will be removed from the old table on the next restart.");
+                    } else {
+                        boolean error = false;
+                        try {
+                            disconnect(); // prevents SQLITE_LOCKED error
+                            connect();
+                            db.query("DROP TABLE " + OLD_TABLE_NAME).close();
+                        } catch (final SQLException e) {
+                            Skript.error("There was an error deleting the old variables table from the database '" + databaseName + "', please delete it yourself: " + e.getLocalizedMessage());
+                            error = true;
                         }
+                        if (!error)
+                            Skript.info("Successfully deleted the old variables table from the database '" + databaseName + "'.");
+                        if (!hadNewTable)
+                            Skript.info("Database '" + databaseName + "' successfully updated.");
                     }
                 }
-            } catch (final SQLException e) {
-                sqlException(e);
-                return false;
             }
+        } catch (final SQLException e) {
+            sqlException(e, writer);
+            return false;
+        } finally {
+            writer.release();
+        }
 
-            // periodically executes queries to keep the collection alive
-            Skript.newThread(() -> {
-                while (!closed) {
-                    synchronized (DatabaseStorage.this.db) {
-                        try {
-                            final Database db1 = DatabaseStorage.this.db.get();
-                            if (db1 != null)
-                                db1.query("SELECT * FROM " + TABLE_NAME + " LIMIT 1").close();
-                            db.wait(1000L * 10L);
-                        } catch (final SQLException e) {
-                            if (Skript.testing() || Skript.debug())
-                                Skript.exception(e);
-                        } catch (final InterruptedException e) {
-                            Thread.currentThread().interrupt();
-                            break;
-                        }
+        // periodically executes queries to keep the connections alive
+        Skript.newThread(() -> {
+            while (!closed) {
+                for (final RoleConnection c : getConnections()) {
+                    final Database db1 = c.acquire();
+                    try {
+                        db1.query("SELECT * FROM " + TABLE_NAME + " LIMIT 1").close();
+                    } catch (final SQLException e) {
+                        if (Skript.testing() || Skript.debug())
+                            Skript.exception(e);
+                    } finally {
+                        c.release();
                     }
                 }
-            }, "Skript database '" + databaseName + "' connection keep-alive thread").start();
+                try {
+                    Thread.sleep(1000L * 10L);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }, "Skript database '" + databaseName + "' connection keep-alive thread").start();
 
-            return true;
+        return true;
+    }
+
+    /**
+     * Creates a new connection to this database, without opening it.
+     *
+     * @return The connection, or null if an error occurred (an error is printed in that case)
+     */
+    @SuppressWarnings("null")
+    @Nullable
+    private final RoleConnection createConnection(final SectionNode n, final String role, final boolean autoCommit) {
+        try {
+            final Object o = type.initialise(this, n);
+            if (o == null)
+                return null;
+            return new RoleConnection(role, (Database) o, autoCommit);
+        } catch (final RuntimeException e) {
+            if (e instanceof DatabaseException) {// not in a catch clause to not produce a ClassNotFoundException when this class is loaded and SQLibrary is not present
+                Skript.error(e.getLocalizedMessage());
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return All connections of this database that have been created
+     */
+    private final List<RoleConnection> getConnections() {
+        final List<RoleConnection> connections = new ArrayList<>(2);
+        final RoleConnection writer = this.writer;
+        if (writer != null)
+            connections.add(writer);
+        final RoleConnection monitorConnection = this.monitorConnection;
+        if (monitorConnection != null)
+            connections.add(monitorConnection);
+        return connections;
+    }
+
+    @Override
+    @Nullable
+    protected String getStatistics() {
+        final StringBuilder b = new StringBuilder();
+        for (final RoleConnection c : getConnections()) {
+            if (b.length() != 0)
+                b.append("; ");
+            b.append(c.getStatistics());
         }
+        return b.length() == 0 ? null : b.toString();
     }
 
     @Override
@@ -252,18 +384,18 @@ public final class DatabaseStorage extends VariablesStorage {
 
         // start committing thread. Its first execution will also commit the first batch of changed variables.
         Skript.newThread(() -> {
+            final RoleConnection writer = this.writer;
+            assert writer != null;
             while (!closed) {
-                final long lastCommit;
-                synchronized (db) {
-                    final Database db = DatabaseStorage.this.db.get();
-                    try {
-                        if (db != null)
-                            db.getConnection().commit();
-                    } catch (final SQLException e) {
-                        sqlException(e);
-                    }
-                    lastCommit = System.currentTimeMillis();
+                final Database db = writer.acquire();
+                try {
+                    db.getConnection().commit();
+                } catch (final SQLException e) {
+                    sqlException(e, writer);
+                } finally {
+                    writer.release();
                 }
+                final long lastCommit = System.currentTimeMillis();
                 try {
                     Thread.sleep(Math.max(0L, lastCommit + TRANSACTION_DELAY - System.currentTimeMillis()));
                 } catch (final InterruptedException ignored) {
@@ -291,7 +423,7 @@ public final class DatabaseStorage extends VariablesStorage {
                     final long now = System.currentTimeMillis();
                     if (next < now && lastWarning + WARING_INTERVAL * 1000 < now) {
                         // TODO don't print this message when Skript loads (because scripts are loaded after variables and take some time)
-                        Skript.warning("Cannot load variables from the database fast enough (loading took " + (now - next + monitorInterval) / 1000. + "s, monitor interval = " + monitorInterval / 1000. + "s). " + "Please increase your monitor interval or reduce usage of variables. " + "(this warning will be repeated at most once every " + WARING_INTERVAL + " seconds)");
+                        Skript.warning("Cannot load variables from the database fast enough (loading took " + (now - next + monitorInterval) / 1000. + "s, monitor interval = " + monitorInterval / 1000. + "s, " + getStatistics() + "). " + "Please increase your monitor interval or reduce usage of variables. " + "(this warning will be repeated at most once every " + WARING_INTERVAL + " seconds)");
                         lastWarning = now;
                     }
                     while (System.currentTimeMillis() < next) {
@@ -322,186 +454,350 @@ public final class DatabaseStorage extends VariablesStorage {
 
     @Override
     protected boolean connect() {
-        return connect(false);
+        for (final RoleConnection c : getConnections()) {
+            if (!connect(c, false))
+                return false;
+        }
+        return true;
     }
 
-    @SuppressWarnings("null")
-    private final boolean connect(final boolean first) {
-        synchronized (db) {
+    private final boolean connect(final RoleConnection c, final boolean first) {
+        final Database db = c.acquire();
+        try {
             // isConnected doesn't work in SQLite
 //			if (db.isConnected())
 //				return;
-            final Database db = this.db.get();
-            if (db == null || !db.open()) {
+            if (!db.open()) {
                 if (first)
                     Skript.error("Cannot connect to the database '" + databaseName + "'! Please make sure that all settings are correct" + (type == Type.MYSQL ? " and that the database software is running" : "") + '.');
                 else
                     Skript.exception("Cannot reconnect to the database '" + databaseName + "'!");
                 return false;
             }
+            final SQLiteSettings sqliteSettings = this.sqliteSettings;
+            if (sqliteSettings != null)
+                sqliteSettings.apply(this, db, first && c == writer);
             try {
-                db.getConnection().setAutoCommit(false);
+                db.getConnection().setAutoCommit(c.autoCommit);
             } catch (final SQLException e) {
-                sqlException(e);
+                sqlException(e, c);
                 return false;
             }
             return true;
+        } finally {
+            c.release();
         }
     }
 
     /**
-     * (Re)creates prepared statements as they get closed as well when closing the connection
+     * (Re)creates prepared statements as they get closed as well when closing the connection.
+     * Statements are cached by each connection and only prepared again if the connection has changed or an error occurred.
      *
      * @return True on success, false if an error is occurred and reported.
      */
     private final boolean prepareQueries() {
-        synchronized (db) {
-            final Database db = this.db.get();
-            assert db != null;
+        final RoleConnection writer = this.writer;
+        assert writer != null;
+        writer.acquire();
+        try {
+            writer.statements.invalidate();
+            writer.prepare(WRITE_QUERY);
+            writer.prepare(DELETE_QUERY);
+            if (monitor)
+                writer.prepare(LOG_CHANGE_QUERY);
+        } catch (final SQLException e) {
+            Skript.exception(e, "Could not prepare queries for the database '" + databaseName + "': " + e.getLocalizedMessage());
+            return false;
+        } finally {
+            writer.release();
+        }
+        final RoleConnection monitorConnection = this.monitorConnection;
+        if (monitorConnection != null) {
+            monitorConnection.acquire();
             try {
-                try {
-                    if (writeQuery != null)
-                        writeQuery.close();
-                } catch (final SQLException ignored) {
-                    /* ignored */
-                }
-                writeQuery = db.prepare("REPLACE INTO " + TABLE_NAME + " (name, type, value, update_guid) VALUES (?, ?, ?, ?)");
-
-                try {
-                    if (deleteQuery != null)
-                        deleteQuery.close();
-                } catch (final SQLException ignored) {
-                    /* ignored */
-                }
-                deleteQuery = db.prepare("DELETE FROM " + TABLE_NAME + " WHERE name = ?");
-
-                try {
-                    if (monitorQuery != null)
-                        monitorQuery.close();
-                } catch (final SQLException ignored) {
-                    /* ignored */
-                }
-                monitorQuery = db.prepare("SELECT " + SELECT_ORDER + " FROM " + TABLE_NAME + " WHERE rowid > ? AND update_guid != ?");
-                try {
-                    if (monitorCleanUpQuery != null)
-                        monitorCleanUpQuery.close();
-                } catch (final SQLException ignored) {
-                    /* ignored */
-                }
-                monitorCleanUpQuery = db.prepare("DELETE FROM " + TABLE_NAME + " WHERE value IS NULL AND rowid < ?");
+                monitorConnection.statements.invalidate();
+                monitorConnection.prepare(MONITOR_QUERY);
+                monitorConnection.prepare(UPDATE_CURSOR_QUERY);
             } catch (final SQLException e) {
                 Skript.exception(e, "Could not prepare queries for the database '" + databaseName + "': " + e.getLocalizedMessage());
                 return false;
+            } finally {
+                monitorConnection.release();
             }
         }
         return true;
     }
 
-    @SuppressWarnings("null")
     @Override
     protected void disconnect() {
-        synchronized (db) {
-            final Database db = this.db.get();
-//			if (!db.isConnected())
-//				return;
-            if (db != null)
+        for (final RoleConnection c : getConnections()) {
+            final Database db = c.acquire();
+            try {
+//			    if (!db.isConnected())
+//				    return;
                 db.close();
+            } finally {
+                c.release();
+            }
         }
     }
 
     @Override
     protected boolean save(final String name, @Nullable final String type, @Nullable final byte[] value) {
-        synchronized (db) {
-            // REMIND get the actual maximum size from the database
-            if (name.length() > MAX_VARIABLE_NAME_LENGTH)
-                Skript.error("The name of the variable {" + name + "} is too long to be saved in a database (length: " + name.length() + ", maximum allowed: " + MAX_VARIABLE_NAME_LENGTH + ")! It will be truncated and won't bet available under the same name again when loaded.");
-            if (value != null && value.length > MAX_VALUE_SIZE)
-                Skript.error("The variable {" + name + "} cannot be saved in the database as its value's size (" + value.length + ") exceeds the maximum allowed size of " + MAX_VALUE_SIZE + "! An attempt to save the variable will be made nonetheless.");
-            try {
-                if (type == null) {
-                    assert value == null;
-                    final PreparedStatement deleteQuery = this.deleteQuery;
-                    assert deleteQuery != null;
-                    deleteQuery.setString(1, name);
-                    deleteQuery.executeUpdate();
-                } else {
-                    final PreparedStatement writeQuery = this.writeQuery;
-                    assert writeQuery != null;
-                    int i = 1;
-                    writeQuery.setString(i++, name);
-                    writeQuery.setString(i++, type);
-                    writeQuery.setBytes(i++, value); // SQLite doesn't support setBlob
-                    writeQuery.setString(i, guid);
-                    writeQuery.executeUpdate();
-                }
-            } catch (final SQLException e) {
-                sqlException(e);
-                return false;
-            }
+        // REMIND get the actual maximum size from the database
+        if (name.length() > MAX_VARIABLE_NAME_LENGTH)
+            Skript.error("The name of the variable {" + name + "} is too long to be saved in a database (length: " + name.length() + ", maximum allowed: " + MAX_VARIABLE_NAME_LENGTH + ")! It will be truncated and won't bet available under the same name again when loaded.");
+        if (value != null && value.length > MAX_VALUE_SIZE)
+            Skript.error("The variable {" + name + "} cannot be saved in the database as its value's size (" + value.length + ") exceeds the maximum allowed size of " + MAX_VALUE_SIZE + "! An attempt to save the variable will be made nonetheless.");
+        final RoleConnection writer = this.writer;
+        assert writer != null;
+        final Database db = writer.acquire();
+        try {
+            write(db.getConnection(), writer.statements, name, type, value);
+        } catch (final SQLException e) {
+            sqlException(e, writer);
+            return false;
+        } finally {
+            writer.release();
         }
         return true;
     }
 
+    /**
+     * Writes or deletes a variable and logs the change if changes are monitored.
+     *
+     * @param con        The connection of the writer
+     * @param statements The prepared statements of the connection
+     */
+    final void write(final Connection con, final StatementCache statements, final String name, @Nullable final String type, @Nullable final byte[] value) throws SQLException {
+        if (type == null) {
+            assert value == null;
+            final PreparedStatement deleteQuery = statements.get(con, DELETE_QUERY);
+            deleteQuery.setString(1, name);
+            deleteQuery.executeUpdate();
+        } else {
+            final PreparedStatement writeQuery = statements.get(con, WRITE_QUERY);
+            int i = 1;
+            writeQuery.setString(i++, name);
+            writeQuery.setString(i++, type);
+            writeQuery.setBytes(i++, value); // SQLite doesn't support setBlob
+            writeQuery.setString(i, guid);
+            writeQuery.executeUpdate();
+        }
+        if (monitor) {
+            final PreparedStatement logChangeQuery = statements.get(con, LOG_CHANGE_QUERY);
+            int i = 1;
+            logChangeQuery.setString(i++, name);
+            logChangeQuery.setString(i++, type);
+            logChangeQuery.setBytes(i++, value);
+            logChangeQuery.setString(i, guid);
+            logChangeQuery.executeUpdate();
+        }
+    }
+
     @SuppressWarnings("null")
     @Override
     public void close() {
-        synchronized (db) {
-            super.close();
-            final Database db = this.db.get();
-            if (db != null) {
-                try (final Connection con = db.getConnection()) {
-                    con.commit();
-                } catch (final SQLException e) {
-                    sqlException(e);
-                }
+        super.close();
+        final RoleConnection monitorConnection = this.monitorConnection;
+        if (monitorConnection != null) {
+            final Database db = monitorConnection.acquire();
+            try (final PreparedStatement removeCursor = db.prepare("DELETE FROM " + CURSORS_TABLE_NAME + " WHERE server_guid = ?")) { // don't hold back pruning of the change log
+                removeCursor.setString(1, guid);
+                removeCursor.executeUpdate();
+            } catch (final SQLException e) {
+                sqlException(e, monitorConnection);
+            } finally {
+                monitorConnection.statements.invalidate();
                 db.close();
-                this.db.set(null);
+                monitorConnection.release();
+            }
+            this.monitorConnection = null;
+        }
+        final RoleConnection writer = this.writer;
+        if (writer != null) {
+            final Database db = writer.acquire();
+            try (final Connection con = db.getConnection()) {
+                con.commit();
+            } catch (final SQLException e) {
+                sqlException(e, writer);
+            } finally {
+                writer.statements.invalidate();
+                writer.release();
             }
+            this.writer = null;
+            Skript.debug("Closed the database '" + databaseName + "' (" + writer.getStatistics() + (monitorConnection != null ? "; " + monitorConnection.getStatistics() : "") + ')');
         }
     }
 
-    @SuppressWarnings({"null", "unused"})
+    /**
+     * Applies the changes other servers logged since the last check, then stores this server's position in the change log and prunes it if it's time to.
+     */
     private final void checkDatabase() {
+        final RoleConnection monitorConnection = this.monitorConnection;
+        if (closed || monitorConnection == null)
+            return;
+        final List<LoggedChange> toApply;
+        final Database db = monitorConnection.acquire();
         try {
-            final long lastRowID; // local variable as this is used to clean the database below
+            if (closed)
+                return;
+            toApply = checkChangeLog(db.getConnection(), monitorConnection.statements, System.currentTimeMillis());
+        } catch (final SQLException e) {
+            sqlException(e, monitorConnection);
+            return;
+        } finally {
+            monitorConnection.release();
+        }
+        applyChanges(toApply);
+    }
 
-            synchronized (db) {
-                if (closed || db.get() == null)
-                    return;
-                lastRowID = this.lastRowID;
-                final PreparedStatement monitorQuery = this.monitorQuery;
-                assert monitorQuery != null;
-                monitorQuery.setLong(1, lastRowID);
-                monitorQuery.setString(2, guid);
-                monitorQuery.execute();
+    /**
+     * Reads the changes other servers logged since the last check, then stores this server's position in the change log and prunes it if it's time to.
+     *
+     * @param con        The connection of the monitor
+     * @param statements The prepared statements of the connection
+     * @param now        The current time in milliseconds
+     * @return The changes of other servers that haven't been applied yet, in the order of their sequence numbers
+     */
+    final List<LoggedChange> checkChangeLog(final Connection con, final StatementCache statements, final long now) throws SQLException {
+        final List<LoggedChange> toApply = new ArrayList<>();
+        long from = changeCursor;
+        while (!closed) {
+            final List<LoggedChange> changes = readChanges(statements.get(con, MONITOR_QUERY), from);
+            toApply.addAll(advanceCursor(from, changes, now));
+            if (changes.size() < MONITOR_BATCH_SIZE)
+                break;
+            from = changes.get(changes.size() - 1).seq;
+        }
+        updateCursor(statements.get(con, UPDATE_CURSOR_QUERY), now);
+        if (lastPrune + PRUNE_INTERVAL < now) {
+            pruneChangeLog(con, now);
+            lastPrune = now;
+        }
+        return toApply;
+    }
+
+    /**
+     * Stores {@link #changeCursor} as this server's position in the change log.
+     *
+     * @param updateCursorQuery The prepared {@link #UPDATE_CURSOR_QUERY}
+     * @param now               The current time in milliseconds
+     */
+    final void updateCursor(final PreparedStatement updateCursorQuery, final long now) throws SQLException {
+        updateCursorQuery.setString(1, guid);
+        updateCursorQuery.setLong(2, changeCursor);
+        updateCursorQuery.setLong(3, now);
+        updateCursorQuery.executeUpdate();
+    }
+
+    /**
+     * Reads a batch of logged changes.
+     *
+     * @param monitorQuery The prepared {@link #MONITOR_QUERY}
+     * @param from         The sequence number to read the changes after
+     * @return The changes in the order of their sequence numbers
+     */
+    static final List<LoggedChange> readChanges(final PreparedStatement monitorQuery, final long from) throws SQLException {
+        final List<LoggedChange> changes = new ArrayList<>();
+        monitorQuery.setLong(1, from);
+        try (final ResultSet r = monitorQuery.executeQuery()) {
+            while (r.next()) {
+                int i = 1;
+                changes.add(new LoggedChange(r.getLong(i++), r.getString(i++), r.getString(i++), r.getString(i++), r.getBytes(i)));
             }
+        }
+        return changes;
+    }
 
-            try (final ResultSet r = monitorQuery.getResultSet()) {
-                if (!closed)
-                    loadVariables(r);
+    /**
+     * Applies logged changes of other servers on the main thread.
+     *
+     * @param toApply The changes in the order of their sequence numbers
+     */
+    private final void applyChanges(final List<LoggedChange> toApply) {
+        if (toApply.isEmpty())
+            return;
+        Task.callSync(() -> {
+            for (final LoggedChange change : toApply) {
+                final byte[] value = change.value;
+                if (change.type == null || value == null) {
+                    Variables.variableLoaded(change.name, null, DatabaseStorage.this);
+                    continue;
+                }
+                final ClassInfo<?> c = Classes.getClassInfoNoError(change.type);
+                if (c == null || c.getSerializer() == null) {
+                    Skript.error("Cannot load the variable {" + change.name + "} from the database '" + databaseName + "', because the type '" + change.type + "' cannot be recognised or cannot be stored in variables");
+                    continue;
+                }
+                final Object d = Classes.deserialize(c, value);
+                if (d == null) {
+                    Skript.error("Cannot load the variable {" + change.name + "} from the database '" + databaseName + "', because it cannot be loaded as " + c.getName().withIndefiniteArticle());
+                    continue;
+                }
+                Variables.variableLoaded(change.name, d, DatabaseStorage.this);
             }
+            return null;
+        });
+    }
 
-            if (!closed) { // Skript may have been disabled in the meantime // TODO not fixed
-                new Task(Skript.getInstance(), true) { // 2 times the interval + 5 seconds
-                    @Override
-                    public final void run() {
-                        try {
-                            synchronized (db) {
-                                if (closed || db.get() == null)
-                                    return;
-                                final PreparedStatement monitorCleanUpQuery = DatabaseStorage.this.monitorCleanUpQuery;
-                                assert monitorCleanUpQuery != null;
-                                monitorCleanUpQuery.setLong(1, lastRowID);
-                                monitorCleanUpQuery.executeUpdate();
-                            }
-                        } catch (final SQLException e) {
-                            sqlException(e);
-                        }
-                    }
-                }.schedule((long) Math.ceil(2. * monitorInterval / 50) + 100);
+    /**
+     * Advances {@link #changeCursor} over a batch of logged changes as far as no entries are missing.
+     *
+     * @param from    The sequence number the batch was read after
+     * @param changes The changes in the order of their sequence numbers
+     * @param now     The current time in milliseconds
+     * @return The changes of other servers that haven't been applied yet
+     */
+    final List<LoggedChange> advanceCursor(final long from, final List<LoggedChange> changes, final long now) {
+        final List<LoggedChange> toApply = new ArrayList<>(changes.size());
+        long cursor = changeCursor;
+        boolean contiguous = from == cursor;
+        long expected = from + 1;
+        for (final LoggedChange change : changes) {
+            if (change.seq != expected) {
+                // entries expected..seq-1 are missing, wait a bit for them as their transaction may not be committed yet
+                final Long since = changeGaps.putIfAbsent(expected, now);
+                if (since == null || since + GAP_TIMEOUT >= now)
+                    contiguous = false;
             }
-        } catch (final SQLException e) {
-            sqlException(e);
+            if (!guid.equals(change.guid) && !appliedChanges.contains(change.seq))
+                toApply.add(change);
+            if (contiguous)
+                cursor = change.seq;
+            else
+                appliedChanges.add(change.seq);
+            expected = change.seq + 1;
+        }
+        final long newCursor = cursor;
+        changeCursor = newCursor;
+        appliedChanges.removeIf(seq -> seq <= newCursor);
+        changeGaps.keySet().removeIf(seq -> seq <= newCursor);
+        return toApply;
+    }
+
+    /**
+     * Removes the cursors of servers that haven't checked the database for a long time (e.g. because they crashed),
+     * and all entries of the change log that every remaining server has seen.
+     */
+    final void pruneChangeLog(final Connection con, final long now) throws SQLException {
+        try (final PreparedStatement removeCursors = con.prepareStatement("DELETE FROM " + CURSORS_TABLE_NAME + " WHERE time < ?")) {
+            removeCursors.setLong(1, now - Math.max(10L * monitorInterval, 10L * PRUNE_INTERVAL));
+            removeCursors.executeUpdate();
+        }
+        final long minCursor;
+        try (final Statement statement = con.createStatement(); final ResultSet r = statement.executeQuery("SELECT MIN(seq) FROM " + CURSORS_TABLE_NAME)) {
+            if (!r.next())
+                return;
+            minCursor = r.getLong(1);
+            if (r.wasNull())
+                return;
+        }
+        try (final PreparedStatement removeChanges = con.prepareStatement("DELETE FROM " + CHANGES_TABLE_NAME + " WHERE seq <= ?")) {
+            removeChanges.setLong(1, minCursor);
+            final int removed = removeChanges.executeUpdate();
+            if (Skript.debug())
+                Skript.debug("Pruned " + removed + " entries from the change log of the database '" + databaseName + '\'');
         }
     }
 
@@ -522,8 +818,7 @@ public final class DatabaseStorage extends VariablesStorage {
                         continue;
                     }
                     final String type = r.getString(i++);
-                    final byte[] value = r.getBytes(i++); // Blob not supported by SQLite
-                    lastRowID = r.getLong(i);
+                    final byte[] value = r.getBytes(i); // Blob not supported by SQLite
                     if (value == null) {
                         Variables.variableLoaded(name, null, DatabaseStorage.this);
                     } else {
@@ -609,8 +904,7 @@ public final class DatabaseStorage extends VariablesStorage {
                         continue;
                     }
                     final String type = r.getString(i++);
-                    final String value = r.getString(i++);
-                    lastRowID = r.getLong(i);
+                    final String value = r.getString(i);
                     if (type == null || value == null) {
                         Variables.variableLoaded(name, null, hadNewTable ? temp : DatabaseStorage.this);
                     } else {
@@ -682,15 +976,26 @@ public final class DatabaseStorage extends VariablesStorage {
 
 //	static final LinkedList<OldVariableInfo> oldSyncDeserializing = new LinkedList<OldVariableInfo>();
 
-    void sqlException(final SQLException e) {
+    /**
+     * @param c The connection the error occurred on
+     */
+    void sqlException(final SQLException e, final RoleConnection c) {
         Skript.error("database error: " + e.getLocalizedMessage());
         if (Skript.testing())
             e.printStackTrace();
-        prepareQueries(); // a query has to be recreated after an error
+        // a query has to be recreated after an error, the cache prepares them again when they are used the next time
+        c.acquire();
+        try {
+            c.statements.invalidate();
+        } finally {
+            c.release();
+        }
     }
 
     public enum Type {
-        MYSQL("CREATE TABLE IF NOT EXISTS " + TABLE_NAME + " (" + "rowid        BIGINT  NOT NULL  AUTO_INCREMENT  PRIMARY KEY, " + "name         VARCHAR(" + MAX_VARIABLE_NAME_LENGTH + ")  NOT NULL  UNIQUE, " + "type         VARCHAR(" + MAX_CLASS_CODENAME_LENGTH + ")," + "value        BLOB(" + MAX_VALUE_SIZE + ")," + "update_guid  CHAR(36)  NOT NULL" + ") CHARACTER SET ucs2 COLLATE ucs2_bin") {// MySQL treats UTF16 as 4 byte charset, resulting in a short max name length. UCS2 uses 2 bytes.
+        MYSQL("CREATE TABLE IF NOT EXISTS " + TABLE_NAME + " (" + "rowid        BIGINT  NOT NULL  AUTO_INCREMENT  PRIMARY KEY, " + "name         VARCHAR(" + MAX_VARIABLE_NAME_LENGTH + ")  NOT NULL  UNIQUE, " + "type         VARCHAR(" + MAX_CLASS_CODENAME_LENGTH + ")," + "value        BLOB(" + MAX_VALUE_SIZE + ")," + "update_guid  CHAR(36)  NOT NULL" + ") CHARACTER SET ucs2 COLLATE ucs2_bin",
+                new String[]{"CREATE TABLE IF NOT EXISTS " + CHANGES_TABLE_NAME + " (" + "seq          BIGINT  NOT NULL  AUTO_INCREMENT  PRIMARY KEY, " + "name         VARCHAR(" + MAX_VARIABLE_NAME_LENGTH + ")  NOT NULL, " + "type         VARCHAR(" + MAX_CLASS_CODENAME_LENGTH + ")," + "value        BLOB(" + MAX_VALUE_SIZE + ")," + "update_guid  CHAR(36)  NOT NULL" + ") CHARACTER SET ucs2 COLLATE ucs2_bin",
+                        "CREATE TABLE IF NOT EXISTS " + CURSORS_TABLE_NAME + " (" + "server_guid  CHAR(36)  NOT NULL  PRIMARY KEY, " + "seq          BIGINT  NOT NULL, " + "time         BIGINT  NOT NULL" + ')'}) {// MySQL treats UTF16 as 4 byte charset, resulting in a short max name length. UCS2 uses 2 bytes.
 
             @Override
             @Nullable
@@ -705,7 +1010,10 @@ public final class DatabaseStorage extends VariablesStorage {
                 return new MySQL(SkriptLogger.LOGGER, "[Skript]", host, port, database, user, password);
             }
         },
-        SQLITE("CREATE TABLE IF NOT EXISTS " + TABLE_NAME + " (" + "name         VARCHAR(" + MAX_VARIABLE_NAME_LENGTH + ")  NOT NULL  PRIMARY KEY, " + "type         VARCHAR(" + MAX_CLASS_CODENAME_LENGTH + ")," + "value        BLOB(" + MAX_VALUE_SIZE + ")," + "update_guid  CHAR(36)  NOT NULL" + ')') {// SQLite uses Unicode exclusively
+        SQLITE("CREATE TABLE IF NOT EXISTS " + TABLE_NAME + " (" + "name         VARCHAR(" + MAX_VARIABLE_NAME_LENGTH + ")  NOT NULL  PRIMARY KEY, " + "type         VARCHAR(" + MAX_CLASS_CODENAME_LENGTH + ")," + "value        BLOB(" + MAX_VALUE_SIZE + ")," + "update_guid  CHAR(36)  NOT NULL" + ')',
+                // AUTOINCREMENT prevents reusing sequence numbers of pruned entries
+                new String[]{"CREATE TABLE IF NOT EXISTS " + CHANGES_TABLE_NAME + " (" + "seq          INTEGER  PRIMARY KEY  AUTOINCREMENT, " + "name         VARCHAR(" + MAX_VARIABLE_NAME_LENGTH + ")  NOT NULL, " + "type         VARCHAR(" + MAX_CLASS_CODENAME_LENGTH + ")," + "value        BLOB(" + MAX_VALUE_SIZE + ")," + "update_guid  CHAR(36)  NOT NULL" + ')',
+                        "CREATE TABLE IF NOT EXISTS " + CURSORS_TABLE_NAME + " (" + "server_guid  CHAR(36)  NOT NULL  PRIMARY KEY, " + "seq          BIGINT  NOT NULL, " + "time         BIGINT  NOT NULL" + ')'}) {// SQLite uses Unicode exclusively
 
             @SuppressWarnings({"null", "unused"})
             @Override
@@ -721,15 +1029,146 @@ public final class DatabaseStorage extends VariablesStorage {
         };
 
         final String createQuery;
+        /**
+         * Queries to create the change log tables, only used if 'monitor changes' is enabled.
+         */
+        final String[] changeLogQueries;
 
-        Type(final String createQuery) {
+        Type(final String createQuery, final String[] changeLogQueries) {
             this.createQuery = createQuery;
+            this.changeLogQueries = changeLogQueries;
         }
 
         @Nullable
         protected abstract Object initialise(final DatabaseStorage s, final SectionNode config); // TODO rename: make initialize (s -> z)
     }
 
+    /**
+     * An entry of the change log.
+     */
+    static final class LoggedChange {
+
+        final long seq;
+        final String guid;
+        final String name;
+        @Nullable
+        final String type;
+        @Nullable
+        final byte[] value;
+
+        LoggedChange(final long seq, final String guid, final String name, @Nullable final String type, @Nullable final byte[] value) {
+            this.seq = seq;
+            this.guid = guid;
+            this.name = name;
+            this.type = type;
+            this.value = value;
+        }
+
+    }
+
+    /**
+     * Performance settings of a SQLite database, applied as pragmas whenever a connection is opened.
+     */
+    private static final class SQLiteSettings {
+
+        private static final List<String> JOURNAL_MODES = Arrays.asList("DELETE", "TRUNCATE", "PERSIST", "MEMORY", "WAL", "OFF");
+        private static final List<String> SYNCHRONOUS_LEVELS = Arrays.asList("OFF", "NORMAL", "FULL", "EXTRA");
+
+        /**
+         * Empty to keep the journal mode of the database file
+         */
+        private final String journalMode;
+        /**
+         * Empty to keep SQLite's default
+         */
+        private final String synchronous;
+        /**
+         * In kibibytes
+         */
+        private final int cacheSize;
+        /**
+         * In mebibytes, 0 to disable memory-mapped I/O
+         */
+        private final int mmapSize;
+        /**
+         * In bytes, only applied when the database is created
+         */
+        private final int pageSize;
+
+        private SQLiteSettings(final String journalMode, final String synchronous, final int cacheSize, final int mmapSize, final int pageSize) {
+            this.journalMode = journalMode;
+            this.synchronous = synchronous;
+            this.cacheSize = cacheSize;
+            this.mmapSize = mmapSize;
+            this.pageSize = pageSize;
+        }
+
+        /**
+         * @param newDatabase Whatever the database file was just created, i.e. the page size can still be changed
+         * @return The settings, or null if an entry is invalid (an error is printed in that case)
+         */
+        @Nullable
+        static final SQLiteSettings load(final DatabaseStorage s, final SectionNode n, final boolean newDatabase) {
+            // WAL is opt-in, as switching to it converts existing database files and creates -wal and -shm files next to them
+            final String journalMode = getChoice(s, n, "journal mode", "", JOURNAL_MODES);
+            final String synchronous = getChoice(s, n, "synchronous", "WAL".equals(journalMode) ? "NORMAL" : "", SYNCHRONOUS_LEVELS);
+            final Integer cacheSize = getInteger(s, n, "cache size", 8192);
+            final Integer mmapSize = getInteger(s, n, "mmap size", 0);
+            final Integer pageSize = getInteger(s, n, "page size", 4096);
+            if (journalMode == null || synchronous == null || cacheSize == null || mmapSize == null || pageSize == null)
+                return null;
+            if (pageSize < 512 || pageSize > 65536 || Integer.bitCount(pageSize) != 1) {
+                Skript.error("The page size of the database '" + s.databaseName + "' must be a power of two between 512 and 65536");
+                return null;
+            }
+            return new SQLiteSettings(journalMode, synchronous, cacheSize, mmapSize, newDatabase ? pageSize : 0);
+        }
+
+        @Nullable
+        private static final String getChoice(final DatabaseStorage s, final SectionNode n, final String key, final String def, final List<String> choices) {
+            final String v = n.getValue(key);
+            if (v == null)
+                return def;
+            final String choice = v.trim().toUpperCase(Locale.ENGLISH);
+            if (!choices.contains(choice)) {
+                Skript.error("The entry for '" + key + "' in the database '" + s.databaseName + "' must be one of " + choices);
+                return null;
+            }
+            return choice;
+        }
+
+        @Nullable
+        private static final Integer getInteger(final DatabaseStorage s, final SectionNode n, final String key, final int def) {
+            if (n.getValue(key) == null)
+                return def;
+            final Integer i = s.getValue(n, key, Integer.class);
+            if (i != null && i < 0) {
+                Skript.error("The entry for '" + key + "' in the database '" + s.databaseName + "' must not be negative");
+                return null;
+            }
+            return i;
+        }
+
+        /**
+         * Applies these settings to the connection of the given database. Must be called before a transaction is started, as the journal mode cannot be changed inside one.
+         */
+        final void apply(final DatabaseStorage s, final Database db, final boolean first) {
+            try (final Statement st = db.getConnection().createStatement()) {
+                if (first && pageSize != 0)
+                    st.execute("PRAGMA page_size = " + pageSize); // must be set before the journal mode is changed to WAL
+                if (!journalMode.isEmpty())
+                    st.execute("PRAGMA journal_mode = " + journalMode);
+                if (!synchronous.isEmpty())
+                    st.execute("PRAGMA synchronous = " + synchronous);
+                st.execute("PRAGMA cache_size = " + -cacheSize); // negative values are in kibibytes instead of pages
+                st.execute("PRAGMA mmap_size = " + mmapSize * 1024L * 1024L);
+            } catch (final SQLException e) {
+                Skript.warning("Could not apply the SQLite settings of the database '" + s.databaseName + "': " + e.getLocalizedMessage());
+            }
+        }
+
+    }
+
     private static final class OldVariablesStorage extends VariablesStorage {
         OldVariablesStorage(final String databaseName) {
             super(databaseName + " old variables table");
@@ -22,7 +22,6 @@
 
 package ch.njol.skript.variables;
 
-import ch.njol.skript.CriticalRegexps;
 import ch.njol.skript.Skript;
 import ch.njol.skript.SkriptCommand;
 import ch.njol.skript.config.SectionNode;
@@ -36,14 +35,11 @@ import org.eclipse.jdt.annotation.Nullable;
 import java.io.*;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * TODO use a database (SQLite) instead and only load a limited amount of variables into RAM - e.g. 2 GB (configurable). If more variables are available they will be loaded when
@@ -62,16 +58,6 @@ public final class FlatFileStorage extends VariablesStorage {
     @SuppressWarnings("null")
     public static final Charset UTF_8 = StandardCharsets.UTF_8;
     public static final int REQUIRED_CHANGES_FOR_RESAVE = Integer.getInteger("skript.requiredVariableChangesForSave", 1000);
-    @SuppressWarnings("null")
-    private static final Pattern csv = CriticalRegexps.CSV;
-    private static final Matcher csvMatcher = csv.matcher("");
-    /**
-     * Use with find()
-     */
-    private static final Matcher containsWhitespaceMatcher = Pattern.compile("\\s").matcher("");
-    private static final Matcher SPLIT_PATTERN_MATCHER = Pattern.compile("\"\"", Pattern.LITERAL).matcher("");
-    private static final String splitQuoted = Matcher.quoteReplacement("\"");
-    private static final Matcher SINGLE_QUOTE_MATCHER = Pattern.compile("\"", Pattern.LITERAL).matcher("");
     static boolean savingVariables;
     private static long savedVariables;
     @Nullable
@@ -85,65 +71,15 @@ public final class FlatFileStorage extends VariablesStorage {
     @Nullable
     private Task saveTask;
     private boolean loadError;
+    /**
+     * Used while loading and, with {@link #connectionLock} locked, while saving.
+     */
+    private final VariablesCSV csv = new VariablesCSV();
 
     FlatFileStorage(final String name) {
         super(name);
     }
 
-    private static final String encode(final byte[] data) {
-        final char[] r = new char[data.length << 1];
-        for (int i = 0; i < data.length; i++) {
-            r[2 * i] = Character.toUpperCase(Character.forDigit((data[i] & 0xF0) >>> 4, 16));
-            r[2 * i + 1] = Character.toUpperCase(Character.forDigit(data[i] & 0xF, 16));
-        }
-        return new String(r);
-    }
-
-    private static final byte[] decode(final CharSequence hex) {
-        final byte[] r = new byte[hex.length() / 2];
-        for (int i = 0; i < r.length; i++) {
-            r[i] = (byte) ((Character.digit(hex.charAt(2 * i), 16) << 4) + Character.digit(hex.charAt(2 * i + 1), 16));
-        }
-        return r;
-    }
-
-    @Nullable
-    private static final String[] splitCSV(final CharSequence line) {
-        final Matcher m = csvMatcher.reset(line);
-        int lastEnd = 0;
-        ArrayList<String> r = null;
-        while (m.find()) {
-            if (lastEnd != m.start())
-                return null;
-            final String v = m.group(1);
-            if (r == null)
-                r = new ArrayList<>();
-            if (!v.isEmpty() && v.charAt(0) == '"')
-                r.add(SPLIT_PATTERN_MATCHER.reset(v.substring(1, v.length() - 1)).replaceAll(splitQuoted));
-            else
-                r.add(v.trim());
-            lastEnd = m.end();
-        }
-        if (lastEnd != line.length())
-            return null;
-        if (r == null)
-            return EmptyArrays.EMPTY_STRING_ARRAY;
-        return r.toArray(EmptyArrays.EMPTY_STRING_ARRAY);
-    }
-
-    private static final void writeCSV(final PrintWriter pw, final String... values) {
-        assert values.length == 3; // name, type, value
-        for (int i = 0; i < values.length; ++i) {
-            if (i != 0)
-                pw.print(", ");
-            String v = values[i];
-            if (v != null && (v.contains(",") || v.contains("\"") || v.contains("#") || containsWhitespaceMatcher.reset(v).find()))
-                v = '"' + SINGLE_QUOTE_MATCHER.reset(v).replaceAll(Matcher.quoteReplacement("\"\"")) + '"';
-            pw.print(v);
-        }
-        pw.println();
-    }
-
     /**
      * Doesn't lock the connection as required by {@link Variables#variableLoaded(String, Object, VariablesStorage)}.
      */
@@ -181,7 +117,7 @@ public final class FlatFileStorage extends VariablesStorage {
                     }
                     continue;
                 }
-                final String[] split = splitCSV(line);
+                final String[] split = csv.split(line);
                 if (split == null || split.length != 3) {
                     Skript.error("invalid amount of commas in line " + lineNum + " ('" + line + "')");
                     if (invalid.length() != 0)
@@ -197,7 +133,7 @@ public final class FlatFileStorage extends VariablesStorage {
                     if (update2_1)
                         d = Classes.deserialize(split[1], split[2]);
                     else
-                        d = Classes.deserialize(split[1], decode(split[2]));
+                        d = Classes.deserialize(split[1], VariablesCSV.decode(split[2]));
                     if (d == null) {
                         if (invalid.length() != 0)
                             invalid.append(", ");
@@ -295,7 +231,7 @@ public final class FlatFileStorage extends VariablesStorage {
                         return false;
                     }
                 }
-                writeCSV(cw, name, type, value == null ? "" : encode(value));
+                csv.write(cw, name, type, value == null ? "" : VariablesCSV.encode(value));
                 cw.flush();
                 changes.incrementAndGet();
                 return true;
@@ -506,7 +442,7 @@ public final class FlatFileStorage extends VariablesStorage {
                         if (s == this) {
                             final SerializedVariable.Value value = Classes.serialize(val);
                             if (value != null) {
-                                writeCSV(pw, name, value.type, encode(value.data));
+                                csv.write(pw, name, value.type, VariablesCSV.encode(value.data));
                                 savedVariables++;
                             }
                         }
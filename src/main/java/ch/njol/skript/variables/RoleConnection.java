@@ -0,0 +1,105 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.variables;
+
+import lib.PatPeter.SQLibrary.Database;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A database connection of a {@link DatabaseStorage} that is used for a single role only. A storage has one connection for writing variables and, if it's monitored,
+ * a second one for reading the changes of other servers, so that a slow monitoring query doesn't block writes and vice versa. This is not a pool: each role always
+ * uses the same connection.
+ * <p>
+ * The connection must be acquired with {@link #acquire()} and released with {@link #release()} around each use, as threads of the same role still share it. The time
+ * spent waiting for it is recorded and can be retrieved with {@link #getStatistics()} to find contention.
+ */
+final class RoleConnection {
+
+    final String role;
+    final Database db;
+    /**
+     * Whatever every statement is committed immediately. Connections that aren't in auto-commit mode are committed by the transaction committing thread of the storage.
+     */
+    final boolean autoCommit;
+    /**
+     * Prepared statements of this connection, must only be used while the connection is acquired.
+     */
+    final StatementCache statements = new StatementCache();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final LongAdder uses = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    RoleConnection(final String role, final Database db, final boolean autoCommit) {
+        this.role = role;
+        this.db = db;
+        this.autoCommit = autoCommit;
+    }
+
+    /**
+     * Waits until no other thread uses this connection and acquires it. Can be called multiple times by the same thread, each call must be matched by a {@link #release()}.
+     *
+     * @return The database of this connection
+     */
+    final Database acquire() {
+        final long start = System.nanoTime();
+        lock.lock();
+        final long wait = System.nanoTime() - start;
+        uses.increment();
+        waitNanos.add(wait);
+        maxWaitNanos.accumulateAndGet(wait, Math::max);
+        return db;
+    }
+
+    final void release() {
+        lock.unlock();
+    }
+
+    /**
+     * Gets a cached prepared statement of this connection. The connection must be acquired by the current thread.
+     */
+    final PreparedStatement prepare(final String sql) throws SQLException {
+        assert lock.isHeldByCurrentThread() : role;
+        return statements.get(db, sql);
+    }
+
+    /**
+     * @return How often this connection was used and how long threads had to wait for it, e.g. "writer: 1200 uses, 0.05 ms average wait, 12.3 ms maximum wait"
+     */
+    final String getStatistics() {
+        final long uses = this.uses.sum();
+        final double averageWait = uses == 0L ? 0. : (double) waitNanos.sum() / uses / TimeUnit.MILLISECONDS.toNanos(1L);
+        final double maxWait = (double) maxWaitNanos.get() / TimeUnit.MILLISECONDS.toNanos(1L);
+        return role + ": " + uses + " uses, " + String.format(Locale.ENGLISH, "%.2f", averageWait) + " ms average wait, " + String.format(Locale.ENGLISH, "%.2f", maxWait) + " ms maximum wait";
+    }
+
+}
@@ -0,0 +1,675 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.variables;
+
+import ch.njol.skript.Skript;
+import ch.njol.skript.SkriptCommand;
+import ch.njol.skript.config.SectionNode;
+import ch.njol.skript.lang.Variable;
+import ch.njol.skript.log.SkriptLogger;
+import ch.njol.skript.registrations.Classes;
+import ch.njol.skript.util.Date;
+import ch.njol.skript.util.ExceptionUtils;
+import ch.njol.skript.util.FileUtils;
+import ch.njol.skript.util.Task;
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A file based storage that partitions the variables over several CSV files (shards) by a stable hash of the first segment of their name, i.e. a list variable and all of its
+ * elements are always stored in the same shard.
+ * <p>
+ * Shards are loaded and compacted in parallel, and only shards that have changed since the last compaction are rewritten. Changes are appended to the shard they belong to
+ * in the meantime, the same way as {@link FlatFileStorage} does it with its single file.
+ * <p>
+ * If the amount of shards is changed, variables are moved to their new shards and the files of removed shards are deleted after the first compaction.
+ */
+public final class ShardedFileStorage extends VariablesStorage {
+
+    /**
+     * The maximum amount of shards, mostly to prevent accidentally creating thousands of files.
+     */
+    public static final int MAX_SHARDS = 256;
+
+    private static final Pattern SHARD_FILE = Pattern.compile("variables-(\\d+)\\.csv");
+
+    private final VariableHandler handler;
+    private final AtomicInteger changes = new AtomicInteger();
+    private Shard[] shards = new Shard[0];
+    /**
+     * Files of shards which don't exist anymore as the amount of shards was reduced. Deleted after all shards have been compacted successfully.
+     */
+    private final List<File> obsoleteFiles = new ArrayList<>();
+    private volatile boolean loaded;
+    @Nullable
+    private Task saveTask;
+
+    ShardedFileStorage(final String name) {
+        super(name);
+        handler = new DefaultHandler();
+    }
+
+    /**
+     * @param handler Used instead of {@link Variables} and {@link Classes} to load and serialize the variables
+     */
+    ShardedFileStorage(final String name, final VariableHandler handler) {
+        super(name);
+        this.handler = handler;
+    }
+
+    /**
+     * @return The index of the shard the given variable belongs to
+     */
+    final int getShard(final String name) {
+        return getShard(name, shards.length);
+    }
+
+    /**
+     * Only depends on the first segment of the variable's name, as all variables of a list have to be stored in the same shard (see {@link #compact(boolean)}).
+     * {@link String#hashCode()} is specified and thus stable across restarts.
+     */
+    static final int getShard(final String name, final int shards) {
+        final int i = name.indexOf(Variable.SEPARATOR);
+        return Math.floorMod((i == -1 ? name : name.substring(0, i)).hashCode(), shards);
+    }
+
+    private static final ExecutorService newExecutor(final String name, final int tasks) {
+        final int threads = Math.max(1, Math.min(tasks, Runtime.getRuntime().availableProcessors()));
+        final AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, r -> {
+            final Thread t = Skript.newThread(r, name + " #" + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Reads and decodes the shard files in parallel, but deserializes the variables on the calling thread as required by
+     * {@link Variables#variableLoaded(String, Object, VariablesStorage)}. Doesn't lock the connection as required by that method as well.
+     */
+    @SuppressWarnings("null")
+    @Override
+    protected final boolean load_i(final SectionNode n) {
+        final String folder = getValue(n, "folder");
+        final Integer shardCount = getValue(n, "shards", Integer.class);
+        if (folder == null || shardCount == null)
+            return false;
+        if (shardCount < 1 || shardCount > MAX_SHARDS) {
+            Skript.error("The amount of shards of the database '" + databaseName + "' must be between 1 and " + MAX_SHARDS);
+            return false;
+        }
+
+        final File directory = new File(folder).getAbsoluteFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            Skript.error("Cannot create the database folder '" + directory.getName() + "'.");
+            return false;
+        }
+        if (!directory.canRead() || !directory.canWrite()) {
+            Skript.error("Cannot read from or write to the database folder '" + directory.getName() + "'!");
+            return false;
+        }
+
+        SkriptLogger.setNode(null);
+
+        final boolean successful = load(directory, shardCount);
+
+        connect();
+
+        saveTask = new Task(Skript.getInstance(), 5 * 60 * 20, 5 * 60 * 20, true) {
+            @Override
+            public final void run() {
+                if (changes.get() >= FlatFileStorage.REQUIRED_CHANGES_FOR_RESAVE)
+                    compact(false);
+            }
+        };
+
+        return successful;
+    }
+
+    /**
+     * Creates the shards in the given folder and loads the variables of all shard files, including the files of shards which don't exist anymore.
+     *
+     * @return Whatever all variables could be loaded
+     */
+    @SuppressWarnings("null")
+    final boolean load(final File directory, final int shardCount) {
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shards.length; i++)
+            shards[i] = new Shard(i, new File(directory, "variables-" + i + ".csv"));
+
+        final File[] files = directory.listFiles((dir, name) -> SHARD_FILE.matcher(name).matches());
+        assert files != null;
+        final List<Future<ShardContents>> contents = new ArrayList<>(files.length);
+        boolean successful = true;
+        final ExecutorService executor = newExecutor("Skript variable loader thread for database '" + databaseName + '\'', files.length);
+        try {
+            for (final File f : files)
+                contents.add(executor.submit(() -> read(f)));
+
+            for (int i = 0; i < files.length; i++) {
+                final File f = files[i];
+                final Matcher m = SHARD_FILE.matcher(f.getName());
+                if (!m.matches())
+                    throw new IllegalStateException(f.getName());
+                final int index = Integer.parseInt(m.group(1));
+                final Shard shard = index < shards.length && shards[index].file.equals(f) ? shards[index] : null;
+                if (shard == null)
+                    obsoleteFiles.add(f);
+
+                final ShardContents c;
+                try {
+                    c = contents.get(i).get();
+                } catch (final ExecutionException e) {
+                    throw Skript.exception(e.getCause(), "Could not load the variables file '" + f.getName() + "'");
+                }
+                if (!load(f, shard, c))
+                    successful = false;
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            successful = false;
+        } finally {
+            executor.shutdown();
+        }
+        return successful;
+    }
+
+    /**
+     * Reads and decodes a shard file. Called in parallel for all files.
+     */
+    private static final ShardContents read(final File f) {
+        final ShardContents c = new ShardContents();
+        final VariablesCSV csv = new VariablesCSV();
+        try (final BufferedReader r = new BufferedReader(new InputStreamReader(new BufferedInputStream(new FileInputStream(f)), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNum = 0;
+            while ((line = r.readLine()) != null) {
+                line = line.trim();
+                ++lineNum;
+                if (line.isEmpty() || line.charAt(0) == '#')
+                    continue;
+                final String[] split = csv.split(line);
+                if (split == null || split.length != 3) {
+                    c.errors.add("invalid amount of commas in line " + lineNum + " ('" + line + "')");
+                    c.invalid.add(split == null ? "<unknown>" : split[0]);
+                    continue;
+                }
+                c.names.add(split[0]);
+                c.types.add(split[1]);
+                c.values.add("null".equals(split[1]) ? null : VariablesCSV.decode(split[2]));
+            }
+        } catch (final IOException e) {
+            c.ioException = e;
+        }
+        return c;
+    }
+
+    /**
+     * Deserializes the variables of a shard file on the main thread.
+     *
+     * @param shard The shard the file belongs to, or null if the shard doesn't exist anymore
+     * @return Whatever all variables could be loaded
+     */
+    @SuppressWarnings("null")
+    private final boolean load(final File f, @Nullable final Shard shard, final ShardContents c) {
+        for (final String error : c.errors)
+            Skript.error(error);
+        final List<String> invalid = new ArrayList<>(c.invalid);
+        for (int i = 0; i < c.names.size(); i++) {
+            final String name = c.names.get(i);
+            final byte[] value = c.values.get(i);
+            if (!handler.loaded(name, value == null ? null : new SerializedVariable.Value(c.types.get(i), value))) {
+                invalid.add(name);
+                continue;
+            }
+            final Shard target = shards[getShard(name)];
+            if (target != shard) { // the amount of shards has changed
+                target.rewrite = true;
+                if (shard != null)
+                    shard.rewrite = true;
+            }
+        }
+
+        if (c.ioException == null && invalid.isEmpty())
+            return true;
+        if (!invalid.isEmpty()) {
+            Skript.error(invalid.size() + " variable" + (invalid.size() == 1 ? "" : "s") + " could not be loaded from '" + f.getName() + "'!");
+            Skript.error("Affected variables: " + String.join(", ", invalid));
+        }
+        if (c.ioException != null) {
+            Skript.error("An I/O error occurred while loading the variables from '" + f.getName() + "': " + ExceptionUtils.toString(c.ioException));
+            Skript.error("This means that some to all variables of this file could not be loaded!");
+        }
+        try {
+            final File bu = FileUtils.backup(f);
+            if (bu != null)
+                Skript.info("Created a backup of " + f.getName() + " as " + bu.getName());
+        } catch (final IOException ex) {
+            Skript.error("Could not backup " + f.getName() + ": " + ex.getMessage());
+            if (shard != null)
+                shard.loadError = true;
+        }
+        return c.ioException == null;
+    }
+
+    @Override
+    protected final void allLoaded() {
+        // no transaction support, but move variables to their new shards if the amount of shards has changed
+        boolean rewrite = !obsoleteFiles.isEmpty();
+        for (final Shard shard : shards)
+            rewrite |= shard.rewrite;
+        if (rewrite) {
+            new Task(Skript.getInstance(), 1, true) {
+                @Override
+                public final void run() {
+                    compact(false);
+                }
+            };
+        }
+    }
+
+    @Override
+    protected final boolean requiresFile() {
+        return false;
+    }
+
+    @Override
+    protected final File getFile(final String file) {
+        return new File(file);
+    }
+
+    @Override
+    @Nullable
+    protected String getStatistics() {
+        int dirty = 0;
+        for (final Shard shard : shards) {
+            if (shard.isDirty())
+                dirty++;
+        }
+        return dirty + " of " + shards.length + " shards changed, " + changes.get() + " changes since the last compaction";
+    }
+
+    @Override
+    protected final boolean save(final String name, @Nullable final String type, @Nullable final byte[] value) {
+        synchronized (connectionLock) {
+            if (!loaded && type == null)
+                return true; // deleting variables is not required while loading, the shard will be rewritten anyway if the variable was moved to a different shard
+            final Shard shard = shards[getShard(name)];
+            synchronized (shard) {
+                final PrintWriter cw = shard.changesWriter;
+                if (cw == null)
+                    return false;
+                shard.csv.write(cw, name, type, value == null ? "" : VariablesCSV.encode(value));
+                cw.flush();
+                shard.changes++;
+            }
+            changes.incrementAndGet();
+            return true;
+        }
+    }
+
+    @Override
+    protected final void disconnect() {
+        synchronized (connectionLock) {
+            for (final Shard shard : shards) {
+                synchronized (shard) {
+                    shard.closeWriter();
+                }
+            }
+        }
+    }
+
+    @Override
+    protected final boolean connect() {
+        synchronized (connectionLock) {
+            for (final Shard shard : shards) {
+                synchronized (shard) {
+                    if (shard.changesWriter != null)
+                        continue;
+                    try {
+                        shard.changesWriter = new PrintWriter(new OutputStreamWriter(new FileOutputStream(shard.file, true), StandardCharsets.UTF_8));
+                    } catch (final FileNotFoundException e) {
+                        Skript.exception(e);
+                        return false;
+                    }
+                }
+            }
+            loaded = true;
+            return true;
+        }
+    }
+
+    /**
+     * Waits until all queued changes are written to the shards (see {@link VariablesStorage#close()}), then compacts all changed shards.
+     */
+    @Override
+    public final void close() {
+        super.close();
+        compact(true);
+    }
+
+    /**
+     * Rewrites all shards that have changed since their last compaction in parallel.
+     *
+     * @param finalSave Whatever this is the last save in this session or not. Also closes the shards if true.
+     */
+    final void compact(final boolean finalSave) {
+        if (finalSave) {
+            final Task st = saveTask;
+            if (st != null)
+                st.cancel();
+        } else if (!Skript.isSkriptRunning()) {
+            return; // the final save will compact the shards
+        }
+        try {
+            Variables.getReadLock().lock();
+            compact(Variables.getVariables(), finalSave);
+        } finally {
+            Variables.getReadLock().unlock();
+            final boolean gotLock = Variables.variablesLock.writeLock().tryLock();
+            if (gotLock) { // Only process queue now if it doesn't require us to wait
+                try {
+                    Variables.processChangeQueue();
+                } finally {
+                    Variables.variablesLock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Rewrites all shards that have changed since their last compaction in parallel. The variables must not be changed meanwhile.
+     *
+     * @param variables The first level of the variables map, see {@link Variables#getVariables()}
+     * @param finalSave Whatever this is the last save in this session or not. Also closes the shards if true.
+     * @return Whatever all changed shards could be rewritten
+     */
+    @SuppressWarnings({"null", "unchecked"})
+    final boolean compact(final Map<String, Object> variables, final boolean finalSave) {
+        synchronized (connectionLock) {
+            final List<Shard> dirty = new ArrayList<>();
+            for (final Shard shard : shards) {
+                if (shard.isDirty())
+                    dirty.add(shard);
+            }
+            if (dirty.isEmpty() && obsoleteFiles.isEmpty()) {
+                if (finalSave)
+                    disconnect();
+                return true;
+            }
+
+            if (finalSave)
+                SkriptCommand.setPriority();
+            final Date start = new Date();
+
+            // lists are always stored in the same shard as their elements, so only the first level of the variables map has to be split up
+            final List<List<Entry<String, Object>>> entries = new ArrayList<>(shards.length);
+            for (int i = 0; i < shards.length; i++)
+                entries.add(shards[i].isDirty() ? new ArrayList<>() : null);
+            for (final Entry<String, Object> e : variables.entrySet()) {
+                final List<Entry<String, Object>> shardEntries = entries.get(getShard(e.getKey()));
+                if (shardEntries != null)
+                    shardEntries.add(e);
+            }
+
+            final ExecutorService executor = newExecutor("Skript variable save thread for database '" + databaseName + '\'', dirty.size());
+            boolean successful = true;
+            int saved = 0;
+            try {
+                final List<Future<Integer>> results = new ArrayList<>(dirty.size());
+                for (final Shard shard : dirty)
+                    results.add(executor.submit(() -> write(shard, entries.get(shard.index), finalSave)));
+                for (final Future<Integer> result : results) {
+                    try {
+                        saved += result.get();
+                    } catch (final ExecutionException e) {
+                        successful = false;
+                        final Throwable cause = e.getCause();
+                        if (cause instanceof IOException)
+                            Skript.error("Unable to compact the database '" + databaseName + "' (no variables are lost): " + ExceptionUtils.toString((IOException) cause));
+                        else
+                            Skript.exception(cause, "Unable to compact the database '" + databaseName + "' (no variables are lost)");
+                    }
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                successful = false;
+            } finally {
+                executor.shutdown();
+            }
+
+            if (successful) {
+                changes.set(0);
+                for (final File f : obsoleteFiles) {
+                    if (!f.delete())
+                        Skript.error("Could not delete the old variables file '" + f.getName() + "', please delete it yourself.");
+                }
+                obsoleteFiles.clear();
+            }
+            if (finalSave || Skript.logHigh())
+                Skript.info("Saved " + saved + " variables in " + dirty.size() + " of " + shards.length + " shards" + (Skript.logNormal() ? " in " + start.difference(new Date()) : "") + (Skript.logHigh() ? " to '" + databaseName + '\'' : ""));
+
+            if (finalSave) {
+                disconnect();
+                SkriptCommand.resetPriority();
+            }
+            return successful;
+        }
+    }
+
+    /**
+     * Rewrites a single shard. Called in parallel for all changed shards while the connection is locked, so no changes can be appended to the shard meanwhile.
+     *
+     * @return The amount of variables written
+     */
+    @SuppressWarnings("null")
+    private final int write(final Shard shard, final List<Entry<String, Object>> entries, final boolean finalSave) throws IOException {
+        synchronized (shard) {
+            shard.closeWriter();
+
+            if (shard.loadError) {
+                final File backup = FileUtils.backup(shard.file);
+                if (backup != null)
+                    Skript.info("Created a backup of the old " + shard.file.getName() + " as " + backup.getName());
+                shard.loadError = false;
+            }
+
+            final File tempFile = new File(shard.file.getPath() + ".temp");
+            int saved = 0;
+            try {
+                try (final PrintWriter pw = new PrintWriter(tempFile, "UTF-8")) {
+                    pw.println("# === Skript's variable storage ===");
+                    pw.println("# Please do not modify this file manually!");
+                    pw.println("#");
+                    pw.println("# version: " + Skript.getVersion());
+                    pw.println();
+                    for (final Entry<String, Object> e : entries) {
+                        final Object val = e.getValue();
+                        if (val instanceof TreeMap)
+                            saved += save(pw, shard.csv, e.getKey() + Variable.SEPARATOR, (TreeMap<String, Object>) val);
+                        else if (val != null)
+                            saved += save(pw, shard.csv, e.getKey(), val);
+                    }
+                    pw.println();
+                    if (pw.checkError())
+                        throw new IOException("Could not write to " + tempFile.getName());
+                }
+                FileUtils.move(tempFile, shard.file, true);
+                shard.changes = 0;
+                shard.rewrite = false;
+            } finally {
+                if (!finalSave) {
+                    shard.changesWriter = new PrintWriter(new OutputStreamWriter(new FileOutputStream(shard.file, true), StandardCharsets.UTF_8));
+                }
+            }
+            return saved;
+        }
+    }
+
+    /**
+     * Saves a list variable.
+     *
+     * @param parent The list's name with {@link Variable#SEPARATOR} at the end
+     * @see FlatFileStorage
+     */
+    @SuppressWarnings("unchecked")
+    private final int save(final PrintWriter pw, final VariablesCSV csv, final String parent, final TreeMap<String, Object> map) {
+        int saved = 0;
+        for (final Entry<String, Object> e : map.entrySet()) {
+            final Object val = e.getValue();
+            if (val == null)
+                continue;
+            if (val instanceof TreeMap)
+                saved += save(pw, csv, parent + e.getKey() + Variable.SEPARATOR, (TreeMap<String, Object>) val);
+            else
+                saved += save(pw, csv, e.getKey() == null ? parent.substring(0, parent.length() - Variable.SEPARATOR.length()) : parent + e.getKey(), val);
+        }
+        return saved;
+    }
+
+    /**
+     * Saves a single variable if this storage is the one responsible for it.
+     */
+    private final int save(final PrintWriter pw, final VariablesCSV csv, final String name, final Object val) {
+        final SerializedVariable.Value value = handler.serialize(name, val);
+        if (value == null)
+            return 0;
+        csv.write(pw, name, value.type, VariablesCSV.encode(value.data));
+        return 1;
+    }
+
+    /**
+     * Hands the loaded variables to {@link Variables} and serializes them for compaction. Separate from the storage so the file handling can be tested without any
+     * registered classes.
+     */
+    interface VariableHandler {
+
+        /**
+         * Called on the main thread for every variable in the order it appears in the shard files.
+         *
+         * @param value The serialized value, or null if the variable was deleted
+         * @return Whatever the value could be deserialized
+         */
+        boolean loaded(String name, @Nullable SerializedVariable.Value value);
+
+        /**
+         * Called in parallel for all shards that are compacted.
+         *
+         * @return The serialized value, or null if the variable is not stored in this database or can't be saved
+         */
+        @Nullable
+        SerializedVariable.Value serialize(String name, Object value);
+
+    }
+
+    private final class DefaultHandler implements VariableHandler {
+
+        DefaultHandler() {}
+
+        @Override
+        public final boolean loaded(final String name, @Nullable final SerializedVariable.Value value) {
+            final Object d = value == null ? null : Classes.deserialize(value.type, value.data);
+            if (value != null && d == null)
+                return false;
+            Variables.variableLoaded(name, d, ShardedFileStorage.this);
+            return true;
+        }
+
+        @Override
+        @Nullable
+        public final SerializedVariable.Value serialize(final String name, final Object value) {
+            for (final VariablesStorage s : Variables.storages) {
+                if (s.accept(name))
+                    return s == ShardedFileStorage.this ? Classes.serialize(value) : null;
+            }
+            return null;
+        }
+
+    }
+
+    private static final class Shard {
+
+        final int index;
+        final File file;
+        /**
+         * Used to append changes and to compact the shard, both of which lock the shard.
+         */
+        final VariablesCSV csv = new VariablesCSV();
+        @Nullable
+        PrintWriter changesWriter;
+        /**
+         * Changes appended since the last compaction
+         */
+        int changes;
+        /**
+         * Whatever the shard has to be rewritten even if it hasn't changed, e.g. because variables were moved to or from it.
+         */
+        volatile boolean rewrite;
+        boolean loadError;
+
+        Shard(final int index, final File file) {
+            this.index = index;
+            this.file = file;
+        }
+
+        final synchronized boolean isDirty() {
+            return changes != 0 || rewrite || loadError;
+        }
+
+        final void closeWriter() {
+            final PrintWriter cw = changesWriter;
+            if (cw != null) {
+                cw.close();
+                changesWriter = null;
+            }
+        }
+
+    }
+
+    /**
+     * The decoded contents of a shard file
+     */
+    private static final class ShardContents {
+
+        final List<String> names = new ArrayList<>();
+        final List<String> types = new ArrayList<>();
+        final List<byte[]> values = new ArrayList<>();
+        final List<String> errors = new ArrayList<>();
+        final List<String> invalid = new ArrayList<>();
+        @Nullable
+        IOException ioException;
+
+    }
+
+}
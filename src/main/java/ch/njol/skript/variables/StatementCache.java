@@ -0,0 +1,95 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.variables;
+
+import lib.PatPeter.SQLibrary.Database;
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Caches the prepared statements of a database by their SQL.
+ * <p>
+ * Statements are prepared lazily on first use and reused until the connection of the database changes (e.g. after a reconnect or a backup), at which point all
+ * statements are closed and prepared again on the new connection. Must be locked by the caller, like the database itself.
+ */
+final class StatementCache {
+
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+    @Nullable
+    private Connection connection;
+
+    /**
+     * Gets the cached statement for the given SQL, preparing it if it isn't cached for the current connection of the database.
+     *
+     * @param db  The database to prepare the statement with
+     * @param sql The SQL of the statement
+     * @return The prepared statement, valid until the next call to {@link #invalidate()} or until the connection changes
+     * @throws SQLException If the statement could not be prepared
+     */
+    final PreparedStatement get(final Database db, final String sql) throws SQLException {
+        return get(db.getConnection(), sql);
+    }
+
+    /**
+     * Gets the cached statement for the given SQL, preparing it if it isn't cached for the given connection.
+     *
+     * @param con The current connection of the database
+     * @param sql The SQL of the statement
+     * @return The prepared statement, valid until the next call to {@link #invalidate()} or until the connection changes
+     * @throws SQLException If the statement could not be prepared
+     */
+    final PreparedStatement get(final Connection con, final String sql) throws SQLException {
+        if (con != connection) {
+            invalidate();
+            connection = con;
+        }
+        PreparedStatement s = statements.get(sql);
+        if (s == null) {
+            s = con.prepareStatement(sql);
+            statements.put(sql, s);
+        }
+        return s;
+    }
+
+    /**
+     * Closes all cached statements. They will be prepared again when they are used the next time.
+     */
+    final void invalidate() {
+        for (final PreparedStatement s : statements.values()) {
+            try {
+                s.close();
+            } catch (final SQLException ignored) {
+                /* ignored */
+            }
+        }
+        statements.clear();
+        connection = null;
+    }
+
+}
@@ -22,9 +22,9 @@
 
 package ch.njol.skript.variables;
 
+import ch.njol.skript.lang.ParserInstance;
 import org.eclipse.jdt.annotation.Nullable;
 
-import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.Map;
@@ -38,15 +38,10 @@ import java.util.Map;
  * <li>ScriptLoader clears hints after each section has been parsed
  * <li>ScriptLoader enters and exists scopes as needed
  * </ul>
+ * The hints are stored in the {@link ParserInstance} of the current thread.
  */
 public final class TypeHints {
 
-    private static final Deque<Map<String, Class<?>>> typeHints = new ArrayDeque<>(100);
-
-    static {
-        clear(); // Initialize type hints
-    }
-
     private TypeHints() {
         throw new UnsupportedOperationException();
     }
@@ -56,14 +51,14 @@ public final class TypeHints {
             return;
 
         // Take top of stack, without removing it
-        final Map<String, Class<?>> hints = typeHints.getFirst();
+        final Map<String, Class<?>> hints = ParserInstance.get().getTypeHints().getFirst();
         hints.put(variable, hint);
     }
 
     @Nullable
     public static final Class<?> get(final String variable) {
         // Go through stack of hints for different scopes
-        for (final Map<String, Class<?>> hints : typeHints) {
+        for (final Map<String, Class<?>> hints : ParserInstance.get().getTypeHints()) {
             final Class<?> hint = hints.get(variable);
             if (hint != null) // Found in this scope
                 return hint;
@@ -73,14 +68,15 @@ public final class TypeHints {
     }
 
     public static final void enterScope() {
-        typeHints.push(new HashMap<>());
+        ParserInstance.get().getTypeHints().push(new HashMap<>());
     }
 
     public static final void exitScope() {
-        typeHints.pop();
+        ParserInstance.get().getTypeHints().pop();
     }
 
     public static final void clear() {
+        final Deque<Map<String, Class<?>>> typeHints = ParserInstance.get().getTypeHints();
         typeHints.clear();
         typeHints.push(new HashMap<>());
     }
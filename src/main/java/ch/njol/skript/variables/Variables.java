@@ -81,9 +81,12 @@ public final class Variables {
      */
     private static final VariablesMap variables = new VariablesMap();
     /**
-     * Not accessed concurrently
+     * The local variables of each event. Synchronized, as triggers of asynchronous events may run on the event's thread (see
+     * {@link ch.njol.skript.lang.AsyncExecution}) while triggers of other events run on the main thread. The {@link VariablesMap} of a single event is not
+     * synchronized: it is only used by the thread currently executing a trigger of that event, as the event's thread waits while a trigger continues on the main
+     * thread.
      */
-    private static final WeakHashMap<Event, VariablesMap> localVariables = new WeakHashMap<>(100);
+    private static final Map<Event, VariablesMap> localVariables = Collections.synchronizedMap(new WeakHashMap<>(100));
     /**
      * Changes to variables that have not yet been written.
      */
@@ -202,6 +205,8 @@ public final class Variables {
                         final VariablesStorage s;
                         if ("csv".equalsIgnoreCase(type) || "file".equalsIgnoreCase(type) || "flatfile".equalsIgnoreCase(type)) {
                             s = new FlatFileStorage(name);
+                        } else if ("sharded csv".equalsIgnoreCase(type) || "sharded file".equalsIgnoreCase(type)) {
+                            s = new ShardedFileStorage(name);
                         } else if ("mysql".equalsIgnoreCase(type)) {
                             s = new DatabaseStorage(name, Type.MYSQL);
                         } else if ("sqlite".equalsIgnoreCase(type)) {
@@ -373,9 +378,7 @@ public final class Variables {
         }
         if (local) {
             assert e != null : name;
-            VariablesMap map = localVariables.get(e);
-            if (map == null)
-                localVariables.put(e, map = new VariablesMap());
+            final VariablesMap map = localVariables.computeIfAbsent(e, k -> new VariablesMap());
             map.setVariable(name, value);
         } else {
             setVariable(name, value);
@@ -0,0 +1,116 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.variables;
+
+import ch.njol.skript.CriticalRegexps;
+import ch.njol.skript.util.EmptyArrays;
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The CSV format of the file based variable storages, i.e. one "name, type, value" line per variable with the value encoded in hexadecimal.
+ * <p>
+ * Instances reuse their matchers and are thus not thread safe, use one instance per thread.
+ */
+final class VariablesCSV {
+
+    @SuppressWarnings("null")
+    private static final Pattern csv = CriticalRegexps.CSV;
+    /**
+     * Use with find()
+     */
+    private static final Pattern containsWhitespace = Pattern.compile("\\s");
+    private static final Pattern splitPattern = Pattern.compile("\"\"", Pattern.LITERAL);
+    private static final String splitQuoted = Matcher.quoteReplacement("\"");
+    private static final Pattern singleQuote = Pattern.compile("\"", Pattern.LITERAL);
+    private static final String joinQuoted = Matcher.quoteReplacement("\"\"");
+
+    private final Matcher csvMatcher = csv.matcher("");
+    private final Matcher containsWhitespaceMatcher = containsWhitespace.matcher("");
+    private final Matcher splitPatternMatcher = splitPattern.matcher("");
+    private final Matcher singleQuoteMatcher = singleQuote.matcher("");
+
+    static final String encode(final byte[] data) {
+        final char[] r = new char[data.length << 1];
+        for (int i = 0; i < data.length; i++) {
+            r[2 * i] = Character.toUpperCase(Character.forDigit((data[i] & 0xF0) >>> 4, 16));
+            r[2 * i + 1] = Character.toUpperCase(Character.forDigit(data[i] & 0xF, 16));
+        }
+        return new String(r);
+    }
+
+    static final byte[] decode(final CharSequence hex) {
+        final byte[] r = new byte[hex.length() / 2];
+        for (int i = 0; i < r.length; i++) {
+            r[i] = (byte) ((Character.digit(hex.charAt(2 * i), 16) << 4) + Character.digit(hex.charAt(2 * i + 1), 16));
+        }
+        return r;
+    }
+
+    /**
+     * Splits a line into its values.
+     *
+     * @return The values of the line, or null if the line is not valid CSV
+     */
+    @Nullable
+    final String[] split(final CharSequence line) {
+        final Matcher m = csvMatcher.reset(line);
+        int lastEnd = 0;
+        ArrayList<String> r = null;
+        while (m.find()) {
+            if (lastEnd != m.start())
+                return null;
+            final String v = m.group(1);
+            if (r == null)
+                r = new ArrayList<>();
+            if (!v.isEmpty() && v.charAt(0) == '"')
+                r.add(splitPatternMatcher.reset(v.substring(1, v.length() - 1)).replaceAll(splitQuoted));
+            else
+                r.add(v.trim());
+            lastEnd = m.end();
+        }
+        if (lastEnd != line.length())
+            return null;
+        if (r == null)
+            return EmptyArrays.EMPTY_STRING_ARRAY;
+        return r.toArray(EmptyArrays.EMPTY_STRING_ARRAY);
+    }
+
+    final void write(final PrintWriter pw, final String... values) {
+        assert values.length == 3; // name, type, value
+        for (int i = 0; i < values.length; ++i) {
+            if (i != 0)
+                pw.print(", ");
+            String v = values[i];
+            if (v != null && (v.contains(",") || v.contains("\"") || v.contains("#") || containsWhitespaceMatcher.reset(v).find()))
+                v = '"' + singleQuoteMatcher.reset(v).replaceAll(joinQuoted) + '"';
+            pw.print(v);
+        }
+        pw.println();
+    }
+
+}
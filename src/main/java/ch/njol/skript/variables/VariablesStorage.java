@@ -226,6 +226,16 @@ public abstract class VariablesStorage implements Closeable {
      */
     protected abstract void disconnect();
 
+    /**
+     * Gets statistics about this storage which help to find out why it is too slow, e.g. how long threads had to wait for its connections.
+     *
+     * @return The statistics, or null if this storage doesn't provide any
+     */
+    @Nullable
+    protected String getStatistics() {
+        return null;
+    }
+
     public final void startBackupTask(final Timespan t) {
         final File file = this.file;
         if (file == null || t.getTicks_i() == 0)
@@ -259,7 +269,8 @@ public abstract class VariablesStorage implements Closeable {
      */
     final void save(final SerializedVariable var) {
         if (changesQueue.size() > FIRST_WARNING && lastWarning < System.currentTimeMillis() - WARNING_INTERVAL * 1000) {
-            Skript.warning("Cannot write variables to the database '" + databaseName + "' at sufficient speed; server performance may suffer and many variables will be lost if the server crashes. (this warning will be repeated at most once every " + WARNING_INTERVAL + " seconds)");
+            final String statistics = getStatistics();
+            Skript.warning("Cannot write variables to the database '" + databaseName + "' at sufficient speed; server performance may suffer and many variables will be lost if the server crashes. " + (statistics != null ? "(" + statistics + ") " : "") + "(this warning will be repeated at most once every " + WARNING_INTERVAL + " seconds)");
             lastWarning = System.currentTimeMillis();
         }
         if (!changesQueue.offer(var)) {
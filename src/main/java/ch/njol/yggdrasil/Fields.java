@@ -27,16 +27,26 @@ import ch.njol.yggdrasil.YggdrasilSerializable.YggdrasilRobustSerializable;
 import org.eclipse.jdt.annotation.Nullable;
 
 import javax.annotation.concurrent.NotThreadSafe;
+import javax.annotation.concurrent.ThreadSafe;
 import java.io.NotSerializableException;
 import java.io.StreamCorruptedException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.util.*;
 
+/**
+ * Holds the fields of a single object while it is (de)serialised. Instances are confined to the thread of the stream using them,
+ * but the per-class field cache used by {@link #getFields(Class)} is shared and thread-safe.
+ */
 @NotThreadSafe
 public final class Fields implements Iterable<FieldContext> {
 
-    private static final Map<Class<?>, Collection<Field>> cache = new HashMap<>();
+    private static final ClassValue<CachedFields> cache = new ClassValue<CachedFields>() {
+        @Override
+        protected final CachedFields computeValue(final Class<?> c) {
+            return new CachedFields(c);
+        }
+    };
     @Nullable
     private final Yggdrasil yggdrasil;
 
@@ -106,28 +116,7 @@ public final class Fields implements Iterable<FieldContext> {
      * @throws NotSerializableException If a field occurs more than once (i.e. if a class has a field with the same name as a field in one of its superclasses)
      */
     public static final Collection<Field> getFields(final Class<?> c) throws NotSerializableException {
-        Collection<Field> fields = cache.get(c);
-        if (fields != null)
-            return fields;
-        fields = new ArrayList<>();
-        final Collection<String> ids = new HashSet<>();
-        for (Class<?> sc = c; sc != null; sc = sc.getSuperclass()) {
-            final Field[] fs = sc.getDeclaredFields();
-            for (final Field f : fs) {
-                final int m = f.getModifiers();
-                if (Modifier.isStatic(m) || Modifier.isTransient(m))
-                    continue;
-                final String id = Yggdrasil.getID(f);
-                if (ids.contains(id))
-                    throw new NotSerializableException(c + "/" + sc + ": duplicate field id '" + id + '\'');
-                f.setAccessible(true);
-                fields.add(f);
-                ids.add(id);
-            }
-        }
-        fields = Collections.unmodifiableCollection(fields);
-        cache.put(c, fields);
-        return fields;
+        return cache.get(c).get();
     }
 
     /**
@@ -272,6 +261,51 @@ public final class Fields implements Iterable<FieldContext> {
         return "Fields{fields=" + fields + '}';
     }
 
+    /**
+     * The serialisable fields of a class, computed once per class. If the class has duplicate field IDs, the error is cached instead,
+     * and re-thrown each time the fields are requested.
+     */
+    @ThreadSafe
+    private static final class CachedFields {
+
+        @Nullable
+        private final Collection<Field> fields;
+        @Nullable
+        private final String error;
+
+        CachedFields(final Class<?> c) {
+            final Collection<Field> fields = new ArrayList<>();
+            final Collection<String> ids = new HashSet<>();
+            for (Class<?> sc = c; sc != null; sc = sc.getSuperclass()) {
+                final Field[] fs = sc.getDeclaredFields();
+                for (final Field f : fs) {
+                    final int m = f.getModifiers();
+                    if (Modifier.isStatic(m) || Modifier.isTransient(m))
+                        continue;
+                    final String id = Yggdrasil.getID(f);
+                    if (ids.contains(id)) {
+                        this.fields = null;
+                        error = c + "/" + sc + ": duplicate field id '" + id + '\'';
+                        return;
+                    }
+                    f.setAccessible(true);
+                    fields.add(f);
+                    ids.add(id);
+                }
+            }
+            this.fields = Collections.unmodifiableCollection(fields);
+            error = null;
+        }
+
+        final Collection<Field> get() throws NotSerializableException {
+            final Collection<Field> fields = this.fields;
+            if (fields == null)
+                throw new NotSerializableException(error);
+            return fields;
+        }
+
+    }
+
     /**
      * Holds a field's name and value, and throws {@link StreamCorruptedException}s if primitives or objects are used incorrectly.
      *
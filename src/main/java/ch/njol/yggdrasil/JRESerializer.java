@@ -25,11 +25,16 @@ package ch.njol.yggdrasil;
 import ch.njol.skript.Skript;
 import org.eclipse.jdt.annotation.Nullable;
 
+import javax.annotation.concurrent.ThreadSafe;
 import java.io.NotSerializableException;
 import java.io.StreamCorruptedException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.*;
 
+/**
+ * Serializer for the few JRE classes Yggdrasil supports out of the box. Stateless, thus it is safe to share between threads.
+ */
+@ThreadSafe
 public final class JRESerializer extends YggdrasilSerializer<Object> {
 
     private static final Class<?>[] supportedClasses = {ArrayList.class, LinkedList.class, HashSet.class, HashMap.class, UUID.class
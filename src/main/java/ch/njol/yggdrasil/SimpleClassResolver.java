@@ -22,33 +22,43 @@
 
 package ch.njol.yggdrasil;
 
-import ch.njol.util.coll.BidiHashMap;
-import ch.njol.util.coll.BidiMap;
 import org.eclipse.jdt.annotation.Nullable;
 
-import javax.annotation.concurrent.NotThreadSafe;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-@NotThreadSafe
+/**
+ * A {@link ClassResolver} for classes registered with a fixed ID.
+ * <p>
+ * Registering is synchronized to keep both directions consistent, lookups are lock-free.
+ */
+@ThreadSafe
 public final class SimpleClassResolver implements ClassResolver {
 
-    private final BidiMap<Class<?>, String> classes = new BidiHashMap<>();
+    private final Map<Class<?>, String> ids = new ConcurrentHashMap<>();
+    private final Map<String, Class<?>> classes = new ConcurrentHashMap<>();
 
-    public final void registerClass(final Class<?> c, final String id) {
-        final String oldId = classes.put(c, id);
+    public final synchronized void registerClass(final Class<?> c, final String id) {
+        final String oldId = ids.get(c);
         if (oldId != null && !oldId.equals(id))
             throw new YggdrasilException("Changed id of " + c + " from " + oldId + " to " + id);
+        final Class<?> oldClass = classes.put(id, c);
+        if (oldClass != null && oldClass != c)
+            ids.remove(oldClass);
+        ids.put(c, id);
     }
 
     @Override
     @Nullable
     public final Class<?> getClass(final String id) {
-        return classes.getKey(id);
+        return classes.get(id);
     }
 
     @Override
     @Nullable
     public final String getID(final Class<?> c) {
-        return classes.getValue(c);
+        return ids.get(c);
     }
 
 }
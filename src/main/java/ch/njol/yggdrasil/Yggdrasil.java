@@ -27,13 +27,12 @@ import ch.njol.yggdrasil.Fields.FieldContext;
 import ch.njol.yggdrasil.YggdrasilSerializable.YggdrasilRobustEnum;
 import org.eclipse.jdt.annotation.Nullable;
 
-import javax.annotation.concurrent.NotThreadSafe;
+import javax.annotation.concurrent.ThreadSafe;
 import java.io.*;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Yggdrasil is a simple data format to store object graphs.
@@ -62,10 +61,17 @@ import java.util.List;
  * <p>
  * The behaviour in case of an invalid or outdated stream can be defined likewise, or one can implement {@link YggdrasilSerializable.YggdrasilRobustSerializable} or {@link YggdrasilRobustEnum}
  * respectively.
+ * <p>
+ * <b>Concurrency</b>
+ * <p>
+ * A single Yggdrasil instance can be shared by any number of threads. All per-stream state (written objects, short string tables, read references) lives in the
+ * {@link YggdrasilOutputStream} or {@link YggdrasilInputStream} created by {@link #newOutputStream(OutputStream)} and {@link #newInputStream(InputStream)}, so each thread
+ * must use its own streams, but can (de)serialise concurrently with other threads. Class resolvers, serializers and field handlers are registered at startup and can be made
+ * immutable with {@link #closeRegistrations()}, after which the instance is safe to use from a worker pool without any further synchronization.
  *
  * @author Peter Güttinger
  */
-@NotThreadSafe
+@ThreadSafe
 public final class Yggdrasil {
 
     /**
@@ -82,11 +88,13 @@ public final class Yggdrasil {
 
     public final short version;
 
-    private final List<ClassResolver> classResolvers = new ArrayList<>();
-    private final List<FieldHandler> fieldHandlers = new ArrayList<>();
+    private final CopyOnWriteArrayList<ClassResolver> classResolvers = new CopyOnWriteArrayList<>();
+    private final CopyOnWriteArrayList<FieldHandler> fieldHandlers = new CopyOnWriteArrayList<>();
 
     private final SimpleClassResolver simpleClassResolver = new SimpleClassResolver();
 
+    private volatile boolean acceptRegistrations = true;
+
     public Yggdrasil() {
         this(LATEST_VERSION);
     }
@@ -155,12 +163,34 @@ public final class Yggdrasil {
         return new DefaultYggdrasilInputStream(this, in);
     }
 
+    /**
+     * Makes the registered class resolvers, classes and field handlers immutable. Any later attempt to register something will throw an {@link YggdrasilException}.
+     * <p>
+     * Should be called once all classes are registered (i.e. at the end of startup), before this instance is used from multiple threads.
+     */
+    public void closeRegistrations() {
+        acceptRegistrations = false;
+    }
+
+    /**
+     * @return Whatever this instance still accepts new class resolvers, classes and field handlers
+     */
+    public boolean isAcceptRegistrations() {
+        return acceptRegistrations;
+    }
+
+    private void checkAcceptRegistrations() {
+        if (!acceptRegistrations)
+            throw new YggdrasilException("Registering to Yggdrasil is disabled after registrations are closed");
+    }
+
     public void registerClassResolver(final ClassResolver r) {
-        if (!classResolvers.contains(r))
-            classResolvers.add(r);
+        checkAcceptRegistrations();
+        classResolvers.addIfAbsent(r);
     }
 
     public void registerSingleClass(final Class<?> c, final String id) {
+        checkAcceptRegistrations();
         simpleClassResolver.registerClass(c, id);
     }
 
@@ -168,6 +198,7 @@ public final class Yggdrasil {
      * Registers a class and uses its {@link YggdrasilID} as id.
      */
     public void registerSingleClass(final Class<?> c) {
+        checkAcceptRegistrations();
         final YggdrasilID id = c.getAnnotation(YggdrasilID.class);
         if (id == null)
             throw new IllegalArgumentException(c.toString());
@@ -175,8 +206,8 @@ public final class Yggdrasil {
     }
 
     public void registerFieldHandler(final FieldHandler h) {
-        if (!fieldHandlers.contains(h))
-            fieldHandlers.add(h);
+        checkAcceptRegistrations();
+        fieldHandlers.addIfAbsent(h);
     }
 
     public boolean isSerializable(final Class<?> c) {
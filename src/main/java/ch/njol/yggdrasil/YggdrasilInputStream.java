@@ -25,6 +25,7 @@ package ch.njol.yggdrasil;
 import ch.njol.yggdrasil.YggdrasilSerializable.YggdrasilExtendedSerializable;
 import org.eclipse.jdt.annotation.Nullable;
 
+import javax.annotation.concurrent.NotThreadSafe;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.StreamCorruptedException;
@@ -34,6 +35,11 @@ import java.util.List;
 
 import static ch.njol.yggdrasil.Tag.*;
 
+/**
+ * Holds the state of a single deserialisation, e.g. the objects read so far. Streams must not be shared between threads,
+ * but multiple streams of the same {@link Yggdrasil} can be used concurrently.
+ */
+@NotThreadSafe
 public abstract class YggdrasilInputStream implements Closeable {
 
     protected final Yggdrasil yggdrasil;
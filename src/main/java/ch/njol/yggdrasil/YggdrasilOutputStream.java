@@ -26,6 +26,7 @@ import ch.njol.yggdrasil.Fields.FieldContext;
 import ch.njol.yggdrasil.YggdrasilSerializable.YggdrasilExtendedSerializable;
 import org.eclipse.jdt.annotation.Nullable;
 
+import javax.annotation.concurrent.NotThreadSafe;
 import java.io.Closeable;
 import java.io.Flushable;
 import java.io.IOException;
@@ -35,6 +36,11 @@ import java.util.IdentityHashMap;
 
 import static ch.njol.yggdrasil.Tag.*;
 
+/**
+ * Holds the state of a single serialisation, e.g. the objects written so far. Streams must not be shared between threads,
+ * but multiple streams of the same {@link Yggdrasil} can be used concurrently.
+ */
+@NotThreadSafe
 public abstract class YggdrasilOutputStream implements Flushable, Closeable {
 
     protected final Yggdrasil yggdrasil;
@@ -0,0 +1,90 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript;
+
+import ch.njol.skript.config.Config;
+import ch.njol.skript.config.Node;
+import ch.njol.skript.config.SectionNode;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+@SuppressWarnings("static-method")
+final class ScriptLoaderTest {
+
+    private static final String SCRIPT = "on join:\n\tbroadcast \"joined\"\n\non quit:\n\tbroadcast \"quit\"\n\ncommand /test:\n\ttrigger:\n\t\tsend \"test\"\n";
+
+    private static List<String> getSources(final String script) throws IOException {
+        final Config config = new Config(script, "test.sk", true, false, ":");
+        final List<String> sources = new ArrayList<>();
+        for (final Node node : config.getMainNode()) {
+            if (node instanceof SectionNode)
+                sources.add(ScriptLoader.getSource(node));
+        }
+        return sources;
+    }
+
+    @Test
+    void testSourceIgnoresFormatting() throws IOException {
+        assertEquals(getSources(SCRIPT), getSources("# a comment\n" + SCRIPT.replace("\"joined\"", "\"joined\" # another comment") + "\n\n"));
+        assertNotEquals(getSources(SCRIPT).get(0), getSources(SCRIPT.replace("\"joined\"", "\"welcome\"")).get(0));
+    }
+
+    @Test
+    void testUnchanged() throws IOException {
+        assertArrayEquals(new int[]{0, 1, 2}, ScriptLoader.matchSections(getSources(SCRIPT), getSources(SCRIPT)));
+    }
+
+    @Test
+    void testAddedSection() throws IOException {
+        final List<String> sources = getSources("on death:\n\tbroadcast \"died\"\n\n" + SCRIPT);
+        assertArrayEquals(new int[]{-1, 0, 1, 2}, ScriptLoader.matchSections(sources, getSources(SCRIPT)));
+    }
+
+    @Test
+    void testChangedSection() throws IOException {
+        final List<String> sources = getSources(SCRIPT.replace("\"quit\"", "\"left\""));
+        assertArrayEquals(new int[]{0, -1, 2}, ScriptLoader.matchSections(sources, getSources(SCRIPT)));
+    }
+
+    @Test
+    void testRemovedSection() throws IOException {
+        final List<String> sources = getSources(SCRIPT.replace("on quit:\n\tbroadcast \"quit\"\n\n", ""));
+        assertArrayEquals(new int[]{0, 2}, ScriptLoader.matchSections(sources, getSources(SCRIPT)));
+    }
+
+    @Test
+    void testDuplicatedSections() {
+        final List<String> old = Arrays.asList("a", "b", "a");
+        assertArrayEquals(new int[]{0, 2, -1}, ScriptLoader.matchSections(Arrays.asList("a", "a", "a"), old));
+        assertArrayEquals(new int[]{1, 0}, ScriptLoader.matchSections(Arrays.asList("b", "a"), old));
+    }
+
+}
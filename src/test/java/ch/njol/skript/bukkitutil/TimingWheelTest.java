@@ -0,0 +1,81 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.bukkitutil;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SuppressWarnings("static-method")
+final class TimingWheelTest {
+
+    @Test
+    void testTasksRunAtTheirTick() {
+        final TimingWheel wheel = new TimingWheel();
+        final long[] delays = {0L, 1L, 2L, 63L, 64L, 65L, 4095L, 4096L, 4097L, 262_143L, 262_144L, 300_000L, (1L << 24) + 5L};
+        final long[] now = {0L};
+        final Map<Long, Long> ranAt = new HashMap<>();
+
+        // Start at an unaligned tick, so the first slots of each level are not empty
+        for (int i = 0; i < 100; i++) {
+            wheel.tick();
+            now[0]++;
+        }
+        for (final long delay : delays)
+            wheel.schedule(() -> ranAt.put(delay, now[0]), delay);
+        assertEquals(delays.length, wheel.size());
+
+        final long start = now[0];
+        while (wheel.size() != 0) {
+            now[0]++;
+            wheel.tick();
+        }
+
+        for (final long delay : delays)
+            assertEquals(start + Math.max(delay, 1L), ranAt.get(delay).longValue(), "delay " + delay);
+    }
+
+    @Test
+    void testTasksScheduledWhileRunning() {
+        final TimingWheel wheel = new TimingWheel();
+        final int[] runs = {0};
+        wheel.schedule(new Runnable() {
+            @Override
+            public void run() {
+                if (++runs[0] < 10)
+                    wheel.schedule(this, 100L);
+            }
+        }, 100L);
+
+        for (int i = 0; i < 999; i++)
+            wheel.tick();
+        assertEquals(9, runs[0]);
+        wheel.tick();
+        assertEquals(10, runs[0]);
+        assertEquals(0, wheel.size());
+    }
+
+}
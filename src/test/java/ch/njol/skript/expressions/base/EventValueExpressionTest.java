@@ -0,0 +1,63 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.expressions.base;
+
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+final class EventValueExpressionTest {
+
+    private static final class TestEvent extends Event {
+        @Override
+        public HandlerList getHandlers() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static final class OverridingExpression extends EventValueExpression<String> {
+        OverridingExpression() {
+            super(String.class);
+        }
+
+        @Override
+        @Nullable
+        protected String[] get(final Event e) {
+            return new String[]{"overridden"};
+        }
+    }
+
+    @SuppressWarnings("static-method")
+    @Test
+    void testGetSingle() {
+        final Event e = new TestEvent();
+        // no getter is registered for the event, so the event value is null
+        assertNull(new EventValueExpression<>(String.class).getSingle(e));
+        assertEquals("overridden", new OverridingExpression().getSingle(e), "getSingle must use an overridden get");
+    }
+
+}
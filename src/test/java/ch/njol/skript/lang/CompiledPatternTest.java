@@ -0,0 +1,230 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.lang;
+
+import ch.njol.skript.lang.CompiledPattern.Kind;
+import ch.njol.skript.lang.SkriptParser.MalformedPatternException;
+import ch.njol.skript.lang.SkriptParser.ParseCacheKey;
+import ch.njol.skript.lang.SkriptParser.ParseResult;
+import ch.njol.skript.log.LogEntry;
+import ch.njol.skript.log.ParseLogHandler;
+import ch.njol.skript.log.SkriptLogger;
+import ch.njol.util.Kleenean;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings({"static-method", "null"})
+final class CompiledPatternTest {
+
+    public static final class Element implements SyntaxElement {
+        @Override
+        public boolean init(final Expression<?>[] exprs, final int matchedPattern, final Kleenean isDelayed, final ParseResult parseResult) {
+            return true;
+        }
+    }
+
+    @Test
+    void testCompile() {
+        final CompiledPattern pattern = CompiledPattern.compile("set [the] %objects% to %-objects%");
+        assertEquals(0, pattern.start);
+        assertEquals(2, pattern.expressionCount);
+        assertArrayEquals(new String[]{"objects", "-objects"}, pattern.expressions);
+
+        assertEquals(Kind.LITERAL, pattern.nodes[0].kind);
+        assertEquals("set", pattern.nodes[0].literal);
+        assertEquals(Kind.OPTIONAL, pattern.nodes[4].kind);
+        assertEquals(5, pattern.nodes[4].targets[0]);
+        assertEquals(9, pattern.nodes[4].next, "The closing bracket must be skipped");
+        assertNull(pattern.nodes[8], "The parser never continues at a closing bracket");
+
+        final CompiledPattern.Node first = pattern.nodes[10], second = pattern.nodes[23];
+        assertEquals(Kind.EXPRESSION, first.kind);
+        assertEquals("objects", first.name);
+        assertEquals(0, first.index);
+        assertFalse(first.last);
+        assertEquals(Kind.EXPRESSION, second.kind);
+        assertEquals("-objects", second.name);
+        assertEquals(1, second.index);
+        assertTrue(second.last);
+        assertEquals(Kind.END, pattern.nodes[pattern.pattern.length()].kind);
+    }
+
+    @Test
+    void testCompileChoice() {
+        final CompiledPattern pattern = CompiledPattern.compile("(1¦one|2¦two|three)");
+        final CompiledPattern.Node choice = pattern.nodes[0];
+        assertEquals(Kind.CHOICE, choice.kind);
+        assertArrayEquals(new int[]{3, 9, 13}, choice.targets, "The marks must be skipped");
+        assertArrayEquals(new int[]{1, 2, 0}, choice.marks);
+        assertEquals(Kind.PIPE, pattern.nodes[6].kind);
+        assertEquals(pattern.pattern.length(), pattern.nodes[6].next);
+    }
+
+    @Test
+    void testMalformedPatternsCompile() {
+        for (final String malformed : new String[]{"a [b", "a (b|c", "a %b", "<[a>", "a\\"})
+            assertNotNull(CompiledPattern.compile(malformed), malformed);
+        // the error is thrown once the parser reaches the malformed part
+        assertThrows(MalformedPatternException.class, () -> SkriptParser.parse("a", "a [b"));
+        assertNotNull(SkriptParser.parse("a b", "a [b"));
+    }
+
+    @Test
+    void testMalformedRegex() {
+        final CompiledPattern pattern = CompiledPattern.compile("a <[a>");
+        assertEquals(Kind.MALFORMED, pattern.nodes[2].kind);
+        assertThrows(MalformedPatternException.class, () -> SkriptParser.parse("a b", "a <[a>"));
+        // a malformed regex must not prevent registering the element
+        assertNotNull(new SyntaxElementInfo<>(new String[]{"a <[a>", "b"}, Element.class).getCompiledPattern(0));
+    }
+
+    @Test
+    void testLiterals() {
+        assertNotNull(SkriptParser.parse("Hello World", "hello world"));
+        assertNotNull(SkriptParser.parse("x(y", "x\\(y"));
+        assertNull(SkriptParser.parse("hello", "hello world"));
+        assertNull(SkriptParser.parse("hello world again", "hello world"));
+    }
+
+    @Test
+    void testOptional() {
+        assertNotNull(SkriptParser.parse("give the apple", "give [the] apple"));
+        assertNotNull(SkriptParser.parse("give apple", "give [the] apple"));
+        assertNull(SkriptParser.parse("give a apple", "give [the] apple"));
+    }
+
+    @Test
+    void testChoiceMarks() {
+        assertEquals(1, SkriptParser.parse("one", "(1¦one|2¦two|three)").mark);
+        assertEquals(2, SkriptParser.parse("TWO", "(1¦one|2¦two|three)").mark);
+        assertEquals(0, SkriptParser.parse("three", "(1¦one|2¦two|three)").mark);
+        assertNull(SkriptParser.parse("four", "(1¦one|2¦two|three)"));
+        // the marks of all matched choices are XORed
+        assertEquals(6, SkriptParser.parse("b c", "(1¦a|2¦b) (4¦c|d)").mark);
+        assertEquals(1, SkriptParser.parse("a d", "(1¦a|2¦b) (4¦c|d)").mark);
+    }
+
+    @Test
+    void testPipeOutsideOfGroup() {
+        assertNotNull(SkriptParser.parse("a", "a|b"));
+        assertNull(SkriptParser.parse("c", "a|b"));
+    }
+
+    @Test
+    void testRegex() {
+        final ParseResult result = SkriptParser.parse("12 times", "<\\d+> times");
+        assertNotNull(result);
+        assertEquals(1, result.regexes.size());
+        assertEquals("12", result.regexes.get(0).group());
+        assertNull(SkriptParser.parse("x times", "<\\d+> times"));
+    }
+
+    @Test
+    void testExpressions() {
+        // an optional expression that isn't there is left null
+        final ParseResult result = SkriptParser.parse("teleport", "teleport [to %-location%]");
+        assertNotNull(result);
+        assertEquals(1, result.exprs.length);
+        assertNull(result.exprs[0]);
+        // an expression never matches an empty text
+        assertNull(SkriptParser.parse("kill", "kill %entity%"));
+        assertNull(SkriptParser.parse("here", "%-location% here"));
+    }
+
+    @Test
+    void testRequiredWords() {
+        assertArrayEquals(new String[]{"set", "to"}, CompiledPattern.compile("set [the] %objects% to %objects%").requiredWords);
+        assertArrayEquals(new String[]{"level", "of"}, CompiledPattern.compile("[the] (1¦food|2¦health) level of %players%").requiredWords);
+        assertArrayEquals(new String[]{"send"}, CompiledPattern.compile("send [message[s]] %strings% [to %commandsenders%]").requiredWords);
+        assertArrayEquals(new String[]{"foo"}, CompiledPattern.compile("<.+> foo").requiredWords);
+        assertEquals(new HashSet<>(Arrays.asList("hello", "world")), new HashSet<>(Arrays.asList(CompiledPattern.compile("Hello World").requiredWords)));
+        // patterns that could be matched in unexpected ways require nothing
+        for (final String pattern : new String[]{"a|b", "a [b", "x\\(y", "a %b", "(a|b) c)"})
+            assertArrayEquals(new String[0], CompiledPattern.compile(pattern).requiredWords, pattern);
+    }
+
+    @Test
+    void testMayMatch() {
+        final CompiledPattern pattern = CompiledPattern.compile("set [the] %objects% to %objects%");
+        assertTrue(pattern.mayMatch("set {x} to 5"));
+        assertFalse(pattern.mayMatch("add 5 to {x}"));
+        assertTrue(CompiledPattern.compile("a|b").mayMatch(""));
+
+        // the prefilter must never skip a pattern that matches
+        final String[] patterns = {"hello world", "give [the] apple", "(1¦one|2¦two|three)", "(1¦a|2¦b) (4¦c|d)", "a|b", "<\\d+> times", "teleport [to %-location%]", "x\\(y"};
+        final String[] texts = {"Hello World", "give apple", "give the apple", "TWO", "b c", "a d", "a", "12 times", "teleport", "x(y"};
+        for (final String pattern2 : patterns) {
+            for (final String text : texts) {
+                if (SkriptParser.parse(text, pattern2) != null)
+                    assertTrue(CompiledPattern.compile(pattern2).mayMatch(text.toLowerCase(Locale.ENGLISH)), pattern2 + " / " + text);
+            }
+        }
+    }
+
+    @Test
+    void testFailedParseMemo() {
+        SkriptParser.startParseCache();
+        try {
+            // a failed parse of 'abc' as the expression, it must not be parsed again but its error must be logged again
+            final LogEntry error = new LogEntry(SkriptLogger.SEVERE, "'abc' is not a test value");
+            ParserInstance.get().parseCache.put(new ParseCacheKey("abc", SkriptParser.getExprInfo("testvalue"), SkriptParser.PARSE_LITERALS, ParseContext.COMMAND), error);
+            final ParseLogHandler log = SkriptLogger.startParseLogHandler();
+            try {
+                assertNull(SkriptParser.parse("abc", "%testvalue%"));
+                assertNotNull(log.getError());
+                assertEquals(error.getMessage(), log.getError().getMessage());
+            } finally {
+                log.stop();
+            }
+        } finally {
+            SkriptParser.clearParseCache();
+        }
+        assertNull(ParserInstance.get().parseCache, "Failed parses must only be remembered while a line is parsed");
+    }
+
+    @Test
+    void testParseCacheKey() {
+        final SkriptParser.ExprInfo info = SkriptParser.getExprInfo("testvalue");
+        assertSame(info, SkriptParser.getExprInfo("testvalue"));
+        final ParseCacheKey key = new ParseCacheKey("abc", info, SkriptParser.PARSE_LITERALS, ParseContext.DEFAULT);
+        assertEquals(key, new ParseCacheKey("abc", info, SkriptParser.PARSE_LITERALS, ParseContext.DEFAULT));
+        assertEquals(key.hashCode(), new ParseCacheKey("abc", info, SkriptParser.PARSE_LITERALS, ParseContext.DEFAULT).hashCode());
+        assertFalse(key.equals(new ParseCacheKey("abd", info, SkriptParser.PARSE_LITERALS, ParseContext.DEFAULT)));
+        assertFalse(key.equals(new ParseCacheKey("abc", info, SkriptParser.PARSE_EXPRESSIONS, ParseContext.DEFAULT)));
+        assertFalse(key.equals(new ParseCacheKey("abc", info, SkriptParser.PARSE_LITERALS, ParseContext.COMMAND)));
+        assertFalse(key.equals(new ParseCacheKey("abc", SkriptParser.getExprInfo("-testvalue"), SkriptParser.PARSE_LITERALS, ParseContext.DEFAULT)));
+    }
+
+}
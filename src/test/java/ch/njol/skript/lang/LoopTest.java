@@ -0,0 +1,126 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.lang;
+
+import ch.njol.skript.config.Config;
+import ch.njol.skript.config.SectionNode;
+import ch.njol.skript.effects.Delay;
+import ch.njol.skript.lang.util.SimpleLiteral;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings("static-method")
+final class LoopTest {
+
+    private static final class TestEvent extends Event {
+        @Override
+        public HandlerList getHandlers() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    @Test
+    void testBudgetPerTick() {
+        final Event e = new TestEvent();
+        ExecutionFrame.run(null, () -> {
+            final ExecutionFrame frame = ExecutionFrame.get(e);
+            assertFalse(frame.isOverBudget(1L), "The budget must start with the first check in a tick");
+            final long start = System.nanoTime();
+            while (System.nanoTime() - start < 1000L)
+                Thread.yield();
+            assertTrue(frame.isOverBudget(1L));
+            Delay.continuations.tick();
+            assertFalse(frame.isOverBudget(1L), "The budget must start again in the next tick");
+        });
+    }
+
+    @Test
+    void testContinueLater() throws IOException {
+        Delay.continuations.clear();
+        final Event e = new TestEvent();
+        final SectionNode node = new SectionNode("loop 1, 2 and 3", "", new Config("", "test.sk", true, false, ":").getMainNode(), 1);
+        final Loop loop = new Loop(new SimpleLiteral<>(new Integer[]{1, 2, 3}, Integer.class, true), node);
+
+        final List<Object> values = new ArrayList<>();
+        final List<WeakReference<ExecutionFrame>> frames = new ArrayList<>();
+        loop.setTriggerItems(Collections.singletonList(new TriggerItem() {
+            @Override
+            @Nullable
+            protected TriggerItem walk(final Event event) {
+                values.add(loop.getCurrent(event));
+                frames.add(new WeakReference<>(ExecutionFrame.current()));
+                if (values.size() == 1) { // the time budget is used up in the first iteration
+                    loop.continueLater(event);
+                    return null;
+                }
+                return getNext();
+            }
+
+            @Override
+            protected boolean run(final Event event) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public String toString(@Nullable final Event event, final boolean debug) {
+                return "record loop-value";
+            }
+        }));
+
+        TriggerItem.walk(loop, e);
+        assertEquals(Collections.singletonList(1), values);
+        assertNull(ExecutionFrame.current(), "The suspended execution must not leave its frame on the thread");
+        assertTrue(Delay.isDelayed(e));
+        assertEquals(1, Delay.continuations.size());
+
+        Delay.continuations.tick();
+        assertEquals(Arrays.asList(1, 2, 3), values, "The loop must continue where it was suspended");
+        assertNotNull(frames.get(0).get());
+        for (final WeakReference<ExecutionFrame> frame : frames)
+            assertSame(frames.get(0).get(), frame.get(), "The continued execution must use the frame of the suspended one");
+        assertNull(ExecutionFrame.current());
+        assertEquals(0, Delay.continuations.size());
+
+        // Only the continuation referenced the frame, so it's gone once the loop ended
+        for (int i = 0; i < 20 && frames.get(0).get() != null; i++)
+            System.gc();
+        assertNull(frames.get(0).get(), "The frame must not be retained after the loop ended");
+    }
+
+}
@@ -0,0 +1,235 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.lang;
+
+import ch.njol.skript.config.Config;
+import ch.njol.skript.config.Node;
+import ch.njol.skript.lang.SkriptParser.ParseResult;
+import ch.njol.skript.log.SkriptLogger;
+import ch.njol.util.Kleenean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings({"static-method", "null"})
+final class ParseHintsTest {
+
+    private static final byte[] FINGERPRINT = {1, 2, 3};
+    private static final ParseHints.Key KEY = new ParseHints.Key(2, SkriptParser.ALL_FLAGS, ParseContext.DEFAULT, "test");
+
+    static final List<Class<?>> tried = new ArrayList<>();
+    static boolean acceptFirst, acceptSecond;
+
+    public static final class First implements SyntaxElement {
+        @Override
+        public boolean init(final Expression<?>[] exprs, final int matchedPattern, final Kleenean isDelayed, final ParseResult parseResult) {
+            tried.add(First.class);
+            return acceptFirst;
+        }
+    }
+
+    public static final class Second implements SyntaxElement {
+        @Override
+        public boolean init(final Expression<?>[] exprs, final int matchedPattern, final Kleenean isDelayed, final ParseResult parseResult) {
+            tried.add(Second.class);
+            return acceptSecond;
+        }
+    }
+
+    private File dir, cache, script, functionScript;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("parse-hints").toFile();
+        cache = new File(dir, "parse-cache.dat");
+        script = write("script.sk", "on load:\n\ttest\n");
+        functionScript = write("functions.sk", "function foo():\n\tstop\n");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ParserInstance.get().setParseHints(null);
+        SkriptLogger.setNode(null);
+        for (final File file : dir.listFiles())
+            file.delete();
+        dir.delete();
+    }
+
+    private File write(final String name, final String content) throws IOException {
+        final File file = new File(dir, name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    /**
+     * Loads both scripts with an empty cache, records a hint for the other script and saves the cache.
+     */
+    private void record() throws IOException {
+        ParseHints.read(cache, FINGERPRINT);
+        ParseHints.get(functionScript);
+        ParseHints.loadedFunction("foo", "foo()", functionScript.getAbsolutePath());
+        ParseHints.get(script).record(KEY, Second.class, 0);
+        ParseHints.save(cache);
+        assertTrue(cache.exists());
+    }
+
+    @Test
+    void testSaveAndRead() throws IOException {
+        record();
+        ParseHints.read(cache, FINGERPRINT);
+        ParseHints.loadedFunction("foo", "foo()", functionScript.getAbsolutePath());
+        final List<ParseHints.Hint> hints = ParseHints.get(script).get(KEY);
+        assertNotNull(hints);
+        assertEquals(1, hints.size());
+        assertEquals(Second.class.getName(), hints.get(0).className);
+        assertEquals(0, hints.get(0).pattern);
+        assertNull(ParseHints.get(script).get(new ParseHints.Key(3, SkriptParser.ALL_FLAGS, ParseContext.DEFAULT, "test")));
+    }
+
+    @Test
+    void testLongLine() throws IOException {
+        final ParseHints.Key longKey = new ParseHints.Key(3, SkriptParser.ALL_FLAGS, ParseContext.DEFAULT, String.join("", Collections.nCopies(70000, "a")));
+        ParseHints.read(cache, FINGERPRINT);
+        ParseHints.get(script).record(longKey, First.class, 0);
+        ParseHints.get(script).record(KEY, Second.class, 0);
+        ParseHints.save(cache);
+        assertEquals(Collections.singletonList(cache), Arrays.asList(dir.listFiles((d, name) -> name.startsWith(cache.getName()))));
+
+        ParseHints.read(cache, FINGERPRINT);
+        assertNull(ParseHints.get(script).get(longKey));
+        assertNotNull(ParseHints.get(script).get(KEY), "The hints of other lines must be saved");
+
+        assertTrue(ParseHints.isWritable(String.join("", Collections.nCopies(30000, "\u00e9"))));
+        assertFalse(ParseHints.isWritable(String.join("", Collections.nCopies(40000, "\u00e9"))));
+        assertFalse(ParseHints.isWritable(String.join("", Collections.nCopies(40000, "\0"))));
+    }
+
+    @Test
+    void testFingerprintChanged() throws IOException {
+        record();
+        ParseHints.read(cache, new byte[]{1, 2, 4});
+        assertNull(ParseHints.get(script).get(KEY));
+    }
+
+    @Test
+    void testScriptChanged() throws IOException {
+        record();
+        write("script.sk", "on load:\n\ttest\n\ttest\n");
+        ParseHints.read(cache, FINGERPRINT);
+        assertNull(ParseHints.get(script).get(KEY));
+    }
+
+    @Test
+    void testFunctionScriptChanged() throws IOException {
+        record();
+        write("functions.sk", "function foo(x: number):\n\tstop\n");
+        ParseHints.read(cache, FINGERPRINT);
+        assertNull(ParseHints.get(script).get(KEY), "The hints must be discarded even if the changed script is loaded after the others");
+    }
+
+    @Test
+    void testFunctionScriptRemoved() throws IOException {
+        record();
+        functionScript.delete();
+        ParseHints.read(cache, FINGERPRINT);
+        assertNull(ParseHints.get(script).get(KEY));
+    }
+
+    @Test
+    void testFunctionChanged() throws IOException {
+        record();
+        ParseHints.read(cache, FINGERPRINT);
+        final ParseHints hints = ParseHints.get(script);
+        assertNotNull(hints.get(KEY));
+        ParseHints.loadedFunction("foo", "foo(x: number)", functionScript.getAbsolutePath());
+        assertNull(hints.get(KEY), "The hints of scripts which are being loaded must be discarded too");
+        assertNull(ParseHints.get(script).get(KEY));
+    }
+
+    @Test
+    void testFunctionMoved() throws IOException {
+        record();
+        ParseHints.read(cache, FINGERPRINT);
+        ParseHints.loadedFunction("foo", "foo()", script.getAbsolutePath());
+        assertNull(ParseHints.get(script).get(KEY));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static SyntaxElement parse() {
+        final List<SyntaxElementInfo<SyntaxElement>> infos = Arrays.asList(
+            new SyntaxElementInfo<>(new String[]{"test"}, (Class) First.class),
+            new SyntaxElementInfo<>(new String[]{"test"}, (Class) Second.class));
+        tried.clear();
+        return SkriptParser.parse("test", infos.iterator(), null);
+    }
+
+    @Test
+    void testReplay() throws IOException {
+        final Config config = new Config("on load:\n\ttest\n", "script.sk", true, false, ":");
+        final Node node = config.getMainNode().get("on load");
+        SkriptLogger.setNode(node);
+
+        // The first element doesn't match when the hints are recorded
+        ParseHints.read(cache, FINGERPRINT);
+        ParserInstance.get().setParseHints(ParseHints.get(script));
+        acceptFirst = false;
+        acceptSecond = true;
+        assertTrue(parse() instanceof Second);
+        assertEquals(Arrays.asList(First.class, Second.class), tried);
+        ParseHints.save(cache);
+
+        // The hinted element is tried first
+        ParseHints.read(cache, FINGERPRINT);
+        ParserInstance.get().setParseHints(ParseHints.get(script));
+        assertTrue(parse() instanceof Second);
+        assertEquals(Arrays.asList(Second.class), tried);
+
+        // All elements are tried in order if the hinted element doesn't match anymore
+        acceptFirst = true;
+        acceptSecond = false;
+        assertTrue(parse() instanceof First);
+        assertEquals(Arrays.asList(Second.class, First.class), tried);
+
+        // All elements are tried in order if a function changed
+        ParseHints.loadedFunction("foo", "foo()", functionScript.getAbsolutePath());
+        acceptSecond = true;
+        assertTrue(parse() instanceof First);
+        assertEquals(Arrays.asList(First.class), tried);
+    }
+
+}
@@ -0,0 +1,222 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.variables;
+
+import ch.njol.skript.variables.DatabaseStorage.LoggedChange;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Two servers sharing one SQLite database, each with its own connection and storage.
+ */
+@SuppressWarnings({"static-method", "null"})
+final class DatabaseStorageTest {
+
+    private static final long NOW = 1000000L;
+
+    private File file;
+    private Connection firstConnection, secondConnection;
+    private final StatementCache firstStatements = new StatementCache(), secondStatements = new StatementCache();
+    private DatabaseStorage first, second;
+
+    @BeforeEach
+    void setUp() throws IOException, SQLException {
+        file = File.createTempFile("variables", ".db");
+        firstConnection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+        secondConnection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+        try (final Statement statement = firstConnection.createStatement()) {
+            statement.executeUpdate(DatabaseStorage.Type.SQLITE.createQuery);
+            for (final String query : DatabaseStorage.Type.SQLITE.changeLogQueries)
+                statement.executeUpdate(query);
+        }
+        first = new DatabaseStorage("first", DatabaseStorage.Type.SQLITE);
+        second = new DatabaseStorage("second", DatabaseStorage.Type.SQLITE);
+        first.monitor = second.monitor = true;
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        firstStatements.invalidate();
+        secondStatements.invalidate();
+        firstConnection.close();
+        secondConnection.close();
+        file.delete();
+    }
+
+    private void saveFirst(final String name, @Nullable final String value) throws SQLException {
+        first.write(firstConnection, firstStatements, name, value == null ? null : "string", value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void saveSecond(final String name, @Nullable final String value) throws SQLException {
+        second.write(secondConnection, secondStatements, name, value == null ? null : "string", value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Logs a change with the given sequence number, to simulate changes whose transaction is committed later than that of changes after them.
+     */
+    private void log(final long seq, final String name) throws SQLException {
+        try (final PreparedStatement statement = firstConnection.prepareStatement("INSERT INTO variables21_changes (seq, name, type, value, update_guid) VALUES (?, ?, NULL, NULL, ?)")) {
+            statement.setLong(1, seq);
+            statement.setString(2, name);
+            statement.setString(3, first.guid);
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * @return The names of the variables the first server would apply
+     */
+    private List<String> checkFirst(final long now) throws SQLException {
+        return names(first.checkChangeLog(firstConnection, firstStatements, now));
+    }
+
+    /**
+     * @return The names of the variables the second server would apply
+     */
+    private List<String> checkSecond(final long now) throws SQLException {
+        return names(second.checkChangeLog(secondConnection, secondStatements, now));
+    }
+
+    private static List<String> names(final List<LoggedChange> changes) {
+        final List<String> names = new ArrayList<>();
+        for (final LoggedChange change : changes)
+            names.add(change.name);
+        return names;
+    }
+
+    private static void updateCursor(final Connection con, final DatabaseStorage storage, final long time) throws SQLException {
+        try (final PreparedStatement updateCursorQuery = con.prepareStatement(DatabaseStorage.UPDATE_CURSOR_QUERY)) {
+            storage.updateCursor(updateCursorQuery, time);
+        }
+    }
+
+    private int countVariables() throws SQLException {
+        try (final Statement statement = firstConnection.createStatement(); final ResultSet r = statement.executeQuery("SELECT COUNT(*) FROM variables21")) {
+            r.next();
+            return r.getInt(1);
+        }
+    }
+
+    private List<Long> getLoggedChanges() throws SQLException {
+        final List<Long> seqs = new ArrayList<>();
+        try (final Statement statement = firstConnection.createStatement(); final ResultSet r = statement.executeQuery("SELECT seq FROM variables21_changes ORDER BY seq")) {
+            while (r.next())
+                seqs.add(r.getLong(1));
+        }
+        return seqs;
+    }
+
+    @Test
+    void testPropagation() throws SQLException {
+        saveFirst("a", "1");
+        saveSecond("b", "2");
+        assertEquals(2, countVariables());
+        saveFirst("a", null);
+        assertEquals(1, countVariables());
+
+        assertEquals(Arrays.asList("a", "a"), checkSecond(NOW), "A server must apply the changes of other servers, including deletions");
+        assertEquals(3, second.changeCursor);
+        assertEquals(Collections.singletonList("b"), checkFirst(NOW), "A server must not apply its own changes");
+        assertEquals(3, first.changeCursor);
+
+        assertEquals(Collections.emptyList(), checkSecond(NOW));
+        saveFirst("c", "3");
+        assertEquals(Collections.singletonList("c"), checkSecond(NOW));
+        assertEquals(4, second.changeCursor);
+    }
+
+    @Test
+    void testGap() throws SQLException {
+        log(1, "a");
+        log(3, "c");
+
+        // the cursor stays before the missing change, but the changes after it are only applied once
+        assertEquals(Arrays.asList("a", "c"), checkSecond(NOW));
+        assertEquals(1, second.changeCursor);
+        assertEquals(Collections.emptyList(), checkSecond(NOW + 1000));
+        assertEquals(1, second.changeCursor);
+
+        // the missing change is applied when its transaction is committed
+        log(2, "b");
+        assertEquals(Collections.singletonList("b"), checkSecond(NOW + 2000));
+        assertEquals(3, second.changeCursor);
+
+        // a change that never appears (e.g. because its transaction was rolled back) is skipped after a while
+        log(5, "e");
+        assertEquals(Collections.singletonList("e"), checkSecond(NOW + 3000));
+        assertEquals(3, second.changeCursor);
+        assertEquals(Collections.emptyList(), checkSecond(NOW + 3000 + DatabaseStorage.GAP_TIMEOUT));
+        assertEquals(3, second.changeCursor);
+        assertEquals(Collections.emptyList(), checkSecond(NOW + 3001 + DatabaseStorage.GAP_TIMEOUT));
+        assertEquals(5, second.changeCursor);
+    }
+
+    @Test
+    void testPrune() throws SQLException {
+        final long now = System.currentTimeMillis();
+        // both servers register their position when they load the variables
+        updateCursor(firstConnection, first, now);
+        updateCursor(secondConnection, second, now);
+
+        saveFirst("a", "1");
+        saveFirst("b", "2");
+        saveFirst("c", "3");
+        checkFirst(now);
+        assertEquals(3, first.changeCursor);
+        assertEquals(Arrays.asList(1L, 2L, 3L), getLoggedChanges(), "Changes another server hasn't seen yet must be kept");
+
+        checkSecond(now);
+        assertEquals(Collections.emptyList(), getLoggedChanges(), "Changes all servers have seen must be removed");
+
+        // the log is pruned at most once per interval
+        saveFirst("d", "4");
+        checkFirst(now);
+        checkSecond(now);
+        assertEquals(Collections.singletonList(4L), getLoggedChanges());
+
+        // a server that hasn't checked the database for a long time doesn't hold back pruning
+        saveFirst("e", "5");
+        updateCursor(secondConnection, second, 0L);
+        checkFirst(now + 60001);
+        assertEquals(Collections.emptyList(), getLoggedChanges());
+    }
+
+}
@@ -22,18 +22,13 @@
 
 package ch.njol.skript.variables;
 
-import ch.njol.skript.Skript;
 import org.eclipse.jdt.annotation.Nullable;
 import org.junit.jupiter.api.Test;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.Arrays;
-import java.util.function.Function;
 
 import static kotlin.test.AssertionsKt.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.fail;
 
 /**
  * @author Peter Güttinger
@@ -41,28 +36,16 @@ import static org.junit.jupiter.api.Assertions.fail;
 final class FlatFileStorageTest {
 
     private static final String encode(final byte[] data) {
-        try {
-            return (String) Skript.invoke(FlatFileStorage.class.getDeclaredMethod("encode", byte[].class), (Function<Method, Method>) Skript::setAccessible).invoke(null, new Object[]{data});
-        } catch (final InvocationTargetException | IllegalAccessException | NoSuchMethodException e) {
-            return fail(e);
-        }
+        return VariablesCSV.encode(data);
     }
 
     private static final byte[] decode(final CharSequence hex) {
-        try {
-            return (byte[]) Skript.invoke(FlatFileStorage.class.getDeclaredMethod("decode", CharSequence.class), (Function<Method, Method>) Skript::setAccessible).invoke(null, hex);
-        } catch (final InvocationTargetException | IllegalAccessException | NoSuchMethodException e) {
-            return fail(e);
-        }
+        return VariablesCSV.decode(hex);
     }
 
     @Nullable
     private static final String[] splitCSV(final CharSequence line) {
-        try {
-            return (String[]) Skript.invoke(FlatFileStorage.class.getDeclaredMethod("splitCSV", CharSequence.class), (Function<Method, Method>) Skript::setAccessible).invoke(null, line);
-        } catch (final InvocationTargetException | IllegalAccessException | NoSuchMethodException e) {
-            return fail(e);
-        }
+        return new VariablesCSV().split(line);
     }
 
     @SuppressWarnings("static-method")
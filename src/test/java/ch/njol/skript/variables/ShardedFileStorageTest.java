@@ -0,0 +1,187 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.variables;
+
+import ch.njol.skript.Skript;
+import ch.njol.skript.lang.Variable;
+import ch.njol.skript.util.Version;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class ShardedFileStorageTest {
+
+    @SuppressWarnings("static-method")
+    @Test
+    void testShards() {
+        for (final int shards : new int[] {1, 2, 16, ShardedFileStorage.MAX_SHARDS}) {
+            for (final String name : new String[] {"", "a", "list", "player::uuid", "-5", "äöü"}) {
+                final int shard = ShardedFileStorage.getShard(name, shards);
+                assertTrue(shard >= 0 && shard < shards, name + ": " + shard);
+                // all elements of a list must be stored in the same shard as the list
+                assertEquals(shard, ShardedFileStorage.getShard(name + "::1", shards), name);
+                assertEquals(shard, ShardedFileStorage.getShard(name + "::a::b", shards), name);
+            }
+        }
+        // the shard of a variable must never change between restarts
+        assertEquals(Math.floorMod("list".hashCode(), 16), ShardedFileStorage.getShard("list::1", 16));
+    }
+
+    /**
+     * Stores the loaded variables as strings, in the same structure as {@link Variables#getVariables()} for lists one level deep.
+     */
+    private static final class TestHandler implements ShardedFileStorage.VariableHandler {
+
+        final TreeMap<String, Object> variables = new TreeMap<>();
+
+        TestHandler() {}
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public boolean loaded(final String name, @Nullable final SerializedVariable.Value value) {
+            final int i = name.indexOf(Variable.SEPARATOR);
+            final String element = value == null ? null : new String(value.data, StandardCharsets.UTF_8);
+            if (i == -1) {
+                if (element == null)
+                    variables.remove(name);
+                else
+                    variables.put(name, element);
+                return true;
+            }
+            final TreeMap<String, Object> list = (TreeMap<String, Object>) variables.computeIfAbsent(name.substring(0, i), k -> new TreeMap<>());
+            final String index = name.substring(i + Variable.SEPARATOR.length());
+            if (element == null)
+                list.remove(index);
+            else
+                list.put(index, element);
+            return true;
+        }
+
+        @Override
+        public SerializedVariable.Value serialize(final String name, final Object value) {
+            return new SerializedVariable.Value("string", ((String) value).getBytes(StandardCharsets.UTF_8));
+        }
+
+    }
+
+    private static void save(final ShardedFileStorage storage, final String name, @Nullable final String value) {
+        assertTrue(storage.save(name, value == null ? null : "string", value == null ? null : value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Loads the variables of the given folder with a new storage.
+     */
+    private static Map<String, Object> load(final File directory, final int shards) {
+        final TestHandler handler = new TestHandler();
+        final ShardedFileStorage storage = new ShardedFileStorage("test", handler);
+        assertTrue(storage.load(directory, shards));
+        return handler.variables;
+    }
+
+    /**
+     * @return The amount of variables written to the given file, including overwritten and deleted ones
+     */
+    private static int countLines(final File f) throws IOException {
+        int lines = 0;
+        for (final String line : Files.readAllLines(f.toPath(), StandardCharsets.UTF_8)) {
+            if (!line.isEmpty() && line.charAt(0) != '#')
+                lines++;
+        }
+        return lines;
+    }
+
+    @SuppressWarnings("static-method")
+    @Test
+    void testRoundTrip() throws IOException {
+        if (Skript.version == null)
+            Skript.version = new Version(2, 5); // written to the header of compacted shards
+        final File directory = Files.createTempDirectory("variables").toFile();
+        try {
+            // appended changes are replayed when loading, including deletions
+            TestHandler handler = new TestHandler();
+            ShardedFileStorage storage = new ShardedFileStorage("test", handler);
+            assertTrue(storage.load(directory, 4));
+            assertTrue(storage.connect());
+            save(storage, "a", "1");
+            save(storage, "list::1", "2");
+            save(storage, "list::2", "3");
+            save(storage, "b", "4");
+            save(storage, "list::1", null);
+            save(storage, "b", null);
+            save(storage, "a", "5");
+            storage.disconnect();
+
+            final Map<String, Object> expected = new TreeMap<>();
+            expected.put("a", "5");
+            final TreeMap<String, Object> list = new TreeMap<>();
+            list.put("2", "3");
+            expected.put("list", list);
+            assertEquals(expected, load(directory, 4));
+
+            // compacting only keeps the current values of the changed shards, and changes appended afterwards are kept as well
+            final File listShard = new File(directory, "variables-" + ShardedFileStorage.getShard("list", 4) + ".csv");
+            assertEquals(5, countLines(listShard));
+            handler = new TestHandler();
+            storage = new ShardedFileStorage("test", handler);
+            assertTrue(storage.load(directory, 4));
+            assertTrue(storage.connect());
+            save(storage, "list::3", "6");
+            handler.loaded("list::3", handler.serialize("list::3", "6"));
+            assertTrue(storage.compact(handler.variables, false));
+            assertEquals(2, countLines(listShard));
+            save(storage, "d", "7");
+            storage.disconnect();
+            list.put("3", "6");
+            expected.put("d", "7");
+            assertEquals(expected, load(directory, 4));
+
+            // changing the amount of shards moves the variables and deletes the files of removed shards once all shards have been rewritten
+            handler = new TestHandler();
+            storage = new ShardedFileStorage("test", handler);
+            assertTrue(storage.load(directory, 2));
+            assertEquals(expected, handler.variables);
+            assertTrue(storage.connect());
+            assertTrue(storage.compact(handler.variables, false));
+            storage.disconnect();
+            assertFalse(listShard.exists());
+            assertEquals(3, countLines(new File(directory, "variables-" + ShardedFileStorage.getShard("list", 2) + ".csv")));
+            assertEquals(expected, load(directory, 2));
+        } finally {
+            for (final File f : directory.listFiles())
+                f.delete();
+            directory.delete();
+        }
+    }
+
+}
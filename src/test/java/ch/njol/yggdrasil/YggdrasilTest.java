@@ -31,6 +31,7 @@ import org.junit.jupiter.api.Test;
 import java.io.*;
 import java.lang.reflect.Array;
 import java.util.*;
+import java.util.concurrent.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -70,6 +71,7 @@ public final class YggdrasilTest {
                 return null;
             }
         });
+        y.closeRegistrations();
     }
 
     // random objects
@@ -214,6 +216,42 @@ public final class YggdrasilTest {
         }
     }
 
+    @Test
+    void testConcurrent() throws InterruptedException, ExecutionException {
+        final int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        final ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<?>> results = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 50; i++) {
+                        for (final Object o : random) {
+                            final byte[] d = save(o);
+                            final Object l = load(d);
+                            assertTrue(equals(o, l), () -> o.getClass().getName() + ": " + toString(o) + " <> " + toString(l));
+                            assertTrue(equals(d, save(l)), () -> o.getClass().getName() + ": " + toString(o));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (final Future<?> f : results)
+                f.get();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @SuppressWarnings("static-method")
+    @Test
+    void testClosedRegistrations() {
+        assertFalse(y.isAcceptRegistrations());
+        assertThrows(YggdrasilException.class, () -> y.registerSingleClass(UnmodifiedClass.class, "unmodified"));
+    }
+
     @SuppressWarnings("static-method")
     @Test
     void testKeepReferences() throws IOException {